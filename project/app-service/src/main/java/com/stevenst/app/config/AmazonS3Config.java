@@ -1,10 +1,18 @@
 package com.stevenst.app.config;
 
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+
+import com.stevenst.lib.service.PresignedUrlService;
+import com.stevenst.lib.service.impl.PresignedUrlServiceImpl;
+
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
 @Configuration
 public class AmazonS3Config {
@@ -16,4 +24,22 @@ public class AmazonS3Config {
 				.credentialsProvider(DefaultCredentialsProvider.create())
 				.build();
 	}
+
+	// a presigner holds its own credentials provider and http resources so it is built once and shared
+	@Bean(destroyMethod = "close")
+	S3Presigner s3Presigner() {
+		return S3Presigner.builder()
+				.region(Region.EU_CENTRAL_1)
+				.credentialsProvider(DefaultCredentialsProvider.create())
+				.build();
+	}
+
+	@Bean
+	PresignedUrlService presignedUrlService(S3Presigner s3Presigner,
+			@Value("${aws.bucketName}") String bucketName,
+			@Value("${app.s3.presigned-url-duration:60m}") Duration signatureDuration,
+			@Value("${app.s3.presigned-url-cache-ttl:50m}") Duration cacheTtl,
+			@Value("${app.s3.presigned-url-cache-max-size:10000}") long cacheMaxSize) {
+		return new PresignedUrlServiceImpl(s3Presigner, bucketName, signatureDuration, cacheTtl, cacheMaxSize);
+	}
 }
@@ -0,0 +1,16 @@
+package com.stevenst.app.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.stevenst.lib.util.SnowflakeIdGenerator;
+
+@Configuration
+public class ChatConfig {
+	// every node of the app must use a different node id so the ids of the messages don't collide
+	@Bean
+	SnowflakeIdGenerator chatMessageIdGenerator(@Value("${app.chat.node-id:0}") long nodeId) {
+		return new SnowflakeIdGenerator(nodeId);
+	}
+}
@@ -0,0 +1,17 @@
+package com.stevenst.app.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.stevenst.lib.util.SnowflakeIdGenerator;
+
+@Configuration
+public class PostConfig {
+	// the ids of the posts are assigned before their media are uploaded since the keys of the media contain them
+	// every node of the app must use a different node id (the one of the chat by default) so the ids don't collide
+	@Bean
+	SnowflakeIdGenerator postIdGenerator(@Value("${app.posts.node-id:${app.chat.node-id:0}}") long nodeId) {
+		return new SnowflakeIdGenerator(nodeId);
+	}
+}
@@ -0,0 +1,20 @@
+package com.stevenst.app.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.stevenst.app.repository.UserRepository;
+import com.stevenst.lib.cache.UserIdentityCache;
+
+@Configuration
+public class UserIdentityCacheConfig {
+	@Bean
+	UserIdentityCache userIdentityCache(UserRepository userRepository,
+			@Value("${app.user-identity-cache.max-size:100000}") long maxSize,
+			@Value("${app.user-identity-cache.ttl:10m}") Duration ttl) {
+		return new UserIdentityCache(userRepository::findByUsername, maxSize, ttl);
+	}
+}
@@ -0,0 +1,48 @@
+package com.stevenst.app.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stevenst.lib.client.ServiceClientSettings;
+import com.stevenst.lib.client.UserServiceClient;
+import com.stevenst.lib.security.ServiceTokenIssuer;
+
+@Configuration
+public class UserServiceClientConfig {
+	// the calls carry a service token while the services authenticate their requests
+	@Bean
+	UserServiceClient userServiceClient(ObjectMapper objectMapper,
+			ObjectProvider<ServiceTokenIssuer> serviceTokenIssuer,
+			@Value("${app.user-service.base-url:http://localhost:8080}") String baseUrl,
+			@Value("${app.user-service.connect-timeout:2s}") Duration connectTimeout,
+			@Value("${app.user-service.request-timeout:5s}") Duration requestTimeout,
+			@Value("${app.user-service.max-retries:2}") int maxRetries,
+			@Value("${app.user-service.retry-backoff:100ms}") Duration retryBackoff,
+			@Value("${app.user-service.max-concurrent-calls:50}") int maxConcurrentCalls,
+			@Value("${app.user-service.bulkhead-wait-timeout:500ms}") Duration bulkheadWaitTimeout,
+			@Value("${app.user-service.circuit-breaker.failure-threshold:5}") int circuitBreakerFailureThreshold,
+			@Value("${app.user-service.circuit-breaker.open-duration:30s}") Duration circuitBreakerOpenDuration,
+			@Value("${app.user-service.cache-ttl:10s}") Duration cacheTtl,
+			@Value("${app.user-service.cache-max-size:10000}") long cacheMaxSize) {
+		ServiceTokenIssuer tokenIssuer = serviceTokenIssuer.getIfAvailable();
+
+		return new UserServiceClient(ServiceClientSettings.builder()
+				.baseUrl(baseUrl)
+				.connectTimeout(connectTimeout)
+				.requestTimeout(requestTimeout)
+				.maxRetries(maxRetries)
+				.retryBackoff(retryBackoff)
+				.maxConcurrentCalls(maxConcurrentCalls)
+				.bulkheadWaitTimeout(bulkheadWaitTimeout)
+				.circuitBreakerFailureThreshold(circuitBreakerFailureThreshold)
+				.circuitBreakerOpenDuration(circuitBreakerOpenDuration)
+				.cacheTtl(cacheTtl)
+				.cacheMaxSize(cacheMaxSize)
+				.bearerTokenSupplier(tokenIssuer != null ? tokenIssuer::getToken : null).build(), objectMapper);
+	}
+}
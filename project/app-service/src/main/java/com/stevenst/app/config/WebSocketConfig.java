@@ -1,9 +1,11 @@
 package com.stevenst.app.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
 
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
@@ -12,6 +14,30 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     private static final String ORIGIN = "http://localhost:4200";
+    private static final String TOPIC_PREFIX = "/topic";
+
+    // SIMPLE keeps the subscriptions in the memory of this node (a single node),
+    // RELAY forwards them to an external stomp broker shared by all the nodes
+    public enum BrokerMode {
+        SIMPLE, RELAY
+    }
+
+    @Value("${app.chat.broker.mode:simple}")
+    private BrokerMode brokerMode;
+    @Value("${app.chat.broker.relay.host:localhost}")
+    private String relayHost;
+    @Value("${app.chat.broker.relay.port:61613}")
+    private int relayPort;
+    @Value("${app.chat.broker.relay.client-login:guest}")
+    private String clientLogin;
+    @Value("${app.chat.broker.relay.client-passcode:guest}")
+    private String clientPasscode;
+    @Value("${app.chat.broker.relay.system-login:guest}")
+    private String systemLogin;
+    @Value("${app.chat.broker.relay.system-passcode:guest}")
+    private String systemPasscode;
+    @Value("${app.chat.broker.relay.virtual-host:}")
+    private String virtualHost;
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
@@ -20,7 +46,20 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        registry.enableSimpleBroker("/topic");
+        if (brokerMode == BrokerMode.RELAY) {
+            StompBrokerRelayRegistration relay = registry.enableStompBrokerRelay(TOPIC_PREFIX)
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(clientLogin)
+                    .setClientPasscode(clientPasscode)
+                    .setSystemLogin(systemLogin)
+                    .setSystemPasscode(systemPasscode);
+            if (!virtualHost.isBlank()) {
+                relay.setVirtualHost(virtualHost);
+            }
+        } else {
+            registry.enableSimpleBroker(TOPIC_PREFIX);
+        }
         registry.setApplicationDestinationPrefixes("/app");
     }
 }
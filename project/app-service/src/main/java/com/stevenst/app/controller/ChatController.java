@@ -12,9 +12,12 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.stevenst.lib.model.chat.ChatMessage;
+import com.stevenst.app.payload.ChatMessageCacheStatsPayload;
+import com.stevenst.app.payload.ChatroomParticipantPayload;
 import com.stevenst.app.payload.ChatroomPayload;
 import com.stevenst.app.service.ChatService;
 import com.stevenst.lib.payload.ResponsePayload;
+import com.stevenst.lib.payload.UserIdentityCacheStatsPayload;
 
 import lombok.RequiredArgsConstructor;
 
@@ -58,6 +61,23 @@ public class ChatController {
 		return ResponseEntity.ok(chatService.getMessagesBeforeCursorByChatroomId(chatroomId, cursor, limit));
 	}
 
+	@GetMapping("/getNextParticipantsOfChatroom")
+	public ResponseEntity<List<ChatroomParticipantPayload>> getNextParticipantsOfChatroom(@RequestParam Long chatroomId,
+			@RequestParam(required = false) Long cursor,
+			@RequestParam(defaultValue = "50") int limit) {
+		return ResponseEntity.ok(chatService.getParticipantsOfChatroomAfterCursor(chatroomId, cursor, limit));
+	}
+
+	@GetMapping("/getMessageCacheStats")
+	public ResponseEntity<ChatMessageCacheStatsPayload> getMessageCacheStats() {
+		return ResponseEntity.ok(chatService.getMessageCacheStats());
+	}
+
+	@GetMapping("/getUserIdentityCacheStats")
+	public ResponseEntity<UserIdentityCacheStatsPayload> getUserIdentityCacheStats() {
+		return ResponseEntity.ok(chatService.getUserIdentityCacheStats());
+	}
+
 	@GetMapping("/getAllMembersUsernamesInChatroom")
 	public ResponseEntity<List<String>> getAllMembersUsernamesInChatroom(@RequestParam("chatroomId") Long chatroomId) {
 		return ResponseEntity.ok(chatService.getAllMembersUsernamesInChatroom(chatroomId));
@@ -81,6 +101,12 @@ public class ChatController {
 		return ResponseEntity.ok(chatService.addUserToGroupChatroom(username, chatroomId, usernameOfUserToAdd));
 	}
 
+	@PutMapping("/markChatroomAsRead")
+	public ResponseEntity<ResponsePayload> markChatroomAsRead(@RequestParam("username") String username,
+			@RequestParam("chatroomId") Long chatroomId) {
+		return ResponseEntity.ok(chatService.markChatroomAsRead(username, chatroomId));
+	}
+
 	@PutMapping("/updateChatroomName")
 	public ResponseEntity<ResponsePayload> updateChatroomName(@RequestParam("chatroomId") Long chatroomId,
 			@RequestParam("chatroomName") String chatroomName) {
@@ -19,8 +19,8 @@ public class ChattingController {
 	@MessageMapping("/chat.sendToChatroom/{chatroomId}")
 	@SendTo("/topic/chatroom/{chatroomId}")
 	public ChatMessage sendMessage(@Payload ChatMessage chatMessage, @DestinationVariable("chatroomId") Long chatroomId) {
+		// queues the message (and gives it its id) so it is broadcast without waiting for the db
 		chatService.insertMessageIntoDb(chatMessage);
-		// TODO: find out how saving in batch works and maybe implement it
 		return chatMessage;
 	}
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ import com.stevenst.app.payload.CommentDetachedPayload;
 import com.stevenst.app.payload.CommentPayload;
 import com.stevenst.app.payload.PostPayload;
 import com.stevenst.app.service.PostService;
+import com.stevenst.lib.model.enums.ImageVariant;
 import com.stevenst.lib.payload.ResponsePayload;
 
 import lombok.RequiredArgsConstructor;
@@ -29,6 +30,7 @@ import org.springframework.web.bind.annotation.PutMapping;
 public class PostController implements PostApi {
 	private final String DEFAULT_LIMIT_OF_POSTS = "5";
 	private final String DEFAULT_LIMIT_OF_COMMENTS = "20";
+	private final String DEFAULT_MEDIA_VARIANT = "PREVIEW";
 	private final PostService postService;
 
 	@PostMapping("/create")
@@ -55,51 +57,58 @@ public class PostController implements PostApi {
 	@GetMapping("/getNextPostsOfAuthor")
 	public ResponseEntity<List<PostPayload>> getNextPostsOfAuthor(@RequestParam("authorUsername") String authorUsername,
 			@RequestParam("username") String username,
-			@RequestParam(required = false) Long cursor,
-			@RequestParam(defaultValue = DEFAULT_LIMIT_OF_POSTS) int limit) {
-		return ResponseEntity.ok(postService.getNextPostsBeforeCursor(authorUsername, username, false, cursor, limit));
+			@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = DEFAULT_LIMIT_OF_POSTS) int limit,
+			@RequestParam(defaultValue = DEFAULT_MEDIA_VARIANT) ImageVariant mediaVariant) {
+		return ResponseEntity.ok(postService.getNextPostsBeforeCursor(authorUsername, username, false, cursor, limit,
+				mediaVariant));
 	}
 
 	@GetMapping("/getNextPostsOfFriends")
 	public ResponseEntity<List<PostPayload>> getNextPostsOfFriends(@RequestParam("username") String username,
-			@RequestParam(required = false) Long cursor,
-			@RequestParam(defaultValue = DEFAULT_LIMIT_OF_POSTS) int limit) {
-		return ResponseEntity.ok(postService.getNextPostsBeforeCursor(username, username, true, cursor, limit));
+			@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = DEFAULT_LIMIT_OF_POSTS) int limit,
+			@RequestParam(defaultValue = DEFAULT_MEDIA_VARIANT) ImageVariant mediaVariant) {
+		return ResponseEntity.ok(postService.getNextPostsBeforeCursor(username, username, true, cursor, limit,
+				mediaVariant));
 	}
 
 	@GetMapping("/getNextCommentsOfPost")
 	public ResponseEntity<List<CommentPayload>> getNextCommentsOfPost(@RequestParam("postId") Long postId,
-			@RequestParam(required = false) Long cursor,
+			@RequestParam(required = false) String cursor,
 			@RequestParam(defaultValue = DEFAULT_LIMIT_OF_COMMENTS) int limit) {
 		return ResponseEntity.ok(postService.getNextCommentsOfPostBeforeCursor(postId, cursor, limit));
 	}
 
 	@GetMapping("/getNextCommentsOfUser")
 	public ResponseEntity<List<CommentDetachedPayload>> getNextCommentsOfUser(@RequestParam("username") String username,
-			@RequestParam(required = false) Long cursor,
+			@RequestParam(required = false) String cursor,
 			@RequestParam(defaultValue = DEFAULT_LIMIT_OF_COMMENTS) int limit) {
 		return ResponseEntity.ok(postService.getNextCommentsOfUserBeforeCursor(username, cursor, limit));
 	}
 
 	@GetMapping("/getNextUpvotedByUser")
 	public ResponseEntity<List<PostPayload>> getNextUpvotedOfUser(@RequestParam("username") String username,
-			@RequestParam(required = false) Long cursor,
-			@RequestParam(defaultValue = DEFAULT_LIMIT_OF_POSTS) int limit) {
-		return ResponseEntity.ok(postService.getNextUpvotedOfUserBeforeCursor(username, cursor, limit));
+			@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = DEFAULT_LIMIT_OF_POSTS) int limit,
+			@RequestParam(defaultValue = DEFAULT_MEDIA_VARIANT) ImageVariant mediaVariant) {
+		return ResponseEntity.ok(postService.getNextUpvotedOfUserBeforeCursor(username, cursor, limit, mediaVariant));
 	}
 
 	@GetMapping("/getNextDownvotedByUser")
 	public ResponseEntity<List<PostPayload>> getNextDownvotedOfUser(@RequestParam("username") String username,
-			@RequestParam(required = false) Long cursor,
-			@RequestParam(defaultValue = DEFAULT_LIMIT_OF_POSTS) int limit) {
-		return ResponseEntity.ok(postService.getNextDownvotedOfUserBeforeCursor(username, cursor, limit));
+			@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = DEFAULT_LIMIT_OF_POSTS) int limit,
+			@RequestParam(defaultValue = DEFAULT_MEDIA_VARIANT) ImageVariant mediaVariant) {
+		return ResponseEntity.ok(postService.getNextDownvotedOfUserBeforeCursor(username, cursor, limit, mediaVariant));
 	}
 
 	@GetMapping("/getNextSavedOfUser")
 	public ResponseEntity<List<PostPayload>> getNextSavedOfUser(@RequestParam("username") String username,
-			@RequestParam(required = false) Long cursor,
-			@RequestParam(defaultValue = DEFAULT_LIMIT_OF_POSTS) int limit) {
-		return ResponseEntity.ok(postService.getNextSavedOfUserBeforeCursor(username, cursor, limit));
+			@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = DEFAULT_LIMIT_OF_POSTS) int limit,
+			@RequestParam(defaultValue = DEFAULT_MEDIA_VARIANT) ImageVariant mediaVariant) {
+		return ResponseEntity.ok(postService.getNextSavedOfUserBeforeCursor(username, cursor, limit, mediaVariant));
 	}
 
 	@PutMapping("/upvote")
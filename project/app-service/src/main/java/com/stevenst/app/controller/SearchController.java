@@ -20,7 +20,8 @@ public class SearchController {
 	private final SearchService searchService;
 
 	@GetMapping("/getUsersMatching")
-	public ResponseEntity<List<UserPublicPayload>> getUsersMatching(@RequestParam("input") String input) {
-		return ResponseEntity.ok(searchService.getUsersMatching(input));
+	public ResponseEntity<List<UserPublicPayload>> getUsersMatching(@RequestParam("input") String input,
+			@RequestParam(name = "viewer", required = false) String viewer) {
+		return ResponseEntity.ok(searchService.getUsersMatching(input, viewer));
 	}
 }
@@ -0,0 +1,33 @@
+package com.stevenst.app.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.stevenst.app.controller.api.TimelineApi;
+import com.stevenst.app.service.TimelineService;
+import com.stevenst.lib.payload.ResponsePayload;
+
+import lombok.RequiredArgsConstructor;
+
+// called by the user service when the friendships change, with its service token
+@RestController
+@RequestMapping("/api/timeline")
+@RequiredArgsConstructor
+public class TimelineController implements TimelineApi {
+	private final TimelineService timelineService;
+
+	@PostMapping("/addFriendship")
+	public ResponseEntity<ResponsePayload> addFriendship(@RequestParam("user1") String user1,
+			@RequestParam("user2") String user2) {
+		return ResponseEntity.ok(timelineService.addFriendship(user1, user2));
+	}
+
+	@PostMapping("/removeFriendship")
+	public ResponseEntity<ResponsePayload> removeFriendship(@RequestParam("user1") String user1,
+			@RequestParam("user2") String user2) {
+		return ResponseEntity.ok(timelineService.removeFriendship(user1, user2));
+	}
+}
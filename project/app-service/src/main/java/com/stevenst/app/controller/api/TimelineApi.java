@@ -0,0 +1,28 @@
+package com.stevenst.app.controller.api;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import com.stevenst.lib.payload.ResponsePayload;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+
+public interface TimelineApi {
+	@Operation(summary = "Add a friendship to the timelines", description = "Write the posts of two new friends into the timeline of each other", tags = "Timeline")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Successful", content = {
+					@Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ResponsePayload.class)) })
+	})
+	public ResponseEntity<ResponsePayload> addFriendship(String user1, String user2);
+
+	@Operation(summary = "Remove a friendship from the timelines", description = "Remove the posts of two former friends from the timeline of each other", tags = "Timeline")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Successful", content = {
+					@Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ResponsePayload.class)) })
+	})
+	public ResponseEntity<ResponsePayload> removeFriendship(String user1, String user2);
+}
@@ -10,6 +10,8 @@ import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import com.stevenst.lib.exception.IgorEntityAlreadyExistsException;
 import com.stevenst.lib.exception.IgorEntityNotFoundException;
 import com.stevenst.lib.exception.IgorIoException;
+import com.stevenst.lib.exception.IgorMaxCapExceededException;
+import com.stevenst.lib.exception.IgorServiceUnavailableException;
 import com.stevenst.lib.exception.IgorUserNotFoundException;
 import com.stevenst.lib.payload.ResponsePayload;
 
@@ -65,6 +67,26 @@ public class GlobalExceptionHandler {
 				.build();
 	}
 
+	@ResponseBody
+	@ExceptionHandler(IgorServiceUnavailableException.class)
+	@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+	public ResponsePayload handleIgorServiceUnavailableException(IgorServiceUnavailableException ex) {
+		return ResponsePayload.builder()
+				.status(HttpStatus.SERVICE_UNAVAILABLE.value())
+				.message(ex.getMessage())
+				.build();
+	}
+
+	@ResponseBody
+	@ExceptionHandler(IgorMaxCapExceededException.class)
+	@ResponseStatus(HttpStatus.FORBIDDEN)
+	public ResponsePayload handleIgorMaxCapExceededException(IgorMaxCapExceededException ex) {
+		return ResponsePayload.builder()
+				.status(HttpStatus.FORBIDDEN.value())
+				.message(ex.getMessage())
+				.build();
+	}
+
 	@ResponseBody
 	@ExceptionHandler(MaxUploadSizeExceededException.class)
 	@ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
@@ -9,6 +9,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -18,7 +19,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "\"comment\"")
+@Table(name = "\"comment\"", indexes = {
+		@Index(name = "idx_comment_post_created_at_id", columnList = "post_id, created_at, id"),
+		@Index(name = "idx_comment_author_created_at_id", columnList = "\"author_id\", created_at, id") })
 @Data
 @Builder
 @NoArgsConstructor
@@ -6,9 +6,8 @@ import com.stevenst.lib.model.User;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -18,14 +17,16 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "\"post\"")
+@Table(name = "\"post\"", indexes = {
+		@Index(name = "idx_post_author_created_at_id", columnList = "\"author_id\", created_at, id"),
+		@Index(name = "idx_post_fanned_out_id", columnList = "fanned_out, id") })
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class Post {
+	// assigned by the app (see PostConfig) so the media can be uploaded under the id before the post is stored
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
 	private Long id;
 
 	@ManyToOne(optional = false)
@@ -37,6 +38,25 @@ public class Post {
 
 	private String description;
 
+	// counters maintained on each vote / comment so feeds don't have to count the interactions and comments
+	@Column(nullable = false)
+	@Builder.Default
+	private long upvoteCount = 0;
+
+	@Column(nullable = false)
+	@Builder.Default
+	private long downvoteCount = 0;
+
+	@Column(nullable = false)
+	@Builder.Default
+	private long commentCount = 0;
+
+	// true when the post was written into the timelines of the author's friends
+	// false until its fan-out succeeded (or for the posts stored before the timelines), retried by the timeline job
+	@Column(name = "fanned_out", nullable = false)
+	@Builder.Default
+	private boolean fannedOut = false;
+
 	@Column(nullable = false)
 	private final LocalDateTime createdAt = LocalDateTime.now();
 }
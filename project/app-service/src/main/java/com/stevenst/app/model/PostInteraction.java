@@ -9,6 +9,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -17,8 +18,14 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+// the upvoted, downvoted and saved posts of a user are paged by when they were upvoted (downvoted, saved), each
+// time is set with its flag (see the setters) so the feeds are an index range scan on (user_id, time, id)
 @Entity
-@Table(name = "\"post_interaction\"")
+@Table(name = "\"post_interaction\"", indexes = {
+		@Index(name = "idx_post_interaction_user_post", columnList = "\"user_id\", post_id"),
+		@Index(name = "idx_post_interaction_user_upvoted_at", columnList = "\"user_id\", upvoted_at, id"),
+		@Index(name = "idx_post_interaction_user_downvoted_at", columnList = "\"user_id\", downvoted_at, id"),
+		@Index(name = "idx_post_interaction_user_saved_at", columnList = "\"user_id\", saved_at, id") })
 @Data
 @Builder
 @NoArgsConstructor
@@ -51,4 +58,26 @@ public class PostInteraction {
 	@Column(nullable = false)
 	@Builder.Default
 	private boolean saved = false;
+
+	// null while the flag is false
+	private LocalDateTime upvotedAt;
+
+	private LocalDateTime downvotedAt;
+
+	private LocalDateTime savedAt;
+
+	public void setUpvoted(boolean upvoted) {
+		upvotedAt = upvoted ? (this.upvoted ? upvotedAt : LocalDateTime.now()) : null;
+		this.upvoted = upvoted;
+	}
+
+	public void setDownvoted(boolean downvoted) {
+		downvotedAt = downvoted ? (this.downvoted ? downvotedAt : LocalDateTime.now()) : null;
+		this.downvoted = downvoted;
+	}
+
+	public void setSaved(boolean saved) {
+		savedAt = saved ? (this.saved ? savedAt : LocalDateTime.now()) : null;
+		this.saved = saved;
+	}
 }
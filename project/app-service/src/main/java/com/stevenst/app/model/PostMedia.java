@@ -33,5 +33,9 @@ public class PostMedia {
 
 	@Column(nullable = false)
 	private String mediaName;
+
+	// false for the media stored before their thumbnail and preview were, their links point to the original
+	@Column(nullable = false)
+	private boolean variantsStored;
 }
 
@@ -0,0 +1,37 @@
+package com.stevenst.app.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// a post fanned out to the home feed of one viewer (the author's friends and the author)
+@Entity
+@Table(name = "\"timeline_entry\"", indexes = {
+		@Index(name = "idx_timeline_entry_viewer_post", columnList = "viewer_id, post_id", unique = true),
+		@Index(name = "idx_timeline_entry_post", columnList = "post_id") })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimelineEntry {
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "viewer_id", nullable = false)
+	private Long viewerId;
+
+	@ManyToOne(optional = false)
+	@JoinColumn(name = "post_id", nullable = false)
+	private Post post;
+}
@@ -0,0 +1,20 @@
+package com.stevenst.app.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatMessageCacheStatsPayload {
+	private boolean enabled;
+	private long hits;
+	private long misses;
+	private double hitRate;
+	private long cachedChatrooms;
+	private long cachedMessages;
+	private long estimatedBytes;
+}
@@ -0,0 +1,18 @@
+package com.stevenst.app.payload;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatroomParticipantPayload {
+	private Long id;
+	private String username;
+	private LocalDateTime addedAt;
+}
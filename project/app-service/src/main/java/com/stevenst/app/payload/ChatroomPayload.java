@@ -19,6 +19,13 @@ public class ChatroomPayload {
 	private String name;
 	private ChatroomType type;
 	private String adminUsername;
+	// for the big chatrooms only the oldest participants, the rest are paged separately
 	private List<String> participantsUsernames;
+	private Long participantsCount;
 	private LocalDateTime lastMessageTime;
+	private Long lastMessageId;
+	private String lastMessageSenderUsername;
+	private String lastMessagePreview;
+	private Long lastReadMessageId;
+	private Long unreadMessagesCount;
 }
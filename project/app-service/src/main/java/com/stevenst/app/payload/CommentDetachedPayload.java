@@ -16,4 +16,6 @@ public class CommentDetachedPayload {
 	private String postTitle;
 	private String content;
 	private LocalDateTime createdAt;
+	// opaque token to request the page after this item
+	private String cursor;
 }
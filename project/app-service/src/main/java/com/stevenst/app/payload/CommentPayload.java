@@ -17,4 +17,6 @@ public class CommentPayload {
 	private Long postId;
 	private String content;
 	private LocalDateTime createdAt;
+	// opaque token to request the page after this item
+	private String cursor;
 }
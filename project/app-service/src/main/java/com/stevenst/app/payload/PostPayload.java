@@ -18,6 +18,8 @@ public class PostPayload {
 	private String title;
 	private String description;
 	private LocalDateTime createdAt;
+	// opaque token to request the page after this item
+	private String cursor;
 	private List<String> mediaLinks;
 	private Long upvoteScore;
 	private Long nbOfComments;
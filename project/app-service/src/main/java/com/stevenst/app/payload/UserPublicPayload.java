@@ -1,5 +1,7 @@
 package com.stevenst.app.payload;
 
+import com.stevenst.lib.model.enums.RelationshipStatus;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -13,4 +15,6 @@ public class UserPublicPayload {
 	private Long id;
 	private String username;
 	private String pfpLink;
+	// only set when the search is made by a viewer
+	private RelationshipStatus relationshipStatus;
 }
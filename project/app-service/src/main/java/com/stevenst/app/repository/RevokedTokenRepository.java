@@ -0,0 +1,17 @@
+package com.stevenst.app.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.stevenst.lib.model.RevokedToken;
+
+// the tokens revoked by the security service, read only here
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+	@Query("SELECT r.tokenId FROM RevokedToken r WHERE r.expiresAt >= :now")
+	List<String> findAllUnexpiredTokenIds(LocalDateTime now);
+}
@@ -12,7 +12,7 @@ import com.stevenst.lib.model.chat.ChatMessage;
 
 import jakarta.transaction.Transactional;
 
-public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
+public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>, ChatMessageRepositoryCustom {
 	@Query("SELECT msg FROM ChatMessage msg WHERE msg.chatroomId = :chatroomId AND (:cursor IS NULL OR msg.id < :cursor) ORDER BY msg.id DESC")
 	List<ChatMessage> findMessagesBeforeCursorByChatroomId(@Param("chatroomId") Long chatroomId,
 			@Param("cursor") Long cursor, Pageable pageable);
@@ -0,0 +1,9 @@
+package com.stevenst.app.repository.chat;
+
+import java.util.List;
+
+import com.stevenst.lib.model.chat.ChatMessage;
+
+public interface ChatMessageRepositoryCustom {
+	void insertMessages(List<ChatMessage> messages);
+}
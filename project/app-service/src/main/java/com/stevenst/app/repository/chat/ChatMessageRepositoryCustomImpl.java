@@ -0,0 +1,108 @@
+package com.stevenst.app.repository.chat;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import com.stevenst.lib.model.chat.ChatMessage;
+import com.stevenst.lib.model.chat.Chatroom;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+
+public class ChatMessageRepositoryCustomImpl implements ChatMessageRepositoryCustom {
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	// the ids are assigned before so persist doesn't select the messages (as save would) and hibernate
+	// sends the inserts in jdbc batches of hibernate.jdbc.batch_size
+	// the chatrooms of the messages are updated in the same transaction, one statement per chatroom, and so are the
+	// read states of the senders (their own messages are never unread), one statement per sender of a chatroom
+	// the chatrooms are locked before anything is written, the messages of a chatroom deleted meanwhile are dropped
+	// (the chatroom is deleted before its messages, so it waits for a batch holding its lock)
+	@Override
+	@Transactional
+	public void insertMessages(List<ChatMessage> messages) {
+		Set<Long> existingChatroomIds = lockChatrooms(messages.stream().map(ChatMessage::getChatroomId).toList());
+		List<ChatMessage> messagesToInsert = messages.stream()
+				.filter(message -> existingChatroomIds.contains(message.getChatroomId()))
+				.toList();
+		if (messagesToInsert.size() < messages.size()) {
+			System.err.println("Dropped " + (messages.size() - messagesToInsert.size())
+					+ " chat messages of deleted chatrooms.");
+		}
+
+		for (ChatMessage message : messagesToInsert) {
+			entityManager.persist(message);
+		}
+
+		entityManager.flush();
+		entityManager.clear();
+
+		Map<Long, List<ChatMessage>> messagesByChatroom = messagesToInsert.stream()
+				.collect(Collectors.groupingBy(ChatMessage::getChatroomId, TreeMap::new, Collectors.toList()));
+		messagesByChatroom.forEach(this::updateLastMessageOfChatroom);
+		messagesByChatroom.forEach(this::updateReadStateOfSenders);
+	}
+
+	// in the order of their ids so the concurrent batches of different nodes lock the chatrooms in the same order
+	private Set<Long> lockChatrooms(List<Long> chatroomIds) {
+		return entityManager.createQuery("SELECT chatroom FROM Chatroom chatroom "
+				+ "WHERE chatroom.id IN :chatroomIds ORDER BY chatroom.id", Chatroom.class)
+				.setParameter("chatroomIds", new TreeSet<>(chatroomIds))
+				.setLockMode(LockModeType.PESSIMISTIC_WRITE)
+				.getResultStream()
+				.map(Chatroom::getId)
+				.collect(Collectors.toSet());
+	}
+
+	// the last message is only replaced by a newer one (the batches of different nodes can commit out of order),
+	// the id is assigned last since mysql uses the updated values in the assignments that follow
+	private void updateLastMessageOfChatroom(Long chatroomId, List<ChatMessage> messages) {
+		ChatMessage lastMessage = messages.stream().max(Comparator.comparing(ChatMessage::getId)).orElseThrow();
+		String isNewer = "CASE WHEN chatroom.lastMessageId IS NULL OR chatroom.lastMessageId < :lastMessageId ";
+
+		entityManager.createQuery("UPDATE Chatroom chatroom SET "
+				+ "chatroom.messageCount = chatroom.messageCount + :count, "
+				+ "chatroom.lastMessageTime = " + isNewer + "THEN :lastMessageTime ELSE chatroom.lastMessageTime END, "
+				+ "chatroom.lastMessageSenderUsername = " + isNewer
+				+ "THEN :lastMessageSenderUsername ELSE chatroom.lastMessageSenderUsername END, "
+				+ "chatroom.lastMessagePreview = " + isNewer
+				+ "THEN :lastMessagePreview ELSE chatroom.lastMessagePreview END, "
+				+ "chatroom.lastMessageId = " + isNewer + "THEN :lastMessageId ELSE chatroom.lastMessageId END "
+				+ "WHERE chatroom.id = :chatroomId")
+				.setParameter("count", (long) messages.size())
+				.setParameter("lastMessageTime", lastMessage.getCreatedAt())
+				.setParameter("lastMessageSenderUsername", lastMessage.getSenderUsername())
+				.setParameter("lastMessagePreview", createPreview(lastMessage.getMessage()))
+				.setParameter("lastMessageId", lastMessage.getId())
+				.setParameter("chatroomId", chatroomId)
+				.executeUpdate();
+	}
+
+	// the sender's own messages are counted as read, the unread messages before them stay unread
+	private void updateReadStateOfSenders(Long chatroomId, List<ChatMessage> messages) {
+		Map<String, Long> countsBySender = messages.stream()
+				.collect(Collectors.groupingBy(ChatMessage::getSenderUsername, TreeMap::new, Collectors.counting()));
+
+		countsBySender.forEach((senderUsername, count) -> entityManager.createQuery("UPDATE ChatroomParticipant part "
+				+ "SET part.readMessagesCount = part.readMessagesCount + :count "
+				+ "WHERE part.chatroom.id = :chatroomId "
+				+ "AND part.user.id IN (SELECT user.id FROM User user WHERE user.username = :senderUsername)")
+				.setParameter("count", count)
+				.setParameter("chatroomId", chatroomId)
+				.setParameter("senderUsername", senderUsername)
+				.executeUpdate());
+	}
+
+	private String createPreview(String message) {
+		return message.length() <= Chatroom.LAST_MESSAGE_PREVIEW_LENGTH ? message
+				: message.substring(0, Chatroom.LAST_MESSAGE_PREVIEW_LENGTH);
+	}
+}
@@ -1,5 +1,6 @@
 package com.stevenst.app.repository.chat;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import org.springframework.data.domain.Pageable;
@@ -10,6 +11,7 @@ import org.springframework.stereotype.Repository;
 
 import com.stevenst.lib.model.chat.Chatroom;
 import com.stevenst.lib.model.chat.ChatroomParticipant;
+import com.stevenst.lib.model.chat.ChatroomType;
 import com.stevenst.lib.model.User;
 
 import jakarta.transaction.Transactional;
@@ -34,20 +36,15 @@ public interface ChatroomParticipantRepository extends JpaRepository<ChatroomPar
 			"AND part.chatroom.type = 'DM'")
 	List<Chatroom> findDmChatroomsOfUserNotLeft(User user);
 
-	@Query("SELECT part.chatroom FROM ChatroomParticipant part " +
-			"WHERE part.user = :user " +
-			"AND part.chatroom.type = 'GROUP'")
-	List<Chatroom> findGroupChatroomsOfUser(User user);
-
-	@Query("SELECT part.chatroom FROM ChatroomParticipant part " +
+	// the chatrooms with the read state of the user, the most active first
+	@Query("SELECT part.chatroom AS chatroom, part.lastReadMessageId AS lastReadMessageId, " +
+			"part.readMessagesCount AS readMessagesCount " +
+			"FROM ChatroomParticipant part " +
 			"WHERE part.user = :user " +
-			"AND part.chatroom.type = 'REGIONAL'")
-	List<Chatroom> findRegionalChatroomsOfUser(User user);
-
-	@Query("SELECT part FROM ChatroomParticipant part " +
-			"WHERE part.chatroom IN :chatrooms " +
-			"AND part.user <> :user")
-	List<ChatroomParticipant> findParticipantsInTheseChatroomsExcludingUser(List<Chatroom> chatrooms, User user);
+			"AND part.hasLeft = false " +
+			"AND part.chatroom.type = :type " +
+			"ORDER BY part.chatroom.lastMessageTime DESC, part.chatroom.id DESC")
+	List<ChatroomOfUser> findChatroomsOfUserNotLeftByType(User user, ChatroomType type);
 
 	@Query("SELECT part.chatroom FROM ChatroomParticipant part " +
 			"WHERE part.user = :user1 " +
@@ -56,6 +53,48 @@ public interface ChatroomParticipantRepository extends JpaRepository<ChatroomPar
 			"AND part2.chatroom.type = 'DM')")
 	Chatroom findCommonDmChatroomOfUsers(User user1, User user2);
 
+	@Query("SELECT part.chatroom.id AS chatroomId, part.user.username AS username FROM ChatroomParticipant part " +
+			"WHERE part.chatroom IN :chatrooms " +
+			"AND part.user <> :user")
+	List<UsernameOfParticipant> findUsernamesOfParticipantsInTheseChatroomsExcludingUser(List<Chatroom> chatrooms,
+			User user);
+
+	@Query("SELECT part.user.username FROM ChatroomParticipant part " +
+			"WHERE part.chatroom.id = :chatroomId")
+	List<String> findUsernamesOfParticipantsInChatroom(Long chatroomId);
+
+	@Query("SELECT part.chatroom.id AS chatroomId, COUNT(part) AS participantsCount FROM ChatroomParticipant part " +
+			"WHERE part.chatroom.id IN :chatroomIds " +
+			"GROUP BY part.chatroom.id")
+	List<ParticipantsCountOfChatroom> countParticipantsOfChatrooms(List<Long> chatroomIds);
+
+	// at most sampleSize of the oldest participants of each chatroom
+	@Query("SELECT ranked.chatroomId AS chatroomId, ranked.username AS username FROM (" +
+			"SELECT part.chatroom.id AS chatroomId, part.user.username AS username, " +
+			"ROW_NUMBER() OVER (PARTITION BY part.chatroom.id ORDER BY part.addedAt, part.id) AS position " +
+			"FROM ChatroomParticipant part " +
+			"WHERE part.chatroom.id IN :chatroomIds) ranked " +
+			"WHERE ranked.position <= :sampleSize " +
+			"ORDER BY ranked.chatroomId, ranked.position")
+	List<UsernameOfParticipant> findOldestParticipantsUsernamesOfChatrooms(List<Long> chatroomIds, int sampleSize);
+
+	@Query("SELECT part.id AS id, part.user.username AS username, part.addedAt AS addedAt " +
+			"FROM ChatroomParticipant part " +
+			"WHERE part.chatroom.id = :chatroomId " +
+			"AND (:cursor IS NULL OR part.id > :cursor) " +
+			"ORDER BY part.id ASC")
+	List<ParticipantOfChatroom> findParticipantsOfChatroomAfterCursor(Long chatroomId, Long cursor, Pageable pageable);
+
+	// the read state only moves forward (the chatroom could have been read meanwhile on another device)
+	@Modifying
+	@Transactional
+	@Query("UPDATE ChatroomParticipant part " +
+			"SET part.lastReadMessageId = :lastReadMessageId, part.readMessagesCount = :readMessagesCount " +
+			"WHERE part.user = :user " +
+			"AND part.chatroom = :chatroom " +
+			"AND part.readMessagesCount < :readMessagesCount")
+	int updateReadStateOfParticipant(User user, Chatroom chatroom, Long lastReadMessageId, long readMessagesCount);
+
 	Long countByChatroomAndHasLeftIsFalse(Chatroom chatroom);
 	
 	@Modifying
@@ -66,4 +105,32 @@ public interface ChatroomParticipantRepository extends JpaRepository<ChatroomPar
 	@Transactional
 	@Query("DELETE FROM ChatroomParticipant participant WHERE participant.chatroom = :chatroom")
 	void deleteAllByChatroom(Chatroom chatroom);
+
+	interface ChatroomOfUser {
+		Chatroom getChatroom();
+
+		Long getLastReadMessageId();
+
+		long getReadMessagesCount();
+	}
+
+	interface UsernameOfParticipant {
+		Long getChatroomId();
+
+		String getUsername();
+	}
+
+	interface ParticipantsCountOfChatroom {
+		Long getChatroomId();
+
+		Long getParticipantsCount();
+	}
+
+	interface ParticipantOfChatroom {
+		Long getId();
+
+		String getUsername();
+
+		LocalDateTime getAddedAt();
+	}
 }
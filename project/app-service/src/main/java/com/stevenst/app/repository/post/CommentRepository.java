@@ -1,5 +1,6 @@
 package com.stevenst.app.repository.post;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import org.springframework.data.domain.Pageable;
@@ -16,11 +17,15 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
 	@Modifying
 	void deleteAllByPostId(Long postId);
 
-	@Query("SELECT comment FROM Comment comment WHERE comment.post.id = :postId AND (:cursor IS NULL OR comment.id < :cursor) ORDER BY comment.createdAt DESC")
-	List<Comment> findCommentsOfPostBeforeCursor(Long postId, Long cursor, Pageable pageable);
-
-	@Query("SELECT comment FROM Comment comment WHERE comment.author.username = :username AND (:cursor IS NULL OR comment.id < :cursor) ORDER BY comment.createdAt DESC")
-	List<Comment> findCommentsOfUserBeforeCursor(String username, Long cursor, Pageable pageable);
-
-	Long countByPostId(Long postId);
+	@Query("SELECT comment FROM Comment comment "
+			+ "WHERE comment.post.id = :postId AND (comment.createdAt < :cursorCreatedAt OR (comment.createdAt = :cursorCreatedAt AND comment.id < :cursorId)) "
+			+ "ORDER BY comment.createdAt DESC, comment.id DESC")
+	List<Comment> findCommentsOfPostBeforeCursor(Long postId, LocalDateTime cursorCreatedAt, Long cursorId,
+			Pageable pageable);
+
+	@Query("SELECT comment FROM Comment comment "
+			+ "WHERE comment.author.username = :username AND (comment.createdAt < :cursorCreatedAt OR (comment.createdAt = :cursorCreatedAt AND comment.id < :cursorId)) "
+			+ "ORDER BY comment.createdAt DESC, comment.id DESC")
+	List<Comment> findCommentsOfUserBeforeCursor(String username, LocalDateTime cursorCreatedAt, Long cursorId,
+			Pageable pageable);
 }
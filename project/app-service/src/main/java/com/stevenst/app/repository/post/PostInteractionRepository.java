@@ -1,5 +1,9 @@
 package com.stevenst.app.repository.post;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -12,13 +16,64 @@ import jakarta.transaction.Transactional;
 public interface PostInteractionRepository extends JpaRepository<PostInteraction, Long> {
 	PostInteraction findByPostIdAndUserId(Long postId, Long userId);
 
-	@Query("SELECT COUNT(inter) FROM PostInteraction inter WHERE inter.post.id = :postId AND inter.upvoted = true")
-	Long countByPostIdAndUpvotedIsTrue(Long postId);
+	@Query("SELECT inter.post.id AS postId, inter.upvoted AS upvoted, inter.downvoted AS downvoted, "
+			+ "inter.saved AS saved, inter.seen AS seen FROM PostInteraction inter "
+			+ "WHERE inter.post.id IN :postIds AND inter.user.id = :userId")
+	List<InteractionOfUser> findInteractionsOfUserByPostIds(List<Long> postIds, Long userId);
+
+	// the feeds of a user, an index range scan on (user_id, upvoted_at / downvoted_at / saved_at, id), the times are
+	// null (so out of the range) while their flag is false
+	@Query("SELECT inter FROM PostInteraction inter JOIN FETCH inter.post post JOIN FETCH post.author "
+			+ "WHERE inter.user.id = :userId AND (inter.upvotedAt < :cursorUpvotedAt "
+			+ "OR (inter.upvotedAt = :cursorUpvotedAt AND inter.id < :cursorId)) "
+			+ "ORDER BY inter.upvotedAt DESC, inter.id DESC")
+	List<PostInteraction> findUpvotedOfUserBeforeCursor(Long userId, LocalDateTime cursorUpvotedAt, Long cursorId,
+			Pageable pageable);
+
+	@Query("SELECT inter FROM PostInteraction inter JOIN FETCH inter.post post JOIN FETCH post.author "
+			+ "WHERE inter.user.id = :userId AND (inter.downvotedAt < :cursorDownvotedAt "
+			+ "OR (inter.downvotedAt = :cursorDownvotedAt AND inter.id < :cursorId)) "
+			+ "ORDER BY inter.downvotedAt DESC, inter.id DESC")
+	List<PostInteraction> findDownvotedOfUserBeforeCursor(Long userId, LocalDateTime cursorDownvotedAt,
+			Long cursorId, Pageable pageable);
 
-	@Query("SELECT COUNT(inter) FROM PostInteraction inter WHERE inter.post.id = :postId AND inter.downvoted = true")
-	Long countByPostIdAndDownvotedIsTrue(Long postId);
+	@Query("SELECT inter FROM PostInteraction inter JOIN FETCH inter.post post JOIN FETCH post.author "
+			+ "WHERE inter.user.id = :userId AND (inter.savedAt < :cursorSavedAt "
+			+ "OR (inter.savedAt = :cursorSavedAt AND inter.id < :cursorId)) "
+			+ "ORDER BY inter.savedAt DESC, inter.id DESC")
+	List<PostInteraction> findSavedOfUserBeforeCursor(Long userId, LocalDateTime cursorSavedAt, Long cursorId,
+			Pageable pageable);
+
+	// the interactions stored before their times existed get the creation time of their post (the order the feeds
+	// had before), in ranges of post ids like the counters
+	@Transactional
+	@Modifying
+	@Query("UPDATE PostInteraction inter SET "
+			+ "inter.upvotedAt = CASE WHEN inter.upvoted = true AND inter.upvotedAt IS NULL "
+			+ "THEN (SELECT post.createdAt FROM Post post WHERE post.id = inter.post.id) ELSE inter.upvotedAt END, "
+			+ "inter.downvotedAt = CASE WHEN inter.downvoted = true AND inter.downvotedAt IS NULL "
+			+ "THEN (SELECT post.createdAt FROM Post post WHERE post.id = inter.post.id) ELSE inter.downvotedAt END, "
+			+ "inter.savedAt = CASE WHEN inter.saved = true AND inter.savedAt IS NULL "
+			+ "THEN (SELECT post.createdAt FROM Post post WHERE post.id = inter.post.id) ELSE inter.savedAt END "
+			+ "WHERE inter.post.id BETWEEN :fromPostId AND :toPostId "
+			+ "AND ((inter.upvoted = true AND inter.upvotedAt IS NULL) "
+			+ "OR (inter.downvoted = true AND inter.downvotedAt IS NULL) "
+			+ "OR (inter.saved = true AND inter.savedAt IS NULL))")
+	int backfillTimesOfUntimedInteractionsOfPostsBetween(Long fromPostId, Long toPostId);
 
 	@Transactional
 	@Modifying
 	void deleteAllByPost(Post post);
+
+	interface InteractionOfUser {
+		Long getPostId();
+
+		boolean isUpvoted();
+
+		boolean isDownvoted();
+
+		boolean isSaved();
+
+		boolean isSeen();
+	}
 }
@@ -13,11 +13,24 @@ import com.stevenst.app.model.PostMedia;
 import jakarta.transaction.Transactional;
 
 @Repository
-public interface PostMediaRepository extends JpaRepository<PostMedia, Long> {
+public interface PostMediaRepository extends JpaRepository<PostMedia, Long>, PostMediaRepositoryCustom {
 	@Query("SELECT pm.mediaName FROM PostMedia pm WHERE pm.post.id = :postId")
 	List<String> findMediaNamesByPostId(@Param("postId") Long postId);
 
+	@Query("SELECT pm.post.id AS postId, pm.mediaName AS mediaName, pm.variantsStored AS variantsStored "
+			+ "FROM PostMedia pm "
+			+ "WHERE pm.post.id IN :postIds ORDER BY pm.post.id, pm.mediaIndex")
+	List<MediaNameOfPost> findMediaNamesByPostIds(@Param("postIds") List<Long> postIds);
+
 	@Transactional
 	@Modifying
 	void deleteAllByPostId(Long postId);
+
+	interface MediaNameOfPost {
+		Long getPostId();
+
+		String getMediaName();
+
+		boolean isVariantsStored();
+	}
 }
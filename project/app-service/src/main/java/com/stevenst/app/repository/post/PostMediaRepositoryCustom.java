@@ -0,0 +1,7 @@
+package com.stevenst.app.repository.post;
+
+import java.util.List;
+
+public interface PostMediaRepositoryCustom {
+	int insertMediaNamesOfPost(Long postId, List<String> mediaNames);
+}
@@ -0,0 +1,52 @@
+package com.stevenst.app.repository.post;
+
+import java.util.List;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+
+import com.stevenst.app.model.PostMedia;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.transaction.Transactional;
+
+public class PostMediaRepositoryCustomImpl implements PostMediaRepositoryCustom {
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	// inserts the media of a post with a single multi-row INSERT (the ids are generated by the db so
+	// saving the entities one by one can't be batched), the index of each media is its position in the list
+	// the variants of the images are uploaded with them, before the insert
+	@Override
+	@Transactional
+	public int insertMediaNamesOfPost(Long postId, List<String> mediaNames) {
+		if (mediaNames.isEmpty()) {
+			return 0;
+		}
+
+		StringBuilder insert = new StringBuilder("INSERT INTO ").append(getTableNameOfPostMedia())
+				.append(" (post_id, media_index, media_name, variants_stored) VALUES ");
+		for (int i = 0; i < mediaNames.size(); i++) {
+			insert.append(i == 0 ? "(?, ?, ?, TRUE)" : ", (?, ?, ?, TRUE)");
+		}
+
+		Query query = entityManager.createNativeQuery(insert.toString());
+		for (int i = 0; i < mediaNames.size(); i++) {
+			query.setParameter(3 * i + 1, postId);
+			query.setParameter(3 * i + 2, (byte) i);
+			query.setParameter(3 * i + 3, mediaNames.get(i));
+		}
+
+		return query.executeUpdate();
+	}
+
+	// the table name as hibernate renders it for the current dialect (the quoted name of the entity)
+	private String getTableNameOfPostMedia() {
+		return ((AbstractEntityPersister) entityManager.getEntityManagerFactory()
+				.unwrap(SessionFactoryImplementor.class)
+				.getMappingMetamodel()
+				.getEntityDescriptor(PostMedia.class)).getTableName();
+	}
+}
@@ -1,41 +1,96 @@
 package com.stevenst.app.repository.post;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.stevenst.app.model.Post;
 
+import jakarta.transaction.Transactional;
+
 @Repository
-public interface PostRepository extends JpaRepository<Post, Long> {
-	@Query("SELECT post FROM Post post WHERE post.author.username = :username AND (:cursor IS NULL OR post.id < :cursor) ORDER BY post.createdAt DESC")
-	List<Post> findPostsOfUserBeforeCursor(String username, Long cursor, Pageable pageable);
-
-	@Query("SELECT post FROM Post post "
-			+ "LEFT JOIN PostInteraction inter ON post.id = inter.post.id AND inter.user.username = :currentUser "
-			+ "WHERE post.author.username IN :friendUsernames AND (:cursor IS NULL OR post.id < :cursor) " // AND (interaction.id IS NULL OR interaction.seen = false) <-- add this when implementing the seen logic
-			+ "ORDER BY post.createdAt DESC")
-	List<Post> findPostsOfFriendsBeforeCursor(String currentUser, List<String> friendUsernames, Long cursor,
+public interface PostRepository extends JpaRepository<Post, Long>, PostRepositoryCustom {
+	@Query("SELECT post FROM Post post JOIN FETCH post.author "
+			+ "WHERE post.author.username = :username "
+			+ "AND (post.createdAt < :cursorCreatedAt OR (post.createdAt = :cursorCreatedAt AND post.id < :cursorId)) "
+			+ "ORDER BY post.createdAt DESC, post.id DESC")
+	List<Post> findPostsOfUserBeforeCursor(String username, LocalDateTime cursorCreatedAt, Long cursorId,
 			Pageable pageable);
 
-	@Query("SELECT post FROM Post post "
-			+ "JOIN PostInteraction inter ON post.id = inter.post.id "
-			+ "WHERE inter.user.username = :username AND inter.upvoted = true AND (:cursor IS NULL OR post.id < :cursor) "
-			+ "ORDER BY post.createdAt DESC")
-	List<Post> findNextUpvotedPostsByUser(String username, Long cursor, Pageable pageable);
-
-	@Query("SELECT post FROM Post post "
-			+ "JOIN PostInteraction inter ON post.id = inter.post.id "
-			+ "WHERE inter.user.username = :username AND inter.downvoted = true AND (:cursor IS NULL OR post.id < :cursor) "
-			+ "ORDER BY post.createdAt DESC")
-	List<Post> findNextDownvotedPostsByUser(String username, Long cursor, Pageable pageable);
-
-	@Query("SELECT post FROM Post post "
-			+ "JOIN PostInteraction inter ON post.id = inter.post.id "
-			+ "WHERE inter.user.username = :username AND inter.saved = true AND (:cursor IS NULL OR post.id < :cursor) "
-			+ "ORDER BY post.createdAt DESC")
-	List<Post> findNextSavedPostsByUser(String username, Long cursor, Pageable pageable);
+	// the home feed of the viewer, an index range scan on (viewer_id, post_id) and nothing else
+	// the timeline is paged only by the id of the cursor, the ids grow with the creation time of the posts
+	@Query("SELECT post FROM TimelineEntry entry JOIN entry.post post JOIN FETCH post.author "
+			+ "WHERE entry.viewerId = :viewerId AND entry.post.id < :cursorId "
+			+ "ORDER BY entry.post.id DESC")
+	List<Post> findTimelinePostsOfViewerBeforeCursor(Long viewerId, Long cursorId, Pageable pageable);
+
+	// the same, leaving out the posts of the authors that are no longer friends of the viewer (their entries are
+	// removed when the friendship ends, this covers the time until then)
+	@Query("SELECT post FROM TimelineEntry entry JOIN entry.post post JOIN FETCH post.author author "
+			+ "WHERE entry.viewerId = :viewerId AND entry.post.id < :cursorId "
+			+ "AND author.username IN :authorUsernames "
+			+ "ORDER BY entry.post.id DESC")
+	List<Post> findTimelinePostsOfViewerByAuthorsBeforeCursor(Long viewerId, List<String> authorUsernames,
+			Long cursorId, Pageable pageable);
+
+	@Transactional
+	@Modifying
+	@Query("UPDATE Post post SET post.fannedOut = true WHERE post.id = :postId")
+	void markAsFannedOut(Long postId);
+
+	@Query("SELECT DISTINCT post.author.username FROM Post post WHERE post.fannedOut = false AND post.id <= :maxPostId")
+	List<String> findAuthorsUsernamesOfNotFannedOutPostsUpTo(Long maxPostId);
+
+	@Transactional
+	@Modifying
+	@Query("UPDATE Post post SET post.fannedOut = true "
+			+ "WHERE post.fannedOut = false AND post.id <= :maxPostId "
+			+ "AND post.author.id IN (SELECT user.id FROM User user WHERE user.username = :authorUsername)")
+	int markNotFannedOutPostsOfAuthorAsFannedOut(String authorUsername, Long maxPostId);
+
+	@Transactional
+	@Modifying
+	@Query("UPDATE Post post SET post.upvoteCount = post.upvoteCount + :upvoteDelta, "
+			+ "post.downvoteCount = post.downvoteCount + :downvoteDelta WHERE post.id = :postId")
+	void updateVoteCounts(Long postId, long upvoteDelta, long downvoteDelta);
+
+	@Transactional
+	@Modifying
+	@Query("UPDATE Post post SET post.commentCount = post.commentCount + :delta WHERE post.id = :postId")
+	void updateCommentCount(Long postId, long delta);
+
+	@Query("SELECT MAX(post.id) FROM Post post")
+	Long findMaxId();
+
+	// the ids are sparse (see Post) so the batches of the jobs are read from the ids that exist
+	@Query("SELECT post.id FROM Post post WHERE post.id > :afterId ORDER BY post.id")
+	List<Long> findIdsAfter(Long afterId, Pageable pageable);
+
+	@Transactional
+	@Modifying
+	@Query("UPDATE Post post SET "
+			+ "post.upvoteCount = (SELECT COUNT(inter) FROM PostInteraction inter WHERE inter.post.id = post.id AND inter.upvoted = true), "
+			+ "post.downvoteCount = (SELECT COUNT(inter) FROM PostInteraction inter WHERE inter.post.id = post.id AND inter.downvoted = true), "
+			+ "post.commentCount = (SELECT COUNT(comment) FROM Comment comment WHERE comment.post.id = post.id) "
+			+ "WHERE post.id BETWEEN :fromId AND :toId")
+	int recountCountersOfPostsBetween(Long fromId, Long toId);
+
+	// the posts stored before the counters existed (all of them at 0) that have votes or comments
+	@Transactional
+	@Modifying
+	@Query("UPDATE Post post SET "
+			+ "post.upvoteCount = (SELECT COUNT(inter) FROM PostInteraction inter WHERE inter.post.id = post.id AND inter.upvoted = true), "
+			+ "post.downvoteCount = (SELECT COUNT(inter) FROM PostInteraction inter WHERE inter.post.id = post.id AND inter.downvoted = true), "
+			+ "post.commentCount = (SELECT COUNT(comment) FROM Comment comment WHERE comment.post.id = post.id) "
+			+ "WHERE post.id BETWEEN :fromId AND :toId "
+			+ "AND post.upvoteCount = 0 AND post.downvoteCount = 0 AND post.commentCount = 0 "
+			+ "AND (EXISTS (SELECT inter.id FROM PostInteraction inter WHERE inter.post.id = post.id "
+			+ "AND (inter.upvoted = true OR inter.downvoted = true)) "
+			+ "OR EXISTS (SELECT comment.id FROM Comment comment WHERE comment.post.id = post.id))")
+	int recountCountersOfUncountedPostsBetween(Long fromId, Long toId);
 }
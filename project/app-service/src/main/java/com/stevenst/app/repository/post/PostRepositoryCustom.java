@@ -0,0 +1,9 @@
+package com.stevenst.app.repository.post;
+
+import java.util.List;
+
+import com.stevenst.app.model.Post;
+
+public interface PostRepositoryCustom {
+	void insertPostWithMediaNames(Post post, List<String> mediaNames);
+}
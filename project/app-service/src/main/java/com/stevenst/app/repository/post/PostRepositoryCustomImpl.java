@@ -0,0 +1,31 @@
+package com.stevenst.app.repository.post;
+
+import java.util.List;
+
+import com.stevenst.app.model.Post;
+import com.stevenst.app.model.TimelineEntry;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class PostRepositoryCustomImpl implements PostRepositoryCustom {
+	private final PostMediaRepository postMediaRepository;
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	// the id of the post is assigned before so persist doesn't select it (as save would), the post, its media and
+	// the entry of the author's timeline are inserted by the same short transaction (the author sees the post right
+	// away, only the friends wait for the fan-out)
+	@Override
+	@Transactional
+	public void insertPostWithMediaNames(Post post, List<String> mediaNames) {
+		entityManager.persist(post);
+		entityManager.persist(TimelineEntry.builder().viewerId(post.getAuthor().getId()).post(post).build());
+		entityManager.flush();
+
+		postMediaRepository.insertMediaNamesOfPost(post.getId(), mediaNames);
+	}
+}
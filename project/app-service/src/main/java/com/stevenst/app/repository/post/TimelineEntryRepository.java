@@ -0,0 +1,59 @@
+package com.stevenst.app.repository.post;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.stevenst.app.model.TimelineEntry;
+
+import jakarta.transaction.Transactional;
+
+@Repository
+public interface TimelineEntryRepository extends JpaRepository<TimelineEntry, Long> {
+	// a single INSERT ... SELECT instead of one insert per viewer, the viewers already having the post are skipped
+	@Transactional
+	@Modifying
+	@Query("INSERT INTO TimelineEntry (viewerId, post) "
+			+ "SELECT user.id, post FROM User user, Post post "
+			+ "WHERE user.username IN :viewerUsernames AND post.id = :postId "
+			+ "AND NOT EXISTS (SELECT entry.id FROM TimelineEntry entry "
+			+ "WHERE entry.viewerId = user.id AND entry.post.id = post.id)")
+	int insertPostIntoTimelinesOfViewers(Long postId, List<String> viewerUsernames);
+
+	// the entries that already exist (from an earlier run stopped halfway) are skipped
+	@Transactional
+	@Modifying
+	@Query("INSERT INTO TimelineEntry (viewerId, post) "
+			+ "SELECT user.id, post FROM User user, Post post JOIN post.author author "
+			+ "WHERE user.username IN :viewerUsernames AND author.username = :authorUsername "
+			+ "AND post.fannedOut = false AND post.id <= :maxPostId "
+			+ "AND NOT EXISTS (SELECT entry.id FROM TimelineEntry entry "
+			+ "WHERE entry.viewerId = user.id AND entry.post.id = post.id)")
+	int insertNotFannedOutPostsOfAuthorIntoTimelinesOfViewers(String authorUsername, Long maxPostId,
+			List<String> viewerUsernames);
+
+	// the posts of a new friend, fanned out or not (the fan-outs running meanwhile skip the entries written here)
+	@Transactional
+	@Modifying
+	@Query("INSERT INTO TimelineEntry (viewerId, post) "
+			+ "SELECT viewer.id, post FROM User viewer, Post post JOIN post.author author "
+			+ "WHERE viewer.username = :viewerUsername AND author.username = :authorUsername "
+			+ "AND NOT EXISTS (SELECT entry.id FROM TimelineEntry entry "
+			+ "WHERE entry.viewerId = viewer.id AND entry.post.id = post.id)")
+	int insertPostsOfAuthorIntoTimelineOfViewer(String authorUsername, String viewerUsername);
+
+	@Transactional
+	@Modifying
+	@Query("DELETE FROM TimelineEntry entry "
+			+ "WHERE entry.viewerId IN (SELECT viewer.id FROM User viewer WHERE viewer.username = :viewerUsername) "
+			+ "AND entry.post.id IN (SELECT post.id FROM Post post WHERE post.author.username = :authorUsername)")
+	int deletePostsOfAuthorFromTimelineOfViewer(String authorUsername, String viewerUsername);
+
+	@Transactional
+	@Modifying
+	@Query("DELETE FROM TimelineEntry entry WHERE entry.post.id = :postId")
+	void deleteAllByPostId(Long postId);
+}
@@ -0,0 +1,16 @@
+package com.stevenst.app.service;
+
+import java.util.List;
+
+import com.stevenst.app.payload.ChatMessageCacheStatsPayload;
+import com.stevenst.lib.model.chat.ChatMessage;
+
+public interface ChatMessageCacheService {
+	List<ChatMessage> getLatestMessagesOfChatroom(Long chatroomId, int limit);
+
+	void addMessage(ChatMessage chatMessage);
+
+	void evictChatroom(Long chatroomId);
+
+	ChatMessageCacheStatsPayload getStats();
+}
@@ -0,0 +1,13 @@
+package com.stevenst.app.service;
+
+import java.util.List;
+
+import com.stevenst.lib.model.chat.ChatMessage;
+
+public interface ChatMessageWriteBehindService {
+	ChatMessage enqueue(ChatMessage chatMessage);
+
+	List<ChatMessage> getPendingMessagesOfChatroom(Long chatroomId);
+
+	void discardChatroom(Long chatroomId);
+}
@@ -3,8 +3,11 @@ package com.stevenst.app.service;
 import java.util.List;
 
 import com.stevenst.lib.model.chat.ChatMessage;
+import com.stevenst.app.payload.ChatMessageCacheStatsPayload;
+import com.stevenst.app.payload.ChatroomParticipantPayload;
 import com.stevenst.app.payload.ChatroomPayload;
 import com.stevenst.lib.payload.ResponsePayload;
+import com.stevenst.lib.payload.UserIdentityCacheStatsPayload;
 
 public interface ChatService {
 	public List<String> getFriendsWithoutDmChatrooms(String username);
@@ -21,7 +24,15 @@ public interface ChatService {
 
 	public List<String> getAllMembersUsernamesInChatroom(Long chatroomId);
 
+	public List<ChatroomParticipantPayload> getParticipantsOfChatroomAfterCursor(Long chatroomId, Long cursor, int limit);
+
 	public ResponsePayload insertMessageIntoDb(ChatMessage chatMessage);
+
+	public ResponsePayload markChatroomAsRead(String username, Long chatroomId);
+
+	public ChatMessageCacheStatsPayload getMessageCacheStats();
+
+	public UserIdentityCacheStatsPayload getUserIdentityCacheStats();
 	
 	public ChatroomPayload createDmChatroom(String username, String friendUsername);
 	
@@ -0,0 +1,9 @@
+package com.stevenst.app.service;
+
+public interface PostCountersReconciliationService {
+	int reconcileCountersOfAllPosts();
+
+	int backfillCountersOfUncountedPosts();
+
+	int backfillTimesOfUntimedInteractions();
+}
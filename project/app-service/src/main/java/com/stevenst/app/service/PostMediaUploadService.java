@@ -0,0 +1,9 @@
+package com.stevenst.app.service;
+
+import java.util.Map;
+
+import org.springframework.web.multipart.MultipartFile;
+
+public interface PostMediaUploadService {
+	void uploadMediaFiles(Map<String, MultipartFile> filesByKey);
+}
@@ -7,6 +7,7 @@ import org.springframework.web.multipart.MultipartFile;
 import com.stevenst.app.payload.CommentDetachedPayload;
 import com.stevenst.app.payload.CommentPayload;
 import com.stevenst.app.payload.PostPayload;
+import com.stevenst.lib.model.enums.ImageVariant;
 import com.stevenst.lib.payload.ResponsePayload;
 
 public interface PostService {
@@ -17,17 +18,20 @@ public interface PostService {
 	ResponsePayload setSeen(String username, Long postId);
 
 	List<PostPayload> getNextPostsBeforeCursor(String authorUsername, String username, boolean includeFriends,
-			Long cursor, int limit);
+			String cursor, int limit, ImageVariant mediaVariant);
 
-	List<CommentPayload> getNextCommentsOfPostBeforeCursor(Long postId, Long cursor, int limit);
+	List<CommentPayload> getNextCommentsOfPostBeforeCursor(Long postId, String cursor, int limit);
 
-	List<CommentDetachedPayload> getNextCommentsOfUserBeforeCursor(String username, Long cursor, int limit);
+	List<CommentDetachedPayload> getNextCommentsOfUserBeforeCursor(String username, String cursor, int limit);
 
-	List<PostPayload> getNextUpvotedOfUserBeforeCursor(String username, Long cursor, int limit);
+	List<PostPayload> getNextUpvotedOfUserBeforeCursor(String username, String cursor, int limit,
+			ImageVariant mediaVariant);
 
-	List<PostPayload> getNextDownvotedOfUserBeforeCursor(String username, Long cursor, int limit);
+	List<PostPayload> getNextDownvotedOfUserBeforeCursor(String username, String cursor, int limit,
+			ImageVariant mediaVariant);
 
-	List<PostPayload> getNextSavedOfUserBeforeCursor(String username, Long cursorr, int limit);
+	List<PostPayload> getNextSavedOfUserBeforeCursor(String username, String cursor, int limit,
+			ImageVariant mediaVariant);
 
 	ResponsePayload upvotePost(String username, Long postId);
 
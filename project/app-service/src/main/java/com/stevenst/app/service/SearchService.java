@@ -5,5 +5,5 @@ import java.util.List;
 import com.stevenst.app.payload.UserPublicPayload;
 
 public interface SearchService {
-	public List<UserPublicPayload> getUsersMatching(String input);
+	public List<UserPublicPayload> getUsersMatching(String input, String viewer);
 }
@@ -0,0 +1,15 @@
+package com.stevenst.app.service;
+
+import com.stevenst.lib.payload.ResponsePayload;
+
+public interface TimelineService {
+	void fanOutPost(Long postId, String authorUsername);
+
+	void fanOutPostAfterCommit(Long postId, String authorUsername);
+
+	int fanOutNotFannedOutPosts();
+
+	ResponsePayload addFriendship(String user1Username, String user2Username);
+
+	ResponsePayload removeFriendship(String user1Username, String user2Username);
+}
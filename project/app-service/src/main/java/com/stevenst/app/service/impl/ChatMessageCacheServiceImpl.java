@@ -0,0 +1,192 @@
+package com.stevenst.app.service.impl;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stevenst.app.config.WebSocketConfig.BrokerMode;
+import com.stevenst.app.payload.ChatMessageCacheStatsPayload;
+import com.stevenst.app.repository.chat.ChatMessageRepository;
+import com.stevenst.app.service.ChatMessageCacheService;
+import com.stevenst.app.service.ChatMessageWriteBehindService;
+import com.stevenst.lib.model.chat.ChatMessage;
+
+// keeps the latest messages of the recently opened chatrooms in memory, so opening a chatroom doesn't query the db
+// a chatroom is loaded from the db (and the messages still waiting to be inserted) the first time it is opened,
+// then the messages sent through this node are added to it
+@Service
+public class ChatMessageCacheServiceImpl implements ChatMessageCacheService {
+	private final ChatMessageRepository chatMessageRepository;
+	private final ChatMessageWriteBehindService chatMessageWriteBehindService;
+	private final int messagesPerChatroom;
+	// with the relay broker the messages sent through the other nodes never reach this cache
+	private final boolean enabled;
+	private final Cache<Long, ChatroomMessages> messagesByChatroom;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	public ChatMessageCacheServiceImpl(ChatMessageRepository chatMessageRepository,
+			ChatMessageWriteBehindService chatMessageWriteBehindService,
+			@Value("${app.chat.broker.mode:simple}") BrokerMode brokerMode,
+			@Value("${app.chat.message-cache.messages-per-chatroom:50}") int messagesPerChatroom,
+			@Value("${app.chat.message-cache.max-chatrooms:10000}") long maxChatrooms,
+			@Value("${app.chat.message-cache.expire-after-access:30m}") Duration expireAfterAccess) {
+		this.chatMessageRepository = chatMessageRepository;
+		this.chatMessageWriteBehindService = chatMessageWriteBehindService;
+		this.messagesPerChatroom = messagesPerChatroom;
+		this.enabled = brokerMode == BrokerMode.SIMPLE;
+		this.messagesByChatroom = Caffeine.newBuilder()
+				.maximumSize(maxChatrooms)
+				.expireAfterAccess(expireAfterAccess)
+				.build();
+	}
+
+	// returns null when the messages can't be served from memory (more than the cached ones are requested)
+	@Override
+	public List<ChatMessage> getLatestMessagesOfChatroom(Long chatroomId, int limit) {
+		if (!enabled || limit > messagesPerChatroom) {
+			return null;
+		}
+
+		ChatroomMessages chatroomMessages = messagesByChatroom.getIfPresent(chatroomId);
+		if (chatroomMessages != null) {
+			hits.increment();
+		} else {
+			misses.increment();
+			chatroomMessages = messagesByChatroom.get(chatroomId, this::loadChatroomMessages);
+		}
+
+		return chatroomMessages.getLatest(limit);
+	}
+
+	// only the chatrooms already in memory are updated, the others are loaded whole when they are opened
+	// (while a chatroom is loading this waits for it so the message isn't lost)
+	@Override
+	public void addMessage(ChatMessage chatMessage) {
+		if (!enabled) {
+			return;
+		}
+
+		messagesByChatroom.asMap().computeIfPresent(chatMessage.getChatroomId(), (chatroomId, chatroomMessages) -> {
+			chatroomMessages.add(chatMessage);
+			return chatroomMessages;
+		});
+	}
+
+	@Override
+	public void evictChatroom(Long chatroomId) {
+		messagesByChatroom.invalidate(chatroomId);
+	}
+
+	@Override
+	public ChatMessageCacheStatsPayload getStats() {
+		long hitCount = hits.sum();
+		long missCount = misses.sum();
+		long cachedMessages = 0;
+		long estimatedBytes = 0;
+		for (ChatroomMessages chatroomMessages : messagesByChatroom.asMap().values()) {
+			cachedMessages += chatroomMessages.size();
+			estimatedBytes += chatroomMessages.estimatedBytes();
+		}
+
+		return ChatMessageCacheStatsPayload.builder()
+				.enabled(enabled)
+				.hits(hitCount)
+				.misses(missCount)
+				.hitRate(hitCount + missCount == 0 ? 0 : (double) hitCount / (hitCount + missCount))
+				.cachedChatrooms(messagesByChatroom.estimatedSize())
+				.cachedMessages(cachedMessages)
+				.estimatedBytes(estimatedBytes)
+				.build();
+	}
+
+	// --------------------------------------------------------
+
+	// the pending messages are read before the db, a message missing from them was committed before the query
+	private ChatroomMessages loadChatroomMessages(Long chatroomId) {
+		List<ChatMessage> pendingMessages = chatMessageWriteBehindService.getPendingMessagesOfChatroom(chatroomId);
+		List<ChatMessage> latestMessages = chatMessageRepository.findMessagesBeforeCursorByChatroomId(chatroomId, null,
+				PageRequest.of(0, messagesPerChatroom));
+
+		List<ChatMessage> messages = new ArrayList<>(latestMessages);
+		messages.addAll(pendingMessages);
+		messages.sort(Comparator.comparing(ChatMessage::getId));
+
+		ChatroomMessages chatroomMessages = new ChatroomMessages(messagesPerChatroom);
+		messages.forEach(chatroomMessages::add);
+
+		return chatroomMessages;
+	}
+
+	// the latest messages of a chatroom, when it is full the message with the smallest id is overwritten (the messages
+	// can be added slightly out of the order of their ids, one older than all the cached ones isn't added)
+	private static class ChatroomMessages {
+		// rough size of a message without its strings (object headers, id, chatroom id, date)
+		private static final long MESSAGE_OVERHEAD_BYTES = 120;
+
+		private final ChatMessage[] messages;
+		private int size = 0;
+		private long estimatedBytes = 0;
+
+		ChatroomMessages(int capacity) {
+			this.messages = new ChatMessage[capacity];
+		}
+
+		synchronized void add(ChatMessage chatMessage) {
+			int oldestIndex = 0;
+			for (int i = 0; i < size; i++) {
+				if (messages[i].getId().equals(chatMessage.getId())) {
+					return;
+				}
+				if (messages[i].getId() < messages[oldestIndex].getId()) {
+					oldestIndex = i;
+				}
+			}
+
+			if (size < messages.length) {
+				messages[size++] = chatMessage;
+				estimatedBytes += estimateBytes(chatMessage);
+				return;
+			}
+
+			if (chatMessage.getId() < messages[oldestIndex].getId()) {
+				return;
+			}
+			estimatedBytes += estimateBytes(chatMessage) - estimateBytes(messages[oldestIndex]);
+			messages[oldestIndex] = chatMessage;
+		}
+
+		// newest first, as the messages are paged from the db
+		synchronized List<ChatMessage> getLatest(int limit) {
+			List<ChatMessage> latest = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				latest.add(messages[i]);
+			}
+			// messages sent at the same time can be added slightly out of the order of their ids
+			latest.sort(Comparator.comparing(ChatMessage::getId).reversed());
+
+			return List.copyOf(latest.subList(0, Math.min(limit, latest.size())));
+		}
+
+		synchronized int size() {
+			return size;
+		}
+
+		synchronized long estimatedBytes() {
+			return estimatedBytes;
+		}
+
+		private static long estimateBytes(ChatMessage chatMessage) {
+			return MESSAGE_OVERHEAD_BYTES + 2L * (chatMessage.getMessage().length()
+					+ chatMessage.getSenderUsername().length());
+		}
+	}
+}
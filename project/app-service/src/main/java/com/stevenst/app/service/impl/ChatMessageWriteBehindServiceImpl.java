@@ -0,0 +1,188 @@
+package com.stevenst.app.service.impl;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.stevenst.app.repository.chat.ChatMessageRepository;
+import com.stevenst.app.service.ChatMessageWriteBehindService;
+import com.stevenst.lib.exception.IgorMaxCapExceededException;
+import com.stevenst.lib.model.chat.ChatMessage;
+import com.stevenst.lib.util.SnowflakeIdGenerator;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// the messages are broadcast as soon as they are queued and a single flusher thread inserts them into the db
+// in batches, a batch is flushed when it is full or when its oldest message waited for the max delay
+@Service
+public class ChatMessageWriteBehindServiceImpl implements ChatMessageWriteBehindService {
+	private final ChatMessageRepository chatMessageRepository;
+	private final SnowflakeIdGenerator chatMessageIdGenerator;
+	private final BlockingQueue<ChatMessage> queue;
+	// the messages by id from the moment they are queued until their batch is committed
+	private final Map<Long, ChatMessage> pendingMessages = new ConcurrentHashMap<>();
+	private final int batchSize;
+	private final long maxDelayNanos;
+	private final long offerTimeoutNanos;
+	private final Thread flusher;
+	private volatile boolean running = true;
+
+	public ChatMessageWriteBehindServiceImpl(ChatMessageRepository chatMessageRepository,
+			SnowflakeIdGenerator chatMessageIdGenerator,
+			@Value("${app.chat.write-behind.queue-capacity:10000}") int queueCapacity,
+			@Value("${app.chat.write-behind.batch-size:100}") int batchSize,
+			@Value("${app.chat.write-behind.max-delay:200ms}") Duration maxDelay,
+			@Value("${app.chat.write-behind.offer-timeout:1s}") Duration offerTimeout) {
+		this.chatMessageRepository = chatMessageRepository;
+		this.chatMessageIdGenerator = chatMessageIdGenerator;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		this.batchSize = batchSize;
+		this.maxDelayNanos = maxDelay.toNanos();
+		this.offerTimeoutNanos = offerTimeout.toNanos();
+		this.flusher = new Thread(this::flushWhileRunning, "chat-message-flusher");
+	}
+
+	@PostConstruct
+	void start() {
+		flusher.start();
+	}
+
+	// stops taking messages and inserts the ones still queued before the db connections are closed
+	@PreDestroy
+	void shutdown() throws InterruptedException {
+		running = false;
+		if (flusher.isAlive()) {
+			flusher.join();
+		}
+
+		// messages queued while the flusher was stopping
+		flushRemainingMessages(new ArrayList<>(batchSize));
+	}
+
+	// when the queue is full the sender waits for the offer timeout (slowing down the clients of this node)
+	// and if there is still no room the message is rejected instead of being broadcast without being saved
+	@Override
+	public ChatMessage enqueue(ChatMessage chatMessage) {
+		if (!running) {
+			throw new IgorMaxCapExceededException("The chat is shutting down, the message was not sent.");
+		}
+
+		chatMessage.setId(chatMessageIdGenerator.nextId());
+		pendingMessages.put(chatMessage.getId(), chatMessage);
+
+		try {
+			if (!queue.offer(chatMessage, offerTimeoutNanos, TimeUnit.NANOSECONDS)) {
+				pendingMessages.remove(chatMessage.getId());
+				throw new IgorMaxCapExceededException("The chat is too busy, the message was not sent.");
+			}
+		} catch (InterruptedException e) {
+			pendingMessages.remove(chatMessage.getId());
+			Thread.currentThread().interrupt();
+			throw new IgorMaxCapExceededException("The message was not sent.");
+		}
+
+		return chatMessage;
+	}
+
+	// the messages that are not in the db yet, a message is either returned here or already committed
+	@Override
+	public List<ChatMessage> getPendingMessagesOfChatroom(Long chatroomId) {
+		return pendingMessages.values().stream()
+				.filter(message -> message.getChatroomId().equals(chatroomId))
+				.toList();
+	}
+
+	// called before a chatroom is deleted, its messages that are not in the db yet are never inserted
+	// (a batch the flusher already took only inserts the messages still pending)
+	@Override
+	public void discardChatroom(Long chatroomId) {
+		queue.removeIf(message -> message.getChatroomId().equals(chatroomId));
+		pendingMessages.values().removeIf(message -> message.getChatroomId().equals(chatroomId));
+	}
+
+	// --------------------------------------------------------
+
+	// the flusher isn't interrupted on shutdown (so an insert is never cut in half), it notices within the max delay
+	private void flushWhileRunning() {
+		List<ChatMessage> batch = new ArrayList<>(batchSize);
+
+		while (running) {
+			try {
+				collectBatch(batch);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				running = false;
+			}
+
+			flushBatch(batch);
+		}
+
+		flushRemainingMessages(batch);
+	}
+
+	private void collectBatch(List<ChatMessage> batch) throws InterruptedException {
+		ChatMessage first = queue.poll(maxDelayNanos, TimeUnit.NANOSECONDS);
+		if (first == null) {
+			return;
+		}
+
+		batch.add(first);
+		long deadline = System.nanoTime() + maxDelayNanos;
+
+		while (batch.size() < batchSize) {
+			queue.drainTo(batch, batchSize - batch.size());
+
+			long remaining = deadline - System.nanoTime();
+			if (batch.size() >= batchSize || remaining <= 0) {
+				return;
+			}
+
+			ChatMessage next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+			if (next == null) {
+				return;
+			}
+			batch.add(next);
+		}
+	}
+
+	private void flushRemainingMessages(List<ChatMessage> batch) {
+		flushBatch(batch);
+
+		while (queue.drainTo(batch, batchSize) > 0) {
+			flushBatch(batch);
+		}
+	}
+
+	// if the batch fails its messages are inserted one by one so a single bad message doesn't lose the others
+	private void flushBatch(List<ChatMessage> batch) {
+		batch.removeIf(message -> !pendingMessages.containsKey(message.getId()));
+		if (batch.isEmpty()) {
+			return;
+		}
+
+		try {
+			chatMessageRepository.insertMessages(List.copyOf(batch));
+		} catch (RuntimeException batchException) {
+			for (ChatMessage message : batch) {
+				try {
+					chatMessageRepository.insertMessages(List.of(message));
+				} catch (RuntimeException e) {
+					System.err.println("Unable to save the chat message with id " + message.getId() + ": "
+							+ e.getMessage());
+				}
+			}
+		} finally {
+			batch.forEach(message -> pendingMessages.remove(message.getId()));
+			batch.clear();
+		}
+	}
+}
@@ -1,32 +1,44 @@
 package com.stevenst.app.service.impl;
 
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
-import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
 
 import com.stevenst.lib.model.chat.ChatMessage;
 import com.stevenst.lib.model.chat.Chatroom;
 import com.stevenst.lib.model.chat.ChatroomParticipant;
 import com.stevenst.lib.model.chat.ChatroomType;
+import com.stevenst.app.payload.ChatMessageCacheStatsPayload;
+import com.stevenst.app.payload.ChatroomParticipantPayload;
 import com.stevenst.app.payload.ChatroomPayload;
-import com.stevenst.app.repository.UserRepository;
 import com.stevenst.app.repository.chat.ChatMessageRepository;
 import com.stevenst.app.repository.chat.ChatroomParticipantRepository;
+import com.stevenst.app.repository.chat.ChatroomParticipantRepository.ChatroomOfUser;
+import com.stevenst.app.repository.chat.ChatroomParticipantRepository.ParticipantsCountOfChatroom;
+import com.stevenst.app.repository.chat.ChatroomParticipantRepository.UsernameOfParticipant;
+import com.stevenst.app.repository.UserRepository;
 import com.stevenst.app.repository.chat.ChatroomRepository;
+import com.stevenst.app.service.ChatMessageCacheService;
+import com.stevenst.app.service.ChatMessageWriteBehindService;
 import com.stevenst.app.service.ChatService;
+import com.stevenst.app.util.CollectionUtil;
+import com.stevenst.lib.cache.UserIdentity;
+import com.stevenst.lib.cache.UserIdentityCache;
+import com.stevenst.lib.client.UserServiceClient;
 import com.stevenst.lib.exception.IgorEntityAlreadyExistsException;
 import com.stevenst.lib.exception.IgorEntityNotFoundException;
 import com.stevenst.lib.exception.IgorNullValueException;
 import com.stevenst.lib.exception.IgorUserNotFoundException;
 import com.stevenst.lib.model.User;
 import com.stevenst.lib.payload.ResponsePayload;
+import com.stevenst.lib.payload.UserIdentityCacheStatsPayload;
 
 import lombok.RequiredArgsConstructor;
-import reactor.core.publisher.Mono;
 
 @Service
 @RequiredArgsConstructor
@@ -34,12 +46,25 @@ public class ChatServiceImpl implements ChatService {
 	private final ChatroomRepository chatroomRepository;
 	private final ChatroomParticipantRepository chatroomParticipantRepository;
 	private final ChatMessageRepository chatMessageRepository;
+	private final ChatMessageWriteBehindService chatMessageWriteBehindService;
+	private final ChatMessageCacheService chatMessageCacheService;
+	private final UserIdentityCache userIdentityCache;
 	private final UserRepository userRepository;
-	private final WebClient webClient;
+	private final UserServiceClient userServiceClient;
 	private static final String USER_NOT_FOUND = "User not found";
+	@Value("${app.chat.participants-sample-size:50}")
+	private int participantsSampleSize;
 
 	@Override
 	public List<ChatMessage> getMessagesBeforeCursorByChatroomId(Long chatroomId, Long cursor, int limit) {
+		// the first page (when a chatroom is opened) is served from memory
+		if (cursor == null) {
+			List<ChatMessage> latestMessages = chatMessageCacheService.getLatestMessagesOfChatroom(chatroomId, limit);
+			if (latestMessages != null) {
+				return latestMessages;
+			}
+		}
+
 		PageRequest pageRequest = PageRequest.of(0, limit, Sort.by("id").descending());
 
 		return chatMessageRepository.findMessagesBeforeCursorByChatroomId(chatroomId, cursor, pageRequest);
@@ -50,32 +75,34 @@ public class ChatServiceImpl implements ChatService {
 		User user = getUserFromDbByUsername(username);
 
 		// get all participants in chatrooms of type dm where the user is in
-		List<ChatroomParticipant> friendsWithDmChatrooms = getParticipantsInDmsOfUser(user);
+		List<String> friendsWithDmChatrooms = getParticipantsInDmsOfUser(
+				chatroomParticipantRepository.findDmChatroomsOfUserNotLeft(user), user).stream()
+				.map(UsernameOfParticipant::getUsername)
+				.toList();
 
 		// get all friends of user
 		List<String> allFriendsUsernames = getAllFriendsUsernamesOfUser(username);
 
 		// return the friend list filtering out those who have dm chatrooms
-		return allFriendsUsernames.stream().filter(friend -> !friendsWithDmChatrooms.stream()
-				.anyMatch(participant -> participant.getUser().getUsername().equals(friend)))
-				.toList();
+		return CollectionUtil.difference(allFriendsUsernames, friendsWithDmChatrooms);
 	}
 
 	@Override
 	public List<String> getFriendsNotInChatroom(String username, Long chatroomId) {
-		User user = getUserFromDbByUsername(username);
-		Chatroom chatroom = chatroomRepository.findById(chatroomId).get();
+		getUserIdentity(username);
+		if (!chatroomRepository.existsById(chatroomId)) {
+			throw new IgorEntityNotFoundException("Chatroom with id " + chatroomId + " not found.");
+		}
 
 		// get all friends usernames of user
 		List<String> allFriendsUsernames = getAllFriendsUsernamesOfUser(username);
 
-		// get all participants in chatroom
-		List<ChatroomParticipant> chatroomParticipants = chatroomParticipantRepository.findByChatroom(chatroom);
+		// get the usernames of all participants in chatroom (without loading the participants and their users)
+		List<String> participantsUsernames = chatroomParticipantRepository
+				.findUsernamesOfParticipantsInChatroom(chatroomId);
 
 		// return the friend list filtering out those who are in the chatroom
-		return allFriendsUsernames.stream().filter(friend -> !chatroomParticipants.stream()
-				.anyMatch(participant -> participant.getUser().getUsername().equals(friend)))
-				.toList();
+		return CollectionUtil.difference(allFriendsUsernames, participantsUsernames);
 	}
 
 	@Override
@@ -101,24 +128,61 @@ public class ChatServiceImpl implements ChatService {
 
 	@Override
 	public List<String> getAllMembersUsernamesInChatroom(Long chatroomId) {
-		Chatroom chatroom = chatroomRepository.findById(chatroomId).get();
-
-		List<ChatroomParticipant> chatroomParticipants = chatroomParticipantRepository.findByChatroom(chatroom);
+		return chatroomParticipantRepository.findUsernamesOfParticipantsInChatroom(chatroomId);
+	}
 
-		return chatroomParticipants.stream().map(participant -> participant.getUser().getUsername()).toList();
+	@Override
+	public List<ChatroomParticipantPayload> getParticipantsOfChatroomAfterCursor(Long chatroomId, Long cursor,
+			int limit) {
+		return chatroomParticipantRepository
+				.findParticipantsOfChatroomAfterCursor(chatroomId, cursor, PageRequest.of(0, limit)).stream()
+				.map(participant -> ChatroomParticipantPayload.builder()
+						.id(participant.getId())
+						.username(participant.getUsername())
+						.addedAt(participant.getAddedAt())
+						.build())
+				.toList();
 	}
 
 	@Override
 	public ResponsePayload insertMessageIntoDb(ChatMessage chatMessage) {
-		chatMessageRepository.save(chatMessage);
+		// the message is inserted later, in a batch with the other messages sent meanwhile
+		chatMessageWriteBehindService.enqueue(chatMessage);
+		chatMessageCacheService.addMessage(chatMessage);
 
-		return ResponsePayload.builder().status(201).message("Message inserted successfully.").build();
+		return ResponsePayload.builder().status(202).message("Message queued for insertion.").build();
 	}
 
 	@Override
-	public ChatroomPayload createDmChatroom(String username, String friendUsername) {
+	public ResponsePayload markChatroomAsRead(String username, Long chatroomId) {
 		User user = getUserFromDbByUsername(username);
-		User friend = getUserFromDbByUsername(friendUsername);
+		Chatroom chatroom = chatroomRepository.findById(chatroomId)
+				.orElseThrow(() -> new IgorEntityNotFoundException("Chatroom with id " + chatroomId + " not found."));
+
+		// everything counted in the chatroom so far is read (the messages still in the write-behind queue are not)
+		chatroomParticipantRepository.updateReadStateOfParticipant(user, chatroom, chatroom.getLastMessageId(),
+				chatroom.getMessageCount());
+
+		return ResponsePayload.builder().status(200)
+				.message("Chatroom with id " + chatroomId + " marked as read for " + username + ".").build();
+	}
+
+	@Override
+	public ChatMessageCacheStatsPayload getMessageCacheStats() {
+		return chatMessageCacheService.getStats();
+	}
+
+	@Override
+	public UserIdentityCacheStatsPayload getUserIdentityCacheStats() {
+		return userIdentityCache.getStats();
+	}
+
+	@Override
+	public ChatroomPayload createDmChatroom(String username, String friendUsername) {
+		UserIdentity userIdentity = getUserIdentity(username);
+		UserIdentity friendIdentity = getUserIdentity(friendUsername);
+		User user = getUserReference(userIdentity);
+		User friend = getUserReference(friendIdentity);
 
 		// check if these two users are already sharing a dm chatroom
 		Chatroom commonDmChatroom = chatroomParticipantRepository.findCommonDmChatroomOfUsers(user, friend);
@@ -136,35 +200,35 @@ public class ChatServiceImpl implements ChatService {
 
 		// else create a new chatroom and add participants
 		Chatroom chatroom = chatroomRepository
-				.save(Chatroom.builder().name(user.getUsername() + " and " + friend.getUsername() + "'s chatroom")
+				.save(Chatroom.builder().name(userIdentity.getUsername() + " and " + friendIdentity.getUsername() + "'s chatroom")
 						.type(ChatroomType.DM).build());
 
 		chatroomParticipantRepository.save(
-				ChatroomParticipant.builder().user(user).chatroom(chatroom).hasLeft(false).build());
+				ChatroomParticipant.joining(chatroom, user));
 		chatroomParticipantRepository.save(
-				ChatroomParticipant.builder().user(friend).chatroom(chatroom).hasLeft(false).build());
+				ChatroomParticipant.joining(chatroom, friend));
 
 		// same as the return above
-		return createChatroomPayload(chatroom, List.of(friend.getUsername()));
+		return createChatroomPayload(chatroom, List.of(friendIdentity.getUsername()));
 	}
 
 	@Override
 	public ChatroomPayload createGroupChatroom(String username) {
-		User user = getUserFromDbByUsername(username);
+		UserIdentity user = getUserIdentity(username);
 
 		Chatroom chatroom = chatroomRepository
 				.save(Chatroom.builder().name(user.getUsername() + "'s group chatroom").type(ChatroomType.GROUP)
 						.adminUsername(user.getUsername()).build());
 
 		chatroomParticipantRepository.save(
-				ChatroomParticipant.builder().user(user).chatroom(chatroom).hasLeft(false).build());
+				ChatroomParticipant.joining(chatroom, getUserReference(user)));
 
 		return createChatroomPayload(chatroom, List.of(user.getUsername()));
 	}
 
 	@Override
 	public ResponsePayload addUserToGroupChatroom(String username, Long chatroomid, String usernameOfUserToAdd) {
-		User user = getUserFromDbByUsername(username);
+		UserIdentity user = getUserIdentity(username);
 		Chatroom chatroom = chatroomRepository.findById(chatroomid).get();
 		User userToAdd = getUserFromDbByUsername(usernameOfUserToAdd);
 
@@ -181,7 +245,7 @@ public class ChatServiceImpl implements ChatService {
 		}
 
 		chatroomParticipantRepository
-				.save(ChatroomParticipant.builder().user(userToAdd).chatroom(chatroom).hasLeft(false).build());
+				.save(ChatroomParticipant.joining(chatroom, userToAdd));
 
 		return ResponsePayload.builder().status(201)
 				.message("User " + usernameOfUserToAdd + " added to chatroom successfully.").build();
@@ -260,7 +324,7 @@ public class ChatServiceImpl implements ChatService {
 
 	@Override
 	public ResponsePayload removeMemberFromChatroom(String username, Long chatroomId, String usernameOfMemberToRemove) {
-		User user = getUserFromDbByUsername(username);
+		UserIdentity user = getUserIdentity(username);
 		Chatroom chatroom = chatroomRepository.findById(chatroomId).get();
 		User userToRemove = getUserFromDbByUsername(usernameOfMemberToRemove);
 
@@ -297,125 +361,136 @@ public class ChatServiceImpl implements ChatService {
 	}
 
 	private List<String> getAllFriendsUsernamesOfUser(String username) {
-		// get all friends of user
-		Mono<List<String>> friendsUsernamesMono = webClient.get()
-				.uri(uriBuilder -> uriBuilder.path("/api/friend/getAllFriendsUsernames")
-						.queryParam("username", username)
-						.build())
-				.retrieve()
-				.bodyToMono(new ParameterizedTypeReference<List<String>>() {
-				});
-
-		// Convert the Mono to a List and return it
-		return friendsUsernamesMono.block();
+		return userServiceClient.getAllFriendsUsernames(username);
 	}
 
 	// TODO: refactor the code: separate the dm chatrooms code from the group and regional ones
 
 	private ChatroomPayload createChatroomPayload(Chatroom chatroom, List<String> participantsUsernames) {
+		return chatroomPayloadBuilder(chatroom)
+				.participantsUsernames(participantsUsernames)
+				.participantsCount((long) participantsUsernames.size())
+				.unreadMessagesCount(0L)
+				.build();
+	}
+
+	// the chatroom with its last message, the participants and the read state are added by the callers
+	private ChatroomPayload.ChatroomPayloadBuilder chatroomPayloadBuilder(Chatroom chatroom) {
 		return ChatroomPayload.builder()
 				.id(chatroom.getId())
 				.name(chatroom.getName())
 				.type(chatroom.getType())
 				.adminUsername(chatroom.getAdminUsername())
 				.lastMessageTime(chatroom.getLastMessageTime())
-				.participantsUsernames(participantsUsernames)
-				.build();
+				.lastMessageId(chatroom.getLastMessageId())
+				.lastMessageSenderUsername(chatroom.getLastMessageSenderUsername())
+				.lastMessagePreview(chatroom.getLastMessagePreview());
 	}
 
+	private ChatroomPayload.ChatroomPayloadBuilder chatroomPayloadBuilder(ChatroomOfUser chatroomOfUser) {
+		return chatroomPayloadBuilder(chatroomOfUser.getChatroom())
+				.lastReadMessageId(chatroomOfUser.getLastReadMessageId())
+				.unreadMessagesCount(Math.max(0,
+						chatroomOfUser.getChatroom().getMessageCount() - chatroomOfUser.getReadMessagesCount()));
+	}
+
+	// the messages not in the db yet are discarded first, and the chatroom is deleted before its messages: a batch
+	// being inserted holds the lock of the chatroom so it is committed before the delete, a later one doesn't find it
 	private void removeChatroomAndParticipantsAndMessages(Chatroom chatroom) {
-		chatMessageRepository.deleteAllByChatroomId(chatroom.getId());
+		chatMessageWriteBehindService.discardChatroom(chatroom.getId());
 		chatroomParticipantRepository.deleteByChatroom(chatroom);
 		chatroomRepository.delete(chatroom);
+		chatMessageRepository.deleteAllByChatroomId(chatroom.getId());
+		chatMessageCacheService.evictChatroom(chatroom.getId());
 	}
 
 	private List<ChatroomPayload> getAllDmChatroomsOfUser(User user) {
-		// get all dm chats of user where user hasLeft = false
-		List<Chatroom> dmChatroomsOfUser = chatroomParticipantRepository.findDmChatroomsOfUserNotLeft(user);
-
-		// get all participants (excluding the user) that have a chatroom in common with the user
-		List<ChatroomParticipant> participantsInDms = getParticipantsInDmsOfUser(user);
-
-		List<ChatroomPayload> chatrooms = new java.util.ArrayList<>();
-
-		for (Chatroom chatroomOfUser : dmChatroomsOfUser) {
-			ChatroomPayload payload = ChatroomPayload.builder()
-					.id(chatroomOfUser.getId())
-					.name(chatroomOfUser.getName())
-					.type(chatroomOfUser.getType())
-					.lastMessageTime(chatroomOfUser.getLastMessageTime())
-					.participantsUsernames(participantsInDms.stream()
-							.filter(participant -> participant.getChatroom().getId().equals(chatroomOfUser.getId()))
-							.map(participant -> participant.getUser().getUsername())
-							.toList())
-					.build();
-			chatrooms.add(payload);
-		}
-
-		return chatrooms;
+		// get all dm chats of user where user hasLeft = false (with the read state of the user)
+		List<ChatroomOfUser> dmChatroomsOfUser = chatroomParticipantRepository.findChatroomsOfUserNotLeftByType(user,
+				ChatroomType.DM);
+
+		// get the usernames of all participants (excluding the user) that have a chatroom in common with the user
+		Map<Long, List<String>> usernamesByChatroom = getParticipantsInDmsOfUser(
+				dmChatroomsOfUser.stream().map(ChatroomOfUser::getChatroom).toList(), user).stream()
+				.collect(Collectors.groupingBy(UsernameOfParticipant::getChatroomId,
+						Collectors.mapping(UsernameOfParticipant::getUsername, Collectors.toList())));
+
+		return dmChatroomsOfUser.stream()
+				.map(chatroomOfUser -> chatroomPayloadBuilder(chatroomOfUser)
+						.participantsUsernames(
+								usernamesByChatroom.getOrDefault(chatroomOfUser.getChatroom().getId(), List.of()))
+						// a dm always keeps its two participants (the one who left is only marked)
+						.participantsCount(2L)
+						.build())
+				.toList();
 	}
 
 	private List<ChatroomPayload> getAllGroupChatroomsOfUser(User user) {
-		List<Chatroom> groupChatroomsOfUser = chatroomParticipantRepository.findGroupChatroomsOfUser(user);
-		List<ChatroomPayload> chatrooms = new java.util.ArrayList<>();
-
-		for (Chatroom groupChatroomOfUser : groupChatroomsOfUser) {
-			// for each chatroom search for its participants and insert it into the payload
-			List<String> participantsUsernames = chatroomParticipantRepository.findByChatroom(groupChatroomOfUser)
-					.stream().map(participant -> participant.getUser().getUsername()).toList();
-
-			ChatroomPayload payload = ChatroomPayload.builder()
-					.id(groupChatroomOfUser.getId())
-					.name(groupChatroomOfUser.getName())
-					.type(groupChatroomOfUser.getType())
-					.adminUsername(groupChatroomOfUser.getAdminUsername())
-					.lastMessageTime(groupChatroomOfUser.getLastMessageTime())
-					.participantsUsernames(participantsUsernames)
-					.build();
-			chatrooms.add(payload);
-		}
-
-		return chatrooms;
+		return createChatroomPayloadsWithParticipantsSample(
+				chatroomParticipantRepository.findChatroomsOfUserNotLeftByType(user, ChatroomType.GROUP));
 	}
 
 	private List<ChatroomPayload> getAllRegionalChatroomsOfUser(User user) {
-		List<Chatroom> regionalChatroomsOfUser = chatroomParticipantRepository.findRegionalChatroomsOfUser(user);
-		List<ChatroomPayload> chatrooms = new java.util.ArrayList<>();
-
-		for (Chatroom regionalChatroomOfUser : regionalChatroomsOfUser) {
-			// for each chatroom search for its participants and insert it into the payload
-			List<String> participantsUsernames = chatroomParticipantRepository.findByChatroom(regionalChatroomOfUser)
-					.stream().map(participant -> participant.getUser().getUsername()).toList();
-
-			ChatroomPayload payload = ChatroomPayload.builder()
-					.id(regionalChatroomOfUser.getId())
-					.name(regionalChatroomOfUser.getName())
-					.type(regionalChatroomOfUser.getType())
-					.adminUsername(regionalChatroomOfUser.getAdminUsername())
-					.lastMessageTime(regionalChatroomOfUser.getLastMessageTime())
-					.participantsUsernames(participantsUsernames)
-					.build();
-			chatrooms.add(payload);
+		return createChatroomPayloadsWithParticipantsSample(
+				chatroomParticipantRepository.findChatroomsOfUserNotLeftByType(user, ChatroomType.REGIONAL));
+	}
+
+	// the counts and the usernames of the participants of all chatrooms are loaded by one grouped query each,
+	// the usernames are capped so a regional chatroom with thousands of members stays small
+	private List<ChatroomPayload> createChatroomPayloadsWithParticipantsSample(List<ChatroomOfUser> chatrooms) {
+		if (chatrooms.isEmpty()) {
+			return List.of();
 		}
 
-		return chatrooms;
+		List<Long> chatroomIds = chatrooms.stream().map(chatroomOfUser -> chatroomOfUser.getChatroom().getId())
+				.toList();
+		Map<Long, Long> participantsCountByChatroom = chatroomParticipantRepository
+				.countParticipantsOfChatrooms(chatroomIds).stream()
+				.collect(Collectors.toMap(ParticipantsCountOfChatroom::getChatroomId,
+						ParticipantsCountOfChatroom::getParticipantsCount));
+		Map<Long, List<String>> usernamesByChatroom = chatroomParticipantRepository
+				.findOldestParticipantsUsernamesOfChatrooms(chatroomIds, participantsSampleSize).stream()
+				.collect(Collectors.groupingBy(UsernameOfParticipant::getChatroomId,
+						Collectors.mapping(UsernameOfParticipant::getUsername, Collectors.toList())));
+
+		return chatrooms.stream()
+				.map(chatroomOfUser -> chatroomPayloadBuilder(chatroomOfUser)
+						.participantsUsernames(
+								usernamesByChatroom.getOrDefault(chatroomOfUser.getChatroom().getId(), List.of()))
+						.participantsCount(
+								participantsCountByChatroom.getOrDefault(chatroomOfUser.getChatroom().getId(), 0L))
+						.build())
+				.toList();
 	}
 
-	private List<ChatroomParticipant> getParticipantsInDmsOfUser(User user) {
-		// get all chatrooms of user where he hasnt left (is set to false)
-		List<Chatroom> dmsOfUserNotLeft = chatroomParticipantRepository.findDmChatroomsOfUserNotLeft(user);
+	private List<UsernameOfParticipant> getParticipantsInDmsOfUser(List<Chatroom> dmsOfUserNotLeft, User user) {
+		if (dmsOfUserNotLeft.isEmpty()) {
+			return List.of();
+		}
 
 		// get all participants (excluding the user) that exist in those selected chatrooms
-		return chatroomParticipantRepository.findParticipantsInTheseChatroomsExcludingUser(dmsOfUserNotLeft, user);
+		return chatroomParticipantRepository.findUsernamesOfParticipantsInTheseChatroomsExcludingUser(
+				dmsOfUserNotLeft, user);
 	}
 
 	private User getUserFromDbByUsername(String username) {
+		return getUserReference(getUserIdentity(username));
+	}
+
+	// the id and the username of the user, from the cache
+	private UserIdentity getUserIdentity(String username) {
 		if (username == null || username.equals("")) {
 			throw new IgorNullValueException("Username cannot be null or empty.");
 		}
 
-		return userRepository.findByUsername(username)
+		return userIdentityCache.get(username)
 				.orElseThrow(
 						() -> new IgorUserNotFoundException(USER_NOT_FOUND + " (with username: " + username + ")."));
 	}
+
+	// a proxy of the user (never loaded) for the associations of the saved entities and the entity parameters of
+	// the queries
+	private User getUserReference(UserIdentity user) {
+		return userRepository.getReferenceById(user.getId());
+	}
 }
@@ -0,0 +1,89 @@
+package com.stevenst.app.service.impl;
+
+import java.util.List;
+import java.util.function.ToIntBiFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.stevenst.app.repository.post.PostInteractionRepository;
+import com.stevenst.app.repository.post.PostRepository;
+import com.stevenst.app.service.PostCountersReconciliationService;
+
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+public class PostCountersReconciliationServiceImpl implements PostCountersReconciliationService {
+	private final PostRepository postRepository;
+	private final PostInteractionRepository postInteractionRepository;
+	@Value("${app.posts.counters-reconciliation-batch-size:1000}")
+	private int batchSize;
+	@Value("${app.posts.backfill-counters-on-startup:true}")
+	private boolean backfillOnStartup;
+	@Value("${app.posts.backfill-interaction-times-on-startup:true}")
+	private boolean backfillInteractionTimesOnStartup;
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void backfillOnStartup() {
+		if (backfillOnStartup) {
+			backfillCountersOfUncountedPosts();
+		}
+		if (backfillInteractionTimesOnStartup) {
+			backfillTimesOfUntimedInteractions();
+		}
+	}
+
+	// recounts the votes and comments of every post (in id ranges to keep each statement short)
+	// to repair any drift of the counters caused by concurrent votes or failed writes
+	@Override
+	@Scheduled(cron = "${app.posts.counters-reconciliation-cron:0 0 4 * * *}")
+	public int reconcileCountersOfAllPosts() {
+		int nbOfPostsRecounted = recountInBatchesOfIds(postRepository::recountCountersOfPostsBetween);
+
+		System.out.println("Recounted the votes and comments of " + nbOfPostsRecounted + " posts.");
+		return nbOfPostsRecounted;
+	}
+
+	// the posts stored before the counters were added read 0 votes and comments until they are counted once,
+	// only the posts with every counter at 0 are recounted so the later startups don't recount everything
+	@Override
+	public int backfillCountersOfUncountedPosts() {
+		int nbOfPostsCounted = recountInBatchesOfIds(postRepository::recountCountersOfUncountedPostsBetween);
+
+		if (nbOfPostsCounted > 0) {
+			System.out.println("Counted the votes and comments of " + nbOfPostsCounted + " uncounted posts.");
+		}
+		return nbOfPostsCounted;
+	}
+
+	// the upvoted, downvoted and saved posts are paged by the times of the interactions, the interactions stored
+	// before these times existed are left out of the feeds until they get one
+	@Override
+	public int backfillTimesOfUntimedInteractions() {
+		int nbOfInteractionsTimed = recountInBatchesOfIds(
+				postInteractionRepository::backfillTimesOfUntimedInteractionsOfPostsBetween);
+
+		if (nbOfInteractionsTimed > 0) {
+			System.out.println("Set the times of " + nbOfInteractionsTimed + " untimed interactions.");
+		}
+		return nbOfInteractionsTimed;
+	}
+
+	// each range spans the ids of batch size posts, from the first id of the batch to its last one
+	private int recountInBatchesOfIds(ToIntBiFunction<Long, Long> recountBetween) {
+		int nbOfPostsRecounted = 0;
+		List<Long> ids = postRepository.findIdsAfter(0L, PageRequest.of(0, batchSize));
+		while (!ids.isEmpty()) {
+			Long lastId = ids.get(ids.size() - 1);
+			nbOfPostsRecounted += recountBetween.applyAsInt(ids.get(0), lastId);
+			ids = postRepository.findIdsAfter(lastId, PageRequest.of(0, batchSize));
+		}
+
+		return nbOfPostsRecounted;
+	}
+}
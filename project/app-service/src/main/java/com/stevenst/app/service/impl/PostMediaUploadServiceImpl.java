@@ -0,0 +1,238 @@
+package com.stevenst.app.service.impl;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.stevenst.app.service.PostMediaUploadService;
+import com.stevenst.lib.exception.IgorIoException;
+import com.stevenst.lib.exception.IgorMaxCapExceededException;
+import com.stevenst.lib.model.enums.ImageVariant;
+import com.stevenst.lib.util.ImageResizer;
+
+import jakarta.annotation.PreDestroy;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+@Service
+public class PostMediaUploadServiceImpl implements PostMediaUploadService {
+	// s3 rejects the parts of a multipart upload smaller than 5MB (except the last one)
+	private static final long MIN_PART_SIZE = DataSize.ofMegabytes(5).toBytes();
+	private final S3Client s3Client;
+	private final String bucketName;
+	private final long multipartThreshold;
+	private final int partSize;
+	private final long maxImagePixels;
+	// bounded pool for the uploads, when it is saturated the request thread uploads the file itself
+	private final ThreadPoolExecutor uploadExecutor;
+
+	public PostMediaUploadServiceImpl(S3Client s3Client,
+			@Value("${aws.bucketName}") String bucketName,
+			@Value("${app.posts.media-upload.threads:8}") int threads,
+			@Value("${app.posts.media-upload.queue-capacity:64}") int queueCapacity,
+			@Value("${app.posts.media-upload.multipart-threshold:8MB}") DataSize multipartThreshold,
+			@Value("${app.posts.media-upload.part-size:8MB}") DataSize partSize,
+			@Value("${app.posts.media-upload.max-image-pixels:50000000}") long maxImagePixels) {
+		if (partSize.toBytes() < MIN_PART_SIZE) {
+			throw new IllegalStateException("The part size of the media uploads must be at least 5MB.");
+		}
+
+		this.s3Client = s3Client;
+		this.bucketName = bucketName;
+		this.multipartThreshold = multipartThreshold.toBytes();
+		this.partSize = (int) partSize.toBytes();
+		this.maxImagePixels = maxImagePixels;
+		this.uploadExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	@PreDestroy
+	void shutdown() {
+		uploadExecutor.shutdown();
+	}
+
+	// uploads the files (and the derived variants of the images) concurrently and waits for all of them,
+	// so the latency is the one of the slowest upload
+	// if any upload fails then the objects that were uploaded are removed and the whole upload fails
+	@Override
+	public void uploadMediaFiles(Map<String, MultipartFile> filesByKey) {
+		Queue<String> uploadedKeys = new ConcurrentLinkedQueue<>();
+		List<CompletableFuture<Void>> uploads = new ArrayList<>();
+		filesByKey.forEach((key, file) -> uploads.add(
+				CompletableFuture.runAsync(() -> uploadFile(key, file, uploadedKeys), uploadExecutor)));
+
+		try {
+			CompletableFuture.allOf(uploads.toArray(new CompletableFuture[0])).join();
+		} catch (CompletionException e) {
+			removeUploadedObjects(uploadedKeys);
+
+			if (e.getCause() instanceof IgorIoException igorIoException) {
+				throw igorIoException;
+			}
+			if (e.getCause() instanceof IgorMaxCapExceededException igorMaxCapExceededException) {
+				throw igorMaxCapExceededException;
+			}
+			throw new IgorIoException(e.getCause().getMessage());
+		}
+	}
+
+	// ---------------------------------------------
+
+	// an image is decoded before anything is uploaded so the images over the max pixels are rejected right away
+	private void uploadFile(String key, MultipartFile file, Queue<String> uploadedKeys) {
+		BufferedImage decodedImage = ImageResizer.isResizable(key) ? readImage(file) : null;
+		Map<String, String> metadata = createMetadata(file.getContentType());
+
+		if (file.getSize() >= multipartThreshold) {
+			uploadFileInParts(key, file, metadata);
+		} else {
+			try (InputStream inputStream = file.getInputStream()) {
+				putObject(key, metadata, RequestBody.fromInputStream(inputStream, file.getSize()));
+			} catch (IOException e) {
+				throw new IgorIoException(e.getMessage());
+			}
+		}
+		uploadedKeys.add(key);
+
+		if (ImageResizer.isResizable(key)) {
+			uploadDerivedVariants(key, file, decodedImage, uploadedKeys);
+		}
+	}
+
+	private BufferedImage readImage(MultipartFile file) {
+		try {
+			return ImageResizer.read(file.getBytes(), maxImagePixels);
+		} catch (IOException e) {
+			throw new IgorIoException(e.getMessage());
+		}
+	}
+
+	// the feeds and the search show smaller jpegs of the images instead of the originals
+	// an image that can't be decoded is stored as it is under the derived keys so their links still work
+	private void uploadDerivedVariants(String key, MultipartFile file, BufferedImage decodedImage,
+			Queue<String> uploadedKeys) {
+		try {
+			for (ImageVariant variant : ImageVariant.values()) {
+				if (!variant.isDerived()) {
+					continue;
+				}
+
+				String variantKey = variant.keyOf(key);
+				if (decodedImage == null) {
+					putObject(variantKey, createMetadata(file.getContentType()),
+							RequestBody.fromBytes(file.getBytes()));
+				} else {
+					putObject(variantKey, createMetadata(ImageResizer.DERIVED_CONTENT_TYPE),
+							RequestBody.fromBytes(ImageResizer.resizeToJpeg(decodedImage, variant)));
+				}
+				uploadedKeys.add(variantKey);
+			}
+		} catch (IOException e) {
+			throw new IgorIoException(e.getMessage());
+		}
+	}
+
+	private void putObject(String key, Map<String, String> metadata, RequestBody requestBody) {
+		PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+				.bucket(bucketName)
+				.key(key)
+				.metadata(metadata)
+				.build();
+
+		try {
+			s3Client.putObject(putObjectRequest, requestBody);
+		} catch (S3Exception e) {
+			throw new IgorIoException(e.getMessage());
+		}
+	}
+
+	private Map<String, String> createMetadata(String contentType) {
+		Map<String, String> metadata = new HashMap<>();
+
+		if (contentType != null && !contentType.isEmpty()) {
+			metadata.put("Content-Type", contentType);
+		}
+
+		return metadata;
+	}
+
+	// streams a large file to s3 one part at a time so only a part of it is held in memory
+	private void uploadFileInParts(String key, MultipartFile file, Map<String, String> metadata) {
+		String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+				.bucket(bucketName)
+				.key(key)
+				.metadata(metadata)
+				.build()).uploadId();
+
+		try (InputStream inputStream = file.getInputStream()) {
+			List<CompletedPart> completedParts = new ArrayList<>();
+			byte[] buffer = new byte[partSize];
+			int partNumber = 1;
+			int nbOfBytesRead;
+
+			while ((nbOfBytesRead = inputStream.readNBytes(buffer, 0, partSize)) > 0) {
+				UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
+						.bucket(bucketName)
+						.key(key)
+						.uploadId(uploadId)
+						.partNumber(partNumber)
+						.build();
+				String eTag = s3Client.uploadPart(uploadPartRequest,
+						RequestBody.fromByteBuffer(ByteBuffer.wrap(buffer, 0, nbOfBytesRead))).eTag();
+
+				completedParts.add(CompletedPart.builder().partNumber(partNumber).eTag(eTag).build());
+				partNumber++;
+			}
+
+			s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+					.bucket(bucketName)
+					.key(key)
+					.uploadId(uploadId)
+					.multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+					.build());
+		} catch (IOException | S3Exception e) {
+			s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+					.bucket(bucketName)
+					.key(key)
+					.uploadId(uploadId)
+					.build());
+			throw new IgorIoException(e.getMessage());
+		}
+	}
+
+	private void removeUploadedObjects(Queue<String> uploadedKeys) {
+		for (String key : uploadedKeys) {
+			try {
+				s3Client.deleteObject(DeleteObjectRequest.builder().bucket(bucketName).key(key).build());
+			} catch (S3Exception e) {
+				System.err.println("Unable to remove the uploaded media " + key + ": " + e.getMessage());
+			}
+		}
+	}
+}
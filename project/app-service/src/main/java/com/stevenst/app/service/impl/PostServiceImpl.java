@@ -1,110 +1,133 @@
 package com.stevenst.app.service.impl;
 
-import java.io.IOException;
-import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.apache.commons.io.FilenameUtils;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.web.reactive.function.client.WebClient;
 
 import com.stevenst.app.exception.IgorPostException;
-import com.stevenst.lib.exception.IgorImageNotFoundException;
-import com.stevenst.lib.exception.IgorIoException;
+import com.stevenst.lib.cache.UserIdentity;
+import com.stevenst.lib.cache.UserIdentityCache;
+import com.stevenst.lib.client.UserServiceClient;
+import com.stevenst.lib.exception.IgorServiceUnavailableException;
 import com.stevenst.lib.exception.IgorUserNotFoundException;
 import com.stevenst.app.model.Comment;
 import com.stevenst.app.model.Post;
 import com.stevenst.app.model.PostInteraction;
-import com.stevenst.app.model.PostMedia;
 import com.stevenst.app.payload.CommentDetachedPayload;
 import com.stevenst.app.payload.CommentPayload;
 import com.stevenst.app.payload.PostPayload;
 import com.stevenst.app.repository.UserRepository;
 import com.stevenst.app.repository.post.CommentRepository;
 import com.stevenst.app.repository.post.PostInteractionRepository;
+import com.stevenst.app.repository.post.PostInteractionRepository.InteractionOfUser;
 import com.stevenst.app.repository.post.PostMediaRepository;
+import com.stevenst.app.repository.post.PostMediaRepository.MediaNameOfPost;
 import com.stevenst.app.repository.post.PostRepository;
+import com.stevenst.app.repository.post.TimelineEntryRepository;
+import com.stevenst.app.service.PostMediaUploadService;
 import com.stevenst.app.service.PostService;
+import com.stevenst.app.service.TimelineService;
+import com.stevenst.app.util.KeysetCursor;
 import com.stevenst.lib.model.User;
+import com.stevenst.lib.model.enums.ImageVariant;
 import com.stevenst.lib.payload.ResponsePayload;
+import com.stevenst.lib.service.PresignedUrlService;
+import com.stevenst.lib.util.ImageResizer;
+import com.stevenst.lib.util.SnowflakeIdGenerator;
 
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
-import reactor.core.publisher.Mono;
-import software.amazon.awssdk.core.sync.RequestBody;
-import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
-import software.amazon.awssdk.services.s3.model.GetObjectRequest;
-import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
-import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
-import software.amazon.awssdk.services.s3.model.PutObjectRequest;
-import software.amazon.awssdk.services.s3.model.S3Exception;
-import software.amazon.awssdk.services.s3.presigner.S3Presigner;
-import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
-import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
 
 @Service
 @RequiredArgsConstructor
 public class PostServiceImpl implements PostService {
+	private final UserIdentityCache userIdentityCache;
 	private final UserRepository userRepository;
 	private final PostRepository postRepository;
 	private final PostMediaRepository postMediaRepository;
 	private final PostInteractionRepository postInteractionRepository;
 	private final CommentRepository commentRepository;
+	private final TimelineEntryRepository timelineEntryRepository;
+	private final TimelineService timelineService;
+	private final PresignedUrlService presignedUrlService;
+	private final UserServiceClient userServiceClient;
+	private final PostMediaUploadService postMediaUploadService;
 	private final S3Client s3Client;
-	private final WebClient webClient;
+	private final SnowflakeIdGenerator postIdGenerator;
 	@Value("${aws.bucketName}")
 	private String bucketName;
 	private static final String USERS_PATH = "users/";
-	private static final String CREATED_AT = "createdAt";
 
+	// the media are uploaded first, outside any transaction so no db connection is held during the uploads, then the
+	// post and its media rows are inserted by one short transaction, so a post is never visible with missing media
+	// if that transaction fails the uploaded media are removed
 	@Override
 	public ResponsePayload createPost(String authorUsername, String title, String description,
 			List<MultipartFile> files) {
-		User author = findUserByUsername(authorUsername);
+		UserIdentity author = findUserByUsername(authorUsername);
 		if (title == null || title.isEmpty()) {
 			throw new IgorPostException("Title cannot be null or empty");
 		}
 
-		Post post = savePostInDbAndReturn(author, title, description);
-
-		if (files != null && !files.isEmpty()) {
-			List<String> uniqueFilenames = getUniqueFilenamesFromFiles(files);
-
-			saveMediaNamesInDb(post, uniqueFilenames);
+		Post post = Post.builder()
+				.id(postIdGenerator.nextId())
+				.author(getUserReference(author))
+				.title(title)
+				.description(description)
+				.build();
+		List<String> uniqueFilenames = files == null ? List.of() : getUniqueFilenamesFromFiles(files);
 
+		if (!uniqueFilenames.isEmpty()) {
 			saveMediaFilesInCloud(author.getUsername(), post.getId(), files, uniqueFilenames);
 		}
 
+		try {
+			postRepository.insertPostWithMediaNames(post, uniqueFilenames);
+		} catch (RuntimeException e) {
+			if (!uniqueFilenames.isEmpty()) {
+				removeMediaOfPostFromCloud(author.getUsername(), post.getId(), uniqueFilenames);
+			}
+			throw e;
+		}
+
+		timelineService.fanOutPostAfterCommit(post.getId(), author.getUsername());
+
 		return ResponsePayload.builder().status(201)
 				.message("Post created successfully for " + author.getUsername() + ".").build();
 	}
 
 	@Override
+	@Transactional
 	public CommentPayload addComment(String username, String content, Long postId) {
-		User user = findUserByUsername(username);
+		UserIdentity user = findUserByUsername(username);
 		Post post = findPostById(postId);
 
 		// create the comment and save it
 		Comment comment = commentRepository.save(Comment.builder()
-				.author(user)
+				.author(getUserReference(user))
 				.post(post)
 				.content(content)
 				.build());
+		postRepository.updateCommentCount(post.getId(), 1);
 
 		// check if an interaction exists and if not then create it
 		PostInteraction postInteraction = postInteractionRepository.findByPostIdAndUserId(post.getId(), user.getId());
 		if (postInteraction == null) {
-			postInteraction = PostInteraction.builder().user(user).post(post).seen(true).build();
+			postInteraction = PostInteraction.builder().user(getUserReference(user)).post(post).seen(true).build();
 			postInteractionRepository.save(postInteraction);
 		}
 
@@ -114,17 +137,18 @@ public class PostServiceImpl implements PostService {
 				.postId(postId)
 				.content(content)
 				.createdAt(comment.getCreatedAt())
+				.cursor(KeysetCursor.encode(comment.getCreatedAt(), comment.getId()))
 				.build();
 	}
 
 	@Override
 	public ResponsePayload setSeen(String username, Long postId) {
-		User user = findUserByUsername(username);
+		UserIdentity user = findUserByUsername(username);
 		Post post = findPostById(postId);
 
 		PostInteraction postInteraction = postInteractionRepository.findByPostIdAndUserId(post.getId(), user.getId());
 		if (postInteraction == null) {
-			postInteraction = PostInteraction.builder().user(user).post(post).seen(true).build();
+			postInteraction = PostInteraction.builder().user(getUserReference(user)).post(post).seen(true).build();
 			postInteractionRepository.save(postInteraction);
 
 			return ResponsePayload.builder().status(201).message("Post set as seen.").build();
@@ -135,93 +159,103 @@ public class PostServiceImpl implements PostService {
 
 	@Override
 	public List<PostPayload> getNextPostsBeforeCursor(String authorUsername, String username, boolean includeFriends,
-			Long cursor, int limit) {
-		User user = findUserByUsername(username);
+			String cursor, int limit, ImageVariant mediaVariant) {
+		UserIdentity user = findUserByUsername(username);
+		KeysetCursor keysetCursor = KeysetCursor.decode(cursor);
 		List<Post> posts = new ArrayList<>();
-		PageRequest pageRequest = PageRequest.of(0, limit, Sort.by(CREATED_AT).descending());
 
-		// get all friends of the user (including the user) or just the user if the posts are from someones profile
-		// then get the next 'limit' posts before the cursor
+		// get the next 'limit' posts before the cursor from the timeline of the user (posts of friends and his own)
+		// or just the posts of the author if the posts are from someones profile
 		if (includeFriends) {
-			List<String> friendUsernames = getAllFriendsUsernamesOfUser(user.getUsername());
-			friendUsernames.add(user.getUsername());
-
-			posts = postRepository.findPostsOfFriendsBeforeCursor(user.getUsername(), friendUsernames,
-					cursor, pageRequest);
+			posts = getTimelinePostsOfUserBeforeCursor(user, keysetCursor.getId(), limit);
 		} else {
-			posts = postRepository.findPostsOfUserBeforeCursor(authorUsername, cursor, pageRequest);
+			posts = postRepository.findPostsOfUserBeforeCursor(authorUsername, keysetCursor.getCreatedAt(),
+					keysetCursor.getId(), PageRequest.of(0, limit));
 		}
 
-		return postEntitiesToPayloads(posts, user.getId());
+		return postEntitiesToPayloads(posts, user.getId(), mediaVariant);
 	}
 
 	@Override
-	public List<PostPayload> getNextUpvotedOfUserBeforeCursor(String username, Long cursor, int limit) {
-		User user = findUserByUsername(username);
-		PageRequest pageRequest = PageRequest.of(0, limit, Sort.by(CREATED_AT).descending());
+	public List<PostPayload> getNextUpvotedOfUserBeforeCursor(String username, String cursor, int limit,
+			ImageVariant mediaVariant) {
+		UserIdentity user = findUserByUsername(username);
+		KeysetCursor keysetCursor = KeysetCursor.decode(cursor);
 
-		List<Post> posts = postRepository.findNextUpvotedPostsByUser(username, cursor, pageRequest);
+		List<PostInteraction> interactions = postInteractionRepository.findUpvotedOfUserBeforeCursor(user.getId(),
+				keysetCursor.getCreatedAt(), keysetCursor.getId(), PageRequest.of(0, limit));
 
-		return postEntitiesToPayloads(posts, user.getId());
+		return interactionEntitiesToPayloads(interactions, PostInteraction::getUpvotedAt, user.getId(), mediaVariant);
 	}
 
 	@Override
-	public List<PostPayload> getNextDownvotedOfUserBeforeCursor(String username, Long cursor, int limit) {
-		User user = findUserByUsername(username);
-		PageRequest pageRequest = PageRequest.of(0, limit, Sort.by(CREATED_AT).descending());
+	public List<PostPayload> getNextDownvotedOfUserBeforeCursor(String username, String cursor, int limit,
+			ImageVariant mediaVariant) {
+		UserIdentity user = findUserByUsername(username);
+		KeysetCursor keysetCursor = KeysetCursor.decode(cursor);
 
-		List<Post> posts = postRepository.findNextDownvotedPostsByUser(username, cursor, pageRequest);
+		List<PostInteraction> interactions = postInteractionRepository.findDownvotedOfUserBeforeCursor(user.getId(),
+				keysetCursor.getCreatedAt(), keysetCursor.getId(), PageRequest.of(0, limit));
 
-		return postEntitiesToPayloads(posts, user.getId());
+		return interactionEntitiesToPayloads(interactions, PostInteraction::getDownvotedAt, user.getId(), mediaVariant);
 	}
 
 	@Override
-	public List<PostPayload> getNextSavedOfUserBeforeCursor(String username, Long cursor, int limit) {
-		User user = findUserByUsername(username);
-		PageRequest pageRequest = PageRequest.of(0, limit, Sort.by(CREATED_AT).descending());
+	public List<PostPayload> getNextSavedOfUserBeforeCursor(String username, String cursor, int limit,
+			ImageVariant mediaVariant) {
+		UserIdentity user = findUserByUsername(username);
+		KeysetCursor keysetCursor = KeysetCursor.decode(cursor);
 
-		List<Post> posts = postRepository.findNextSavedPostsByUser(username, cursor, pageRequest);
+		List<PostInteraction> interactions = postInteractionRepository.findSavedOfUserBeforeCursor(user.getId(),
+				keysetCursor.getCreatedAt(), keysetCursor.getId(), PageRequest.of(0, limit));
 
-		return postEntitiesToPayloads(posts, user.getId());
+		return interactionEntitiesToPayloads(interactions, PostInteraction::getSavedAt, user.getId(), mediaVariant);
 	}
 
 	@Override
-	public List<CommentPayload> getNextCommentsOfPostBeforeCursor(Long postId, Long cursor, int limit) {
+	public List<CommentPayload> getNextCommentsOfPostBeforeCursor(Long postId, String cursor, int limit) {
 		Post post = findPostById(postId);
-		PageRequest pageRequest = PageRequest.of(0, limit, Sort.by(CREATED_AT).descending());
+		KeysetCursor keysetCursor = KeysetCursor.decode(cursor);
 
-		List<Comment> comments = commentRepository.findCommentsOfPostBeforeCursor(post.getId(), cursor, pageRequest);
+		List<Comment> comments = commentRepository.findCommentsOfPostBeforeCursor(post.getId(),
+				keysetCursor.getCreatedAt(), keysetCursor.getId(), PageRequest.of(0, limit));
 
 		return commentEntitiesToPayloads(comments);
 	}
 
 	@Override
-	public List<CommentDetachedPayload> getNextCommentsOfUserBeforeCursor(String username, Long cursor, int limit) {
-		User user = findUserByUsername(username);
-		PageRequest pageRequest = PageRequest.of(0, limit, Sort.by(CREATED_AT).descending());
+	public List<CommentDetachedPayload> getNextCommentsOfUserBeforeCursor(String username, String cursor, int limit) {
+		UserIdentity user = findUserByUsername(username);
+		KeysetCursor keysetCursor = KeysetCursor.decode(cursor);
 
-		List<Comment> comments = commentRepository.findCommentsOfUserBeforeCursor(user.getUsername(), cursor,
-				pageRequest);
+		List<Comment> comments = commentRepository.findCommentsOfUserBeforeCursor(user.getUsername(),
+				keysetCursor.getCreatedAt(), keysetCursor.getId(), PageRequest.of(0, limit));
 
 		return returnListOfDetachedCommentPayload(comments);
 	}
 
 	@Override
+	@Transactional
 	public ResponsePayload upvotePost(String username, Long postId) {
-		User user = findUserByUsername(username);
+		UserIdentity user = findUserByUsername(username);
 		Post post = findPostById(postId);
 		PostInteraction postInteraction = postInteractionRepository.findByPostIdAndUserId(post.getId(), user.getId());
 
 		if (postInteraction == null) {
-			postInteraction = PostInteraction.builder().user(user).post(post).upvoted(true).seen(true).build();
+			postInteraction = PostInteraction.builder().user(getUserReference(user)).post(post).seen(true).build();
+			postInteraction.setUpvoted(true);
 
 			postInteractionRepository.save(postInteraction);
+			postRepository.updateVoteCounts(post.getId(), 1, 0);
 			return ResponsePayload.builder().status(201).message("Post upvoted.").build();
 		} else {
+			boolean wasUpvoted = postInteraction.isUpvoted();
+			boolean wasDownvoted = postInteraction.isDownvoted();
 			postInteraction.setUpvoted(!postInteraction.isUpvoted());
 			postInteraction.setDownvoted(false);
 
 			postInteractionRepository.save(postInteraction);
+			updateVoteCountsOfPost(post.getId(), wasUpvoted, wasDownvoted, postInteraction);
 			if (postInteraction.isUpvoted()) {
 				return ResponsePayload.builder().status(200).message("Post upvoted.").build();
 			} else {
@@ -231,21 +265,27 @@ public class PostServiceImpl implements PostService {
 	}
 
 	@Override
+	@Transactional
 	public ResponsePayload downvotePost(String username, Long postId) {
-		User user = findUserByUsername(username);
+		UserIdentity user = findUserByUsername(username);
 		Post post = findPostById(postId);
 		PostInteraction postInteraction = postInteractionRepository.findByPostIdAndUserId(post.getId(), user.getId());
 
 		if (postInteraction == null) {
-			postInteraction = PostInteraction.builder().user(user).post(post).downvoted(true).seen(true).build();
+			postInteraction = PostInteraction.builder().user(getUserReference(user)).post(post).seen(true).build();
+			postInteraction.setDownvoted(true);
 
 			postInteractionRepository.save(postInteraction);
+			postRepository.updateVoteCounts(post.getId(), 0, 1);
 			return ResponsePayload.builder().status(201).message("Post downvoted.").build();
 		} else {
+			boolean wasUpvoted = postInteraction.isUpvoted();
+			boolean wasDownvoted = postInteraction.isDownvoted();
 			postInteraction.setDownvoted(!postInteraction.isDownvoted());
 			postInteraction.setUpvoted(false);
 
 			postInteractionRepository.save(postInteraction);
+			updateVoteCountsOfPost(post.getId(), wasUpvoted, wasDownvoted, postInteraction);
 			if (postInteraction.isDownvoted()) {
 				return ResponsePayload.builder().status(200).message("Post downvoted.").build();
 			} else {
@@ -256,12 +296,13 @@ public class PostServiceImpl implements PostService {
 
 	@Override
 	public ResponsePayload savePost(String username, Long postId) {
-		User user = findUserByUsername(username);
+		UserIdentity user = findUserByUsername(username);
 		Post post = findPostById(postId);
 		PostInteraction postInteraction = postInteractionRepository.findByPostIdAndUserId(post.getId(), user.getId());
 
 		if (postInteraction == null) {
-			postInteraction = PostInteraction.builder().user(user).post(post).saved(true).seen(true).build();
+			postInteraction = PostInteraction.builder().user(getUserReference(user)).post(post).seen(true).build();
+			postInteraction.setSaved(true);
 
 			postInteractionRepository.save(postInteraction);
 			return ResponsePayload.builder().status(201).message("Post saved.").build();
@@ -278,8 +319,9 @@ public class PostServiceImpl implements PostService {
 	}
 
 	@Override
+	@Transactional
 	public ResponsePayload removePost(String username, Long postId) {
-		User user = findUserByUsername(username);
+		UserIdentity user = findUserByUsername(username);
 		// get the specific post and check if it belongs to the provided author
 		Post post = findPostById(postId);
 		if (!post.getAuthor().getUsername().equals(user.getUsername())) {
@@ -297,6 +339,9 @@ public class PostServiceImpl implements PostService {
 		// interactions
 		postInteractionRepository.deleteAllByPost(post);
 
+		// timeline entries
+		timelineEntryRepository.deleteAllByPostId(postId);
+
 		// and then remove the post from db
 		postRepository.delete(post);
 
@@ -306,14 +351,16 @@ public class PostServiceImpl implements PostService {
 	}
 
 	@Override
+	@Transactional
 	public ResponsePayload removeComment(String username, Long commentId) {
-		User user = findUserByUsername(username);
+		UserIdentity user = findUserByUsername(username);
 		Comment comment = findCommentById(commentId);
 		if (!comment.getAuthor().getUsername().equals(user.getUsername())) {
 			throw new IgorPostException("Comment with id " + commentId + " does not belong to " + user.getUsername());
 		}
 
 		commentRepository.delete(comment);
+		postRepository.updateCommentCount(comment.getPost().getId(), -1);
 		return ResponsePayload.builder().status(200)
 				.message("Comment removed successfully.")
 				.build();
@@ -321,18 +368,48 @@ public class PostServiceImpl implements PostService {
 
 	// ---------------------------------------------
 
-	private List<PostPayload> postEntitiesToPayloads(List<Post> posts, Long userId) {
+	// the friends come from the cache of the user service client, they leave out the entries of a former friend that
+	// were not removed yet (or that a fan-out started before the unfriend wrote after it), without them only the
+	// timeline is read
+	private List<Post> getTimelinePostsOfUserBeforeCursor(UserIdentity user, Long cursorId, int limit) {
+		PageRequest pageRequest = PageRequest.of(0, limit);
+
+		List<String> authorUsernames;
+		try {
+			authorUsernames = userServiceClient.getAllFriendsUsernames(user.getUsername());
+		} catch (IgorServiceUnavailableException e) {
+			System.err.println("Unable to get the friends of " + user.getUsername()
+					+ ", only the timeline is read: " + e.getMessage());
+			return postRepository.findTimelinePostsOfViewerBeforeCursor(user.getId(), cursorId, pageRequest);
+		}
+		authorUsernames.add(user.getUsername());
+
+		return postRepository.findTimelinePostsOfViewerByAuthorsBeforeCursor(user.getId(), authorUsernames, cursorId,
+				pageRequest);
+	}
+
+	private List<PostPayload> postEntitiesToPayloads(List<Post> posts, Long userId, ImageVariant mediaVariant) {
+		if (posts.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		// load the data of the whole page at once (grouped by post id) instead of querying it for every post
+		// (votes and comments are counted on the post itself)
+		List<Long> postIds = posts.stream().map(Post::getId).toList();
+
+		Map<Long, List<MediaNameOfPost>> mediaByPostId = postMediaRepository.findMediaNamesByPostIds(postIds).stream()
+				.collect(Collectors.groupingBy(MediaNameOfPost::getPostId));
+		Map<Long, InteractionOfUser> interactionsByPostId = postInteractionRepository
+				.findInteractionsOfUserByPostIds(postIds, userId).stream()
+				.collect(Collectors.toMap(InteractionOfUser::getPostId, Function.identity(), (first, second) -> first));
+
 		List<PostPayload> postPayloads = new ArrayList<>();
 
 		// populate the post payloads with data: default, media, interactions, etc
 		for (Post post : posts) {
-			List<String> mediaNames = postMediaRepository.findMediaNamesByPostId(post.getId());
-			// get the interactions of the user to the author's posts
-			PostInteraction postInteraction = postInteractionRepository.findByPostIdAndUserId(post.getId(),
-					userId);
-			if (postInteraction == null) {
-				postInteraction = new PostInteraction();
-			}
+			List<MediaNameOfPost> media = mediaByPostId.getOrDefault(post.getId(), List.of());
+			// the interactions of the user to the author's posts
+			InteractionOfUser postInteraction = interactionsByPostId.get(post.getId());
 
 			postPayloads.add(PostPayload.builder()
 					.id(post.getId())
@@ -340,14 +417,15 @@ public class PostServiceImpl implements PostService {
 					.title(post.getTitle())
 					.description(post.getDescription())
 					.createdAt(post.getCreatedAt())
-					.mediaLinks(getLinksForAllMediaOfAPost(post.getAuthor().getUsername(), post.getId(), mediaNames))
-					.upvoteScore(postInteractionRepository.countByPostIdAndUpvotedIsTrue(post.getId()) -
-							postInteractionRepository.countByPostIdAndDownvotedIsTrue(post.getId()))
-					.nbOfComments(commentRepository.countByPostId(post.getId()))
-					.upvoted(postInteraction.isUpvoted())
-					.downvoted(postInteraction.isDownvoted())
-					.saved(postInteraction.isSaved())
-					.seen(postInteraction.isSeen())
+					.cursor(KeysetCursor.encode(post.getCreatedAt(), post.getId()))
+					.mediaLinks(getLinksForAllMediaOfAPost(post.getAuthor().getUsername(), post.getId(), media,
+							mediaVariant))
+					.upvoteScore(post.getUpvoteCount() - post.getDownvoteCount())
+					.nbOfComments(post.getCommentCount())
+					.upvoted(postInteraction != null && postInteraction.isUpvoted())
+					.downvoted(postInteraction != null && postInteraction.isDownvoted())
+					.saved(postInteraction != null && postInteraction.isSaved())
+					.seen(postInteraction != null && postInteraction.isSeen())
 					.build());
 		}
 
@@ -355,6 +433,20 @@ public class PostServiceImpl implements PostService {
 		return postPayloads;
 	}
 
+	// the posts of the interactions, paged by the time of the interaction (and its id) instead of the post's
+	private List<PostPayload> interactionEntitiesToPayloads(List<PostInteraction> interactions,
+			Function<PostInteraction, LocalDateTime> interactedAt, Long userId, ImageVariant mediaVariant) {
+		List<PostPayload> postPayloads = postEntitiesToPayloads(
+				interactions.stream().map(PostInteraction::getPost).toList(), userId, mediaVariant);
+
+		for (int i = 0; i < postPayloads.size(); i++) {
+			PostInteraction interaction = interactions.get(i);
+			postPayloads.get(i).setCursor(KeysetCursor.encode(interactedAt.apply(interaction), interaction.getId()));
+		}
+
+		return postPayloads;
+	}
+
 	private List<CommentDetachedPayload> returnListOfDetachedCommentPayload(
 			List<Comment> comments) {
 		List<CommentDetachedPayload> commentDetachedPayloads = new ArrayList<>();
@@ -365,6 +457,7 @@ public class PostServiceImpl implements PostService {
 					.postTitle(comment.getPost().getTitle())
 					.content(comment.getContent())
 					.createdAt(comment.getCreatedAt())
+					.cursor(KeysetCursor.encode(comment.getCreatedAt(), comment.getId()))
 					.build());
 		}
 
@@ -378,10 +471,21 @@ public class PostServiceImpl implements PostService {
 				.postId(comment.getPost().getId())
 				.content(comment.getContent())
 				.createdAt(comment.getCreatedAt())
+				.cursor(KeysetCursor.encode(comment.getCreatedAt(), comment.getId()))
 				.build())
 				.collect(Collectors.toList());
 	}
 
+	private void updateVoteCountsOfPost(Long postId, boolean wasUpvoted, boolean wasDownvoted,
+			PostInteraction postInteraction) {
+		long upvoteDelta = (postInteraction.isUpvoted() ? 1 : 0) - (wasUpvoted ? 1 : 0);
+		long downvoteDelta = (postInteraction.isDownvoted() ? 1 : 0) - (wasDownvoted ? 1 : 0);
+
+		if (upvoteDelta != 0 || downvoteDelta != 0) {
+			postRepository.updateVoteCounts(postId, upvoteDelta, downvoteDelta);
+		}
+	}
+
 	private void removeCommentsOfPost(Long postId) {
 		commentRepository.deleteAllByPostId(postId);
 	}
@@ -393,26 +497,13 @@ public class PostServiceImpl implements PostService {
 		postMediaRepository.deleteAllByPostId(postId);
 	}
 
-	private List<String> getAllFriendsUsernamesOfUser(String username) {
-		// get all friends of user
-		Mono<List<String>> friendsUsernamesMono = webClient.get()
-				.uri(uriBuilder -> uriBuilder.path("/api/friend/getAllFriendsUsernames")
-						.queryParam("username", username)
-						.build())
-				.retrieve()
-				.bodyToMono(new ParameterizedTypeReference<List<String>>() {
-				});
-
-		// convert the Mono to a List and return it
-		return friendsUsernamesMono.block();
-	}
-
-	private List<String> getLinksForAllMediaOfAPost(String username, Long postId, List<String> mediaNames) {
+	private List<String> getLinksForAllMediaOfAPost(String username, Long postId, List<MediaNameOfPost> media,
+			ImageVariant mediaVariant) {
 		List<String> mediaLinks = new ArrayList<>();
 
-		// for (String mediaName : mediaNames) {
+		// for (MediaNameOfPost medium : media) {
 		// 	try {
-		// 		mediaLinks.add(getLinkForAMediaOfAPost(username, postId, mediaName));
+		// 		mediaLinks.add(getLinkForAMediaOfAPost(username, postId, medium, mediaVariant));
 		// 	} catch (IgorIoException e) {
 		// 		System.err.println("Unable to generate a presigned url:" + e.getMessage());
 		// 	}
@@ -422,71 +513,21 @@ public class PostServiceImpl implements PostService {
 		return mediaLinks;
 	}
 
-	private String getLinkForAMediaOfAPost(String username, Long postId, String mediaName) {
-		String key = USERS_PATH + username + "/posts/" + postId + "/" + mediaName;
-		try {
-			checkIfMediaFileExistsInS3(key);
-		} catch (IgorImageNotFoundException e) {
-			System.err.println("File not found in S3:" + e.getMessage());
-			return null;
-		}
-
-		return generatePresignedUrl(key);
-	}
-
-	private void checkIfMediaFileExistsInS3(String key) { // make this a lambda function where its used.. do lambda functions have names in java🤔🤔
-		HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
-				.bucket(bucketName)
-				.key(key)
-				.build();
-
-		try {
-			s3Client.headObject(headObjectRequest);
-		} catch (NoSuchKeyException e) {
-			throw new IgorImageNotFoundException(e.getMessage());
-		} catch (S3Exception e) {
-			throw new IgorIoException(e.getMessage());
-		}
-	}
-
-	private String generatePresignedUrl(String key) {
-		GetObjectRequest getObjectRequest = createGetObjectRequest(key);
-		Duration expiration = Duration.ofHours(1);
+	// the media names come from the db records of the post so the objects are not checked in s3 before presigning
+	// only images have derived variants, the other media (and the images stored before the variants were) are
+	// always linked to the original
+	private String getLinkForAMediaOfAPost(String username, Long postId, MediaNameOfPost medium,
+			ImageVariant mediaVariant) {
+		String key = getKeyOfMediaOfAPost(username, postId, medium.getMediaName());
 
-		try (S3Presigner presigner = S3Presigner.builder().region(Region.EU_CENTRAL_1).build()) {
-			GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
-					.getObjectRequest(getObjectRequest)
-					.signatureDuration(expiration)
-					.build();
-
-			PresignedGetObjectRequest presignedRequest = presigner.presignGetObject(presignRequest);
-
-			return presignedRequest.url().toString();
-		} catch (S3Exception e) {
-			throw new IgorIoException(e.getMessage());
+		if (medium.isVariantsStored() && ImageResizer.isResizable(medium.getMediaName())) {
+			key = mediaVariant.keyOf(key);
 		}
+		return presignedUrlService.getPresignedUrl(key);
 	}
 
-	private Post savePostInDbAndReturn(User author, String title, String description) {
-		Post post = Post.builder()
-				.author(author)
-				.title(title)
-				.description(description)
-				.build();
-
-		return postRepository.save(post);
-	}
-
-	private void saveMediaNamesInDb(Post post, List<String> filenames) {
-		for (int i = 0; i < filenames.size(); i++) {
-			PostMedia media = PostMedia.builder()
-					.post(post)
-					.mediaIndex((byte) i)
-					.mediaName(filenames.get(i))
-					.build();
-
-			postMediaRepository.save(media);
-		}
+	private String getKeyOfMediaOfAPost(String username, Long postId, String mediaName) {
+		return USERS_PATH + username + "/posts/" + postId + "/" + mediaName;
 	}
 
 	private void saveMediaFilesInCloud(String username, Long postId, List<MultipartFile> files,
@@ -497,13 +538,12 @@ public class PostServiceImpl implements PostService {
 			throw new IllegalArgumentException("Change this into a custom exception pointing to a 500 status error"); // TODO:
 		}
 
+		Map<String, MultipartFile> filesByKey = new LinkedHashMap<>();
 		for (int i = 0; i < files.size(); i++) {
-			MultipartFile file = files.get(i);
-			String filename = filenames.get(i);
-			String key = keyPath + "/" + filename;
-
-			saveFileInCloud(file, key);
+			filesByKey.put(keyPath + "/" + filenames.get(i), files.get(i));
 		}
+
+		postMediaUploadService.uploadMediaFiles(filesByKey);
 	}
 
 	// used to be sure that all files have unique names (even though its unlikely the user uploads the same file twice)
@@ -534,53 +574,33 @@ public class PostServiceImpl implements PostService {
 		return uniqueFilenames;
 	}
 
-	private void saveFileInCloud(MultipartFile file, String key) {
-		try {
-			Map<String, String> metadata = new HashMap<>();
-			String contentType = file.getContentType();
-
-			if (contentType != null && !contentType.isEmpty()) {
-				metadata.put("Content-Type", contentType);
-			}
-
-			RequestBody requestBody = RequestBody.fromInputStream(file.getInputStream(), file.getSize());
-
-			PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-					.bucket(bucketName)
-					.key(key)
-					.metadata(metadata)
-					.build();
-
-			s3Client.putObject(putObjectRequest, requestBody);
-		} catch (IOException e) {
-			throw new IgorIoException(e.getMessage());
-		}
-	}
-
-	private GetObjectRequest createGetObjectRequest(String key) {
-
-		return GetObjectRequest.builder()
-				.bucket(bucketName)
-				.key(key)
-				.build();
-	}
-
 	private void removeMediaOfPostFromCloud(String authorUsername, Long postId, List<String> filenames) {
-		String key = USERS_PATH + authorUsername + "/posts/" + postId + "/";
-
 		for (String filename : filenames) {
-			String keyToRemove = key + filename;
-			s3Client.deleteObject(DeleteObjectRequest.builder().bucket(bucketName).key(keyToRemove).build());
+			String key = getKeyOfMediaOfAPost(authorUsername, postId, filename);
+			List<String> keysToRemove = ImageResizer.isResizable(filename)
+					? Arrays.stream(ImageVariant.values()).map(variant -> variant.keyOf(key)).toList()
+					: List.of(key);
+
+			for (String keyToRemove : keysToRemove) {
+				s3Client.deleteObject(DeleteObjectRequest.builder().bucket(bucketName).key(keyToRemove).build());
+				presignedUrlService.evictPresignedUrl(keyToRemove);
+			}
 		}
 
 		System.out.println("Successfully removed post media (with id: " + postId + ") from cloud.");
 	}
 
-	private User findUserByUsername(String username) {
-		return userRepository.findByUsername(username).orElseThrow(
+	// only the id and the username of the acting user are read, from the cache
+	private UserIdentity findUserByUsername(String username) {
+		return userIdentityCache.get(username).orElseThrow(
 				() -> new IgorUserNotFoundException("User with username " + username + " not found."));
 	}
 
+	// a proxy of the user (never loaded) for the associations of the saved entities
+	private User getUserReference(UserIdentity user) {
+		return userRepository.getReferenceById(user.getId());
+	}
+
 	private Post findPostById(Long postId) {
 		if (postId == null) {
 			throw new IgorPostException("Post id cannot be null.");
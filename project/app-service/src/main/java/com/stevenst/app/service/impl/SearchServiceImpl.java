@@ -1,28 +1,29 @@
 package com.stevenst.app.service.impl;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
-import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
 
 import com.stevenst.app.payload.UserPublicPayload;
 import com.stevenst.app.repository.UserRepository;
 import com.stevenst.app.service.SearchService;
+import com.stevenst.lib.client.UserServiceClient;
 import com.stevenst.lib.model.User;
+import com.stevenst.lib.model.enums.ImageVariant;
+import com.stevenst.lib.model.enums.RelationshipStatus;
 
 import lombok.RequiredArgsConstructor;
-import reactor.core.publisher.Mono;
 
 @Service
 @RequiredArgsConstructor
 public class SearchServiceImpl implements SearchService {
 	private final UserRepository userRepository;
-	private final WebClient webClient;
+	private final UserServiceClient userServiceClient;
 
 	@Override
-	public List<UserPublicPayload> getUsersMatching(String input) {
+	public List<UserPublicPayload> getUsersMatching(String input, String viewer) {
 		if (input == null || input.isEmpty()) {
 			throw new IllegalArgumentException("input cannot be null or empty.");
 		}
@@ -37,34 +38,46 @@ public class SearchServiceImpl implements SearchService {
 		// // comment the one above and call the one below to not use cloud resources
 		matchingUsers = setThePfpLinkForEachUserToNull(matchingUsers);
 
-		return matchingUsers.stream()
-				.map(user -> new UserPublicPayload(user.getId(), user.getUsername(), user.getProfilePictureName()))
+		List<UserPublicPayload> users = matchingUsers.stream()
+				.map(user -> UserPublicPayload.builder()
+						.id(user.getId())
+						.username(user.getUsername())
+						.pfpLink(user.getProfilePictureName()).build())
 				.collect(Collectors.toList());
+
+		if (viewer != null && !users.isEmpty()) {
+			setTheRelationshipStatusForEachUser(viewer, users);
+		}
+
+		return users;
 	}
 
 	// ----------------------------------------------------------------
 
+	// a single call to the user service for the links of up to 100 users (the recent ones are cached by the client)
 	private List<User> setThePfpLinkForEachUser(List<User> users) {
+		// the search results only show small avatars
+		Map<String, String> pfpLinks = userServiceClient.getProfilePictureLinks(
+				users.stream().map(User::getUsername).toList(), ImageVariant.THUMBNAIL);
 		for (User user : users) {
-			Mono<String> userPfpLinkMono = webClient.get()
-					.uri(uriBuilder -> uriBuilder.path("/api/user/getProfilePictureLink")
-							.queryParam("username", user.getUsername())
-							.build())
-					.retrieve()
-					.bodyToMono(new ParameterizedTypeReference<String>() {
-					});
-
-			String userPfpLink = userPfpLinkMono.block();
+			String userPfpLink = pfpLinks.get(user.getUsername());
 			if (userPfpLink != null) {
-				user.setProfilePictureName(userPfpLink
-						.replace("{\"string\":\"", "")
-						.replace("\"}", ""));
+				user.setProfilePictureName(userPfpLink);
 			}
 		}
 
 		return users;
 	}
 
+	// the client splits the usernames into batches the user service accepts and asks for them at the same time
+	private void setTheRelationshipStatusForEachUser(String viewer, List<UserPublicPayload> users) {
+		Map<String, RelationshipStatus> statuses = userServiceClient.getRelationshipStatuses(viewer,
+				users.stream().map(UserPublicPayload::getUsername).toList());
+		for (UserPublicPayload user : users) {
+			user.setRelationshipStatus(statuses.get(user.getUsername()));
+		}
+	}
+
 	private List<User> setThePfpLinkForEachUserToNull(List<User> users) {
 		for (User user : users) {
 			user.setProfilePictureName(null);
@@ -0,0 +1,205 @@
+package com.stevenst.app.service.impl;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.stevenst.app.repository.post.PostRepository;
+import com.stevenst.app.repository.post.TimelineEntryRepository;
+import com.stevenst.app.service.TimelineService;
+import com.stevenst.lib.client.UserServiceClient;
+import com.stevenst.lib.exception.IgorServiceUnavailableException;
+import com.stevenst.lib.payload.ResponsePayload;
+
+import jakarta.annotation.PreDestroy;
+
+// writes the posts into the timelines of the friends of their authors (the author's entry is inserted with the post),
+// the timelines are the only thing the home feeds read (see PostServiceImpl)
+// the friends are written fan-out-batch-size at a time, so an author with many friends never makes one huge statement
+// the posts that couldn't be fanned out (user service unavailable, too many fan-outs waiting) are fanned out again
+// every fan-out-retry-delay, until then they are missing from the timelines
+@Service
+public class TimelineServiceImpl implements TimelineService {
+	private final PostRepository postRepository;
+	private final TimelineEntryRepository timelineEntryRepository;
+	private final UserServiceClient userServiceClient;
+	private final int fanOutBatchSize;
+	private final boolean backfillOnStartup;
+	// bounded pool for the fan-outs of the new posts, when it is saturated the post is left not fanned out
+	// (until the next retry fans it out)
+	private final ThreadPoolExecutor fanOutExecutor;
+
+	public TimelineServiceImpl(PostRepository postRepository, TimelineEntryRepository timelineEntryRepository,
+			UserServiceClient userServiceClient,
+			@Value("${app.timeline.fan-out-batch-size:500}") int fanOutBatchSize,
+			@Value("${app.timeline.backfill-on-startup:true}") boolean backfillOnStartup,
+			@Value("${app.timeline.fan-out-threads:2}") int fanOutThreads,
+			@Value("${app.timeline.fan-out-queue-capacity:1000}") int fanOutQueueCapacity) {
+		this.postRepository = postRepository;
+		this.timelineEntryRepository = timelineEntryRepository;
+		this.userServiceClient = userServiceClient;
+		this.fanOutBatchSize = fanOutBatchSize;
+		this.backfillOnStartup = backfillOnStartup;
+		this.fanOutExecutor = new ThreadPoolExecutor(fanOutThreads, fanOutThreads, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(fanOutQueueCapacity), new ThreadPoolExecutor.AbortPolicy());
+	}
+
+	@PreDestroy
+	void shutdown() {
+		fanOutExecutor.shutdown();
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void backfillOnStartup() {
+		if (backfillOnStartup) {
+			fanOutNotFannedOutPosts();
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${app.timeline.fan-out-retry-delay:PT1M}",
+			initialDelayString = "${app.timeline.fan-out-retry-delay:PT1M}")
+	public void retryNotFannedOutPosts() {
+		fanOutNotFannedOutPosts();
+	}
+
+	// writes the post into the timelines of the author's friends, a statement per batch of viewers
+	// (the viewers already having the post are skipped, a retry may meet a fan-out stopped halfway)
+	@Override
+	public void fanOutPost(Long postId, String authorUsername) {
+		List<String> viewerUsernames = getFriendsOfAuthor(authorUsername);
+		if (viewerUsernames == null) {
+			return;
+		}
+
+		for (int from = 0; from < viewerUsernames.size(); from += fanOutBatchSize) {
+			timelineEntryRepository.insertPostIntoTimelinesOfViewers(postId,
+					viewerUsernames.subList(from, Math.min(from + fanOutBatchSize, viewerUsernames.size())));
+		}
+		postRepository.markAsFannedOut(postId);
+	}
+
+	// the friends are asked for (over http) once the post is committed, not while the transaction that creates it
+	// holds its connection, and the post is fanned out in the background
+	@Override
+	public void fanOutPostAfterCommit(Long postId, String authorUsername) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			submitFanOut(postId, authorUsername);
+			return;
+		}
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				submitFanOut(postId, authorUsername);
+			}
+		});
+	}
+
+	// the posts stored before the timelines existed and the ones whose fan-out failed, an author at a time
+	// the authors whose friends can't be got are tried again on the next run
+	// the author is written as well, the posts stored before the timelines have no entry for him
+	@Override
+	public int fanOutNotFannedOutPosts() {
+		Long maxPostId = postRepository.findMaxId();
+		if (maxPostId == null) {
+			return 0;
+		}
+
+		int nbOfPostsFannedOut = 0;
+		for (String authorUsername : postRepository.findAuthorsUsernamesOfNotFannedOutPostsUpTo(maxPostId)) {
+			List<String> viewerUsernames = getViewersOfAuthor(authorUsername);
+			if (viewerUsernames == null) {
+				continue;
+			}
+
+			// the posts created meanwhile (over maxPostId) are fanned out by themselves
+			for (int from = 0; from < viewerUsernames.size(); from += fanOutBatchSize) {
+				timelineEntryRepository.insertNotFannedOutPostsOfAuthorIntoTimelinesOfViewers(authorUsername,
+						maxPostId, viewerUsernames.subList(from, Math.min(from + fanOutBatchSize, viewerUsernames.size())));
+			}
+			nbOfPostsFannedOut += postRepository.markNotFannedOutPostsOfAuthorAsFannedOut(authorUsername, maxPostId);
+		}
+
+		if (nbOfPostsFannedOut > 0) {
+			System.out.println("Fanned out " + nbOfPostsFannedOut + " posts that were not in the timelines.");
+		}
+		return nbOfPostsFannedOut;
+	}
+
+	// called by the user service when two users become friends, each one gets the posts of the other
+	// the posts not fanned out yet are copied as well, their fan-out may have read the friends before this friendship
+	@Override
+	public ResponsePayload addFriendship(String user1Username, String user2Username) {
+		timelineEntryRepository.insertPostsOfAuthorIntoTimelineOfViewer(user1Username, user2Username);
+		timelineEntryRepository.insertPostsOfAuthorIntoTimelineOfViewer(user2Username, user1Username);
+		// the feeds filter the timelines by the cached friends
+		userServiceClient.evictFriends(user1Username);
+		userServiceClient.evictFriends(user2Username);
+
+		return ResponsePayload.builder().status(200).message("Timelines updated for the friendship between "
+				+ user1Username + " and " + user2Username + ".").build();
+	}
+
+	// called by the user service on an unfriend, each one loses the posts of the other
+	@Override
+	public ResponsePayload removeFriendship(String user1Username, String user2Username) {
+		timelineEntryRepository.deletePostsOfAuthorFromTimelineOfViewer(user1Username, user2Username);
+		timelineEntryRepository.deletePostsOfAuthorFromTimelineOfViewer(user2Username, user1Username);
+		// the feeds filter the timelines by the cached friends
+		userServiceClient.evictFriends(user1Username);
+		userServiceClient.evictFriends(user2Username);
+
+		return ResponsePayload.builder().status(200).message("Timelines updated for the end of the friendship between "
+				+ user1Username + " and " + user2Username + ".").build();
+	}
+
+	// ---------------------------------------------
+
+	private void submitFanOut(Long postId, String authorUsername) {
+		try {
+			fanOutExecutor.execute(() -> {
+				try {
+					fanOutPost(postId, authorUsername);
+				} catch (RuntimeException e) {
+					System.err.println("Unable to fan out the post " + postId + ": " + e.getMessage());
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			System.err.println("Too many posts to fan out, the post " + postId + " is fanned out by the next retry.");
+		}
+	}
+
+	// the author and his friends, null when they can't be got
+	private List<String> getViewersOfAuthor(String authorUsername) {
+		List<String> viewerUsernames = getFriendsOfAuthor(authorUsername);
+		if (viewerUsernames == null) {
+			return null;
+		}
+
+		viewerUsernames.add(authorUsername);
+		return viewerUsernames;
+	}
+
+	// null when they can't be got
+	// not from the cache of the client: a friend made a few seconds ago would never get the post (the posts already
+	// in the db when the friendship is made are copied by addFriendship, the later ones have to see the friend here)
+	private List<String> getFriendsOfAuthor(String authorUsername) {
+		try {
+			return userServiceClient.getAllFriendsUsernamesUncached(authorUsername);
+		} catch (IgorServiceUnavailableException e) {
+			System.err.println("Unable to get the friends of " + authorUsername
+					+ ", the posts are fanned out by the next retry: " + e.getMessage());
+			return null;
+		}
+	}
+}
@@ -0,0 +1,19 @@
+package com.stevenst.app.util;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public final class CollectionUtil {
+	private CollectionUtil() {
+	}
+
+	// the elements of the list (in their order) that are not in the excluded ones, in O(list + excluded):
+	// the excluded elements are hashed once instead of being scanned for every element of the list
+	public static <T> List<T> difference(List<T> list, Collection<T> excluded) {
+		Set<T> excludedSet = excluded instanceof Set<T> set ? set : new HashSet<>(excluded);
+
+		return list.stream().filter(element -> !excludedSet.contains(element)).toList();
+	}
+}
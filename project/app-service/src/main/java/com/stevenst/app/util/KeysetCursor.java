@@ -0,0 +1,50 @@
+package com.stevenst.app.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import com.stevenst.app.exception.IgorPostException;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// cursor of the keyset pagination: the (createdAt, id) of the last row of the previous page
+// the rows are read with "createdAt < cursor.createdAt OR (createdAt = cursor.createdAt AND id < cursor.id)"
+// ordered by "createdAt DESC, id DESC", so a (..., created_at, id) index serves both the filter and the order
+// and the clients only get an opaque token
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class KeysetCursor {
+	// the first page starts after every row so the queries don't need a null check on the cursor
+	public static final KeysetCursor FIRST_PAGE = new KeysetCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59),
+			Long.MAX_VALUE);
+	private static final String SEPARATOR = "_";
+
+	private final LocalDateTime createdAt;
+	private final Long id;
+
+	public static String encode(LocalDateTime createdAt, Long id) {
+		String cursor = createdAt + SEPARATOR + id;
+
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public static KeysetCursor decode(String token) {
+		if (token == null || token.isEmpty()) {
+			return FIRST_PAGE;
+		}
+
+		try {
+			String cursor = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			int separatorIndex = cursor.lastIndexOf(SEPARATOR);
+
+			return new KeysetCursor(LocalDateTime.parse(cursor.substring(0, separatorIndex)),
+					Long.parseLong(cursor.substring(separatorIndex + 1)));
+		} catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+			throw new IgorPostException("Invalid cursor: " + token);
+		}
+	}
+}
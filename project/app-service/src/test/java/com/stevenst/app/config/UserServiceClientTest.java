@@ -0,0 +1,257 @@
+package com.stevenst.app.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stevenst.lib.client.ServiceClientSettings;
+import com.stevenst.lib.client.UserServiceClient;
+import com.stevenst.lib.exception.IgorServiceUnavailableException;
+import com.stevenst.lib.model.enums.ImageVariant;
+import com.stevenst.lib.model.enums.RelationshipStatus;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// the client of the user service against a stub of it
+class UserServiceClientTest {
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final AtomicInteger friendsCalls = new AtomicInteger();
+	private final AtomicInteger failuresLeft = new AtomicInteger();
+	private final AtomicInteger relationshipStatusesCalls = new AtomicInteger();
+	private final AtomicInteger profilePictureLinksCalls = new AtomicInteger();
+	private volatile CountDownLatch slowCallLatch;
+	private volatile String lastAuthorizationHeader;
+
+	private HttpServer server;
+	private String baseUrl;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+
+		server.createContext("/api/friend/getAllFriendsUsernames", exchange -> {
+			friendsCalls.incrementAndGet();
+			lastAuthorizationHeader = exchange.getRequestHeaders().getFirst("Authorization");
+			if (failuresLeft.getAndDecrement() > 0) {
+				respond(exchange, 503, "{}");
+				return;
+			}
+			if (slowCallLatch != null) {
+				awaitQuietly(slowCallLatch);
+			}
+			String username = exchange.getRequestURI().getQuery().replace("username=", "");
+			respond(exchange, 200, objectMapper.writeValueAsString(List.of(username + "_friend1",
+					username + "_friend2")));
+		});
+		server.createContext("/api/friend/getRelationshipStatuses", exchange -> {
+			relationshipStatusesCalls.incrementAndGet();
+			List<?> usernames = objectMapper.readValue(exchange.getRequestBody(), List.class);
+			StringBuilder statuses = new StringBuilder("{");
+			for (Object username : usernames) {
+				statuses.append(statuses.length() > 1 ? "," : "").append('"').append(username).append("\":\"FRIEND\"");
+			}
+			respond(exchange, 200, statuses.append('}').toString());
+		});
+		server.createContext("/api/user/getProfilePictureLinks", exchange -> {
+			profilePictureLinksCalls.incrementAndGet();
+			String variant = exchange.getRequestURI().getQuery().replace("variant=", "");
+			List<?> usernames = objectMapper.readValue(exchange.getRequestBody(), List.class);
+			if (usernames.contains("broken")) {
+				respond(exchange, 500, "{}");
+				return;
+			}
+			StringBuilder links = new StringBuilder("{");
+			for (Object username : usernames) {
+				// the unknown users are left out
+				if (!username.equals("ghost")) {
+					links.append(links.length() > 1 ? "," : "").append('"').append(username)
+							.append("\":\"https://bucket/").append(username).append('/').append(variant).append('"');
+				}
+			}
+			respond(exchange, 200, links.append('}').toString());
+		});
+		server.start();
+
+		baseUrl = "http://localhost:" + server.getAddress().getPort();
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (slowCallLatch != null) {
+			slowCallLatch.countDown();
+		}
+		server.stop(0);
+	}
+
+	@Test
+	void getAllFriendsUsernames_isCachedAndReturnsACopyTheCallerCanChange() {
+		UserServiceClient client = newClient(settings().build());
+
+		List<String> friends = client.getAllFriendsUsernames("andrew");
+		friends.add("andrew");
+
+		assertEquals(List.of("andrew_friend1", "andrew_friend2"), client.getAllFriendsUsernames("andrew"));
+		assertEquals(1, friendsCalls.get());
+	}
+
+	@Test
+	void getAllFriendsUsernamesUncached_callsTheServiceEvenWithTheFriendsCached() {
+		UserServiceClient client = newClient(settings().build());
+
+		client.getAllFriendsUsernames("andrew");
+		client.getAllFriendsUsernamesUncached("andrew");
+		client.getAllFriendsUsernames("andrew");
+
+		assertEquals(2, friendsCalls.get());
+	}
+
+	@Test
+	void getAllFriendsUsernames_retriesTheUnavailableAnswers() {
+		failuresLeft.set(2);
+		UserServiceClient client = newClient(settings().build());
+
+		assertEquals(2, client.getAllFriendsUsernames("andrew").size());
+		assertEquals(3, friendsCalls.get());
+	}
+
+	@Test
+	void getAllFriendsUsernames_afterTooManyFailures_failsWithoutCallingTheService() {
+		failuresLeft.set(100);
+		UserServiceClient client = newClient(settings().maxRetries(0).circuitBreakerFailureThreshold(2).build());
+
+		assertThrows(IgorServiceUnavailableException.class, () -> client.getAllFriendsUsernames("andrew"));
+		assertThrows(IgorServiceUnavailableException.class, () -> client.getAllFriendsUsernames("bobby"));
+		assertTrue(client.isCircuitOpen());
+
+		assertThrows(IgorServiceUnavailableException.class, () -> client.getAllFriendsUsernames("carol"));
+		assertEquals(2, friendsCalls.get());
+	}
+
+	@Test
+	void getAllFriendsUsernames_ofASlowService_timesOut() {
+		slowCallLatch = new CountDownLatch(1);
+		UserServiceClient client = newClient(settings().requestTimeout(Duration.ofMillis(200)).maxRetries(1).build());
+
+		assertThrows(IgorServiceUnavailableException.class, () -> client.getAllFriendsUsernames("andrew"));
+		assertEquals(2, friendsCalls.get());
+	}
+
+	@Test
+	void getAllFriendsUsernames_overTheMaxConcurrentCalls_isRejected() throws Exception {
+		slowCallLatch = new CountDownLatch(1);
+		UserServiceClient client = newClient(settings().maxConcurrentCalls(1)
+				.bulkheadWaitTimeout(Duration.ofMillis(50)).build());
+
+		CompletableFuture<List<String>> slowCall = client.getAllFriendsUsernamesAsync("andrew");
+
+		assertThrows(IgorServiceUnavailableException.class, () -> client.getAllFriendsUsernames("bobby"));
+		slowCallLatch.countDown();
+		assertEquals(2, slowCall.get(5, TimeUnit.SECONDS).size());
+		assertFalse(client.isCircuitOpen());
+	}
+
+	@Test
+	void getRelationshipStatuses_splitsTheUsernamesIntoBatches() {
+		UserServiceClient client = newClient(settings().build());
+		List<String> usernames = new ArrayList<>();
+		for (int i = 0; i < 250; i++) {
+			usernames.add("username" + i);
+		}
+
+		Map<String, RelationshipStatus> statuses = client.getRelationshipStatuses("andrew", usernames);
+
+		assertEquals(250, statuses.size());
+		assertEquals(RelationshipStatus.FRIEND, statuses.get("username249"));
+		assertEquals(3, relationshipStatusesCalls.get());
+	}
+
+	@Test
+	void getAllFriendsUsernames_sendsTheTokenOfTheSettingsAsTheBearer() {
+		UserServiceClient client = newClient(settings().bearerTokenSupplier(() -> "servicetoken").build());
+
+		client.getAllFriendsUsernames("andrew");
+
+		assertEquals("Bearer servicetoken", lastAuthorizationHeader);
+	}
+
+	@Test
+	void getProfilePictureLinks_getsTheLinksOfTheUsersInASingleCallAndCachesThem() {
+		UserServiceClient client = newClient(settings().build());
+
+		Map<String, String> links = client.getProfilePictureLinks(List.of("andrew", "ghost", "bobby", "andrew"),
+				ImageVariant.THUMBNAIL);
+
+		assertEquals(Map.of("andrew", "https://bucket/andrew/THUMBNAIL", "bobby", "https://bucket/bobby/THUMBNAIL"),
+				links);
+		assertEquals(1, profilePictureLinksCalls.get());
+
+		assertEquals(links, client.getProfilePictureLinks(List.of("andrew", "bobby"), ImageVariant.THUMBNAIL));
+		assertEquals(1, profilePictureLinksCalls.get());
+	}
+
+	@Test
+	void getProfilePictureLinks_leavesOutTheBatchesThatCantBeGot() {
+		UserServiceClient client = newClient(settings().maxRetries(0).build());
+		List<String> usernames = new ArrayList<>(List.of("broken"));
+		for (int i = 0; i < 150; i++) {
+			usernames.add("username" + i);
+		}
+
+		Map<String, String> links = client.getProfilePictureLinks(usernames, ImageVariant.ORIGINAL);
+
+		// the first batch (with the broken user) failed
+		assertEquals(51, links.size());
+		assertEquals(2, profilePictureLinksCalls.get());
+	}
+
+	// ----------------------------------------
+
+	private ServiceClientSettings.ServiceClientSettingsBuilder settings() {
+		return ServiceClientSettings.builder()
+				.baseUrl(baseUrl)
+				.requestTimeout(Duration.ofSeconds(2))
+				.retryBackoff(Duration.ofMillis(10));
+	}
+
+	private UserServiceClient newClient(ServiceClientSettings settings) {
+		return new UserServiceClient(settings, objectMapper);
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream responseBody = exchange.getResponseBody()) {
+			responseBody.write(bytes);
+		}
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,309 @@
+package com.stevenst.app.controller;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import com.stevenst.app.AppApplication;
+
+// runs two nodes of the app in relay mode against one stomp broker and checks that a message sent to
+// a node reaches a subscriber connected to the other one
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ChattingControllerMultiNodeIntegrationTest {
+	private static final String CHATROOM_TOPIC = "/topic/chatroom/1";
+
+	private FakeStompBroker broker;
+	private ConfigurableApplicationContext nodeA;
+	private ConfigurableApplicationContext nodeB;
+	private WebSocketStompClient stompClient;
+
+	@BeforeAll
+	void init() throws Exception {
+		broker = new FakeStompBroker();
+		nodeA = startNode();
+		nodeB = startNode();
+
+		// the receipts of the subscriptions are tracked with a scheduler
+		ThreadPoolTaskScheduler receiptScheduler = new ThreadPoolTaskScheduler();
+		receiptScheduler.initialize();
+		stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+		stompClient.setTaskScheduler(receiptScheduler);
+	}
+
+	@AfterAll
+	void tearDown() throws IOException {
+		stompClient.stop();
+		nodeA.close();
+		nodeB.close();
+		broker.close();
+	}
+
+	@Test
+	void sendMessage_reachesTheSubscribersConnectedToAnotherNode() throws Exception {
+		StompSession subscriberSession = connect(nodeB);
+		StompSession senderSession = connect(nodeA);
+
+		BlockingQueue<String> receivedMessages = new LinkedBlockingQueue<>();
+		CountDownLatch subscribed = new CountDownLatch(1);
+		subscriberSession.setAutoReceipt(true);
+		subscriberSession.subscribe(CHATROOM_TOPIC, new StompFrameHandler() {
+			@Override
+			public Type getPayloadType(StompHeaders headers) {
+				return byte[].class;
+			}
+
+			@Override
+			public void handleFrame(StompHeaders headers, Object payload) {
+				receivedMessages.add(new String((byte[]) payload, StandardCharsets.UTF_8));
+			}
+		}).addReceiptTask(subscribed::countDown);
+		assertTrue(subscribed.await(10, TimeUnit.SECONDS));
+
+		StompHeaders sendHeaders = new StompHeaders();
+		sendHeaders.setDestination("/app/chat.sendToChatroom/1");
+		sendHeaders.setContentType(MimeTypeUtils.APPLICATION_JSON);
+		senderSession.send(sendHeaders,
+				"{\"chatroomId\":1,\"senderUsername\":\"testusername\",\"message\":\"hello from node a\"}"
+						.getBytes(StandardCharsets.UTF_8));
+
+		String receivedMessage = receivedMessages.poll(10, TimeUnit.SECONDS);
+		assertNotNull(receivedMessage);
+		assertTrue(receivedMessage.contains("\"message\":\"hello from node a\""));
+		assertTrue(receivedMessage.contains("\"senderUsername\":\"testusername\""));
+
+		senderSession.disconnect();
+		subscriberSession.disconnect();
+	}
+
+	// ----------------------------------------
+
+	private ConfigurableApplicationContext startNode() throws InterruptedException {
+		ConfigurableApplicationContext node = new SpringApplicationBuilder(AppApplication.class)
+				.profiles("test")
+				.run("--server.port=0",
+						"--app.chat.broker.mode=relay",
+						"--app.chat.broker.relay.host=localhost",
+						"--app.chat.broker.relay.port=" + broker.getPort());
+
+		// the clients are rejected until the shared connection of the node to the broker is up
+		StompBrokerRelayMessageHandler relay = node.getBean(StompBrokerRelayMessageHandler.class);
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (!relay.isBrokerAvailable() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(50);
+		}
+		assertTrue(relay.isBrokerAvailable());
+
+		return node;
+	}
+
+	private StompSession connect(ConfigurableApplicationContext node) throws Exception {
+		int port = ((WebServerApplicationContext) node).getWebServer().getPort();
+
+		return stompClient.connectAsync("ws://localhost:" + port + "/chat-endpoint", new StompSessionHandlerAdapter() {
+		}).get(10, TimeUnit.SECONDS);
+	}
+
+	// the smallest stomp broker the relay works with: CONNECT, SUBSCRIBE, SEND, receipts and DISCONNECT
+	// (a stand-in for activemq artemis or rabbitmq, which can't run inside this test)
+	private static class FakeStompBroker {
+		private final ServerSocket serverSocket;
+		private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+		private final AtomicLong messageIds = new AtomicLong();
+
+		private record Subscription(Connection connection, String destination, String id) {
+		}
+
+		FakeStompBroker() throws IOException {
+			serverSocket = new ServerSocket(0);
+			startDaemon(this::acceptConnections);
+		}
+
+		int getPort() {
+			return serverSocket.getLocalPort();
+		}
+
+		void close() throws IOException {
+			serverSocket.close();
+		}
+
+		private void acceptConnections() {
+			while (!serverSocket.isClosed()) {
+				try {
+					Connection connection = new Connection(serverSocket.accept());
+					startDaemon(connection::handleFrames);
+				} catch (IOException e) {
+					return;
+				}
+			}
+		}
+
+		private static void startDaemon(Runnable runnable) {
+			Thread thread = new Thread(runnable);
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		private class Connection {
+			private final Socket socket;
+			private final InputStream in;
+			private final OutputStream out;
+
+			Connection(Socket socket) throws IOException {
+				this.socket = socket;
+				this.in = socket.getInputStream();
+				this.out = socket.getOutputStream();
+			}
+
+			void handleFrames() {
+				try (socket) {
+					Frame frame;
+					while ((frame = readFrame()) != null) {
+						if (!handleFrame(frame)) {
+							return;
+						}
+					}
+				} catch (IOException e) {
+					// the node closed the connection
+				} finally {
+					subscriptions.removeIf(subscription -> subscription.connection() == this);
+				}
+			}
+
+			private boolean handleFrame(Frame frame) throws IOException {
+				Map<String, String> headers = frame.headers();
+
+				switch (frame.command()) {
+					case "CONNECT", "STOMP" -> write("CONNECTED", Map.of("version", "1.2", "heart-beat", "0,0"), null);
+					case "SUBSCRIBE" -> subscriptions.add(new Subscription(this, headers.get("destination"), headers.get("id")));
+					case "UNSUBSCRIBE" -> subscriptions.removeIf(subscription -> subscription.connection() == this
+							&& subscription.id().equals(headers.get("id")));
+					case "SEND" -> broadcast(headers, frame.body());
+					default -> {
+						// nothing else is needed by the relay
+					}
+				}
+
+				if (headers.containsKey("receipt")) {
+					write("RECEIPT", Map.of("receipt-id", headers.get("receipt")), null);
+				}
+
+				return !frame.command().equals("DISCONNECT");
+			}
+
+			private void broadcast(Map<String, String> headers, byte[] body) throws IOException {
+				for (Subscription subscription : subscriptions) {
+					if (subscription.destination().equals(headers.get("destination"))) {
+						Map<String, String> messageHeaders = new LinkedHashMap<>();
+						messageHeaders.put("destination", subscription.destination());
+						messageHeaders.put("subscription", subscription.id());
+						messageHeaders.put("message-id", String.valueOf(messageIds.incrementAndGet()));
+						messageHeaders.put("content-type", headers.getOrDefault("content-type", "application/json"));
+						subscription.connection().write("MESSAGE", messageHeaders, body);
+					}
+				}
+			}
+
+			private synchronized void write(String command, Map<String, String> headers, byte[] body)
+					throws IOException {
+				StringBuilder frame = new StringBuilder(command).append('\n');
+				headers.forEach((name, value) -> frame.append(name).append(':').append(value).append('\n'));
+				if (body != null) {
+					frame.append("content-length:").append(body.length).append('\n');
+				}
+				frame.append('\n');
+
+				out.write(frame.toString().getBytes(StandardCharsets.UTF_8));
+				if (body != null) {
+					out.write(body);
+				}
+				out.write(0);
+				out.flush();
+			}
+
+			private Frame readFrame() throws IOException {
+				String command;
+				// empty lines between the frames are heart-beats
+				do {
+					command = readLine();
+					if (command == null) {
+						return null;
+					}
+				} while (command.isEmpty());
+
+				Map<String, String> headers = new LinkedHashMap<>();
+				String header;
+				while ((header = readLine()) != null && !header.isEmpty()) {
+					int separator = header.indexOf(':');
+					headers.putIfAbsent(header.substring(0, separator), header.substring(separator + 1));
+				}
+
+				byte[] body;
+				if (headers.containsKey("content-length")) {
+					body = in.readNBytes(Integer.parseInt(headers.get("content-length")));
+					in.read();
+				} else {
+					ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+					int b;
+					while ((b = in.read()) > 0) {
+						bodyBytes.write(b);
+					}
+					body = bodyBytes.toByteArray();
+				}
+
+				return new Frame(command, headers, body);
+			}
+
+			private String readLine() throws IOException {
+				ByteArrayOutputStream line = new ByteArrayOutputStream();
+				int b;
+				while ((b = in.read()) != '\n') {
+					if (b == -1) {
+						return null;
+					}
+					if (b != '\r' && (b != 0 || line.size() > 0)) {
+						line.write(b);
+					}
+				}
+
+				return line.toString(StandardCharsets.UTF_8);
+			}
+		}
+
+		private record Frame(String command, Map<String, String> headers, byte[] body) {
+		}
+	}
+}
@@ -30,6 +30,8 @@ import com.jayway.jsonpath.JsonPath;
 import com.stevenst.app.repository.UserRepository;
 import com.stevenst.app.repository.post.PostMediaRepository;
 import com.stevenst.app.repository.post.PostRepository;
+import com.stevenst.app.repository.post.TimelineEntryRepository;
+import com.stevenst.lib.cache.UserIdentityCache;
 import com.stevenst.lib.model.User;
 import com.stevenst.lib.payload.ResponsePayload;
 
@@ -55,9 +57,13 @@ class PostControllerIntegrationTest {
 	@Autowired
 	private UserRepository userRepository;
 	@Autowired
+	private UserIdentityCache userIdentityCache;
+	@Autowired
 	private PostRepository postRepository;
 	@Autowired
 	private PostMediaRepository postMediaRepository;
+	@Autowired
+	private TimelineEntryRepository timelineEntryRepository;
 
 	@MockBean
 	private S3Client s3Client;
@@ -113,9 +119,11 @@ class PostControllerIntegrationTest {
 	}
 
 	private void cleanDB() {
+		timelineEntryRepository.deleteAll();
 		postMediaRepository.deleteAll();
 		postRepository.deleteAll();
 		userRepository.deleteAll();
+		userIdentityCache.invalidateAll();
 	}
 
 	private ResponsePayload getResponsePayloadFromMvcResult(MvcResult result) throws UnsupportedEncodingException {
@@ -0,0 +1,147 @@
+package com.stevenst.app.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+
+import com.stevenst.app.config.WebSocketConfig.BrokerMode;
+import com.stevenst.app.payload.ChatMessageCacheStatsPayload;
+import com.stevenst.app.repository.chat.ChatMessageRepository;
+import com.stevenst.app.service.ChatMessageWriteBehindService;
+import com.stevenst.lib.model.chat.ChatMessage;
+
+class ChatMessageCacheServiceImplTest {
+	private static final Long CHATROOM_ID = 1L;
+
+	@Mock
+	private ChatMessageRepository chatMessageRepository;
+	@Mock
+	private ChatMessageWriteBehindService chatMessageWriteBehindService;
+
+	private ChatMessageCacheServiceImpl chatMessageCacheService;
+
+	@BeforeEach
+	void setUp() {
+		MockitoAnnotations.openMocks(this);
+
+		// the db returns the newest messages first
+		when(chatMessageRepository.findMessagesBeforeCursorByChatroomId(eq(CHATROOM_ID), isNull(), any(Pageable.class)))
+				.thenReturn(List.of(createMessage(3L), createMessage(2L), createMessage(1L)));
+		when(chatMessageWriteBehindService.getPendingMessagesOfChatroom(CHATROOM_ID)).thenReturn(List.of());
+
+		chatMessageCacheService = createChatMessageCacheService(BrokerMode.SIMPLE);
+	}
+
+	@Test
+	void getLatestMessagesOfChatroom_loadsTheChatroomOnceThenServesItFromMemory() {
+		assertEquals(List.of(3L, 2L), getIdsOfLatestMessages(2));
+		assertEquals(List.of(3L, 2L, 1L), getIdsOfLatestMessages(3));
+
+		verify(chatMessageRepository, times(1)).findMessagesBeforeCursorByChatroomId(eq(CHATROOM_ID), isNull(),
+				any(Pageable.class));
+		ChatMessageCacheStatsPayload stats = chatMessageCacheService.getStats();
+		assertEquals(1, stats.getHits());
+		assertEquals(1, stats.getMisses());
+		assertEquals(0.5, stats.getHitRate());
+		assertEquals(1, stats.getCachedChatrooms());
+		assertEquals(3, stats.getCachedMessages());
+	}
+
+	@Test
+	void getLatestMessagesOfChatroom_includesTheMessagesNotInsertedYet() {
+		when(chatMessageWriteBehindService.getPendingMessagesOfChatroom(CHATROOM_ID))
+				.thenReturn(List.of(createMessage(5L), createMessage(4L)));
+
+		assertEquals(List.of(5L, 4L, 3L, 2L), getIdsOfLatestMessages(4));
+	}
+
+	@Test
+	void getLatestMessagesOfChatroom_withMoreMessagesThanCached_returnsNull() {
+		assertNull(chatMessageCacheService.getLatestMessagesOfChatroom(CHATROOM_ID, 5));
+
+		verify(chatMessageRepository, never()).findMessagesBeforeCursorByChatroomId(any(), any(), any());
+	}
+
+	@Test
+	void getLatestMessagesOfChatroom_withTheRelayBroker_returnsNull() {
+		chatMessageCacheService = createChatMessageCacheService(BrokerMode.RELAY);
+
+		assertNull(chatMessageCacheService.getLatestMessagesOfChatroom(CHATROOM_ID, 2));
+	}
+
+	@Test
+	void addMessage_overwritesTheOldestMessageOfACachedChatroom() {
+		chatMessageCacheService.getLatestMessagesOfChatroom(CHATROOM_ID, 4);
+
+		chatMessageCacheService.addMessage(createMessage(5L));
+		chatMessageCacheService.addMessage(createMessage(6L));
+		// already cached
+		chatMessageCacheService.addMessage(createMessage(6L));
+
+		assertEquals(List.of(6L, 5L, 3L, 2L), getIdsOfLatestMessages(4));
+	}
+
+	@Test
+	void addMessage_outOfOrder_overwritesTheMessageWithTheSmallestId() {
+		chatMessageCacheService.getLatestMessagesOfChatroom(CHATROOM_ID, 4);
+
+		chatMessageCacheService.addMessage(createMessage(7L));
+		chatMessageCacheService.addMessage(createMessage(8L));
+		// sent before 7 and 8 on another node
+		chatMessageCacheService.addMessage(createMessage(5L));
+		// older than every cached message
+		chatMessageCacheService.addMessage(createMessage(2L));
+
+		assertEquals(List.of(8L, 7L, 5L, 3L), getIdsOfLatestMessages(4));
+	}
+
+	@Test
+	void addMessage_toAChatroomNotInMemory_doesNotCacheIt() {
+		chatMessageCacheService.addMessage(createMessage(5L));
+
+		assertEquals(0, chatMessageCacheService.getStats().getCachedChatrooms());
+	}
+
+	@Test
+	void evictChatroom_loadsTheChatroomAgain() {
+		chatMessageCacheService.getLatestMessagesOfChatroom(CHATROOM_ID, 2);
+		chatMessageCacheService.evictChatroom(CHATROOM_ID);
+		chatMessageCacheService.getLatestMessagesOfChatroom(CHATROOM_ID, 2);
+
+		verify(chatMessageRepository, times(2)).findMessagesBeforeCursorByChatroomId(eq(CHATROOM_ID), isNull(),
+				any(Pageable.class));
+	}
+
+	// ----------------------------------------
+
+	private ChatMessageCacheServiceImpl createChatMessageCacheService(BrokerMode brokerMode) {
+		return new ChatMessageCacheServiceImpl(chatMessageRepository, chatMessageWriteBehindService, brokerMode, 4,
+				100, Duration.ofMinutes(30));
+	}
+
+	private List<Long> getIdsOfLatestMessages(int limit) {
+		return chatMessageCacheService.getLatestMessagesOfChatroom(CHATROOM_ID, limit).stream()
+				.map(ChatMessage::getId)
+				.toList();
+	}
+
+	private ChatMessage createMessage(Long id) {
+		return ChatMessage.builder().id(id).chatroomId(CHATROOM_ID).senderUsername("testusername")
+				.message("message " + id).build();
+	}
+}
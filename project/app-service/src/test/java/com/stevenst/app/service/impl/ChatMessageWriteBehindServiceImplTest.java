@@ -0,0 +1,126 @@
+package com.stevenst.app.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.stevenst.app.repository.chat.ChatMessageRepository;
+import com.stevenst.lib.exception.IgorMaxCapExceededException;
+import com.stevenst.lib.model.chat.ChatMessage;
+import com.stevenst.lib.util.SnowflakeIdGenerator;
+
+class ChatMessageWriteBehindServiceImplTest {
+	@Mock
+	private ChatMessageRepository chatMessageRepository;
+
+	@Captor
+	private ArgumentCaptor<List<ChatMessage>> batchCaptor;
+
+	@BeforeEach
+	void setUp() {
+		MockitoAnnotations.openMocks(this);
+	}
+
+	@Test
+	void enqueue_insertsTheMessagesInBatchesOfAtMostTheBatchSize() throws Exception {
+		ChatMessageWriteBehindServiceImpl writeBehindService = createWriteBehindService(100, 3, Duration.ofMillis(200));
+		writeBehindService.start();
+
+		for (int i = 0; i < 7; i++) {
+			writeBehindService.enqueue(createMessage("message " + i));
+		}
+		writeBehindService.shutdown();
+
+		verify(chatMessageRepository, atLeastOnce()).insertMessages(batchCaptor.capture());
+		List<List<ChatMessage>> batches = batchCaptor.getAllValues();
+		assertTrue(batches.stream().allMatch(batch -> batch.size() <= 3));
+		assertEquals(7, batches.stream().mapToInt(List::size).sum());
+		assertEquals("message 0", batches.get(0).get(0).getMessage());
+	}
+
+	@Test
+	void enqueue_givesIncreasingIdsToTheMessages() {
+		ChatMessageWriteBehindServiceImpl writeBehindService = createWriteBehindService(100, 10, Duration.ofSeconds(5));
+
+		Long firstId = writeBehindService.enqueue(createMessage("first")).getId();
+		Long secondId = writeBehindService.enqueue(createMessage("second")).getId();
+
+		assertTrue(firstId < secondId);
+	}
+
+	@Test
+	void enqueue_givesIdsThatStayExactAsJavascriptNumbers() {
+		ChatMessageWriteBehindServiceImpl writeBehindService = createWriteBehindService(100, 10, Duration.ofSeconds(5));
+
+		Long id = writeBehindService.enqueue(createMessage("message")).getId();
+
+		// Number.MAX_SAFE_INTEGER
+		assertTrue(id <= (1L << 53) - 1);
+	}
+
+	@Test
+	void enqueue_withAFullQueue_rejectsTheMessage() {
+		ChatMessageWriteBehindServiceImpl writeBehindService = createWriteBehindService(1, 10, Duration.ofSeconds(5));
+
+		writeBehindService.enqueue(createMessage("queued"));
+
+		assertThrows(IgorMaxCapExceededException.class, () -> writeBehindService.enqueue(createMessage("rejected")));
+	}
+
+	@Test
+	void shutdown_insertsTheQueuedMessagesWithoutWaitingForTheMaxDelay() throws Exception {
+		ChatMessageWriteBehindServiceImpl writeBehindService = createWriteBehindService(100, 10, Duration.ofHours(1));
+
+		writeBehindService.enqueue(createMessage("first"));
+		writeBehindService.enqueue(createMessage("second"));
+		verify(chatMessageRepository, never()).insertMessages(anyList());
+
+		writeBehindService.shutdown();
+
+		verify(chatMessageRepository).insertMessages(batchCaptor.capture());
+		assertEquals(2, batchCaptor.getValue().size());
+		assertThrows(IgorMaxCapExceededException.class, () -> writeBehindService.enqueue(createMessage("late")));
+	}
+
+	@Test
+	void discardChatroom_dropsTheMessagesOfTheChatroomThatAreNotInTheDbYet() throws Exception {
+		ChatMessageWriteBehindServiceImpl writeBehindService = createWriteBehindService(100, 10, Duration.ofHours(1));
+
+		writeBehindService.enqueue(createMessage("kept"));
+		writeBehindService.enqueue(ChatMessage.builder().chatroomId(2L).senderUsername("testusername")
+				.message("discarded").build());
+		writeBehindService.discardChatroom(2L);
+
+		assertTrue(writeBehindService.getPendingMessagesOfChatroom(2L).isEmpty());
+		writeBehindService.shutdown();
+
+		verify(chatMessageRepository).insertMessages(batchCaptor.capture());
+		assertEquals(List.of("kept"), batchCaptor.getValue().stream().map(ChatMessage::getMessage).toList());
+	}
+
+	// --------------------------------------------------------
+
+	private ChatMessageWriteBehindServiceImpl createWriteBehindService(int queueCapacity, int batchSize,
+			Duration maxDelay) {
+		return new ChatMessageWriteBehindServiceImpl(chatMessageRepository, new SnowflakeIdGenerator(1),
+				queueCapacity, batchSize, maxDelay, Duration.ofMillis(10));
+	}
+
+	private ChatMessage createMessage(String message) {
+		return ChatMessage.builder().chatroomId(1L).senderUsername("testusername").message(message).build();
+	}
+}
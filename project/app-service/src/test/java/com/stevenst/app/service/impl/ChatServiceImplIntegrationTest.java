@@ -0,0 +1,208 @@
+package com.stevenst.app.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.stevenst.app.payload.ChatroomParticipantPayload;
+import com.stevenst.app.payload.ChatroomPayload;
+import com.stevenst.app.repository.UserRepository;
+import com.stevenst.app.repository.chat.ChatMessageRepository;
+import com.stevenst.app.repository.chat.ChatroomParticipantRepository;
+import com.stevenst.app.repository.chat.ChatroomRepository;
+import com.stevenst.app.service.ChatService;
+import com.stevenst.lib.cache.UserIdentityCache;
+import com.stevenst.lib.model.User;
+import com.stevenst.lib.model.chat.ChatMessage;
+import com.stevenst.lib.model.chat.Chatroom;
+import com.stevenst.lib.model.chat.ChatroomParticipant;
+import com.stevenst.lib.model.chat.ChatroomType;
+
+import jakarta.persistence.EntityManagerFactory;
+import software.amazon.awssdk.services.s3.S3Client;
+
+@SpringBootTest(properties = "app.chat.participants-sample-size=" + ChatServiceImplIntegrationTest.SAMPLE_SIZE)
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ChatServiceImplIntegrationTest {
+	static final int SAMPLE_SIZE = 3;
+	private static final int NB_OF_MEMBERS = 6;
+	private static final int NB_OF_REGIONAL_CHATROOMS = 3;
+	private final List<User> members = new ArrayList<>();
+	private Chatroom regionalChatroom;
+
+	@Autowired
+	private ChatService chatService;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private UserIdentityCache userIdentityCache;
+	@Autowired
+	private ChatroomRepository chatroomRepository;
+	@Autowired
+	private ChatroomParticipantRepository chatroomParticipantRepository;
+	@Autowired
+	private ChatMessageRepository chatMessageRepository;
+
+	@MockBean
+	private S3Client s3Client;
+
+	@BeforeAll
+	void init() {
+		for (int i = 0; i < NB_OF_MEMBERS; i++) {
+			members.add(userRepository.save(User.builder()
+					.email("member_email" + i)
+					.password("member_password" + i)
+					.username("member_username" + i).build()));
+		}
+
+		for (int i = 0; i < NB_OF_REGIONAL_CHATROOMS; i++) {
+			Chatroom chatroom = chatroomRepository.save(Chatroom.builder()
+					.name("regional chatroom " + i)
+					.type(ChatroomType.REGIONAL).build());
+			for (User member : members) {
+				chatroomParticipantRepository.save(ChatroomParticipant.joining(chatroom, member));
+			}
+
+			if (regionalChatroom == null) {
+				regionalChatroom = chatroom;
+			}
+		}
+	}
+
+	@AfterAll
+	void tearDown() {
+		chatMessageRepository.deleteAll();
+		chatroomParticipantRepository.deleteAll();
+		chatroomRepository.deleteAll();
+		userRepository.deleteAll();
+		userIdentityCache.invalidateAll();
+	}
+
+	@Test
+	void getAllRegionalChatroomsOfUser_returnsTheCountAndTheOldestParticipantsOfEachChatroom() {
+		List<ChatroomPayload> chatrooms = chatService.getAllRegionalChatroomsOfUser(members.get(0).getUsername());
+
+		assertEquals(NB_OF_REGIONAL_CHATROOMS, chatrooms.size());
+		for (ChatroomPayload chatroom : chatrooms) {
+			assertEquals(NB_OF_MEMBERS, chatroom.getParticipantsCount());
+			assertEquals(List.of("member_username0", "member_username1", "member_username2"),
+					chatroom.getParticipantsUsernames());
+		}
+	}
+
+	@Test
+	void getAllRegionalChatroomsOfUser_usesTheSameNumberOfStatementsForAnyNumberOfChatrooms() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		chatService.getAllRegionalChatroomsOfUser(members.get(0).getUsername());
+
+		// the user, the chatrooms, the counts of the participants and their usernames
+		assertTrue(statistics.getPrepareStatementCount() <= 4,
+				"Expected at most 4 statements but got " + statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void insertMessages_updatesTheLastMessageAndTheUnreadCountOfTheChatroom() {
+		String longMessage = "a".repeat(Chatroom.LAST_MESSAGE_PREVIEW_LENGTH + 50);
+		chatMessageRepository.insertMessages(List.of(
+				createMessage(1L, "first message"),
+				createMessage(2L, "second message"),
+				createMessage(3L, longMessage)));
+		String username = members.get(0).getUsername();
+
+		ChatroomPayload chatroom = chatService.getAllRegionalChatroomsOfUser(username).get(0);
+
+		// the chatroom with the last message comes first
+		assertEquals(regionalChatroom.getId(), chatroom.getId());
+		assertEquals(3L, chatroom.getLastMessageId());
+		assertEquals(members.get(1).getUsername(), chatroom.getLastMessageSenderUsername());
+		assertEquals(longMessage.substring(0, Chatroom.LAST_MESSAGE_PREVIEW_LENGTH), chatroom.getLastMessagePreview());
+		assertEquals(3L, chatroom.getUnreadMessagesCount());
+
+		chatService.markChatroomAsRead(username, regionalChatroom.getId());
+		chatroom = chatService.getAllRegionalChatroomsOfUser(username).get(0);
+
+		assertEquals(0L, chatroom.getUnreadMessagesCount());
+		assertEquals(3L, chatroom.getLastReadMessageId());
+		// the messages of the sender are never unread for him
+		assertEquals(0L, chatService.getAllRegionalChatroomsOfUser(members.get(1).getUsername()).get(0)
+				.getUnreadMessagesCount());
+	}
+
+	@Test
+	void addUserToGroupChatroom_startsTheNewParticipantWithTheEarlierMessagesRead() {
+		String adminUsername = members.get(0).getUsername();
+		Long groupChatroomId = chatService.createGroupChatroom(adminUsername).getId();
+		chatMessageRepository.insertMessages(List.of(
+				createMessage(groupChatroomId, 10L, "before the new member"),
+				createMessage(groupChatroomId, 11L, "also before the new member")));
+
+		chatService.addUserToGroupChatroom(adminUsername, groupChatroomId, members.get(2).getUsername());
+		chatMessageRepository.insertMessages(List.of(createMessage(groupChatroomId, 12L, "after the new member")));
+
+		ChatroomPayload chatroom = chatService.getAllGroupChatroomsOfUser(members.get(2).getUsername()).get(0);
+		assertEquals(1L, chatroom.getUnreadMessagesCount());
+		assertEquals(11L, chatroom.getLastReadMessageId());
+	}
+
+	@Test
+	void insertMessages_dropsTheMessagesOfADeletedChatroom() {
+		String adminUsername = members.get(0).getUsername();
+		Long deletedChatroomId = chatService.createGroupChatroom(adminUsername).getId();
+		Long groupChatroomId = chatService.createGroupChatroom(adminUsername).getId();
+		// the last participant leaving deletes the chatroom
+		chatService.leaveChatroom(adminUsername, deletedChatroomId);
+
+		chatMessageRepository.insertMessages(List.of(
+				createMessage(deletedChatroomId, 20L, "sent before the chatroom was deleted"),
+				createMessage(groupChatroomId, 21L, "sent to an existing chatroom")));
+
+		assertTrue(chatMessageRepository.findById(20L).isEmpty());
+		assertTrue(chatMessageRepository.findById(21L).isPresent());
+	}
+
+	@Test
+	void getParticipantsOfChatroomAfterCursor_pagesThroughAllTheParticipants() {
+		List<ChatroomParticipantPayload> firstPage = chatService
+				.getParticipantsOfChatroomAfterCursor(regionalChatroom.getId(), null, 4);
+		List<ChatroomParticipantPayload> secondPage = chatService
+				.getParticipantsOfChatroomAfterCursor(regionalChatroom.getId(), firstPage.get(3).getId(), 4);
+
+		assertEquals(4, firstPage.size());
+		assertEquals(2, secondPage.size());
+		assertEquals("member_username0", firstPage.get(0).getUsername());
+		assertEquals("member_username5", secondPage.get(1).getUsername());
+	}
+
+	// ----------------------------------------
+
+	private ChatMessage createMessage(Long id, String message) {
+		return createMessage(regionalChatroom.getId(), id, message);
+	}
+
+	private ChatMessage createMessage(Long chatroomId, Long id, String message) {
+		return ChatMessage.builder()
+				.id(id)
+				.chatroomId(chatroomId)
+				.senderUsername(members.get(1).getUsername())
+				.message(message).build();
+	}
+}
@@ -0,0 +1,591 @@
+package com.stevenst.app.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMultipartHttpServletRequestBuilder;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import com.stevenst.app.model.Comment;
+import com.stevenst.app.model.Post;
+import com.stevenst.app.model.PostInteraction;
+import com.stevenst.app.model.PostMedia;
+import com.stevenst.app.model.TimelineEntry;
+import com.stevenst.app.repository.UserRepository;
+import com.stevenst.app.repository.post.CommentRepository;
+import com.stevenst.app.repository.post.PostInteractionRepository;
+import com.stevenst.app.repository.post.PostMediaRepository;
+import com.stevenst.app.repository.post.PostRepository;
+import com.stevenst.app.repository.post.TimelineEntryRepository;
+import com.stevenst.app.service.PostCountersReconciliationService;
+import com.stevenst.app.service.PostService;
+import com.stevenst.app.service.TimelineService;
+import com.stevenst.lib.cache.UserIdentityCache;
+import com.stevenst.lib.client.UserServiceClient;
+import com.stevenst.lib.exception.IgorServiceUnavailableException;
+import com.stevenst.lib.model.User;
+import com.stevenst.lib.util.SnowflakeIdGenerator;
+
+import jakarta.persistence.EntityManagerFactory;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PostServiceImplIntegrationTest {
+	private static final int NB_OF_POSTS = 20;
+	private User author;
+	private User viewer;
+	private User friend;
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private UserIdentityCache userIdentityCache;
+	@Autowired
+	private PostRepository postRepository;
+	@Autowired
+	private PostMediaRepository postMediaRepository;
+	@Autowired
+	private PostInteractionRepository postInteractionRepository;
+	@Autowired
+	private CommentRepository commentRepository;
+	@Autowired
+	private TimelineEntryRepository timelineEntryRepository;
+	@Autowired
+	private PostCountersReconciliationService postCountersReconciliationService;
+	@Autowired
+	private TimelineService timelineService;
+	@Autowired
+	private PostService postService;
+	@Autowired
+	private SnowflakeIdGenerator postIdGenerator;
+
+	@MockBean
+	private S3Client s3Client;
+	@MockBean
+	private UserServiceClient userServiceClient;
+
+	@BeforeAll
+	void init() {
+		author = userRepository.save(User.builder()
+				.email("author_email123")
+				.password("author_password123")
+				.username("author_username123").build());
+		viewer = userRepository.save(User.builder()
+				.email("viewer_email123")
+				.password("viewer_password123")
+				.username("viewer_username123").build());
+		friend = userRepository.save(User.builder()
+				.email("friend_email123")
+				.password("friend_password123")
+				.username("friend_username123").build());
+
+		for (int i = 0; i < NB_OF_POSTS; i++) {
+			insertPostWithMediaInteractionsAndComments("test title " + i);
+		}
+		// the rows above were inserted directly so the counters of the posts have to be recounted
+		postCountersReconciliationService.reconcileCountersOfAllPosts();
+	}
+
+	// the viewer and the friend are friends, the author has no friends
+	@BeforeEach
+	void stubFriends() {
+		when(userServiceClient.getAllFriendsUsernamesUncached(author.getUsername()))
+				.thenAnswer(invocation -> new ArrayList<>());
+		when(userServiceClient.getAllFriendsUsernamesUncached(viewer.getUsername()))
+				.thenAnswer(invocation -> new ArrayList<>(List.of(friend.getUsername())));
+		when(userServiceClient.getAllFriendsUsernamesUncached(friend.getUsername()))
+				.thenAnswer(invocation -> new ArrayList<>(List.of(viewer.getUsername())));
+		when(userServiceClient.getAllFriendsUsernames(viewer.getUsername()))
+				.thenAnswer(invocation -> new ArrayList<>(List.of(friend.getUsername())));
+	}
+
+	@AfterAll
+	void tearDown() {
+		timelineEntryRepository.deleteAll();
+		commentRepository.deleteAll();
+		postInteractionRepository.deleteAll();
+		postMediaRepository.deleteAll();
+		postRepository.deleteAll();
+		userRepository.deleteAll();
+		userIdentityCache.invalidateAll();
+	}
+
+	@Test
+	void getNextPostsOfAuthor_queryCountDoesNotGrowWithPageSize() throws Exception {
+		long statementsForSmallPage = countStatementsOfFeedRequest(5);
+		long statementsForLargePage = countStatementsOfFeedRequest(NB_OF_POSTS);
+
+		assertEquals(statementsForSmallPage, statementsForLargePage);
+	}
+
+	@Test
+	void getNextPostsOfAuthor_returnsTheAggregatedDataOfEachPost() throws Exception {
+		MvcResult result = performFeedRequest(NB_OF_POSTS);
+		DocumentContext responseJson = JsonPath.parse(result.getResponse().getContentAsString());
+
+		List<Integer> upvoteScores = responseJson.read("$[*].upvoteScore");
+		List<Integer> nbOfComments = responseJson.read("$[*].nbOfComments");
+		List<Boolean> upvoted = responseJson.read("$[*].upvoted");
+		List<Boolean> saved = responseJson.read("$[*].saved");
+
+		assertEquals(NB_OF_POSTS, upvoteScores.size());
+		assertTrue(upvoteScores.stream().allMatch(score -> score == 0));
+		assertTrue(nbOfComments.stream().allMatch(count -> count == 2));
+		assertTrue(upvoted.stream().allMatch(Boolean::booleanValue));
+		assertTrue(saved.stream().noneMatch(Boolean::booleanValue));
+	}
+
+	@Test
+	void getNextPostsOfAuthor_pagesThroughEveryPostWithTheCursorOfTheLastPost() throws Exception {
+		List<Long> pagedPostIds = new ArrayList<>();
+		String cursor = null;
+
+		do {
+			DocumentContext responseJson = JsonPath.parse(performFeedRequest(3, cursor).getResponse()
+					.getContentAsString());
+			List<Long> postIds = responseJson.read("$[*].id");
+			List<String> cursors = responseJson.read("$[*].cursor");
+
+			pagedPostIds.addAll(postIds);
+			cursor = cursors.isEmpty() ? null : cursors.get(cursors.size() - 1);
+		} while (cursor != null);
+
+		List<Long> expectedPostIds = pagedPostIds.stream().distinct().sorted(Comparator.reverseOrder()).toList();
+		assertEquals(NB_OF_POSTS, pagedPostIds.size());
+		assertEquals(expectedPostIds, pagedPostIds);
+	}
+
+	@Test
+	void votesAndComments_updateTheCountersOfThePost() throws Exception {
+		Post post = postRepository.save(newPost().author(viewer).title("counted title").build());
+
+		mockMvc.perform(put("/api/post/upvote")
+				.param("username", author.getUsername())
+				.param("postId", post.getId().toString()))
+				.andExpect(status().isOk());
+		mockMvc.perform(post("/api/post/addComment")
+				.param("username", author.getUsername())
+				.param("content", "counted comment")
+				.param("postId", post.getId().toString()))
+				.andExpect(status().isOk());
+
+		Post updatedPost = postRepository.findById(post.getId()).orElseThrow();
+		assertEquals(1, updatedPost.getUpvoteCount());
+		assertEquals(0, updatedPost.getDownvoteCount());
+		assertEquals(1, updatedPost.getCommentCount());
+
+		// switching the upvote to a downvote moves the vote from one counter to the other
+		mockMvc.perform(put("/api/post/downvote")
+				.param("username", author.getUsername())
+				.param("postId", post.getId().toString()))
+				.andExpect(status().isOk());
+
+		updatedPost = postRepository.findById(post.getId()).orElseThrow();
+		assertEquals(0, updatedPost.getUpvoteCount());
+		assertEquals(1, updatedPost.getDownvoteCount());
+	}
+
+	@Test
+	void backfillCountersOfUncountedPosts_countsOnlyThePostsWithoutCounters() {
+		insertPostWithMediaInteractionsAndComments(viewer, "uncounted title");
+		Post countedPost = postRepository.save(newPost().author(viewer).title("counted title").upvoteCount(3)
+				.build());
+
+		postCountersReconciliationService.backfillCountersOfUncountedPosts();
+
+		Post uncountedPost = findPostByTitle("uncounted title");
+		assertEquals(1, uncountedPost.getUpvoteCount());
+		assertEquals(1, uncountedPost.getDownvoteCount());
+		assertEquals(2, uncountedPost.getCommentCount());
+		// left for the reconciliation job
+		assertEquals(3, postRepository.findById(countedPost.getId()).orElseThrow().getUpvoteCount());
+		assertEquals(0, postCountersReconciliationService.backfillCountersOfUncountedPosts());
+	}
+
+	@Test
+	void getNextUpvotedByUser_pagesThePostsByTheTimeOfTheirUpvote() throws Exception {
+		// the upvotes inserted without their time get the creation time of their post
+		postCountersReconciliationService.backfillTimesOfUntimedInteractions();
+		Post olderPost = postRepository.save(newPost().author(viewer).title("older upvoted title").build());
+		Post newerPost = postRepository.save(newPost().author(viewer).title("newer upvoted title").build());
+		upvotePost(viewer, newerPost);
+		upvotePost(viewer, olderPost);
+
+		List<Long> pagedPostIds = new ArrayList<>();
+		String cursor = null;
+		do {
+			DocumentContext responseJson = JsonPath.parse(mockMvc.perform(get("/api/post/getNextUpvotedByUser")
+					.param("username", viewer.getUsername())
+					.param("cursor", cursor)
+					.param("limit", "3"))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getContentAsString());
+			List<Long> postIds = responseJson.read("$[*].id");
+			List<String> cursors = responseJson.read("$[*].cursor");
+
+			pagedPostIds.addAll(postIds);
+			cursor = cursors.isEmpty() ? null : cursors.get(cursors.size() - 1);
+		} while (cursor != null);
+
+		long nbOfUpvotes = postInteractionRepository.findAll().stream()
+				.filter(inter -> inter.getUser().getId().equals(viewer.getId()) && inter.isUpvoted()).count();
+		assertEquals(nbOfUpvotes, pagedPostIds.size());
+		assertEquals(nbOfUpvotes, pagedPostIds.stream().distinct().count());
+		// the last upvote first, even of an older post
+		assertEquals(List.of(olderPost.getId(), newerPost.getId()), pagedPostIds.subList(0, 2));
+	}
+
+	@Test
+	void getNextPostsOfFriends_readsTheFannedOutPostsFromTheTimeline() throws Exception {
+		Post olderPost = insertFannedOutPost("fanned out title 1");
+		Post newerPost = insertFannedOutPost("fanned out title 2");
+
+		// a full page of fanned out posts newer than every other post doesn't read the posts of the friends
+		MvcResult result = mockMvc.perform(get("/api/post/getNextPostsOfFriends")
+				.param("username", viewer.getUsername())
+				.param("limit", "2"))
+				.andExpect(status().isOk())
+				.andReturn();
+		List<Long> postIds = JsonPath.parse(result.getResponse().getContentAsString()).read("$[*].id");
+
+		assertEquals(List.of(newerPost.getId(), olderPost.getId()), postIds);
+	}
+
+	@Test
+	void getNextPostsOfFriends_readsOnlyTheTimeline() throws Exception {
+		Post fannedOutPost = insertFannedOutPost("fanned out title 3");
+		postRepository.save(newPost().author(friend).title("not fanned out yet title").build());
+
+		MvcResult result = mockMvc.perform(get("/api/post/getNextPostsOfFriends")
+				.param("username", viewer.getUsername())
+				.param("limit", "1"))
+				.andExpect(status().isOk())
+				.andReturn();
+		List<Long> postIds = JsonPath.parse(result.getResponse().getContentAsString()).read("$[*].id");
+
+		assertEquals(List.of(fannedOutPost.getId()), postIds);
+	}
+
+	@Test
+	void getNextPostsOfFriends_leavesOutThePostsOfAFormerFriend() throws Exception {
+		Post postOfFormerFriend = postRepository.save(newPost().author(friend).title("former friend title").build());
+		timelineEntryRepository.insertPostIntoTimelinesOfViewers(postOfFormerFriend.getId(),
+				List.of(viewer.getUsername()));
+		postRepository.markAsFannedOut(postOfFormerFriend.getId());
+		// the unfriend wasn't applied to the timeline yet
+		when(userServiceClient.getAllFriendsUsernames(viewer.getUsername())).thenAnswer(invocation -> new ArrayList<>());
+
+		MvcResult result = mockMvc.perform(get("/api/post/getNextPostsOfFriends")
+				.param("username", viewer.getUsername())
+				.param("limit", "5"))
+				.andExpect(status().isOk())
+				.andReturn();
+		List<Long> postIds = JsonPath.parse(result.getResponse().getContentAsString()).read("$[*].id");
+
+		assertFalse(postIds.contains(postOfFormerFriend.getId()));
+	}
+
+	@Test
+	void fanOutPost_writesThePostIntoTheTimelinesOfEveryFriendInBatches() {
+		User popularAuthor = userRepository.save(User.builder()
+				.email("popular_author_email123")
+				.password("popular_author_password123")
+				.username("popular_author_username123").build());
+		List<String> friendsOfPopularAuthor = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			friendsOfPopularAuthor.add(userRepository.save(User.builder()
+					.email("popular_friend_email" + i)
+					.password("popular_friend_password" + i)
+					.username("popular_friend_username" + i).build()).getUsername());
+		}
+		when(userServiceClient.getAllFriendsUsernamesUncached(popularAuthor.getUsername()))
+				.thenAnswer(invocation -> new ArrayList<>(friendsOfPopularAuthor));
+		Post post = postRepository.save(newPost().author(popularAuthor).title("popular title").build());
+
+		// over the batch size of the test profile, and a second time as a retry would
+		timelineService.fanOutPost(post.getId(), popularAuthor.getUsername());
+		timelineService.fanOutPost(post.getId(), popularAuthor.getUsername());
+
+		// the author's entry is inserted with the post, not by the fan-out
+		assertEquals(5, timelineEntryRepository.findAll().stream()
+				.filter(entry -> entry.getPost().getId().equals(post.getId()))
+				.count());
+		assertTrue(postRepository.findById(post.getId()).orElseThrow().isFannedOut());
+	}
+
+	@Test
+	void fanOutNotFannedOutPosts_writesThePostsIntoTheTimelinesOfTheFriends() {
+		List<Long> postIdsOfFriend = List.of(
+				postRepository.save(newPost().author(friend).title("older backfilled title").build()).getId(),
+				postRepository.save(newPost().author(friend).title("newer backfilled title").build()).getId());
+
+		timelineService.fanOutNotFannedOutPosts();
+
+		List<Long> postIdsInTimelineOfViewer = timelineEntryRepository.findAll().stream()
+				.filter(entry -> entry.getViewerId().equals(viewer.getId()))
+				.map(TimelineEntry::getPost)
+				.map(Post::getId)
+				.toList();
+		assertTrue(postIdsInTimelineOfViewer.containsAll(postIdsOfFriend));
+		assertTrue(postRepository.findAllById(postIdsOfFriend).stream().allMatch(Post::isFannedOut));
+		assertEquals(0, timelineService.fanOutNotFannedOutPosts());
+	}
+
+	@Test
+	void addAndRemoveFriendship_writeAndRemoveThePostsOfTheFriendInTheTimeline() throws Exception {
+		User newFriend = userRepository.save(User.builder()
+				.email("new_friend_email123")
+				.password("new_friend_password123")
+				.username("new_friend_username123").build());
+		Post post = postRepository.save(newPost().author(newFriend).title("post of new friend title").build());
+		timelineEntryRepository.insertPostIntoTimelinesOfViewers(post.getId(), List.of(newFriend.getUsername()));
+		postRepository.markAsFannedOut(post.getId());
+
+		mockMvc.perform(post("/api/timeline/addFriendship")
+				.param("user1", newFriend.getUsername())
+				.param("user2", viewer.getUsername()))
+				.andExpect(status().isOk());
+		assertTrue(isInTimelineOf(viewer, post));
+
+		mockMvc.perform(post("/api/timeline/removeFriendship")
+				.param("user1", newFriend.getUsername())
+				.param("user2", viewer.getUsername()))
+				.andExpect(status().isOk());
+		assertFalse(isInTimelineOf(viewer, post));
+		assertTrue(isInTimelineOf(newFriend, post));
+	}
+
+	@Test
+	void addFriendship_writesThePostsOfTheFriendThatAreNotFannedOutYet() throws Exception {
+		User newFriend = userRepository.save(User.builder()
+				.email("recent_friend_email123")
+				.password("recent_friend_password123")
+				.username("recent_friend_username123").build());
+		// its fan-out read the friends before the friendship
+		Post post = postRepository.save(newPost().author(newFriend).title("being fanned out title").build());
+
+		mockMvc.perform(post("/api/timeline/addFriendship")
+				.param("user1", newFriend.getUsername())
+				.param("user2", viewer.getUsername()))
+				.andExpect(status().isOk());
+		postRepository.markAsFannedOut(post.getId());
+
+		assertTrue(isInTimelineOf(viewer, post));
+	}
+
+	@Test
+	void createPost_insertsTheMediaOfThePostInOrder() throws Exception {
+		when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+				.thenReturn(PutObjectResponse.builder().build());
+
+		performCreatePostRequest("uploaded title", "first.jpg", "second.jpg", "third.jpg");
+
+		Post post = findPostByTitle("uploaded title");
+		assertEquals(List.of("first.jpg", "second.jpg", "third.jpg"),
+				postMediaRepository.findMediaNamesByPostIds(List.of(post.getId())).stream()
+						.map(PostMediaRepository.MediaNameOfPost::getMediaName).toList());
+		// their variants were uploaded with them
+		assertTrue(postMediaRepository.findMediaNamesByPostIds(List.of(post.getId())).stream()
+				.allMatch(PostMediaRepository.MediaNameOfPost::isVariantsStored));
+	}
+
+	@Test
+	void createPost_fansOutThePostOnceItIsCommitted() throws Exception {
+		performCreatePostRequest("fanned out after commit title");
+
+		Post post = findPostByTitle("fanned out after commit title");
+		// the fan-out runs in the background
+		for (int i = 0; i < 50 && !postRepository.findById(post.getId()).orElseThrow().isFannedOut(); i++) {
+			Thread.sleep(100);
+		}
+
+		assertTrue(postRepository.findById(post.getId()).orElseThrow().isFannedOut());
+		assertTrue(isInTimelineOf(friend, post));
+	}
+
+	@Test
+	void createPost_showsThePostToItsAuthorWithoutWaitingForTheFanOut() throws Exception {
+		when(userServiceClient.getAllFriendsUsernamesUncached(viewer.getUsername()))
+				.thenThrow(new IgorServiceUnavailableException("user service down"));
+
+		performCreatePostRequest("not fanned out title");
+
+		Post post = findPostByTitle("not fanned out title");
+		assertTrue(isInTimelineOf(viewer, post));
+		assertFalse(isInTimelineOf(friend, post));
+	}
+
+	@Test
+	void createPost_withAFailedUpload_removesTheUploadedMediaAndDoesNotCreateThePost() throws Exception {
+		when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+				.thenReturn(PutObjectResponse.builder().build());
+		when(s3Client.putObject(argThat((PutObjectRequest request) -> request.key().endsWith("failed.jpg")),
+				any(RequestBody.class))).thenThrow(S3Exception.builder().message("upload failed").build());
+
+		mockMvc.perform(createPostRequest("not uploaded title", "uploaded.jpg", "failed.jpg"))
+				.andExpect(status().isInternalServerError());
+
+		assertTrue(postRepository.findAll().stream().noneMatch(post -> post.getTitle().equals("not uploaded title")));
+		verify(s3Client).deleteObject(argThat((DeleteObjectRequest request) -> request.key().endsWith("uploaded.jpg")));
+		verify(s3Client, never())
+				.deleteObject(argThat((DeleteObjectRequest request) -> request.key().endsWith("failed.jpg")));
+	}
+
+	@Test
+	void createPost_withAFailedInsertOfThePost_removesTheUploadedMedia() {
+		when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+				.thenReturn(PutObjectResponse.builder().build());
+		// longer than the title column
+		String tooLongTitle = "t".repeat(300);
+		List<MultipartFile> files = List.of(new MockMultipartFile("files", "inserted.jpg", "image/jpeg",
+				"content of inserted.jpg".getBytes(StandardCharsets.UTF_8)));
+
+		assertThrows(RuntimeException.class,
+				() -> postService.createPost(viewer.getUsername(), tooLongTitle, null, files));
+
+		assertTrue(postRepository.findAll().stream().noneMatch(post -> post.getTitle().equals(tooLongTitle)));
+		verify(s3Client).putObject(argThat((PutObjectRequest request) -> request.key().endsWith("/inserted.jpg")),
+				any(RequestBody.class));
+		verify(s3Client).deleteObject(argThat((DeleteObjectRequest request) -> request.key().endsWith("/inserted.jpg")));
+	}
+
+	// ----------------------------------------
+
+	private void performCreatePostRequest(String title, String... filenames) throws Exception {
+		mockMvc.perform(createPostRequest(title, filenames)).andExpect(status().isOk());
+	}
+
+	private MockHttpServletRequestBuilder createPostRequest(String title, String... filenames) {
+		MockMultipartHttpServletRequestBuilder request = multipart("/api/post/create");
+		for (String filename : filenames) {
+			request.file(new MockMultipartFile("files", filename, "image/jpeg",
+					("content of " + filename).getBytes(StandardCharsets.UTF_8)));
+		}
+
+		return request
+				.param("authorUsername", viewer.getUsername())
+				.param("title", title);
+	}
+
+	// the ids of the posts are assigned by the app
+	private Post.PostBuilder newPost() {
+		return Post.builder().id(postIdGenerator.nextId());
+	}
+
+	private Post findPostByTitle(String title) {
+		return postRepository.findAll().stream().filter(post -> post.getTitle().equals(title)).findFirst()
+				.orElseThrow();
+	}
+
+	private boolean isInTimelineOf(User viewer, Post post) {
+		return timelineEntryRepository.findAll().stream()
+				.anyMatch(entry -> entry.getViewerId().equals(viewer.getId())
+						&& entry.getPost().getId().equals(post.getId()));
+	}
+
+	private Post insertFannedOutPost(String title) {
+		Post post = postRepository.save(newPost().author(viewer).title(title).build());
+
+		timelineEntryRepository.insertPostIntoTimelinesOfViewers(post.getId(),
+				List.of(author.getUsername(), viewer.getUsername()));
+		postRepository.markAsFannedOut(post.getId());
+
+		return post;
+	}
+
+	private long countStatementsOfFeedRequest(int limit) throws Exception {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		performFeedRequest(limit);
+
+		return statistics.getPrepareStatementCount();
+	}
+
+	private MvcResult performFeedRequest(int limit) throws Exception {
+		return performFeedRequest(limit, null);
+	}
+
+	private MvcResult performFeedRequest(int limit, String cursor) throws Exception {
+		return mockMvc.perform(get("/api/post/getNextPostsOfAuthor")
+				.param("authorUsername", author.getUsername())
+				.param("username", viewer.getUsername())
+				.param("cursor", cursor)
+				.param("limit", String.valueOf(limit)))
+				.andExpect(status().isOk())
+				.andReturn();
+	}
+
+	private void upvotePost(User voter, Post post) throws Exception {
+		mockMvc.perform(put("/api/post/upvote")
+				.param("username", voter.getUsername())
+				.param("postId", post.getId().toString()))
+				.andExpect(status().isOk());
+	}
+
+	private void insertPostWithMediaInteractionsAndComments(String title) {
+		insertPostWithMediaInteractionsAndComments(author, title);
+	}
+
+	private void insertPostWithMediaInteractionsAndComments(User postAuthor, String title) {
+		Post post = postRepository.save(newPost().author(postAuthor).title(title).build());
+
+		postMediaRepository.save(PostMedia.builder().post(post).mediaIndex((byte) 0).mediaName("first.jpg").build());
+		postMediaRepository.save(PostMedia.builder().post(post).mediaIndex((byte) 1).mediaName("second.jpg").build());
+
+		// one upvote from the viewer and one downvote from the author
+		postInteractionRepository.save(PostInteraction.builder().user(viewer).post(post).upvoted(true).seen(true).build());
+		postInteractionRepository.save(PostInteraction.builder().user(author).post(post).downvoted(true).build());
+
+		commentRepository.save(Comment.builder().author(viewer).post(post).content("first comment").build());
+		commentRepository.save(Comment.builder().author(author).post(post).content("second comment").build());
+	}
+}
@@ -0,0 +1,63 @@
+package com.stevenst.app.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class CollectionUtilTest {
+	private static final int SIZE = 10_000;
+
+	@Test
+	void difference_keepsTheOrderOfTheElementsNotExcluded() {
+		List<String> friends = List.of("friend3", "friend1", "friend4", "friend2");
+
+		assertEquals(List.of("friend3", "friend2"), CollectionUtil.difference(friends, List.of("friend1", "friend4")));
+	}
+
+	@Test
+	void difference_withNothingExcluded_returnsTheWholeList() {
+		List<String> friends = List.of("friend1", "friend2");
+
+		assertEquals(friends, CollectionUtil.difference(friends, List.of()));
+	}
+
+	// 10k friends against 10k participants (half of them friends): a nested scan compares the usernames
+	// about 75 million times, the hashed difference compares each element a few times at most
+	@Test
+	void difference_ofTenThousandByTenThousand_comparesTheElementsLinearly() {
+		AtomicLong comparisons = new AtomicLong();
+		List<CountedUsername> friends = IntStream.range(0, SIZE)
+				.mapToObj(i -> new CountedUsername("user" + i, comparisons))
+				.toList();
+		List<CountedUsername> participants = IntStream.range(SIZE / 2, SIZE + SIZE / 2)
+				.mapToObj(i -> new CountedUsername("user" + i, comparisons))
+				.toList();
+
+		List<CountedUsername> friendsNotParticipants = CollectionUtil.difference(friends, participants);
+
+		assertEquals(SIZE / 2, friendsNotParticipants.size());
+		assertEquals("user0", friendsNotParticipants.get(0).username());
+		assertTrue(comparisons.get() <= 4L * (friends.size() + participants.size()),
+				"Expected a linear number of comparisons but got " + comparisons.get());
+	}
+
+	// ----------------------------------------
+
+	private record CountedUsername(String username, AtomicLong comparisons) {
+		@Override
+		public boolean equals(Object other) {
+			comparisons.incrementAndGet();
+			return other instanceof CountedUsername countedUsername && username.equals(countedUsername.username);
+		}
+
+		@Override
+		public int hashCode() {
+			return username.hashCode();
+		}
+	}
+}
@@ -40,6 +40,11 @@ export class ChatComponent {
 
   messageToSend: string = '';
 
+  // the server counts the messages once they are inserted (after up to the max delay of its write-behind queue),
+  // so the open chatroom is marked as read a moment after the last message received
+  markAsReadDelayMs: number = 1000;
+  markAsReadTimeout: ReturnType<typeof setTimeout> | null = null;
+
   constructor(private stompWebsocketService: StompWebsocketService, private chatService: ChatService, private sanitizer: DomSanitizer) {
   }
 
@@ -209,9 +214,62 @@ export class ChatComponent {
     this.isChatroomOpened = true;
     this.currentChatroom = chatroom;
     this.loadMessagesOfChatroomId(chatroom.id, null);
+    this.markChatroomAsRead(chatroom);
+  }
+
+  markChatroomAsRead(chatroom: ChatroomPayload): void {
+    if (chatroom.unreadMessagesCount === 0) {
+      return;
+    }
+
+    this.sendMarkChatroomAsRead(chatroom);
+  }
+
+  // the messages received while the window is focused are read, the other ones once it is focused again
+  scheduleMarkCurrentChatroomAsRead(): void {
+    const chatroom = this.currentChatroom;
+    if (!chatroom) {
+      return;
+    }
+    if (!document.hasFocus()) {
+      chatroom.unreadMessagesCount++;
+      return;
+    }
+
+    if (this.markAsReadTimeout) {
+      clearTimeout(this.markAsReadTimeout);
+    }
+    this.markAsReadTimeout = setTimeout(() => {
+      this.markAsReadTimeout = null;
+      if (this.currentChatroom?.id === chatroom.id) {
+        this.sendMarkChatroomAsRead(chatroom);
+      }
+    }, this.markAsReadDelayMs);
+  }
+
+  @HostListener('window:focus')
+  onWindowFocus(): void {
+    if (this.currentChatroom && this.currentChatroom.unreadMessagesCount > 0) {
+      this.scheduleMarkCurrentChatroomAsRead();
+    }
+  }
+
+  sendMarkChatroomAsRead(chatroom: ChatroomPayload): void {
+    this.chatService.markChatroomAsRead(this.loggedUserUsername, chatroom.id).subscribe({
+      next: () => {
+        chatroom.unreadMessagesCount = 0;
+      },
+      error: (error) => {
+        console.error(error);
+      }
+    });
   }
 
   closeChatroom(): void {
+    if (this.markAsReadTimeout) {
+      clearTimeout(this.markAsReadTimeout);
+      this.markAsReadTimeout = null;
+    }
     this.isChatroomOpened = false;
     this.leftSidebarState.isLeftSidebarOpen = false;
     this.currentChatroom = null;
@@ -283,6 +341,11 @@ export class ChatComponent {
 
   handleReceivedMessage(chatMessage: ChatMessage): void {
     this.receivedMessages.push(chatMessage);
+
+    // the messages sent by the user are counted as read by the server
+    if (chatMessage.senderUsername !== this.loggedUserUsername) {
+      this.scheduleMarkCurrentChatroomAsRead();
+    }
   }
 
   sendMessage(chatroomId: number | undefined): void {
@@ -82,7 +82,7 @@ export class NavbarComponent implements OnInit {
 
   search(): void {
     if (this.searchInput.length >= 3) {
-      this.miscService.searchForUsersByInput(this.searchInput).subscribe({
+      this.miscService.searchForUsersByInput(this.searchInput, this.loggedUser?.username).subscribe({
         next: (response) => {
           this.searchResults = response;
           
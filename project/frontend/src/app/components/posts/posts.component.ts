@@ -47,7 +47,7 @@ export class PostsComponent implements OnChanges {
   }
 
   getPostsOfUserOnScreen() {
-    this.postService.getNextPosts(this.usernameOfUserOnScreen!, this.usernameOfLoggedUser!, this.posts[this.posts.length - 1]?.id, this.isFeed).subscribe({
+    this.postService.getNextPosts(this.usernameOfUserOnScreen!, this.usernameOfLoggedUser!, this.posts[this.posts.length - 1]?.cursor, this.isFeed).subscribe({
       next: (posts) => {
         this.concatPostsAndLog(posts);
       },
@@ -58,7 +58,7 @@ export class PostsComponent implements OnChanges {
   }
 
   getUpvotedPostsByUserOnScreen() {
-    this.postService.getNextUpvotedPostsByUser(this.usernameOfLoggedUser!, this.posts[this.posts.length - 1]?.id).subscribe({
+    this.postService.getNextUpvotedPostsByUser(this.usernameOfLoggedUser!, this.posts[this.posts.length - 1]?.cursor).subscribe({
       next: (posts) => {
         this.concatPostsAndLog(posts);
       },
@@ -69,7 +69,7 @@ export class PostsComponent implements OnChanges {
   }
 
   getDownvotedPostsByUserOnScreen() {
-    this.postService.getNextDownvotedPostsByUser(this.usernameOfLoggedUser!, this.posts[this.posts.length - 1]?.id).subscribe({
+    this.postService.getNextDownvotedPostsByUser(this.usernameOfLoggedUser!, this.posts[this.posts.length - 1]?.cursor).subscribe({
       next: (posts) => {
         this.concatPostsAndLog(posts);
       },
@@ -80,7 +80,7 @@ export class PostsComponent implements OnChanges {
   }
 
   getSavedPostsByUserOnScreen() {
-    this.postService.getNextSavedPostsOfUser(this.usernameOfLoggedUser!, this.posts[this.posts.length - 1]?.id).subscribe({
+    this.postService.getNextSavedPostsOfUser(this.usernameOfLoggedUser!, this.posts[this.posts.length - 1]?.cursor).subscribe({
       next: (posts) => {
         this.concatPostsAndLog(posts);
       },
@@ -166,7 +166,7 @@ export class PostsComponent implements OnChanges {
   }
 
   getNextCommentsOfPost(postIndex: number) {
-    this.postService.getNextCommentsOfPost(this.posts[postIndex].id, this.comments[this.comments.length - 1]?.id).subscribe({
+    this.postService.getNextCommentsOfPost(this.posts[postIndex].id, this.comments[this.comments.length - 1]?.cursor).subscribe({
       next: (comments) => {
         this.comments = this.comments.concat(comments);
       },
@@ -259,7 +259,7 @@ export class ProfileComponent {
 
   getNextCommentsOfUser() {
     if (this.usernameOfUserOnScreen) {
-      this.postService.getNextCommentsOfUser(this.usernameOfUserOnScreen, this.comments[this.comments.length - 1]?.id).subscribe({
+      this.postService.getNextCommentsOfUser(this.usernameOfUserOnScreen, this.comments[this.comments.length - 1]?.cursor).subscribe({
         next: (comments) => {
           this.comments = this.comments.concat(comments);
 
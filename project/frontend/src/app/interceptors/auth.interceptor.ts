@@ -5,7 +5,7 @@ import {
   HttpEvent,
   HttpInterceptor
 } from '@angular/common/http';
-import { Observable } from 'rxjs';
+import { Observable, switchMap } from 'rxjs';
 import { AuthService } from '../services/auth.service';
 
 @Injectable()
@@ -14,13 +14,17 @@ export class AuthInterceptor implements HttpInterceptor {
   constructor(private authService: AuthService) { }
 
   intercept(req: HttpRequest<any>, next: HttpHandler): Observable<HttpEvent<any>> {
-    const authToken = this.authService.getToken();
-    if (authToken) {
-      const authReq = req.clone({ headers: req.headers.set('Authorization', `Bearer ${authToken}`) });
-      return next.handle(authReq);
-    } else {
+    // the auth endpoints set their own headers (and the refresh call can't wait for itself)
+    if (req.url.includes('/api/auth/') || !this.authService.getToken()) {
       return next.handle(req);
     }
+
+    return this.authService.getValidToken().pipe(
+      switchMap(authToken => {
+        const authReq = req.clone({ headers: req.headers.set('Authorization', `Bearer ${authToken}`) });
+        return next.handle(authReq);
+      })
+    );
   }
 
 }
@@ -11,6 +11,7 @@ export interface PostPayload {
 	title: string;
 	description: string;
 	createdAt: Date;
+	cursor: string;
 	mediaLinks: string[];
 	upvoteScore: number;
 	nbOfComments: number;
@@ -26,6 +27,7 @@ export interface CommentPayload {
 	postId: number;
 	content: string;
 	createdAt: Date;
+	cursor: string;
 }
 
 export interface CommentDetachedPayload {
@@ -33,6 +35,7 @@ export interface CommentDetachedPayload {
 	postTitle: string;
 	content: string;
 	createdAt: Date;
+	cursor: string;
 }
 
 export interface NotificationFPayload {
@@ -63,7 +66,19 @@ export interface ChatroomPayload {
 	type: ChatroomType,
 	adminUsername: string,
 	lastMessageTime: Date,
-	participantsUsernames: string[]
+	lastMessageId: number | null,
+	lastMessageSenderUsername: string | null,
+	lastMessagePreview: string | null,
+	lastReadMessageId: number | null,
+	unreadMessagesCount: number,
+	participantsUsernames: string[],
+	participantsCount: number
+}
+
+export interface ChatroomParticipantPayload {
+	id: number,
+	username: string,
+	addedAt: Date
 }
 
 export enum ChatroomType {
@@ -75,5 +90,6 @@ export enum ChatroomType {
 export interface PublicUserPayload {
 	id: number,
 	username: string,
-	pfpLink: string
+	pfpLink: string,
+	relationshipStatus?: 'SELF' | 'FRIEND' | 'FRIEND_REQUEST_RECEIVED' | 'FRIEND_REQUEST_SENT' | 'NONE'
 }
\ No newline at end of file
@@ -1,6 +1,6 @@
 import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
-import { Observable, catchError, tap, throwError } from 'rxjs';
+import { Observable, catchError, finalize, firstValueFrom, from, map, of, shareReplay, tap, throwError } from 'rxjs';
 import { jwtDecode } from 'jwt-decode';
 
 @Injectable({
@@ -10,6 +10,10 @@ export class AuthService {
   private apiUrl = 'http://localhost:8081/api/auth';
   private token: string;
   private email: string;
+  // a single refresh at a time, shared by the requests that find the token expired
+  private refreshing$: Observable<string> | null = null;
+  // held by the tab that refreshes the tokens (they are shared by the tabs, in the local storage)
+  private static readonly REFRESH_LOCK_NAME = 'auth-token-refresh';
 
   constructor(private http: HttpClient) {
     this.token = this.getToken() ?? '';
@@ -17,11 +21,10 @@ export class AuthService {
   }
 
   login(credentials: { email: string, password: string }): Observable<any> {
-    return this.http.post<{ token: string }>(`${this.apiUrl}/login`, credentials)
+    return this.http.post<{ token: string, refreshToken: string }>(`${this.apiUrl}/login`, credentials)
       .pipe(
         tap(response => {
-          this.token = response.token;
-          localStorage.setItem('token', this.token);
+          this.storeTokens(response);
           localStorage.setItem('email', credentials.email);
         }),
         catchError(error => {
@@ -33,11 +36,10 @@ export class AuthService {
   }
 
   register(credentials: { email: string, password: string, username: string }): Observable<any> {
-    return this.http.post<{ token: string }>(`${this.apiUrl}/register`, credentials)
+    return this.http.post<{ token: string, refreshToken: string }>(`${this.apiUrl}/register`, credentials)
       .pipe(
         tap(response => {
-          this.token = response.token;
-          localStorage.setItem('token', this.token);
+          this.storeTokens(response);
           localStorage.setItem('email', credentials.email);
           localStorage.setItem('username', credentials.username);
         }),
@@ -53,18 +55,56 @@ export class AuthService {
     return localStorage.getItem('token') ?? '';
   }
 
+  getRefreshToken(): string {
+    return localStorage.getItem('refreshToken') ?? '';
+  }
+
   getEmail(): string {
     return localStorage.getItem('email') ?? '';
   }
 
+  // the access token is short lived, an expired one is swapped for a new one with the refresh token
+  getValidToken(): Observable<string> {
+    // another tab may have refreshed the tokens meanwhile
+    this.token = this.getToken();
+    if (this.isTokenNotExpired() || !this.getRefreshToken()) {
+      return of(this.token);
+    }
+
+    if (!this.refreshing$) {
+      this.refreshing$ = from(this.refreshTokensOnce())
+        .pipe(
+          catchError(error => {
+            this.removeCredentialsFromStorage();
+
+            return throwError(() => error);
+          }),
+          finalize(() => this.refreshing$ = null),
+          shareReplay(1)
+        );
+    }
+
+    return this.refreshing$;
+  }
+
   logout() {
+    const token = this.getToken();
+    const refreshToken = this.getRefreshToken();
     this.removeCredentialsFromStorage();
-    window.location.reload();
+
+    this.http.post(`${this.apiUrl}/logout`, { refreshToken },
+      { headers: token ? { Authorization: `Bearer ${token}` } : {} })
+      .pipe(
+        catchError(() => of(null)),
+        finalize(() => window.location.reload())
+      )
+      .subscribe();
   }
 
   removeCredentialsFromStorage(): void {
     this.token = '';
     localStorage.removeItem('token');
+    localStorage.removeItem('refreshToken');
     localStorage.removeItem('email');
   }
 
@@ -73,7 +113,7 @@ export class AuthService {
       alert('logged out');
       return false;
     }
-    else if (!this.isTokenNotExpired()) {
+    else if (!this.isTokenNotExpired() && !this.getRefreshToken()) {
       alert('logged out due to expired token');
       this.removeCredentialsFromStorage();
       return false;
@@ -82,6 +122,32 @@ export class AuthService {
     return true;
   }
 
+  // the tabs refresh one at a time, a tab that waited for another one uses the tokens it got instead of
+  // presenting the refresh token that was just rotated
+  private refreshTokensOnce(): Promise<string> {
+    const refresh = (): Promise<string> => {
+      this.token = this.getToken();
+      if (this.isTokenNotExpired()) {
+        return Promise.resolve(this.token);
+      }
+
+      return firstValueFrom(this.http.post<{ token: string, refreshToken: string }>(`${this.apiUrl}/refresh`,
+        { refreshToken: this.getRefreshToken() })
+        .pipe(
+          tap(response => this.storeTokens(response)),
+          map(response => response.token)
+        ));
+    };
+
+    return navigator.locks ? navigator.locks.request(AuthService.REFRESH_LOCK_NAME, refresh) : refresh();
+  }
+
+  private storeTokens(response: { token: string, refreshToken: string }): void {
+    this.token = response.token;
+    localStorage.setItem('token', this.token);
+    localStorage.setItem('refreshToken', response.refreshToken);
+  }
+
   private isTokenNotExpired(): boolean {
     try {
       const decodedToken: any = jwtDecode(this.token);
@@ -1,7 +1,7 @@
 import { HttpClient, HttpErrorResponse, HttpParams } from '@angular/common/http';
 import { Injectable } from '@angular/core';
 import { throwError, Observable, catchError } from 'rxjs';
-import { ChatroomPayload, ResponsePayload } from '../models/Payloads';
+import { ChatroomParticipantPayload, ChatroomPayload, ResponsePayload } from '../models/Payloads';
 import { ChatMessage } from '../models/app';
 
 @Injectable({
@@ -66,6 +66,18 @@ export class ChatService {
       );
   }
 
+  getNextParticipantsOfChatroom(chatroomId: number, lastParticipantId: number | null): Observable<ChatroomParticipantPayload[]> {
+    let params = new HttpParams().set('chatroomId', chatroomId.toString());
+    if (lastParticipantId !== null) {
+      params = params.set('cursor', lastParticipantId.toString());
+    }
+
+    return this.http.get<ChatroomParticipantPayload[]>(`${this.apiUrl}/getNextParticipantsOfChatroom`, { params })
+      .pipe(
+        catchError(this.handleError)
+      );
+  }
+
   getNextMessagesByChatroomId(chatroomId: number, lastMessageId: number | null): Observable<ChatMessage[]> {
     let params = new HttpParams().set('chatroomId', chatroomId.toString());
     if (lastMessageId !== null) {
@@ -105,6 +117,15 @@ export class ChatService {
       );
   }
 
+  markChatroomAsRead(username: string, chatroomId: number): Observable<ResponsePayload> {
+    const params = new HttpParams().set('username', username).set('chatroomId', chatroomId.toString());
+
+    return this.http.put<ResponsePayload>(`${this.apiUrl}/markChatroomAsRead`, null, { params })
+      .pipe(
+        catchError(this.handleError)
+      );
+  }
+
   updateChatroomName(chatroomId: number, chatroomName: string): Observable<ResponsePayload> {
     const params = new HttpParams().set('chatroomId', chatroomId.toString()).set('chatroomName', chatroomName);
 
@@ -11,8 +11,11 @@ export class MiscService {
 
   constructor(private http: HttpClient) { }
 
-  searchForUsersByInput(input: string): Observable<PublicUserPayload[]>{
-    const params = new HttpParams().set('input', input);
+  searchForUsersByInput(input: string, viewer?: string): Observable<PublicUserPayload[]>{
+    let params = new HttpParams().set('input', input);
+    if (viewer) {
+      params = params.set('viewer', viewer);
+    }
 
     return this.http.get<PublicUserPayload[]>(`${this.searchApiUrl}/getUsersMatching`, { params })
       .pipe(
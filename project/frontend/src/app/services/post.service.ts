@@ -36,19 +36,19 @@ export class PostService {
       );
   }
 
-  getNextPosts(authorUsername: string, username: string, lastPostId: number | null, isFeed: boolean): Observable<PostPayload[]> {
+  getNextPosts(authorUsername: string, username: string, cursor: string | null, isFeed: boolean): Observable<PostPayload[]> {
     if (isFeed) {
-      return this.getNextPostsFromFriends(username, lastPostId);
+      return this.getNextPostsFromFriends(username, cursor);
     } else {
-      return this.getNextPostsOfAuthor(authorUsername, username, lastPostId);
+      return this.getNextPostsOfAuthor(authorUsername, username, cursor);
     }
   }
 
-  getNextCommentsOfPost(postId: number, lastCommentId: number | null): Observable<CommentPayload[]> {
+  getNextCommentsOfPost(postId: number, cursor: string | null): Observable<CommentPayload[]> {
     let params = new HttpParams().set('postId', postId.toString());
 
-    if (lastCommentId) {
-      params = params.set('cursor', lastCommentId.toString());
+    if (cursor) {
+      params = params.set('cursor', cursor);
     }
 
     return this.http.get<CommentPayload[]>(`${this.postApiUrl}/getNextCommentsOfPost`, { params })
@@ -57,11 +57,11 @@ export class PostService {
       );
   }
 
-  getNextCommentsOfUser(username: string, lastCommentId: number | null): Observable<CommentDetachedPayload[]> {
+  getNextCommentsOfUser(username: string, cursor: string | null): Observable<CommentDetachedPayload[]> {
     let params = new HttpParams().set('username', username);
 
-    if (lastCommentId) {
-      params = params.set('cursor', lastCommentId.toString());
+    if (cursor) {
+      params = params.set('cursor', cursor);
     }
 
     return this.http.get<CommentDetachedPayload[]>(`${this.postApiUrl}/getNextCommentsOfUser`, { params })
@@ -70,11 +70,11 @@ export class PostService {
       );
   }
 
-  getNextUpvotedPostsByUser(username: string, LastPostId: number | null): Observable<PostPayload[]> {
+  getNextUpvotedPostsByUser(username: string, cursor: string | null): Observable<PostPayload[]> {
     let params = new HttpParams().set('username', username);
 
-    if (LastPostId) {
-      params = params.set('cursor', LastPostId.toString());
+    if (cursor) {
+      params = params.set('cursor', cursor);
     }
 
     return this.http.get<PostPayload[]>(`${this.postApiUrl}/getNextUpvotedByUser`, { params })
@@ -83,11 +83,11 @@ export class PostService {
       );
   }
 
-  getNextDownvotedPostsByUser(username: string, LastPostId: number | null): Observable<PostPayload[]> {
+  getNextDownvotedPostsByUser(username: string, cursor: string | null): Observable<PostPayload[]> {
     let params = new HttpParams().set('username', username);
 
-    if (LastPostId) {
-      params = params.set('cursor', LastPostId.toString());
+    if (cursor) {
+      params = params.set('cursor', cursor);
     }
 
     return this.http.get<PostPayload[]>(`${this.postApiUrl}/getNextDownvotedByUser`, { params })
@@ -96,11 +96,11 @@ export class PostService {
       );
   }
 
-  getNextSavedPostsOfUser(username: string, LastPostId: number | null): Observable<PostPayload[]> {
+  getNextSavedPostsOfUser(username: string, cursor: string | null): Observable<PostPayload[]> {
     let params = new HttpParams().set('username', username);
 
-    if (LastPostId) {
-      params = params.set('cursor', LastPostId.toString());
+    if (cursor) {
+      params = params.set('cursor', cursor);
     }
 
     return this.http.get<PostPayload[]>(`${this.postApiUrl}/getNextSavedOfUser`, { params })
@@ -156,10 +156,10 @@ export class PostService {
 
   // ----------------------------------------------------------
 
-  private getNextPostsOfAuthor(authorUsername: string, username: string, lastPostId: number | null): Observable<PostPayload[]> {
+  private getNextPostsOfAuthor(authorUsername: string, username: string, cursor: string | null): Observable<PostPayload[]> {
     let params = new HttpParams().set('authorUsername', authorUsername).set('username', username);
-    if (lastPostId) {
-      params = params.set('cursor', lastPostId.toString());
+    if (cursor) {
+      params = params.set('cursor', cursor);
     }
 
     return this.http.get<PostPayload[]>(`${this.postApiUrl}/getNextPostsOfAuthor`, { params })
@@ -168,10 +168,10 @@ export class PostService {
       );
   }
 
-  private getNextPostsFromFriends(username: string, lastPostId: number | null): Observable<PostPayload[]> {
+  private getNextPostsFromFriends(username: string, cursor: string | null): Observable<PostPayload[]> {
     let params = new HttpParams().set('username', username);
-    if (lastPostId) {
-      params = params.set('cursor', lastPostId.toString());
+    if (cursor) {
+      params = params.set('cursor', cursor);
     }
 
     return this.http.get<PostPayload[]>(`${this.postApiUrl}/getNextPostsOfFriends`, { params })
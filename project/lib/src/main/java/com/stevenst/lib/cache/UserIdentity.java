@@ -0,0 +1,30 @@
+package com.stevenst.lib.cache;
+
+import com.stevenst.lib.model.User;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// the fields of a user that are read on almost every request and rarely change
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserIdentity {
+	private Long id;
+	private String username;
+	private String email;
+	private String profilePictureName;
+	private boolean profilePictureVariantsStored;
+
+	public static UserIdentity of(User user) {
+		return UserIdentity.builder()
+				.id(user.getId())
+				.username(user.getUsername())
+				.email(user.getEmail())
+				.profilePictureName(user.getProfilePictureName())
+				.profilePictureVariantsStored(user.isProfilePictureVariantsStored()).build();
+	}
+}
@@ -0,0 +1,87 @@
+package com.stevenst.lib.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.stevenst.lib.model.User;
+import com.stevenst.lib.payload.UserIdentityCacheStatsPayload;
+
+// resolves usernames to the id, email and profile picture of the users without a query per request
+// each service builds one with its own way of loading a user (its user repository) and invalidates the users it
+// changes, the changes made by the other services are seen once the entries expire (after the ttl)
+// the unknown usernames aren't cached, so a user is found as soon as it registers
+public class UserIdentityCache {
+	private final Function<String, Optional<User>> userLoader;
+	private final Function<Collection<String>, List<User>> usersLoader;
+	private final Cache<String, UserIdentity> identitiesByUsername;
+
+	public UserIdentityCache(Function<String, Optional<User>> userLoader, long maxSize, Duration ttl) {
+		this(userLoader, usernames -> usernames.stream().map(userLoader).flatMap(Optional::stream).toList(), maxSize,
+				ttl);
+	}
+
+	// usersLoader loads the users of many usernames at once (in a single query)
+	public UserIdentityCache(Function<String, Optional<User>> userLoader,
+			Function<Collection<String>, List<User>> usersLoader, long maxSize, Duration ttl) {
+		this.userLoader = userLoader;
+		this.usersLoader = usersLoader;
+		this.identitiesByUsername = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(ttl)
+				.recordStats()
+				.build();
+	}
+
+	public Optional<UserIdentity> get(String username) {
+		if (username == null) {
+			return Optional.empty();
+		}
+
+		return Optional.ofNullable(identitiesByUsername.get(username,
+				key -> userLoader.apply(key).map(UserIdentity::of).orElse(null)));
+	}
+
+	// the usernames missing from the cache are loaded together, the unknown ones are left out
+	public Map<String, UserIdentity> getAll(Collection<String> usernames) {
+		return identitiesByUsername.getAll(usernames, missingUsernames -> {
+			Map<String, UserIdentity> identities = new HashMap<>();
+			for (User user : usersLoader.apply(new ArrayList<>(missingUsernames))) {
+				identities.put(user.getUsername(), UserIdentity.of(user));
+			}
+			return identities;
+		});
+	}
+
+	// after a user is loaded anyway (or changed), so the next lookup doesn't load it again
+	public void put(User user) {
+		identitiesByUsername.put(user.getUsername(), UserIdentity.of(user));
+	}
+
+	public void invalidate(String username) {
+		identitiesByUsername.invalidate(username);
+	}
+
+	public void invalidateAll() {
+		identitiesByUsername.invalidateAll();
+	}
+
+	public UserIdentityCacheStatsPayload getStats() {
+		CacheStats stats = identitiesByUsername.stats();
+
+		return UserIdentityCacheStatsPayload.builder()
+				.hits(stats.hitCount())
+				.misses(stats.missCount())
+				.hitRate(stats.hitRate())
+				.evictions(stats.evictionCount())
+				.cachedUsers(identitiesByUsername.estimatedSize()).build();
+	}
+}
@@ -0,0 +1,31 @@
+package com.stevenst.lib.client;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stevenst.lib.payload.ResponsePayload;
+
+// the calls of the other services to the app service
+// the timelines of the posts are kept by the app service, so it is told when two users become friends or stop
+// being friends (both calls can be repeated without changing the result)
+public class AppServiceClient {
+	private final ResilientHttpClient httpClient;
+
+	public AppServiceClient(ServiceClientSettings settings, ObjectMapper objectMapper) {
+		this.httpClient = new ResilientHttpClient("app-service", settings, objectMapper);
+	}
+
+	public CompletableFuture<ResponsePayload> addFriendshipToTimelinesAsync(String user1, String user2) {
+		return httpClient.postAsync("/api/timeline/addFriendship", Map.of("user1", user1, "user2", user2),
+				new TypeReference<ResponsePayload>() {
+				});
+	}
+
+	public CompletableFuture<ResponsePayload> removeFriendshipFromTimelinesAsync(String user1, String user2) {
+		return httpClient.postAsync("/api/timeline/removeFriendship", Map.of("user1", user1, "user2", user2),
+				new TypeReference<ResponsePayload>() {
+				});
+	}
+}
@@ -0,0 +1,48 @@
+package com.stevenst.lib.client;
+
+// opens after failureThreshold failed calls in a row so the calls fail right away instead of waiting for their
+// timeouts, once openDuration has passed a single trial call is let through and its outcome closes or reopens it
+class CircuitBreaker {
+	private final int failureThreshold;
+	private final long openDurationNanos;
+	private int consecutiveFailures;
+	private boolean open;
+	private long openedAt;
+	private boolean trialCallInFlight;
+
+	CircuitBreaker(int failureThreshold, long openDurationNanos) {
+		this.failureThreshold = failureThreshold;
+		this.openDurationNanos = openDurationNanos;
+	}
+
+	synchronized boolean allowsCall() {
+		if (!open) {
+			return true;
+		}
+		if (trialCallInFlight || System.nanoTime() - openedAt < openDurationNanos) {
+			return false;
+		}
+
+		trialCallInFlight = true;
+		return true;
+	}
+
+	synchronized void recordSuccess() {
+		consecutiveFailures = 0;
+		open = false;
+		trialCallInFlight = false;
+	}
+
+	synchronized void recordFailure() {
+		consecutiveFailures++;
+		trialCallInFlight = false;
+		if (open || consecutiveFailures >= failureThreshold) {
+			open = true;
+			openedAt = System.nanoTime();
+		}
+	}
+
+	synchronized boolean isOpen() {
+		return open;
+	}
+}
@@ -0,0 +1,187 @@
+package com.stevenst.lib.client;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stevenst.lib.exception.IgorServiceUnavailableException;
+
+// calls another service without blocking the thread of the request while the answer comes
+// - the connections are kept alive and reused by the jdk http client
+// - every attempt has a timeout, the attempts failing with an io error, a 502, 503 or 504 are retried
+// - at most max-concurrent-calls are in flight, the next ones wait for a free slot up to bulkhead-wait-timeout
+// - a circuit breaker fails the calls right away while the service is down
+// - the calls carry the bearer token of the settings, if there is one
+// only reads and idempotent writes go through it, so any call can be retried
+public class ResilientHttpClient {
+	private final String serviceName;
+	private final ServiceClientSettings settings;
+	private final ObjectMapper objectMapper;
+	private final HttpClient httpClient;
+	private final Semaphore bulkhead;
+	private final CircuitBreaker circuitBreaker;
+
+	public ResilientHttpClient(String serviceName, ServiceClientSettings settings, ObjectMapper objectMapper) {
+		this.serviceName = serviceName;
+		this.settings = settings;
+		this.objectMapper = objectMapper;
+		// http 1.1 so the plain connections are reused as they are instead of trying to upgrade them to http 2
+		this.httpClient = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(settings.getConnectTimeout())
+				.build();
+		this.bulkhead = new Semaphore(settings.getMaxConcurrentCalls());
+		this.circuitBreaker = new CircuitBreaker(settings.getCircuitBreakerFailureThreshold(),
+				settings.getCircuitBreakerOpenDuration().toNanos());
+	}
+
+	public <T> CompletableFuture<T> getAsync(String path, Map<String, ?> queryParams, TypeReference<T> responseType) {
+		HttpRequest request = newRequest(path, queryParams).GET().build();
+
+		return send(request, responseType);
+	}
+
+	public <T> CompletableFuture<T> postAsync(String path, Map<String, ?> queryParams, Object body,
+			TypeReference<T> responseType) {
+		byte[] jsonBody;
+		try {
+			jsonBody = objectMapper.writeValueAsBytes(body);
+		} catch (JsonProcessingException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+
+		HttpRequest request = newRequest(path, queryParams)
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofByteArray(jsonBody))
+				.build();
+
+		return send(request, responseType);
+	}
+
+	public <T> CompletableFuture<T> postAsync(String path, Map<String, ?> queryParams, TypeReference<T> responseType) {
+		HttpRequest request = newRequest(path, queryParams).POST(HttpRequest.BodyPublishers.noBody()).build();
+
+		return send(request, responseType);
+	}
+
+	// waits for a call in the thread of the request and throws the exception it failed with
+	public static <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
+
+	public boolean isCircuitOpen() {
+		return circuitBreaker.isOpen();
+	}
+
+	// ----------------------------------------------------------------------
+
+	private <T> CompletableFuture<T> send(HttpRequest request, TypeReference<T> responseType) {
+		String callName = serviceName + " (" + request.uri().getPath() + ")";
+		try {
+			if (!bulkhead.tryAcquire(settings.getBulkheadWaitTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+				return CompletableFuture.failedFuture(
+						new IgorServiceUnavailableException("Too many calls in flight to " + callName + "."));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return CompletableFuture.failedFuture(
+					new IgorServiceUnavailableException("Interrupted while waiting to call " + callName + "."));
+		}
+
+		// checked once a slot is taken, so a trial call of the breaker is never rejected by the bulkhead
+		if (!circuitBreaker.allowsCall()) {
+			bulkhead.release();
+			return CompletableFuture.failedFuture(
+					new IgorServiceUnavailableException(serviceName + " is unavailable, not calling " + callName + "."));
+		}
+
+		return sendWithRetries(request, 0).handle((response, e) -> {
+			bulkhead.release();
+
+			if (e != null) {
+				circuitBreaker.recordFailure();
+				Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+				throw new IgorServiceUnavailableException("Unable to call " + callName + ": " + cause);
+			}
+
+			int status = response.statusCode();
+			if (status >= 500) {
+				circuitBreaker.recordFailure();
+			} else {
+				circuitBreaker.recordSuccess();
+			}
+			if (status < 200 || status >= 300) {
+				throw new IgorServiceUnavailableException(callName + " answered with status " + status + ".");
+			}
+
+			return readBody(response.body(), responseType, callName);
+		});
+	}
+
+	private CompletableFuture<HttpResponse<byte[]>> sendWithRetries(HttpRequest request, int attempt) {
+		return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+				.handle((response, e) -> {
+					boolean isRetryable = e != null || isRetryableStatus(response.statusCode());
+					if (!isRetryable || attempt >= settings.getMaxRetries()) {
+						return e == null ? CompletableFuture.completedFuture(response)
+								: CompletableFuture.<HttpResponse<byte[]>>failedFuture(e);
+					}
+
+					long backoffMillis = settings.getRetryBackoff().toMillis() << attempt;
+					return CompletableFuture.runAsync(() -> {
+					}, CompletableFuture.delayedExecutor(backoffMillis, TimeUnit.MILLISECONDS))
+							.thenCompose(ignored -> sendWithRetries(request, attempt + 1));
+				})
+				.thenCompose(Function.identity());
+	}
+
+	private HttpRequest.Builder newRequest(String path, Map<String, ?> queryParams) {
+		StringJoiner query = new StringJoiner("&", "?", "");
+		query.setEmptyValue("");
+		queryParams.forEach((name, value) -> query.add(URLEncoder.encode(name, StandardCharsets.UTF_8) + "="
+				+ URLEncoder.encode(String.valueOf(value), StandardCharsets.UTF_8)));
+
+		HttpRequest.Builder request = HttpRequest.newBuilder()
+				.uri(URI.create(settings.getBaseUrl() + path + query))
+				.timeout(settings.getRequestTimeout())
+				.header("Accept", "application/json");
+		if (settings.getBearerTokenSupplier() != null) {
+			request.header("Authorization", "Bearer " + settings.getBearerTokenSupplier().get());
+		}
+
+		return request;
+	}
+
+	private <T> T readBody(byte[] body, TypeReference<T> responseType, String callName) {
+		try {
+			return objectMapper.readValue(body, responseType);
+		} catch (IOException e) {
+			throw new IgorServiceUnavailableException("Unreadable answer of " + callName + ": " + e.getMessage());
+		}
+	}
+
+	private static boolean isRetryableStatus(int status) {
+		return status == 502 || status == 503 || status == 504;
+	}
+}
@@ -0,0 +1,40 @@
+package com.stevenst.lib.client;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+// how a service calls another one, every environment sets its own (base url, timeouts...)
+@Data
+@Builder
+@AllArgsConstructor
+public class ServiceClientSettings {
+	private String baseUrl;
+	@Builder.Default
+	private Duration connectTimeout = Duration.ofSeconds(2);
+	// of each attempt
+	@Builder.Default
+	private Duration requestTimeout = Duration.ofSeconds(5);
+	@Builder.Default
+	private int maxRetries = 2;
+	// doubled after each retry
+	@Builder.Default
+	private Duration retryBackoff = Duration.ofMillis(100);
+	@Builder.Default
+	private int maxConcurrentCalls = 50;
+	@Builder.Default
+	private Duration bulkheadWaitTimeout = Duration.ofMillis(500);
+	@Builder.Default
+	private int circuitBreakerFailureThreshold = 5;
+	@Builder.Default
+	private Duration circuitBreakerOpenDuration = Duration.ofSeconds(30);
+	@Builder.Default
+	private Duration cacheTtl = Duration.ofSeconds(10);
+	@Builder.Default
+	private long cacheMaxSize = 10_000;
+	// the token sent as the bearer of every call (a service token), none while the services don't check them
+	private Supplier<String> bearerTokenSupplier;
+}
@@ -0,0 +1,153 @@
+package com.stevenst.lib.client;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stevenst.lib.model.enums.ImageVariant;
+import com.stevenst.lib.model.enums.RelationshipStatus;
+
+// the calls of the other services to the user service
+// the friends and the profile picture links are asked for on almost every page, so they are kept for cache-ttl
+// (a new friend or picture may be seen a few seconds late)
+public class UserServiceClient {
+	// the user service answers at most app.friends.max-relationship-statuses usernames at once
+	private static final int RELATIONSHIP_STATUSES_BATCH_SIZE = 100;
+	// and the profile picture links of at most app.user.max-profile-picture-links
+	private static final int PROFILE_PICTURE_LINKS_BATCH_SIZE = 100;
+
+	private final ResilientHttpClient httpClient;
+	private final Cache<String, List<String>> friendsUsernamesByUsername;
+	private final Cache<String, String> pfpLinksByUsernameAndVariant;
+
+	public UserServiceClient(ServiceClientSettings settings, ObjectMapper objectMapper) {
+		this.httpClient = new ResilientHttpClient("user-service", settings, objectMapper);
+		this.friendsUsernamesByUsername = Caffeine.newBuilder()
+				.maximumSize(settings.getCacheMaxSize())
+				.expireAfterWrite(settings.getCacheTtl())
+				.build();
+		this.pfpLinksByUsernameAndVariant = Caffeine.newBuilder()
+				.maximumSize(settings.getCacheMaxSize())
+				.expireAfterWrite(settings.getCacheTtl())
+				.build();
+	}
+
+	public CompletableFuture<List<String>> getAllFriendsUsernamesAsync(String username) {
+		List<String> cachedUsernames = friendsUsernamesByUsername.getIfPresent(username);
+		if (cachedUsernames != null) {
+			return CompletableFuture.completedFuture(new ArrayList<>(cachedUsernames));
+		}
+
+		return httpClient.getAsync("/api/friend/getAllFriendsUsernames", Map.of("username", username),
+				new TypeReference<List<String>>() {
+				}).thenApply(usernames -> {
+					friendsUsernamesByUsername.put(username, List.copyOf(usernames));
+					return new ArrayList<>(usernames);
+				});
+	}
+
+	// a copy the caller can change
+	public List<String> getAllFriendsUsernames(String username) {
+		return ResilientHttpClient.join(getAllFriendsUsernamesAsync(username));
+	}
+
+	// asks the user service even when the friends are cached (and caches them again), for the callers that must not
+	// miss a friendship made in the last cache-ttl
+	public List<String> getAllFriendsUsernamesUncached(String username) {
+		friendsUsernamesByUsername.invalidate(username);
+		return getAllFriendsUsernames(username);
+	}
+
+	// for the callers told about a friendship added or removed
+	public void evictFriends(String username) {
+		friendsUsernamesByUsername.invalidate(username);
+	}
+
+	// the batches are asked for at the same time
+	public CompletableFuture<Map<String, RelationshipStatus>> getRelationshipStatusesAsync(String viewer,
+			List<String> usernames) {
+		List<CompletableFuture<Map<String, RelationshipStatus>>> batches = new ArrayList<>();
+		for (int from = 0; from < usernames.size(); from += RELATIONSHIP_STATUSES_BATCH_SIZE) {
+			List<String> batch = usernames.subList(from,
+					Math.min(from + RELATIONSHIP_STATUSES_BATCH_SIZE, usernames.size()));
+			batches.add(httpClient.postAsync("/api/friend/getRelationshipStatuses", Map.of("viewer", viewer), batch,
+					new TypeReference<Map<String, RelationshipStatus>>() {
+					}));
+		}
+
+		return CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+			Map<String, RelationshipStatus> statuses = new HashMap<>();
+			batches.forEach(batch -> statuses.putAll(batch.join()));
+			return statuses;
+		});
+	}
+
+	public Map<String, RelationshipStatus> getRelationshipStatuses(String viewer, List<String> usernames) {
+		return ResilientHttpClient.join(getRelationshipStatusesAsync(viewer, usernames));
+	}
+
+	// the links missing from the cache are asked for in batches (at the same time), the batches that can't be got
+	// are left out since a missing avatar shouldn't fail the whole page
+	public CompletableFuture<Map<String, String>> getProfilePictureLinksAsync(List<String> usernames,
+			ImageVariant variant) {
+		Map<String, String> links = new HashMap<>();
+		List<String> missingUsernames = new ArrayList<>();
+		for (String username : new LinkedHashSet<>(usernames)) {
+			String cachedLink = pfpLinksByUsernameAndVariant.getIfPresent(pfpLinkKey(username, variant));
+			if (cachedLink != null) {
+				links.put(username, cachedLink);
+			} else {
+				missingUsernames.add(username);
+			}
+		}
+
+		List<CompletableFuture<Map<String, String>>> batches = new ArrayList<>();
+		for (int from = 0; from < missingUsernames.size(); from += PROFILE_PICTURE_LINKS_BATCH_SIZE) {
+			List<String> batch = missingUsernames.subList(from,
+					Math.min(from + PROFILE_PICTURE_LINKS_BATCH_SIZE, missingUsernames.size()));
+			batches.add(getProfilePictureLinksOfBatchAsync(batch, variant));
+		}
+
+		return CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+			batches.forEach(batch -> links.putAll(batch.join()));
+			return links;
+		});
+	}
+
+	public Map<String, String> getProfilePictureLinks(List<String> usernames, ImageVariant variant) {
+		return ResilientHttpClient.join(getProfilePictureLinksAsync(usernames, variant));
+	}
+
+	public boolean isCircuitOpen() {
+		return httpClient.isCircuitOpen();
+	}
+
+	// ----------------------------------------------------------------------
+
+	private CompletableFuture<Map<String, String>> getProfilePictureLinksOfBatchAsync(List<String> usernames,
+			ImageVariant variant) {
+		return httpClient.postAsync("/api/user/getProfilePictureLinks", Map.of("variant", variant), usernames,
+				new TypeReference<Map<String, String>>() {
+				}).thenApply(links -> {
+					links.forEach((username, link) -> pfpLinksByUsernameAndVariant.put(pfpLinkKey(username, variant),
+							link));
+					return links;
+				}).exceptionally(e -> {
+					Throwable cause = e.getCause() != null ? e.getCause() : e;
+					System.err.println("Unable to get the profile picture links of " + usernames.size() + " users: "
+							+ cause.getMessage());
+					return Map.of();
+				});
+	}
+
+	private static String pfpLinkKey(String username, ImageVariant variant) {
+		return username + "/" + variant;
+	}
+}
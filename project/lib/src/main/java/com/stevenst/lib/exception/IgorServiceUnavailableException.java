@@ -0,0 +1,7 @@
+package com.stevenst.lib.exception;
+
+public class IgorServiceUnavailableException extends RuntimeException {
+	public IgorServiceUnavailableException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,32 @@
+package com.stevenst.lib.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+// an access token revoked before it expires (by its id), kept until then
+// written by the security service, the other services only read it (see RevokedTokenFilter)
+@Entity
+@Table(name = "\"revoked_token\"", indexes = {
+		@Index(name = "idx_revoked_token_expires_at", columnList = "\"expires_at\"") })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedToken {
+	@Id
+	@Column(name = "\"token_id\"", length = 36)
+	private String tokenId;
+
+	@Column(name = "\"expires_at\"", nullable = false)
+	private LocalDateTime expiresAt;
+}
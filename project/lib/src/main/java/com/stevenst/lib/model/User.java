@@ -56,8 +56,15 @@ public class User implements UserDetails {
 
 	private String profilePictureName;
 
+	// false for the pictures stored before their thumbnail and preview were, their links point to the original
+	@Column(nullable = false)
+	private boolean profilePictureVariantsStored;
+
 	private String coverImageName;
 
+	@Column(nullable = false)
+	private boolean coverImageVariantsStored;
+
 	private Long countryId;
 
 	private Long primaryRegionId;
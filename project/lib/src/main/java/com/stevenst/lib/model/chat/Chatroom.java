@@ -22,6 +22,8 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class Chatroom {
+	public static final int LAST_MESSAGE_PREVIEW_LENGTH = 100;
+
 	@Id
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
 	private Long id;
@@ -38,4 +40,17 @@ public class Chatroom {
 	@Builder.Default
 	@Column(nullable = false)
 	private LocalDateTime lastMessageTime = LocalDateTime.now();
+
+	// the last message and the number of messages are kept up to date when the messages are inserted,
+	// so the chatroom lists (previews, unread counts, order by activity) don't read chat_message
+	private Long lastMessageId;
+
+	private String lastMessageSenderUsername;
+
+	@Column(length = LAST_MESSAGE_PREVIEW_LENGTH)
+	private String lastMessagePreview;
+
+	@Builder.Default
+	@Column(nullable = false)
+	private long messageCount = 0;
 }
\ No newline at end of file
@@ -41,4 +41,22 @@ public class ChatroomParticipant {
 
 	@Column(nullable = false)
 	private final LocalDateTime addedAt = LocalDateTime.now();
+
+	// the last message read by the participant and the message count of the chatroom at that moment,
+	// the unread messages are the difference between the current message count and this one
+	private Long lastReadMessageId;
+
+	@Builder.Default
+	@Column(nullable = false)
+	private long readMessagesCount = 0;
+
+	// a new participant starts with the messages sent before they joined read, not with the whole history unread
+	public static ChatroomParticipant joining(Chatroom chatroom, User user) {
+		return ChatroomParticipant.builder()
+				.chatroom(chatroom)
+				.user(user)
+				.hasLeft(false)
+				.lastReadMessageId(chatroom.getLastMessageId())
+				.readMessagesCount(chatroom.getMessageCount()).build();
+	}
 }
@@ -0,0 +1,35 @@
+package com.stevenst.lib.model.enums;
+
+// the sizes an uploaded image is stored in, the derived ones are jpegs stored next to the original
+// (users/x/posts/1/photo.png -> users/x/posts/1/thumbnail/photo.png.jpg)
+public enum ImageVariant {
+	THUMBNAIL(160),
+	PREVIEW(1080),
+	ORIGINAL(0);
+
+	private static final String DERIVED_EXTENSION = ".jpg";
+	private final int maxSize;
+
+	ImageVariant(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	// the largest width or height of the variant
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public boolean isDerived() {
+		return this != ORIGINAL;
+	}
+
+	public String keyOf(String originalKey) {
+		if (!isDerived()) {
+			return originalKey;
+		}
+
+		int filenameIndex = originalKey.lastIndexOf('/') + 1;
+		return originalKey.substring(0, filenameIndex) + name().toLowerCase() + "/"
+				+ originalKey.substring(filenameIndex) + DERIVED_EXTENSION;
+	}
+}
@@ -0,0 +1,12 @@
+package com.stevenst.lib.model.enums;
+
+// how a user (the viewer) is related to another user
+public enum RelationshipStatus {
+	SELF,
+	FRIEND,
+	// the viewer received a friend request from the user
+	FRIEND_REQUEST_RECEIVED,
+	// the viewer sent a friend request to the user
+	FRIEND_REQUEST_SENT,
+	NONE
+}
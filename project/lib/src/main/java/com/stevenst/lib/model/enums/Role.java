@@ -1,5 +1,7 @@
 package com.stevenst.lib.model.enums;
 
 public enum Role {
-    USER, ADMIN
+    USER, ADMIN,
+    // the other services, by their service tokens (never the role of a stored user)
+    SERVICE
 }
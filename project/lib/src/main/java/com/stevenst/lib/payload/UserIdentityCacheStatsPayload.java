@@ -0,0 +1,18 @@
+package com.stevenst.lib.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserIdentityCacheStatsPayload {
+	private long hits;
+	private long misses;
+	private double hitRate;
+	private long evictions;
+	private long cachedUsers;
+}
@@ -0,0 +1,48 @@
+package com.stevenst.lib.security;
+
+import java.security.Principal;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.stevenst.lib.model.User;
+import com.stevenst.lib.model.enums.Role;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// the principal of an authenticated request, built from the claims of its token (without loading the user)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuthenticatedUser implements Principal {
+	private Long id;
+	private String email;
+	private String username;
+	private Role role;
+
+	public static AuthenticatedUser of(User user) {
+		return AuthenticatedUser.builder()
+				.id(user.getId())
+				.email(user.getEmail())
+				.username(user.getUsername())
+				.role(user.getRole()).build();
+	}
+
+	@Override
+	@JsonIgnore
+	public String getName() {
+		return email;
+	}
+
+	@JsonIgnore
+	public Collection<? extends GrantedAuthority> getAuthorities() {
+		return List.of(new SimpleGrantedAuthority(role.name()));
+	}
+}
@@ -0,0 +1,96 @@
+package com.stevenst.lib.security;
+
+import java.io.IOException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.Nonnull;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// authenticates the requests with a bearer token, the principal (an AuthenticatedUser) is built from the claims of
+// the token, so nothing is loaded and no other service is called
+// the tokens without the claims of the user are given to userLoader (by their email), or rejected without one
+// the ids of the tokens are given to isRevoked, if there is one, it must be cheap since it runs on every request
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+	private final JwtVerifier jwtVerifier;
+	private final Function<String, AuthenticatedUser> userLoader;
+	private final Predicate<String> isRevoked;
+
+	public JwtAuthenticationFilter(JwtVerifier jwtVerifier) {
+		this(jwtVerifier, null, null);
+	}
+
+	public JwtAuthenticationFilter(JwtVerifier jwtVerifier, Function<String, AuthenticatedUser> userLoader,
+			Predicate<String> isRevoked) {
+		this.jwtVerifier = jwtVerifier;
+		this.userLoader = userLoader;
+		this.isRevoked = isRevoked;
+	}
+
+	@Override
+	protected void doFilterInternal(@Nonnull HttpServletRequest request, @Nonnull HttpServletResponse response,
+			@Nonnull FilterChain filterChain) throws ServletException, IOException {
+		final String authHeader = request.getHeader("Authorization");
+		if (authHeader == null || !authHeader.startsWith("Bearer ") || authHeader.length() <= 7) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+
+		try {
+			if (SecurityContextHolder.getContext().getAuthentication() == null) {
+				Claims claims = jwtVerifier.verify(authHeader.substring(7));
+				if (isRevoked != null && claims.getId() != null && isRevoked.test(claims.getId())) {
+					writeUnauthorized(response, "Revoked token");
+					return;
+				}
+				AuthenticatedUser user = getAuthenticatedUser(claims);
+
+				UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(user, null,
+						user.getAuthorities());
+				authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+				SecurityContextHolder.getContext().setAuthentication(authToken);
+			}
+		} catch (SignatureException ex) {
+			writeUnauthorized(response, "Invalid token signature");
+			return;
+		} catch (ExpiredJwtException ex) {
+			writeUnauthorized(response, "Expired token");
+			return;
+		} catch (UsernameNotFoundException ex) {
+			writeUnauthorized(response, "User not found");
+			return;
+		} catch (JwtException ex) {
+			writeUnauthorized(response, "Invalid token");
+			return;
+		}
+
+		filterChain.doFilter(request, response);
+	}
+
+	private AuthenticatedUser getAuthenticatedUser(Claims claims) {
+		return jwtVerifier.extractAuthenticatedUser(claims).orElseGet(() -> {
+			if (userLoader == null) {
+				throw new JwtException("The token doesn't carry the claims of its user");
+			}
+			return userLoader.apply(claims.getSubject());
+		});
+	}
+
+	private static void writeUnauthorized(HttpServletResponse response, String message) throws IOException {
+		response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+		response.getWriter().write(message);
+	}
+}
@@ -0,0 +1,70 @@
+package com.stevenst.lib.security;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.crypto.SecretKey;
+
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.InvalidKeyException;
+import io.jsonwebtoken.security.Keys;
+
+// the keys the tokens are signed with, by their id (the kid header of the tokens), decoded once
+// the tokens are signed with the active key, the previous keys are only used to verify the tokens signed before a
+// rotation: the active key gets a new id and the old one moves to the previous keys until its tokens expire
+// the tokens without a kid (issued before the keys had ids) are verified with the active key
+public class JwtKeyRing {
+	private final String activeKeyId;
+	private final SecretKey activeKey;
+	private final Map<String, SecretKey> keysById = new HashMap<>();
+
+	public JwtKeyRing(String activeKeyId, String activeSecretKey, Map<String, String> previousSecretKeysById) {
+		this.activeKeyId = activeKeyId;
+		this.activeKey = decode(activeSecretKey);
+		previousSecretKeysById.forEach((keyId, secretKey) -> keysById.put(keyId, decode(secretKey)));
+		keysById.put(activeKeyId, activeKey);
+	}
+
+	// the previous keys as "<key id>:<base64 key>" entries (as they are written in the properties)
+	public static JwtKeyRing of(String activeKeyId, String activeSecretKey, List<String> previousKeys) {
+		Map<String, String> previousSecretKeysById = new HashMap<>();
+		for (String previousKey : previousKeys) {
+			if (previousKey.isBlank()) {
+				continue;
+			}
+			int separatorIndex = previousKey.indexOf(':');
+			if (separatorIndex <= 0) {
+				throw new IllegalArgumentException("A previous jwt key must be written as <key id>:<base64 key>");
+			}
+			previousSecretKeysById.put(previousKey.substring(0, separatorIndex).trim(),
+					previousKey.substring(separatorIndex + 1).trim());
+		}
+
+		return new JwtKeyRing(activeKeyId, activeSecretKey, previousSecretKeysById);
+	}
+
+	public String getActiveKeyId() {
+		return activeKeyId;
+	}
+
+	public SecretKey getActiveKey() {
+		return activeKey;
+	}
+
+	public SecretKey getKey(String keyId) {
+		if (keyId == null) {
+			return activeKey;
+		}
+
+		SecretKey key = keysById.get(keyId);
+		if (key == null) {
+			throw new InvalidKeyException("Unknown jwt key id: " + keyId);
+		}
+		return key;
+	}
+
+	private static SecretKey decode(String secretKey) {
+		return Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+	}
+}
@@ -0,0 +1,67 @@
+package com.stevenst.lib.security;
+
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+
+import com.stevenst.lib.model.enums.Role;
+
+// the security of a service whose requests are authenticated with the tokens of the security service
+// the endpoints take the user they act for from their parameters (username, sender...), not from the token: only
+// the own user paths check that it is the user of the token, on the other paths any authenticated user may give any
+// username
+public class JwtSecurity {
+	// the parameter of the own user paths with the username of the user they act for
+	public static final String ACTING_USER_PARAMETER = "username";
+
+	private JwtSecurity() {
+	}
+
+	// every request but the whitelisted ones needs a valid token, the cors mappings of the service are kept
+	// - the service paths need the token of a service (see ServiceTokenIssuer)
+	// - the own user paths need the token of a service or of the user in their username parameter
+	// the ids of the tokens are given to isRevoked (see RevokedTokenFilter), a logout rejects the token right away
+	public static SecurityFilterChain statelessFilterChain(HttpSecurity http, JwtVerifier jwtVerifier,
+			Predicate<String> isRevoked, List<String> whitelist, List<String> servicePaths, List<String> ownUserPaths)
+			throws Exception {
+		http
+				.cors(Customizer.withDefaults())
+				.csrf(csrf -> csrf.disable())
+				.authorizeHttpRequests(auth -> {
+					if (!whitelist.isEmpty()) {
+						auth.requestMatchers(whitelist.toArray(String[]::new)).permitAll();
+					}
+					if (!servicePaths.isEmpty()) {
+						auth.requestMatchers(servicePaths.toArray(String[]::new)).hasAuthority(Role.SERVICE.name());
+					}
+					if (!ownUserPaths.isEmpty()) {
+						auth.requestMatchers(ownUserPaths.toArray(String[]::new)).access(JwtSecurity::isServiceOrOwnUser);
+					}
+					auth.anyRequest().authenticated();
+				})
+				.sessionManagement(sess -> sess.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+				.addFilterBefore(new JwtAuthenticationFilter(jwtVerifier, null, isRevoked),
+						UsernamePasswordAuthenticationFilter.class);
+
+		return http.build();
+	}
+
+	private static AuthorizationDecision isServiceOrOwnUser(Supplier<Authentication> authentication,
+			RequestAuthorizationContext context) {
+		if (!(authentication.get().getPrincipal() instanceof AuthenticatedUser user)) {
+			return new AuthorizationDecision(false);
+		}
+
+		return new AuthorizationDecision(user.getRole() == Role.SERVICE
+				|| user.getUsername().equals(context.getRequest().getParameter(ACTING_USER_PARAMETER)));
+	}
+}
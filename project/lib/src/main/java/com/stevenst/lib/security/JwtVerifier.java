@@ -0,0 +1,119 @@
+package com.stevenst.lib.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.stevenst.lib.model.enums.Role;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+
+// verifies the tokens issued by the security service locally (signature and expiration), without calling it
+// the parser (thread safe) is built once and the claims of the recently verified tokens are kept (by the hash of the
+// token) so the same token isn't verified again on every request, an entry never outlives the expiration of its token
+public class JwtVerifier {
+	public static final String USER_ID_CLAIM = "userId";
+	public static final String USERNAME_CLAIM = "username";
+	public static final String ROLE_CLAIM = "role";
+	// the name of the service, in the tokens of the calls between the services (see ServiceTokenIssuer)
+	public static final String SERVICE_CLAIM = "service";
+
+	private final JwtParser jwtParser;
+	private final Cache<String, Claims> verifiedClaimsByTokenHash;
+
+	public JwtVerifier(JwtKeyRing keyRing, long verifiedTokenCacheMaxSize, Duration verifiedTokenCacheTtl) {
+		this.jwtParser = Jwts.parser()
+				.keyLocator(new LocatorAdapter<Key>() {
+					@Override
+					protected Key locate(JwsHeader header) {
+						return keyRing.getKey(header.getKeyId());
+					}
+				})
+				.build();
+		this.verifiedClaimsByTokenHash = Caffeine.newBuilder()
+				.maximumSize(verifiedTokenCacheMaxSize)
+				.expireAfter(new VerifiedClaimsExpiry(verifiedTokenCacheTtl))
+				.build();
+	}
+
+	// throws a JwtException (SignatureException, ExpiredJwtException, ...) for the tokens that can't be trusted
+	public Claims verify(String token) {
+		return verifiedClaimsByTokenHash.get(hash(token), key -> jwtParser.parseSignedClaims(token).getPayload());
+	}
+
+	// empty for the tokens without the claims of the user (issued for an email only or before they were added)
+	// the tokens of the services give a principal with the SERVICE role, named after the service
+	public Optional<AuthenticatedUser> extractAuthenticatedUser(Claims claims) {
+		String serviceName = claims.get(SERVICE_CLAIM, String.class);
+		if (serviceName != null) {
+			return Optional.of(AuthenticatedUser.builder()
+					.username(serviceName)
+					.role(Role.SERVICE).build());
+		}
+
+		Long userId = claims.get(USER_ID_CLAIM, Long.class);
+		String username = claims.get(USERNAME_CLAIM, String.class);
+		String role = claims.get(ROLE_CLAIM, String.class);
+		if (userId == null || username == null || role == null) {
+			return Optional.empty();
+		}
+
+		return Optional.of(AuthenticatedUser.builder()
+				.id(userId)
+				.email(claims.getSubject())
+				.username(username)
+				.role(Role.valueOf(role)).build());
+	}
+
+	public long getCachedTokensCount() {
+		return verifiedClaimsByTokenHash.estimatedSize();
+	}
+
+	// ----------------------------------------------------------------------
+
+	// the tokens themselves aren't kept in memory
+	private static String hash(String token) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+			return Base64.getEncoder().encodeToString(digest);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	// kept for the ttl, or until the token expires if that comes first
+	private record VerifiedClaimsExpiry(Duration ttl) implements Expiry<String, Claims> {
+		@Override
+		public long expireAfterCreate(String tokenHash, Claims claims, long currentTime) {
+			long ttlNanos = ttl.toNanos();
+			if (claims.getExpiration() == null) {
+				return ttlNanos;
+			}
+
+			long untilExpirationNanos = Duration.ofMillis(claims.getExpiration().getTime() - System.currentTimeMillis())
+					.toNanos();
+			return Math.max(0, Math.min(ttlNanos, untilExpirationNanos));
+		}
+
+		@Override
+		public long expireAfterUpdate(String tokenHash, Claims claims, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+
+		@Override
+		public long expireAfterRead(String tokenHash, Claims claims, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package com.stevenst.lib.security;
+
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import com.stevenst.lib.util.BloomFilter;
+
+// the access tokens revoked by the security service, for the services that verify the tokens themselves: the ids of
+// the revoked_token table are kept in a bloom filter, so a token that isn't revoked (almost every request) costs no
+// io and only the "maybe revoked" ones are looked up with isStored
+// the filter is rebuilt by reload (every reload-interval), a token revoked since is accepted until then
+public class RevokedTokenFilter {
+	private final Supplier<List<String>> unexpiredTokenIdsLoader;
+	private final Predicate<String> isStored;
+	private final long expectedRevocations;
+	private final double falsePositiveProbability;
+	private volatile BloomFilter revokedTokenIds;
+
+	public RevokedTokenFilter(Supplier<List<String>> unexpiredTokenIdsLoader, Predicate<String> isStored,
+			long expectedRevocations, double falsePositiveProbability) {
+		this.unexpiredTokenIdsLoader = unexpiredTokenIdsLoader;
+		this.isStored = isStored;
+		this.expectedRevocations = expectedRevocations;
+		this.falsePositiveProbability = falsePositiveProbability;
+		this.revokedTokenIds = new BloomFilter(expectedRevocations, falsePositiveProbability);
+		reload();
+	}
+
+	public boolean isRevoked(String tokenId) {
+		return revokedTokenIds.mightContain(tokenId) && isStored.test(tokenId);
+	}
+
+	// a reload that fails keeps the current filter, the next one tries again
+	public void reload() {
+		BloomFilter reloadedTokenIds = new BloomFilter(expectedRevocations, falsePositiveProbability);
+		try {
+			unexpiredTokenIdsLoader.get().forEach(reloadedTokenIds::add);
+		} catch (RuntimeException e) {
+			System.err.println("Unable to reload the revoked tokens: " + e.getMessage());
+			return;
+		}
+
+		revokedTokenIds = reloadedTokenIds;
+	}
+}
@@ -0,0 +1,40 @@
+package com.stevenst.lib.security;
+
+import java.time.Duration;
+import java.util.Date;
+
+import io.jsonwebtoken.Jwts;
+
+// the tokens a service sends with its calls to the other services, signed with the active key of the security
+// service (so they are verified like the tokens of the users), the same token is sent until half of its ttl is gone
+// a service token may act for any user: the other services trust the usernames in the parameters of its calls
+public class ServiceTokenIssuer {
+	private final JwtKeyRing jwtKeyRing;
+	private final String serviceName;
+	private final Duration ttl;
+	private String token;
+	private long renewAtMillis;
+
+	public ServiceTokenIssuer(JwtKeyRing jwtKeyRing, String serviceName, Duration ttl) {
+		this.jwtKeyRing = jwtKeyRing;
+		this.serviceName = serviceName;
+		this.ttl = ttl;
+	}
+
+	public synchronized String getToken() {
+		long nowMillis = System.currentTimeMillis();
+		if (token == null || nowMillis >= renewAtMillis) {
+			token = Jwts.builder()
+					.header().keyId(jwtKeyRing.getActiveKeyId()).and()
+					.claim(JwtVerifier.SERVICE_CLAIM, serviceName)
+					.subject(serviceName)
+					.issuedAt(new Date(nowMillis))
+					.expiration(new Date(nowMillis + ttl.toMillis()))
+					.signWith(jwtKeyRing.getActiveKey())
+					.compact();
+			renewAtMillis = nowMillis + ttl.toMillis() / 2;
+		}
+
+		return token;
+	}
+}
@@ -0,0 +1,7 @@
+package com.stevenst.lib.service;
+
+public interface PresignedUrlService {
+	String getPresignedUrl(String key);
+
+	void evictPresignedUrl(String key);
+}
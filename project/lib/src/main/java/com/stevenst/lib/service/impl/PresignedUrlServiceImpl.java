@@ -0,0 +1,69 @@
+package com.stevenst.lib.service.impl;
+
+import java.time.Duration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stevenst.lib.exception.IgorIoException;
+import com.stevenst.lib.service.PresignedUrlService;
+
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+
+// shared by the services that store objects in s3, each one builds it with its settings (see their AmazonS3Config)
+public class PresignedUrlServiceImpl implements PresignedUrlService {
+	private final S3Presigner s3Presigner;
+	private final String bucketName;
+	private final Duration signatureDuration;
+	// signed urls by object key, dropped before their signature expires so a cached url is always usable
+	private final Cache<String, String> presignedUrls;
+
+	public PresignedUrlServiceImpl(S3Presigner s3Presigner, String bucketName, Duration signatureDuration,
+			Duration cacheTtl, long cacheMaxSize) {
+		if (cacheTtl.compareTo(signatureDuration) >= 0) {
+			throw new IllegalStateException("The presigned url cache ttl (" + cacheTtl
+					+ ") must be shorter than the signature duration (" + signatureDuration + ").");
+		}
+
+		this.s3Presigner = s3Presigner;
+		this.bucketName = bucketName;
+		this.signatureDuration = signatureDuration;
+		this.presignedUrls = Caffeine.newBuilder()
+				.maximumSize(cacheMaxSize)
+				.expireAfterWrite(cacheTtl)
+				.build();
+	}
+
+	@Override
+	public String getPresignedUrl(String key) {
+		return presignedUrls.get(key, this::presign);
+	}
+
+	@Override
+	public void evictPresignedUrl(String key) {
+		presignedUrls.invalidate(key);
+	}
+
+	// ---------------------------------------------
+
+	private String presign(String key) {
+		GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+				.bucket(bucketName)
+				.key(key)
+				.build();
+
+		try {
+			GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
+					.getObjectRequest(getObjectRequest)
+					.signatureDuration(signatureDuration)
+					.build();
+
+			return s3Presigner.presignGetObject(presignRequest).url().toString();
+		} catch (S3Exception e) {
+			System.err.println("Unable to generate a presigned url:" + e.getMessage());
+			throw new IgorIoException(e.getMessage());
+		}
+	}
+}
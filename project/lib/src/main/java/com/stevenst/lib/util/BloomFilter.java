@@ -0,0 +1,69 @@
+package com.stevenst.lib.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// a set of strings that answers "maybe" or "certainly not" from a fixed number of bits, without storing the strings:
+// sized for expectedInsertions at falsePositiveProbability, it gets less precise (but never wrong about "not") past
+// them, the strings can't be removed, build a new one instead
+// safe to read and add to from many threads (the bits are set atomically)
+public class BloomFilter {
+	private final AtomicLongArray bits;
+	private final long bitCount;
+	private final int hashCount;
+
+	public BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+		long insertions = Math.max(1, expectedInsertions);
+		long optimalBitCount = (long) Math.ceil(-insertions * Math.log(falsePositiveProbability)
+				/ (Math.log(2) * Math.log(2)));
+		this.bits = new AtomicLongArray(Math.toIntExact(Math.max(1, (optimalBitCount + 63) / 64)));
+		this.bitCount = bits.length() * 64L;
+		this.hashCount = Math.max(1, (int) Math.round((double) bitCount / insertions * Math.log(2)));
+	}
+
+	public void add(String value) {
+		long hash1 = hash(value);
+		long hash2 = mix(hash1);
+		for (int i = 0; i < hashCount; i++) {
+			long bitIndex = Math.floorMod(hash1 + i * hash2, bitCount);
+			int wordIndex = (int) (bitIndex >>> 6);
+			long mask = 1L << bitIndex;
+			long word;
+			do {
+				word = bits.get(wordIndex);
+			} while ((word & mask) == 0 && !bits.compareAndSet(wordIndex, word, word | mask));
+		}
+	}
+
+	public boolean mightContain(String value) {
+		long hash1 = hash(value);
+		long hash2 = mix(hash1);
+		for (int i = 0; i < hashCount; i++) {
+			long bitIndex = Math.floorMod(hash1 + i * hash2, bitCount);
+			if ((bits.get((int) (bitIndex >>> 6)) & (1L << bitIndex)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// ----------------------------------------------------------------------
+
+	// fnv-1a over the utf-8 bytes
+	private static long hash(String value) {
+		long hash = 0xcbf29ce484222325L;
+		for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b;
+			hash *= 0x100000001b3L;
+		}
+		return hash;
+	}
+
+	// the second hash, derived from the first one (splitmix64), odd so every bit can be reached
+	private static long mix(long hash) {
+		long z = hash + 0x9e3779b97f4a7c15L;
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return (z ^ (z >>> 31)) | 1;
+	}
+}
@@ -0,0 +1,110 @@
+package com.stevenst.lib.util;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import com.stevenst.lib.exception.IgorMaxCapExceededException;
+import com.stevenst.lib.model.enums.ImageVariant;
+
+// creates the derived variants of uploaded images with the jdk image io (no native dependency)
+public final class ImageResizer {
+	public static final String DERIVED_CONTENT_TYPE = "image/jpeg";
+	private static final float JPEG_QUALITY = 0.8f;
+	private static final Set<String> READABLE_EXTENSIONS = Arrays.stream(ImageIO.getReaderFileSuffixes())
+			.map(suffix -> suffix.toLowerCase(Locale.ROOT))
+			.collect(Collectors.toUnmodifiableSet());
+
+	private ImageResizer() {
+	}
+
+	// images are recognized by the extension of their name so the links of the variants can be built
+	// from the media names in the db without checking the objects in the cloud
+	public static boolean isResizable(String filename) {
+		if (filename == null) {
+			return false;
+		}
+
+		int extensionIndex = filename.lastIndexOf('.');
+		return extensionIndex >= 0
+				&& READABLE_EXTENSIONS.contains(filename.substring(extensionIndex + 1).toLowerCase(Locale.ROOT));
+	}
+
+	// returns null when the bytes can't be decoded as an image
+	// the dimensions are read from the header before decoding, so a small file declaring a huge image is rejected
+	// before its pixels are allocated
+	public static BufferedImage read(byte[] image, long maxPixels) throws IOException {
+		try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(image))) {
+			Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+			if (!readers.hasNext()) {
+				return null;
+			}
+
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(input, true, true);
+				if ((long) reader.getWidth(0) * reader.getHeight(0) > maxPixels) {
+					throw new IgorMaxCapExceededException("Cannot upload an image of more than " + maxPixels + " pixels.");
+				}
+				return reader.read(0);
+			} finally {
+				reader.dispose();
+			}
+		}
+	}
+
+	// scales the image down to fit the variant (never up) and encodes it as a jpeg
+	public static byte[] resizeToJpeg(BufferedImage original, ImageVariant variant) throws IOException {
+		double scale = Math.min(1.0,
+				(double) variant.getMaxSize() / Math.max(original.getWidth(), original.getHeight()));
+		int width = Math.max(1, (int) Math.round(original.getWidth() * scale));
+		int height = Math.max(1, (int) Math.round(original.getHeight() * scale));
+
+		// jpegs have no alpha channel so the image is drawn on an opaque rgb one
+		BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = resized.createGraphics();
+		try {
+			graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			graphics.drawImage(original, 0, 0, width, height, Color.WHITE, null);
+		} finally {
+			graphics.dispose();
+		}
+
+		return encodeAsJpeg(resized);
+	}
+
+	private static byte[] encodeAsJpeg(BufferedImage image) throws IOException {
+		ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+		ImageWriteParam param = writer.getDefaultWriteParam();
+		param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+		param.setCompressionQuality(JPEG_QUALITY);
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (ImageOutputStream imageOutput = ImageIO.createImageOutputStream(output)) {
+			writer.setOutput(imageOutput);
+			writer.write(null, new IIOImage(image, null, null), param);
+		} finally {
+			writer.dispose();
+		}
+
+		return output.toByteArray();
+	}
+}
@@ -0,0 +1,63 @@
+package com.stevenst.lib.util;
+
+import java.time.Instant;
+
+// generates ids ordered by the time they were created, without a round trip to the db:
+// 41 bits of milliseconds since the epoch below | 5 bits of node id | 7 bits of sequence
+// the 53 bits fit in a javascript number, so the ids stay exact in the browser (up to 2093)
+public class SnowflakeIdGenerator {
+	public static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+	public static final int NODE_ID_BITS = 5;
+	public static final int SEQUENCE_BITS = 7;
+	public static final long MAX_NODE_ID = (1L << NODE_ID_BITS) - 1;
+	private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+	private final long nodeId;
+	private long lastTimestamp = -1;
+	private long sequence = 0;
+
+	public SnowflakeIdGenerator(long nodeId) {
+		if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+			throw new IllegalArgumentException("The node id must be between 0 and " + MAX_NODE_ID + ".");
+		}
+
+		this.nodeId = nodeId;
+	}
+
+	public synchronized long nextId() {
+		long timestamp = currentTimeMillis();
+
+		// if the clock moved backwards keep using the last timestamp so the ids stay ordered
+		if (timestamp < lastTimestamp) {
+			timestamp = lastTimestamp;
+		}
+
+		if (timestamp == lastTimestamp) {
+			sequence = (sequence + 1) & SEQUENCE_MASK;
+			// the sequence of this millisecond is exhausted, wait for the next one
+			if (sequence == 0) {
+				timestamp = waitForNextMillis(lastTimestamp);
+			}
+		} else {
+			sequence = 0;
+		}
+
+		lastTimestamp = timestamp;
+
+		return ((timestamp - EPOCH) << (NODE_ID_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+	}
+
+	protected long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+
+	private long waitForNextMillis(long lastTimestamp) {
+		long timestamp = currentTimeMillis();
+		while (timestamp <= lastTimestamp) {
+			Thread.onSpinWait();
+			timestamp = currentTimeMillis();
+		}
+
+		return timestamp;
+	}
+}
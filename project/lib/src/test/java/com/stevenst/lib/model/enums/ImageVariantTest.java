@@ -0,0 +1,23 @@
+package com.stevenst.lib.model.enums;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class ImageVariantTest {
+	@Test
+	void keyOf_withADerivedVariant_returnsTheJpegInTheFolderOfTheVariant() {
+		assertEquals("users/x/posts/1/thumbnail/photo.png.jpg", ImageVariant.THUMBNAIL.keyOf("users/x/posts/1/photo.png"));
+		assertEquals("users/x/preview/photo.jpg.jpg", ImageVariant.PREVIEW.keyOf("users/x/photo.jpg"));
+	}
+
+	@Test
+	void keyOf_withAKeyWithoutFolders_putsTheVariantFolderFirst() {
+		assertEquals("thumbnail/photo.png.jpg", ImageVariant.THUMBNAIL.keyOf("photo.png"));
+	}
+
+	@Test
+	void keyOf_withTheOriginal_returnsTheKeyItself() {
+		assertEquals("users/x/posts/1/photo.png", ImageVariant.ORIGINAL.keyOf("users/x/posts/1/photo.png"));
+	}
+}
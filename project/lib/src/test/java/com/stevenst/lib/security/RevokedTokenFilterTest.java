@@ -0,0 +1,60 @@
+package com.stevenst.lib.security;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class RevokedTokenFilterTest {
+	private final List<String> storedTokenIds = new ArrayList<>(List.of("revoked-on-startup"));
+	private boolean isTableReachable = true;
+
+	@Test
+	void isRevoked_withTheTokensStoredOnTheLastReload_rejectsOnlyThem() {
+		RevokedTokenFilter revokedTokenFilter = createRevokedTokenFilter();
+		storedTokenIds.add("revoked-later");
+
+		assertTrue(revokedTokenFilter.isRevoked("revoked-on-startup"));
+		assertFalse(revokedTokenFilter.isRevoked("revoked-later"));
+		assertFalse(revokedTokenFilter.isRevoked("never-revoked"));
+
+		revokedTokenFilter.reload();
+
+		assertTrue(revokedTokenFilter.isRevoked("revoked-later"));
+	}
+
+	@Test
+	void isRevoked_withATokenNoLongerStored_acceptsIt() {
+		RevokedTokenFilter revokedTokenFilter = createRevokedTokenFilter();
+
+		// expired and deleted since the last reload
+		storedTokenIds.clear();
+
+		assertFalse(revokedTokenFilter.isRevoked("revoked-on-startup"));
+	}
+
+	@Test
+	void reload_thatFails_keepsTheCurrentFilter() {
+		RevokedTokenFilter revokedTokenFilter = createRevokedTokenFilter();
+		isTableReachable = false;
+
+		revokedTokenFilter.reload();
+
+		isTableReachable = true;
+		assertTrue(revokedTokenFilter.isRevoked("revoked-on-startup"));
+	}
+
+	// ----------------------------------------------------------------------
+
+	private RevokedTokenFilter createRevokedTokenFilter() {
+		return new RevokedTokenFilter(() -> {
+			if (!isTableReachable) {
+				throw new IllegalStateException("db down");
+			}
+			return List.copyOf(storedTokenIds);
+		}, storedTokenIds::contains, 1000, 0.01);
+	}
+}
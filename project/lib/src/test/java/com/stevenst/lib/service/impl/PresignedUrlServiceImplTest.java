@@ -0,0 +1,68 @@
+package com.stevenst.lib.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.URL;
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+
+class PresignedUrlServiceImplTest {
+	private static final String KEY = "users/testusername/posts/1/test.jpg";
+	private static final String URL = "https://bucket.s3.eu-central-1.amazonaws.com/" + KEY + "?X-Amz-Signature=test";
+
+	@Mock
+	private S3Presigner s3Presigner;
+
+	private PresignedUrlServiceImpl presignedUrlService;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		MockitoAnnotations.openMocks(this);
+
+		PresignedGetObjectRequest presignedRequest = mock(PresignedGetObjectRequest.class);
+		when(presignedRequest.url()).thenReturn(new URL(URL));
+		when(s3Presigner.presignGetObject(any(GetObjectPresignRequest.class))).thenReturn(presignedRequest);
+
+		presignedUrlService = new PresignedUrlServiceImpl(s3Presigner, "bucket", Duration.ofMinutes(60),
+				Duration.ofMinutes(50), 100);
+	}
+
+	@Test
+	void getPresignedUrl_presignsEachKeyOnce() {
+		assertEquals(URL, presignedUrlService.getPresignedUrl(KEY));
+		assertEquals(URL, presignedUrlService.getPresignedUrl(KEY));
+
+		verify(s3Presigner, times(1)).presignGetObject(any(GetObjectPresignRequest.class));
+	}
+
+	@Test
+	void evictPresignedUrl_presignsTheKeyAgain() {
+		presignedUrlService.getPresignedUrl(KEY);
+		presignedUrlService.evictPresignedUrl(KEY);
+		presignedUrlService.getPresignedUrl(KEY);
+
+		verify(s3Presigner, times(2)).presignGetObject(any(GetObjectPresignRequest.class));
+	}
+
+	@Test
+	void constructor_rejectsACacheTtlNotShorterThanTheSignature() {
+		Duration signatureDuration = Duration.ofMinutes(60);
+
+		assertThrows(IllegalStateException.class, () -> new PresignedUrlServiceImpl(s3Presigner, "bucket",
+				signatureDuration, signatureDuration, 100));
+	}
+}
@@ -0,0 +1,91 @@
+package com.stevenst.lib.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+
+import com.stevenst.lib.exception.IgorMaxCapExceededException;
+import com.stevenst.lib.model.enums.ImageVariant;
+
+class ImageResizerTest {
+	private static final long MAX_PIXELS = 1_000_000;
+
+	@Test
+	void isResizable_recognizesTheImagesByTheirExtension() {
+		assertTrue(ImageResizer.isResizable("photo.PNG"));
+		assertTrue(ImageResizer.isResizable("users/x/posts/1/photo.jpg"));
+		assertFalse(ImageResizer.isResizable("video.mp4"));
+		assertFalse(ImageResizer.isResizable("noextension"));
+		assertFalse(ImageResizer.isResizable(null));
+	}
+
+	@Test
+	void read_withAnImageUnderTheMaxPixels_decodesIt() throws IOException {
+		BufferedImage image = ImageResizer.read(createPng(400, 300), MAX_PIXELS);
+
+		assertEquals(400, image.getWidth());
+		assertEquals(300, image.getHeight());
+	}
+
+	@Test
+	void read_withAnImageOverTheMaxPixels_rejectsIt() throws IOException {
+		byte[] png = createPng(2000, 1000);
+
+		assertThrows(IgorMaxCapExceededException.class, () -> ImageResizer.read(png, MAX_PIXELS));
+	}
+
+	@Test
+	void read_withBytesThatAreNotAnImage_returnsNull() throws IOException {
+		assertNull(ImageResizer.read("not an image".getBytes(), MAX_PIXELS));
+	}
+
+	@Test
+	void resizeToJpeg_withALandscapeImage_fitsItsWidthAndKeepsTheAspectRatio() throws IOException {
+		BufferedImage resized = decode(ImageResizer.resizeToJpeg(new BufferedImage(800, 400,
+				BufferedImage.TYPE_INT_ARGB), ImageVariant.THUMBNAIL));
+
+		assertEquals(160, resized.getWidth());
+		assertEquals(80, resized.getHeight());
+	}
+
+	@Test
+	void resizeToJpeg_withAPortraitImage_fitsItsHeightAndKeepsTheAspectRatio() throws IOException {
+		BufferedImage resized = decode(ImageResizer.resizeToJpeg(new BufferedImage(300, 1200,
+				BufferedImage.TYPE_INT_RGB), ImageVariant.THUMBNAIL));
+
+		assertEquals(40, resized.getWidth());
+		assertEquals(160, resized.getHeight());
+	}
+
+	@Test
+	void resizeToJpeg_withAnImageSmallerThanTheVariant_neverScalesItUp() throws IOException {
+		BufferedImage resized = decode(ImageResizer.resizeToJpeg(new BufferedImage(100, 50,
+				BufferedImage.TYPE_INT_RGB), ImageVariant.PREVIEW));
+
+		assertEquals(100, resized.getWidth());
+		assertEquals(50, resized.getHeight());
+	}
+
+	// --------------------------------------------------------
+
+	private byte[] createPng(int width, int height) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", output);
+		return output.toByteArray();
+	}
+
+	private BufferedImage decode(byte[] image) throws IOException {
+		return ImageIO.read(new ByteArrayInputStream(image));
+	}
+}
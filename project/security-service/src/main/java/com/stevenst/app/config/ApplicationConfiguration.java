@@ -3,6 +3,7 @@ package com.stevenst.app.config;
 import com.stevenst.app.exception.IgorAuthenticationException;
 import com.stevenst.app.repository.AuthRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -16,6 +17,9 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 @RequiredArgsConstructor
 public class ApplicationConfiguration {
 	private final AuthRepository authRepository;
+	// the cost (log2 of the rounds) of the new hashes, the old ones are remade on login (see PasswordHashingService)
+	@Value("${password-hashing.bcrypt-strength}")
+	private int bcryptStrength;
 
 	@Bean
 	UserDetailsService userDetailsService() {
@@ -40,6 +44,6 @@ public class ApplicationConfiguration {
 
 	@Bean
 	BCryptPasswordEncoder passwordEncoder() {
-		return new BCryptPasswordEncoder();
+		return new BCryptPasswordEncoder(bcryptStrength);
 	}
 }
@@ -0,0 +1,38 @@
+package com.stevenst.app.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.stevenst.app.service.AuthenticatedUserService;
+import com.stevenst.app.service.TokenRevocationService;
+import com.stevenst.lib.security.JwtAuthenticationFilter;
+import com.stevenst.lib.security.JwtKeyRing;
+import com.stevenst.lib.security.JwtVerifier;
+
+@Configuration
+public class JwtConfig {
+	@Bean
+	JwtKeyRing jwtKeyRing(@Value("${jwt.key-id}") String keyId, @Value("${jwt.secret-key}") String secretKey,
+			@Value("${jwt.previous-keys}") List<String> previousKeys) {
+		return JwtKeyRing.of(keyId, secretKey, previousKeys);
+	}
+
+	@Bean
+	JwtVerifier jwtVerifier(JwtKeyRing jwtKeyRing,
+			@Value("${jwt.verified-token-cache.max-size}") long verifiedTokenCacheMaxSize,
+			@Value("${jwt.verified-token-cache.ttl}") Duration verifiedTokenCacheTtl) {
+		return new JwtVerifier(jwtKeyRing, verifiedTokenCacheMaxSize, verifiedTokenCacheTtl);
+	}
+
+	// the tokens issued before they carried the claims of the user load it
+	@Bean
+	JwtAuthenticationFilter jwtAuthenticationFilter(JwtVerifier jwtVerifier,
+			AuthenticatedUserService authenticatedUserService, TokenRevocationService tokenRevocationService) {
+		return new JwtAuthenticationFilter(jwtVerifier, authenticatedUserService::getAuthenticatedUser,
+				tokenRevocationService::isRevoked);
+	}
+}
@@ -1,14 +1,17 @@
 package com.stevenst.app.controller;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.stevenst.app.controller.api.AuthenticationApi;
 import com.stevenst.app.payload.AuthRequest;
 import com.stevenst.app.payload.AuthResponse;
+import com.stevenst.app.payload.RefreshRequest;
 import com.stevenst.app.payload.RegisterRequest;
 import com.stevenst.app.service.impl.AuthenticationServiceImpl;
 
@@ -29,4 +32,17 @@ public class AuthenticationController implements AuthenticationApi {
 	public ResponseEntity<AuthResponse> login(@RequestBody AuthRequest request) {
 		return ResponseEntity.ok(authService.login(request));
 	}
+
+	@PostMapping("/refresh")
+	public ResponseEntity<AuthResponse> refresh(@RequestBody RefreshRequest request) {
+		return ResponseEntity.ok(authService.refresh(request));
+	}
+
+	@PostMapping("/logout")
+	public ResponseEntity<Void> logout(
+			@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authHeader,
+			@RequestBody(required = false) RefreshRequest request) {
+		authService.logout(authHeader, request);
+		return ResponseEntity.ok().build();
+	}
 }
@@ -0,0 +1,25 @@
+package com.stevenst.app.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.stevenst.app.payload.PasswordHashingStatsPayload;
+import com.stevenst.app.service.PasswordHashingService;
+
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequiredArgsConstructor
+@SecurityRequirement(name = "bearerAuth")
+@RequestMapping("/api/security")
+public class PasswordHashingController {
+	private final PasswordHashingService passwordHashingService;
+
+	@GetMapping("/getPasswordHashingStats")
+	public ResponseEntity<PasswordHashingStatsPayload> getPasswordHashingStats() {
+		return ResponseEntity.ok(passwordHashingService.getStats());
+	}
+}
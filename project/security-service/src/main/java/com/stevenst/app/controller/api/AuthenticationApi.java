@@ -6,6 +6,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 
 import com.stevenst.app.payload.AuthRequest;
 import com.stevenst.app.payload.AuthResponse;
+import com.stevenst.app.payload.RefreshRequest;
 import com.stevenst.app.payload.RegisterRequest;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -32,4 +33,18 @@ public interface AuthenticationApi {
 			@ApiResponse(responseCode = "401", description = "Unauthorized - token expired", content = @Content) })
 
 	public ResponseEntity<AuthResponse> login(@RequestBody AuthRequest request);
-}
\ No newline at end of file
+
+	@Operation(summary = "Refresh", description = "Exchange a refresh token for a new JWT token and the next refresh token (the given one can't be used again)", tags = "Authentication")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Refresh Successful", content = {
+					@Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = AuthResponse.class)) }),
+			@ApiResponse(responseCode = "401", description = "Unauthorized - invalid, expired, revoked or already used refresh token", content = @Content) })
+
+	public ResponseEntity<AuthResponse> refresh(@RequestBody RefreshRequest request);
+
+	@Operation(summary = "Logout", description = "Revoke the JWT token of the Authorization header and the refresh tokens of the session", tags = "Authentication")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Logout Successful", content = @Content) })
+
+	public ResponseEntity<Void> logout(String authHeader, @RequestBody RefreshRequest request);
+}
@@ -10,6 +10,8 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+import com.stevenst.lib.exception.IgorServiceUnavailableException;
+
 import io.jsonwebtoken.security.SignatureException;
 
 @ControllerAdvice
@@ -42,6 +44,13 @@ public class GlobalExceptionHandler {
         return buildResponseEntity(HttpStatus.UNAUTHORIZED, ex.getMessage());
     }
 
+    @ResponseBody
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler(IgorServiceUnavailableException.class)
+    public ApiExceptionFormat handleIgorServiceUnavailableException(IgorServiceUnavailableException ex) {
+        return buildResponseEntity(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+    }
+
     // -------------------------------------------------------------------
 
     private ApiExceptionFormat buildResponseEntity(HttpStatus status, String message) {
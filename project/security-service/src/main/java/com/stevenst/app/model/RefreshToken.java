@@ -0,0 +1,57 @@
+package com.stevenst.app.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import com.stevenst.lib.model.User;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+// a refresh token is used once: refreshing marks it as used and issues the next one of its family (the tokens
+// rotated from the same login), so a used token presented again (after a short grace period, for the tabs refreshing
+// at once) means it was stolen and its family is revoked
+// only the hash of the token is stored
+@Entity
+@Table(name = "\"refresh_token\"", indexes = {
+		@Index(name = "idx_refresh_token_token_hash", columnList = "\"token_hash\"", unique = true),
+		@Index(name = "idx_refresh_token_family_id", columnList = "\"family_id\""),
+		@Index(name = "idx_refresh_token_expires_at", columnList = "\"expires_at\"") })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshToken {
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "\"token_hash\"", nullable = false, length = 64)
+	private String tokenHash;
+
+	@Column(name = "\"family_id\"", nullable = false, length = 36)
+	private String familyId;
+
+	@ManyToOne(optional = false, fetch = FetchType.LAZY)
+	@JoinColumn(name = "\"user_id\"", nullable = false)
+	private User user;
+
+	@Column(name = "\"expires_at\"", nullable = false)
+	private LocalDateTime expiresAt;
+
+	private LocalDateTime usedAt;
+
+	private boolean revoked;
+}
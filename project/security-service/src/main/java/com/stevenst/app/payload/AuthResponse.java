@@ -11,10 +11,12 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 public class AuthResponse {
 	private String token;
+	private String refreshToken;
 	private String error;
 
 	public static class AuthenticationResponseBuilder {
         private String token;
+        private String refreshToken;
         private String error;
 
         public AuthenticationResponseBuilder token(String token) {
@@ -22,13 +24,18 @@ public class AuthResponse {
             return this;
         }
 
+        public AuthenticationResponseBuilder refreshToken(String refreshToken) {
+            this.refreshToken = refreshToken;
+            return this;
+        }
+
         public AuthenticationResponseBuilder error(String error) {
             this.error = error;
             return this;
         }
 
         public AuthResponse build() {
-            return new AuthResponse(this.token, this.error);
+            return new AuthResponse(this.token, this.refreshToken, this.error);
         }
     }
 }
@@ -0,0 +1,23 @@
+package com.stevenst.app.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PasswordHashingStatsPayload {
+	private int bcryptStrength;
+	private int threads;
+	private int activeThreads;
+	private int queuedHashes;
+	private int queueCapacity;
+	private long completedHashes;
+	private long rejectedHashes;
+	private double averageHashMillis;
+	private double maxHashMillis;
+	private double averageQueueWaitMillis;
+}
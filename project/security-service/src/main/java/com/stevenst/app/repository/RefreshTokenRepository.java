@@ -0,0 +1,38 @@
+package com.stevenst.app.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.stevenst.app.model.RefreshToken;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+   @Query("SELECT r FROM RefreshToken r JOIN FETCH r.user WHERE r.tokenHash = :tokenHash")
+   Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+   // 0 when the token was already used (or revoked) meanwhile, so two refreshes with the same token can't both win
+   @Modifying
+   @Transactional
+   @Query("UPDATE RefreshToken r SET r.usedAt = :usedAt WHERE r.id = :id AND r.usedAt IS NULL AND r.revoked = false")
+   int markAsUsed(Long id, LocalDateTime usedAt);
+
+   // read from the database (not the loaded entity) after markAsUsed returned 0, empty once the token is revoked
+   @Query("SELECT r.usedAt FROM RefreshToken r WHERE r.id = :id AND r.revoked = false")
+   Optional<LocalDateTime> findUsedAtOfNotRevoked(Long id);
+
+   @Modifying
+   @Transactional
+   @Query("UPDATE RefreshToken r SET r.revoked = true WHERE r.familyId = :familyId")
+   int revokeFamily(String familyId);
+
+   @Modifying
+   @Transactional
+   @Query("DELETE FROM RefreshToken r WHERE r.expiresAt < :now")
+   int deleteAllExpired(LocalDateTime now);
+}
@@ -0,0 +1,23 @@
+package com.stevenst.app.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.stevenst.lib.model.RevokedToken;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+   @Query("SELECT r.tokenId FROM RevokedToken r WHERE r.expiresAt >= :now")
+   List<String> findAllUnexpiredTokenIds(LocalDateTime now);
+
+   @Modifying
+   @Transactional
+   @Query("DELETE FROM RevokedToken r WHERE r.expiresAt < :now")
+   int deleteAllExpired(LocalDateTime now);
+}
@@ -0,0 +1,9 @@
+package com.stevenst.app.service;
+
+import com.stevenst.lib.security.AuthenticatedUser;
+
+public interface AuthenticatedUserService {
+	AuthenticatedUser getAuthenticatedUser(String email);
+
+	void invalidate(String email);
+}
@@ -2,10 +2,15 @@ package com.stevenst.app.service;
 
 import com.stevenst.app.payload.AuthRequest;
 import com.stevenst.app.payload.AuthResponse;
+import com.stevenst.app.payload.RefreshRequest;
 import com.stevenst.app.payload.RegisterRequest;
 
 public interface AuthenticationService {
 	AuthResponse register(RegisterRequest request);
 
 	AuthResponse login(AuthRequest request);
+
+	AuthResponse refresh(RefreshRequest request);
+
+	void logout(String authHeader, RefreshRequest request);
 }
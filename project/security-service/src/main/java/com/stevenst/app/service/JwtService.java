@@ -1,16 +1,23 @@
 package com.stevenst.app.service;
 
 import java.util.Date;
+import java.util.Optional;
 import java.util.function.Function;
 
 import org.springframework.stereotype.Service;
 
 import com.stevenst.lib.model.User;
+import com.stevenst.lib.security.AuthenticatedUser;
 
 import io.jsonwebtoken.Claims;
 
 @Service
 public interface JwtService {
+	// verifies the token and returns its claims
+	Claims parseToken(String token);
+
+	Optional<AuthenticatedUser> extractAuthenticatedUser(Claims claims);
+
 	String extractEmail(String token);
 
 	<T> T extractClaim(String token, Function<Claims, T> claimsResolver);
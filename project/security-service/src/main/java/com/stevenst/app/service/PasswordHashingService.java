@@ -0,0 +1,13 @@
+package com.stevenst.app.service;
+
+import com.stevenst.app.payload.PasswordHashingStatsPayload;
+
+public interface PasswordHashingService {
+	String encode(String rawPassword);
+
+	boolean matches(String rawPassword, String encodedPassword);
+
+	boolean needsRehash(String encodedPassword);
+
+	PasswordHashingStatsPayload getStats();
+}
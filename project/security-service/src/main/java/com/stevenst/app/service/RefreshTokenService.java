@@ -0,0 +1,16 @@
+package com.stevenst.app.service;
+
+import com.stevenst.app.model.RefreshToken;
+import com.stevenst.lib.model.User;
+
+public interface RefreshTokenService {
+	String issue(User user);
+
+	String issue(User user, String familyId);
+
+	RefreshToken use(String refreshToken);
+
+	void revoke(String refreshToken);
+
+	int deleteAllExpired();
+}
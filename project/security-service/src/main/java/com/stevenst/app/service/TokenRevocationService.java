@@ -0,0 +1,11 @@
+package com.stevenst.app.service;
+
+import java.util.Date;
+
+public interface TokenRevocationService {
+	void revoke(String tokenId, Date expiresAt);
+
+	boolean isRevoked(String tokenId);
+
+	void reloadRevokedTokens();
+}
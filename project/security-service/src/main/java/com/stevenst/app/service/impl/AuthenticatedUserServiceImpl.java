@@ -0,0 +1,47 @@
+package com.stevenst.app.service.impl;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stevenst.app.repository.AuthRepository;
+import com.stevenst.app.service.AuthenticatedUserService;
+import com.stevenst.lib.security.AuthenticatedUser;
+
+// the users loaded for the tokens that don't carry their claims, and for the checks that need the current data of a
+// user, kept for a short while, a user whose tokens are revoked (or who changes) must be invalidated
+@Service
+public class AuthenticatedUserServiceImpl implements AuthenticatedUserService {
+	private final AuthRepository authRepository;
+	private final Cache<String, AuthenticatedUser> authenticatedUsersByEmail;
+
+	public AuthenticatedUserServiceImpl(AuthRepository authRepository,
+			@Value("${jwt.authenticated-user-cache.max-size}") long maxSize,
+			@Value("${jwt.authenticated-user-cache.ttl}") Duration ttl) {
+		this.authRepository = authRepository;
+		this.authenticatedUsersByEmail = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(ttl)
+				.build();
+	}
+
+	@Override
+	public AuthenticatedUser getAuthenticatedUser(String email) {
+		AuthenticatedUser authenticatedUser = authenticatedUsersByEmail.get(email,
+				key -> authRepository.findByEmail(key).map(AuthenticatedUser::of).orElse(null));
+		if (authenticatedUser == null) {
+			throw new UsernameNotFoundException("Email not found");
+		}
+
+		return authenticatedUser;
+	}
+
+	@Override
+	public void invalidate(String email) {
+		authenticatedUsersByEmail.invalidate(email);
+	}
+}
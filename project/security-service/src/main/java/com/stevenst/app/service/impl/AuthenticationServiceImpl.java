@@ -3,28 +3,36 @@ package com.stevenst.app.service.impl;
 import com.stevenst.app.exception.IgorAuthenticationException;
 import com.stevenst.app.payload.AuthRequest;
 import com.stevenst.app.payload.AuthResponse;
+import com.stevenst.app.payload.RefreshRequest;
 import com.stevenst.app.payload.RegisterRequest;
+import com.stevenst.lib.exception.IgorServiceUnavailableException;
 import com.stevenst.lib.model.User;
+import com.stevenst.app.model.RefreshToken;
 import com.stevenst.app.repository.AuthRepository;
+import com.stevenst.app.service.AuthenticatedUserService;
 import com.stevenst.app.service.AuthenticationService;
+import com.stevenst.app.service.PasswordHashingService;
+import com.stevenst.app.service.RefreshTokenService;
+import com.stevenst.app.service.TokenRevocationService;
 
 import lombok.RequiredArgsConstructor;
 
 import java.util.Optional;
 
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.AuthenticationException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+
 @Service
 @RequiredArgsConstructor
 public class AuthenticationServiceImpl implements AuthenticationService {
 	private final AuthRepository authRepository;
-	private final PasswordEncoder passwordEncoder;
+	private final PasswordHashingService passwordHashingService;
 	private final JwtServiceImpl jwtService;
-	private final AuthenticationManager authenticationManager;
+	private final RefreshTokenService refreshTokenService;
+	private final TokenRevocationService tokenRevocationService;
+	private final AuthenticatedUserService authenticatedUserService;
 	private static final String CREDENTIALS_EMPTY_MESSAGE = "Credentials cannot be empty";
 	private static final String INVALID_CREDENTIALS_OR_INEXISTENT_ACC_MESSAGE = "Invalid credentials or inexistent account";
 
@@ -47,7 +55,7 @@ public class AuthenticationServiceImpl implements AuthenticationService {
 
 		var user = User.builder()
 				.email(request.getEmail())
-				.password(passwordEncoder.encode(request.getPassword()))
+				.password(passwordHashingService.encode(request.getPassword()))
 				.username(request.getUsername())
 				.build();
 
@@ -56,6 +64,7 @@ public class AuthenticationServiceImpl implements AuthenticationService {
 
 		return AuthResponse.builder()
 				.token(jwtToken)
+				.refreshToken(refreshTokenService.issue(user))
 				.build();
 	}
 
@@ -67,17 +76,62 @@ public class AuthenticationServiceImpl implements AuthenticationService {
 
 		var user = authRepository.findByEmail(request.getEmail())
 				.orElseThrow(() -> new IgorAuthenticationException(INVALID_CREDENTIALS_OR_INEXISTENT_ACC_MESSAGE));
-		try {
-			authenticationManager
-					.authenticate(new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword()));
-		} catch (AuthenticationException e) {
+		// checked against the user loaded above instead of going through the authentication manager (which would
+		// load it again), the hash is made on the password hashing pool
+		if (!passwordHashingService.matches(request.getPassword(), user.getPassword())) {
 			throw new IgorAuthenticationException(INVALID_CREDENTIALS_OR_INEXISTENT_ACC_MESSAGE);
 		}
+		if (passwordHashingService.needsRehash(user.getPassword())) {
+			rehashPassword(user, request.getPassword());
+		}
 
 		var jwtToken = jwtService.generateToken(user);
 
 		return AuthResponse.builder()
 				.token(jwtToken)
+				.refreshToken(refreshTokenService.issue(user))
 				.build();
 	}
+
+	// no password check, the refresh token is the proof, it is replaced by the next one of its family
+	public AuthResponse refresh(RefreshRequest request) {
+		RefreshToken usedToken = refreshTokenService.use(request.getRefreshToken());
+		User user = usedToken.getUser();
+
+		return AuthResponse.builder()
+				.token(jwtService.generateToken(user))
+				.refreshToken(refreshTokenService.issue(user, usedToken.getFamilyId()))
+				.build();
+	}
+
+	// revokes the access token (if it is still valid) and the refresh tokens of the session
+	public void logout(String authHeader, RefreshRequest request) {
+		if (authHeader != null && authHeader.startsWith("Bearer ")) {
+			try {
+				Claims claims = jwtService.parseToken(jwtService.extractToken(authHeader));
+				if (claims.getId() != null) {
+					tokenRevocationService.revoke(claims.getId(), claims.getExpiration());
+				}
+				authenticatedUserService.invalidate(claims.getSubject());
+			} catch (JwtException e) {
+				// an expired or invalid token can't be used anyway
+			}
+		}
+
+		if (request != null) {
+			refreshTokenService.revoke(request.getRefreshToken());
+		}
+	}
+
+	// ---------------------------------------------
+
+	// with the current bcrypt-strength, a busy pool only postpones it to the next login
+	private void rehashPassword(User user, String rawPassword) {
+		try {
+			user.setPassword(passwordHashingService.encode(rawPassword));
+			authRepository.save(user);
+		} catch (IgorServiceUnavailableException e) {
+			System.err.println("Unable to rehash the password of " + user.getEmail() + ": " + e.getMessage());
+		}
+	}
 }
@@ -1,30 +1,51 @@
 package com.stevenst.app.service.impl;
 
-import java.security.Key;
+import java.time.Duration;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
 import java.util.function.Function;
 
-import javax.crypto.SecretKey;
-import javax.crypto.spec.SecretKeySpec;
-
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.stevenst.lib.model.User;
+import com.stevenst.lib.security.AuthenticatedUser;
+import com.stevenst.lib.security.JwtKeyRing;
+import com.stevenst.lib.security.JwtVerifier;
 import com.stevenst.app.service.JwtService;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
 
+// the tokens are signed with the active key of the key ring (its id goes in the kid header) and verified through the
+// same JwtVerifier the other services use
+// the tokens of a user carry its id, username and role, so a request is authenticated without loading the user
+// they are short lived (access-token-ttl) and renewed with a refresh token, each one has an id so it can be revoked
 @Service
 public class JwtServiceImpl implements JwtService {
-	@Value("${jwt.secret-key}")
-	private String secretKey;
-	private static final long EXPIRATION_TIME = 24L * 60L * 60L * 1000L; // 24 hours
+	private final JwtKeyRing jwtKeyRing;
+	private final JwtVerifier jwtVerifier;
+	private final Duration accessTokenTtl;
+
+	public JwtServiceImpl(JwtKeyRing jwtKeyRing, JwtVerifier jwtVerifier,
+			@Value("${jwt.access-token-ttl}") Duration accessTokenTtl) {
+		this.jwtKeyRing = jwtKeyRing;
+		this.jwtVerifier = jwtVerifier;
+		this.accessTokenTtl = accessTokenTtl;
+	}
+
+	@Override
+	public Claims parseToken(String token) {
+		return jwtVerifier.verify(token);
+	}
+
+	@Override
+	public Optional<AuthenticatedUser> extractAuthenticatedUser(Claims claims) {
+		return jwtVerifier.extractAuthenticatedUser(claims);
+	}
 
 	@Override
 	public String extractEmail(String token) {
@@ -33,7 +54,7 @@ public class JwtServiceImpl implements JwtService {
 
 	@Override
 	public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-		final Claims claims = extractAllClaims(token);
+		final Claims claims = parseToken(token);
 		return claimsResolver.apply(claims);
 	}
 
@@ -44,19 +65,23 @@ public class JwtServiceImpl implements JwtService {
 
 	@Override
 	public String generateToken(User user) {
-		return generateToken(new HashMap<>(), user);
+		Map<String, Object> userClaims = new HashMap<>();
+		userClaims.put(JwtVerifier.USER_ID_CLAIM, user.getId());
+		userClaims.put(JwtVerifier.USERNAME_CLAIM, user.getUsername());
+		userClaims.put(JwtVerifier.ROLE_CLAIM, user.getRole().name());
+
+		return generateToken(userClaims, user.getEmail());
 	}
 
 	@Override
 	public boolean isTokenValid(String token, User user) {
-		final String extractedEmail = extractEmail(token);
-		return (extractedEmail.equals(user.getEmail()) && !isTokenExpired(token));
+		return isTokenValid(token, user.getEmail());
 	}
 
 	@Override
 	public boolean isTokenValid(String token, String email) {
-		final String extractedEmail = extractEmail(token);
-		return (extractedEmail.equals(email) && !isTokenExpired(token));
+		final Claims claims = parseToken(token);
+		return (claims.getSubject().equals(email) && !claims.getExpiration().before(new Date()));
 	}
 
 	@Override
@@ -77,44 +102,16 @@ public class JwtServiceImpl implements JwtService {
 		return authHeader.substring(7);
 	}
 
-	private String generateToken(Map<String, Object> extraClaims, User user) {
-		return Jwts
-				.builder()
-				.claims(extraClaims)
-				.subject(user.getEmail())
-				.issuedAt(new Date(System.currentTimeMillis()))
-				.expiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-				.signWith(getSignInKey())
-				.compact();
-	}
-	// TODO: check if the key is enough without the signature algorithm
-
 	private String generateToken(Map<String, Object> extraClaims, String email) {
 		return Jwts
 				.builder()
+				.header().keyId(jwtKeyRing.getActiveKeyId()).and()
 				.claims(extraClaims)
+				.id(UUID.randomUUID().toString())
 				.subject(email)
 				.issuedAt(new Date(System.currentTimeMillis()))
-				.expiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-				.signWith(getSignInKey())
+				.expiration(new Date(System.currentTimeMillis() + accessTokenTtl.toMillis()))
+				.signWith(jwtKeyRing.getActiveKey())
 				.compact();
 	}
-
-	private Claims extractAllClaims(String token) {
-		Key key = getSignInKey();
-		SecretKey secretKey2 = new SecretKeySpec(key.getEncoded(), key.getAlgorithm());
-
-		return Jwts.parser()
-				.verifyWith(secretKey2)
-				.build()
-				.parseSignedClaims(token)
-				.getPayload();
-	}
-
-	private Key getSignInKey() {
-		byte[] keyBites = Decoders.BASE64.decode(secretKey);
-		return Keys.hmacShaKeyFor(keyBites);
-	}
 }
-
-//TODO: test this class (ex: check if the token returns the right email)
@@ -0,0 +1,151 @@
+package com.stevenst.app.service.impl;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import com.stevenst.app.payload.PasswordHashingStatsPayload;
+import com.stevenst.app.service.PasswordHashingService;
+import com.stevenst.lib.exception.IgorServiceUnavailableException;
+
+import jakarta.annotation.PreDestroy;
+
+// bcrypt is slow on purpose, so the hashes are made on a bounded pool of their own instead of the request threads,
+// a burst of logins then waits in (or is turned away by) its queue instead of taking the cpu of every other endpoint
+// when the queue is full the login fails right away with a 503 instead of piling up behind the others
+@Service
+public class PasswordHashingServiceImpl implements PasswordHashingService {
+	// $2a$10$... the cost is the 2 digits after the version
+	private static final Pattern BCRYPT_COST_PATTERN = Pattern.compile("^\\$2[abyx]?\\$(\\d{2})\\$");
+	private static final String SATURATED_MESSAGE = "Too many logins at the moment, try again in a few seconds";
+	private final BCryptPasswordEncoder passwordEncoder;
+	private final int bcryptStrength;
+	private final int queueCapacity;
+	private final long timeoutMillis;
+	private final ThreadPoolExecutor hashingExecutor;
+	private final LongAdder completedHashes = new LongAdder();
+	private final LongAdder rejectedHashes = new LongAdder();
+	private final LongAdder totalHashNanos = new LongAdder();
+	private final LongAccumulator maxHashNanos = new LongAccumulator(Math::max, 0);
+	private final LongAdder totalQueueWaitNanos = new LongAdder();
+
+	public PasswordHashingServiceImpl(BCryptPasswordEncoder passwordEncoder,
+			@Value("${password-hashing.bcrypt-strength}") int bcryptStrength,
+			@Value("${password-hashing.threads}") int threads,
+			@Value("${password-hashing.queue-capacity}") int queueCapacity,
+			@Value("${password-hashing.timeout}") Duration timeout) {
+		this.passwordEncoder = passwordEncoder;
+		this.bcryptStrength = bcryptStrength;
+		this.queueCapacity = queueCapacity;
+		this.timeoutMillis = timeout.toMillis();
+		AtomicInteger threadCount = new AtomicInteger();
+		this.hashingExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+					Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.AbortPolicy());
+	}
+
+	@PreDestroy
+	void shutdown() {
+		hashingExecutor.shutdown();
+	}
+
+	@Override
+	public String encode(String rawPassword) {
+		return hash(() -> passwordEncoder.encode(rawPassword));
+	}
+
+	@Override
+	public boolean matches(String rawPassword, String encodedPassword) {
+		return hash(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+	}
+
+	// the hashes made with another cost (before bcrypt-strength was changed) are remade on the next login, when the
+	// raw password is known
+	@Override
+	public boolean needsRehash(String encodedPassword) {
+		if (encodedPassword == null) {
+			return false;
+		}
+
+		Matcher matcher = BCRYPT_COST_PATTERN.matcher(encodedPassword);
+		return matcher.find() && Integer.parseInt(matcher.group(1)) != bcryptStrength;
+	}
+
+	@Override
+	public PasswordHashingStatsPayload getStats() {
+		long hashCount = completedHashes.sum();
+
+		return PasswordHashingStatsPayload.builder()
+				.bcryptStrength(bcryptStrength)
+				.threads(hashingExecutor.getMaximumPoolSize())
+				.activeThreads(hashingExecutor.getActiveCount())
+				.queuedHashes(hashingExecutor.getQueue().size())
+				.queueCapacity(queueCapacity)
+				.completedHashes(hashCount)
+				.rejectedHashes(rejectedHashes.sum())
+				.averageHashMillis(hashCount == 0 ? 0 : totalHashNanos.sum() / 1e6 / hashCount)
+				.maxHashMillis(maxHashNanos.get() / 1e6)
+				.averageQueueWaitMillis(hashCount == 0 ? 0 : totalQueueWaitNanos.sum() / 1e6 / hashCount)
+				.build();
+	}
+
+	// ---------------------------------------------
+
+	// the request thread waits for the hash (up to the timeout), it just doesn't spend its cpu on it
+	private <T> T hash(Supplier<T> hashing) {
+		long submittedAt = System.nanoTime();
+		Future<T> result;
+		try {
+			result = hashingExecutor.submit(() -> {
+				long startedAt = System.nanoTime();
+				try {
+					return hashing.get();
+				} finally {
+					long hashNanos = System.nanoTime() - startedAt;
+					completedHashes.increment();
+					totalHashNanos.add(hashNanos);
+					maxHashNanos.accumulate(hashNanos);
+					totalQueueWaitNanos.add(startedAt - submittedAt);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			rejectedHashes.increment();
+			throw new IgorServiceUnavailableException(SATURATED_MESSAGE);
+		}
+
+		try {
+			return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			result.cancel(true);
+			rejectedHashes.increment();
+			throw new IgorServiceUnavailableException(SATURATED_MESSAGE);
+		} catch (InterruptedException e) {
+			result.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new IgorServiceUnavailableException("Interrupted while waiting for the password hash");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+}
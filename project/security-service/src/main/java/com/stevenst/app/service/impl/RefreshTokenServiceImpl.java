@@ -0,0 +1,123 @@
+package com.stevenst.app.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.stevenst.app.exception.IgorAuthenticationException;
+import com.stevenst.app.model.RefreshToken;
+import com.stevenst.app.repository.RefreshTokenRepository;
+import com.stevenst.app.service.RefreshTokenService;
+import com.stevenst.lib.model.User;
+
+// the refresh tokens are random (not jwts), so checking one is a single indexed lookup of its hash
+@Service
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+	private static final int TOKEN_BYTES = 32;
+	private static final String INVALID_REFRESH_TOKEN_MESSAGE = "Invalid refresh token";
+
+	private final RefreshTokenRepository refreshTokenRepository;
+	private final Duration refreshTokenTtl;
+	private final Duration refreshTokenReuseGracePeriod;
+	private final SecureRandom secureRandom = new SecureRandom();
+
+	public RefreshTokenServiceImpl(RefreshTokenRepository refreshTokenRepository,
+			@Value("${jwt.refresh-token-ttl}") Duration refreshTokenTtl,
+			@Value("${jwt.refresh-token-reuse-grace-period:10s}") Duration refreshTokenReuseGracePeriod) {
+		this.refreshTokenRepository = refreshTokenRepository;
+		this.refreshTokenTtl = refreshTokenTtl;
+		this.refreshTokenReuseGracePeriod = refreshTokenReuseGracePeriod;
+	}
+
+	// the first token of a new family (at login or register)
+	@Override
+	public String issue(User user) {
+		return issue(user, UUID.randomUUID().toString());
+	}
+
+	@Override
+	public String issue(User user, String familyId) {
+		byte[] tokenBytes = new byte[TOKEN_BYTES];
+		secureRandom.nextBytes(tokenBytes);
+		String token = Base64.getUrlEncoder().withoutPadding().encodeToString(tokenBytes);
+
+		refreshTokenRepository.save(RefreshToken.builder()
+				.tokenHash(hash(token))
+				.familyId(familyId)
+				.user(user)
+				.expiresAt(LocalDateTime.now().plus(refreshTokenTtl)).build());
+
+		return token;
+	}
+
+	// marks the token as used and returns it (with its user), the caller issues the next one of the family
+	@Override
+	public RefreshToken use(String refreshToken) {
+		if (refreshToken == null || refreshToken.isBlank()) {
+			throw new IgorAuthenticationException(INVALID_REFRESH_TOKEN_MESSAGE);
+		}
+
+		RefreshToken storedToken = refreshTokenRepository.findByTokenHash(hash(refreshToken))
+				.orElseThrow(() -> new IgorAuthenticationException(INVALID_REFRESH_TOKEN_MESSAGE));
+		if (storedToken.isRevoked()) {
+			throw new IgorAuthenticationException("Revoked refresh token");
+		}
+		if (storedToken.getExpiresAt().isBefore(LocalDateTime.now())) {
+			throw new IgorAuthenticationException("Expired refresh token");
+		}
+
+		LocalDateTime now = LocalDateTime.now();
+		if (refreshTokenRepository.markAsUsed(storedToken.getId(), now) == 0) {
+			// the tabs of a browser (or the retries of a request) refresh with the same token at about the same time,
+			// so a token used again within the grace period is rotated once more (to another token of its family)
+			Optional<LocalDateTime> usedAt = refreshTokenRepository.findUsedAtOfNotRevoked(storedToken.getId());
+			if (usedAt.isPresent() && !usedAt.get().isBefore(now.minus(refreshTokenReuseGracePeriod))) {
+				return storedToken;
+			}
+
+			// a used token presented again, whoever has the family can't be trusted anymore
+			refreshTokenRepository.revokeFamily(storedToken.getFamilyId());
+			throw new IgorAuthenticationException("Refresh token already used");
+		}
+
+		return storedToken;
+	}
+
+	// revokes the whole family, the unknown tokens are ignored
+	@Override
+	public void revoke(String refreshToken) {
+		if (refreshToken == null || refreshToken.isBlank()) {
+			return;
+		}
+
+		refreshTokenRepository.findByTokenHash(hash(refreshToken))
+				.ifPresent(storedToken -> refreshTokenRepository.revokeFamily(storedToken.getFamilyId()));
+	}
+
+	@Override
+	@Scheduled(cron = "${jwt.refresh-token-cleanup-cron}")
+	public int deleteAllExpired() {
+		return refreshTokenRepository.deleteAllExpired(LocalDateTime.now());
+	}
+
+	// ----------------------------------------------------------------------
+
+	private static String hash(String token) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+			return Base64.getEncoder().encodeToString(digest);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+}
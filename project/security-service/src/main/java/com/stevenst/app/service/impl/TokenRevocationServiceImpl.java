@@ -0,0 +1,81 @@
+package com.stevenst.app.service.impl;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.stevenst.lib.model.RevokedToken;
+import com.stevenst.app.repository.RevokedTokenRepository;
+import com.stevenst.app.service.TokenRevocationService;
+import com.stevenst.lib.util.BloomFilter;
+
+// the ids of the revoked access tokens are kept in a bloom filter in front of the revoked_token table, so checking a
+// token that isn't revoked (almost every request) costs no io, only the "maybe revoked" ones are looked up
+// the filter is rebuilt from the table every reload-interval, which drops the expired tokens and picks up the ones
+// revoked by the other instances (until then they are accepted here, the access tokens are short lived anyway)
+@Service
+public class TokenRevocationServiceImpl implements TokenRevocationService {
+	private final RevokedTokenRepository revokedTokenRepository;
+	private final long expectedRevocations;
+	private final double falsePositiveProbability;
+
+	private volatile BloomFilter revokedTokenIds;
+	// the filter being rebuilt, the tokens revoked meanwhile are added to it too
+	private BloomFilter nextRevokedTokenIds;
+
+	public TokenRevocationServiceImpl(RevokedTokenRepository revokedTokenRepository,
+			@Value("${jwt.revocation.expected-revocations}") long expectedRevocations,
+			@Value("${jwt.revocation.false-positive-probability}") double falsePositiveProbability) {
+		this.revokedTokenRepository = revokedTokenRepository;
+		this.expectedRevocations = expectedRevocations;
+		this.falsePositiveProbability = falsePositiveProbability;
+		this.revokedTokenIds = new BloomFilter(expectedRevocations, falsePositiveProbability);
+		reloadRevokedTokens();
+	}
+
+	@Override
+	public void revoke(String tokenId, Date expiresAt) {
+		revokedTokenRepository.save(RevokedToken.builder()
+				.tokenId(tokenId)
+				.expiresAt(LocalDateTime.ofInstant(expiresAt.toInstant(), ZoneId.systemDefault())).build());
+
+		synchronized (this) {
+			revokedTokenIds.add(tokenId);
+			if (nextRevokedTokenIds != null) {
+				nextRevokedTokenIds.add(tokenId);
+			}
+		}
+	}
+
+	@Override
+	public boolean isRevoked(String tokenId) {
+		if (!revokedTokenIds.mightContain(tokenId)) {
+			return false;
+		}
+
+		return revokedTokenRepository.existsById(tokenId);
+	}
+
+	@Override
+	@Scheduled(fixedDelayString = "${jwt.revocation.reload-interval}",
+			initialDelayString = "${jwt.revocation.reload-interval}")
+	public void reloadRevokedTokens() {
+		BloomFilter reloadedTokenIds = new BloomFilter(expectedRevocations, falsePositiveProbability);
+		synchronized (this) {
+			nextRevokedTokenIds = reloadedTokenIds;
+		}
+
+		LocalDateTime now = LocalDateTime.now();
+		revokedTokenRepository.deleteAllExpired(now);
+		revokedTokenRepository.findAllUnexpiredTokenIds(now).forEach(reloadedTokenIds::add);
+
+		synchronized (this) {
+			revokedTokenIds = reloadedTokenIds;
+			nextRevokedTokenIds = null;
+		}
+	}
+}
@@ -18,6 +18,7 @@ import org.springframework.security.authentication.dao.DaoAuthenticationProvider
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import com.stevenst.app.exception.IgorAuthenticationException;
 import com.stevenst.lib.model.User;
@@ -39,6 +40,7 @@ class ApplicationConfigurationTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(applicationConfiguration, "bcryptStrength", 10);
     }
 
     @Test
@@ -82,5 +84,6 @@ class ApplicationConfigurationTest {
 
         assertNotNull(passwordEncoder);
         assertTrue(passwordEncoder instanceof BCryptPasswordEncoder);
+        assertTrue(passwordEncoder.encode("password").startsWith("$2a$10$"));
     }
 }
\ No newline at end of file
@@ -3,55 +3,80 @@ package com.stevenst.app.config;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetailsService;
-
-import com.stevenst.app.exception.IgorAuthenticationException;
-import com.stevenst.lib.model.User;
-import com.stevenst.app.service.impl.JwtServiceImpl;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import com.stevenst.lib.model.enums.Role;
+import com.stevenst.lib.security.AuthenticatedUser;
+import com.stevenst.lib.security.JwtAuthenticationFilter;
+import com.stevenst.lib.security.JwtVerifier;
+import com.stevenst.app.service.AuthenticatedUserService;
+import com.stevenst.app.service.TokenRevocationService;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.security.SignatureException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
-import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Optional;
 
 class JwtAuthenticationFilterTest {
     @Mock
-    private JwtServiceImpl jwtService;
+    private JwtVerifier jwtVerifier;
 
     @Mock
-    private UserDetailsService userDetailsService;
+    private AuthenticatedUserService authenticatedUserService;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
 
-    @InjectMocks
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
     private HttpServletRequest request;
     private HttpServletResponse response;
     private FilterChain filterChain;
+    private StringWriter responseBody;
     private final String token = "random_jwt_token";
     private final String userEmail = "random_name@email.com";
+    private final Claims claims = Jwts.claims().id("random_token_id").subject(userEmail).build();
+    private final AuthenticatedUser authenticatedUser = AuthenticatedUser.builder()
+            .id(1L)
+            .email(userEmail)
+            .username("random_name")
+            .role(Role.USER).build();
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws IOException {
         MockitoAnnotations.openMocks(this);
+        jwtAuthenticationFilter = new JwtAuthenticationFilter(jwtVerifier,
+                authenticatedUserService::getAuthenticatedUser, tokenRevocationService::isRevoked);
 
         request = mock(HttpServletRequest.class);
         response = mock(HttpServletResponse.class);
         filterChain = mock(FilterChain.class);
+        responseBody = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(responseBody));
     }
 
     @AfterEach
@@ -60,46 +85,122 @@ class JwtAuthenticationFilterTest {
     }
 
     @Test
-    void doFilterInternal_withValidRequest_shouldHaveNormalFlow() throws ServletException, IOException {
-        mockTokenRequest(true);
+    void doFilterInternal_withValidRequest_shouldAuthenticateTheUserOfTheClaims() throws ServletException, IOException {
+        mockTokenRequest();
+        when(jwtVerifier.extractAuthenticatedUser(claims)).thenReturn(Optional.of(authenticatedUser));
+
+        jwtAuthenticationFilter.doFilter(request, response, filterChain);
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertSame(authenticatedUser, authentication.getPrincipal());
+        assertEquals("USER", authentication.getAuthorities().iterator().next().getAuthority());
+
+        verify(jwtVerifier, times(1)).verify(anyString());
+        verify(authenticatedUserService, times(0)).getAuthenticatedUser(anyString());
+        verify(filterChain, times(1)).doFilter(request, response);
+    }
+
+    @Test
+    void doFilterInternal_withTokenWithoutTheClaimsOfTheUser_shouldLoadTheUser() throws ServletException, IOException {
+        mockTokenRequest();
+        when(jwtVerifier.extractAuthenticatedUser(claims)).thenReturn(Optional.empty());
+        when(authenticatedUserService.getAuthenticatedUser(userEmail)).thenReturn(authenticatedUser);
+
+        jwtAuthenticationFilter.doFilter(request, response, filterChain);
 
-        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+        assertSame(authenticatedUser, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
 
-        verify(jwtService, times(1)).extractEmail(anyString());
-        verify(userDetailsService, times(1)).loadUserByUsername(anyString());
-        verify(jwtService, times(1)).isTokenValid(anyString(), any(User.class));
+        verify(authenticatedUserService, times(1)).getAuthenticatedUser(userEmail);
         verify(filterChain, times(1)).doFilter(request, response);
     }
 
     @Test
     void testDoFilterInternal_WithValidTokenAndExistingAuthentication_ShouldNotOverwriteAuthentication()
             throws ServletException, IOException {
-        mockTokenRequest(true);
+        mockTokenRequest();
         Authentication existingAuth = mock(Authentication.class);
         SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
         securityContext.setAuthentication(existingAuth);
         SecurityContextHolder.setContext(securityContext);
 
-        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+        jwtAuthenticationFilter.doFilter(request, response, filterChain);
 
         assertSame(existingAuth, SecurityContextHolder.getContext().getAuthentication());
 
-        verify(jwtService, times(1)).extractEmail(anyString());
-        verify(userDetailsService, times(0)).loadUserByUsername(anyString());
-        verify(jwtService, times(0)).isTokenValid(anyString(), any(User.class));
+        verify(jwtVerifier, times(0)).verify(anyString());
+        verify(authenticatedUserService, times(0)).getAuthenticatedUser(anyString());
         verify(filterChain, times(1)).doFilter(request, response);
     }
 
     @Test
-    void doFilterInternal_WithInvalidToken_UserNotFound() throws ServletException, IOException {
-        mockTokenRequest(false);
+    void doFilterInternal_WithTokenWithoutClaims_UserNotFound() throws ServletException, IOException {
+        mockTokenRequest();
+        when(jwtVerifier.extractAuthenticatedUser(claims)).thenReturn(Optional.empty());
+        when(authenticatedUserService.getAuthenticatedUser(userEmail))
+                .thenThrow(new UsernameNotFoundException("Email not found"));
+
+        jwtAuthenticationFilter.doFilter(request, response, filterChain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals("User not found", responseBody.toString());
+
+        verify(response, times(1)).setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        verify(filterChain, times(0)).doFilter(request, response);
+    }
+
+    @Test
+    void doFilterInternal_WithRevokedToken_ShouldNotAuthenticateUser() throws ServletException, IOException {
+        mockTokenRequest();
+        when(tokenRevocationService.isRevoked("random_token_id")).thenReturn(true);
+
+        jwtAuthenticationFilter.doFilter(request, response, filterChain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals("Revoked token", responseBody.toString());
+
+        verify(jwtVerifier, times(0)).extractAuthenticatedUser(any(Claims.class));
+        verify(filterChain, times(0)).doFilter(request, response);
+    }
+
+    @Test
+    void doFilterInternal_WithInvalidSignature_ShouldNotAuthenticateUser() throws ServletException, IOException {
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + this.token);
+        when(jwtVerifier.verify(this.token)).thenThrow(new SignatureException("Invalid signature"));
+
+        jwtAuthenticationFilter.doFilter(request, response, filterChain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals("Invalid token signature", responseBody.toString());
+
+        verify(response, times(1)).setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        verify(jwtVerifier, times(0)).extractAuthenticatedUser(any(Claims.class));
+        verify(filterChain, times(0)).doFilter(request, response);
+    }
+
+    @Test
+    void doFilterInternal_WithTokenWithoutClaimsAndNoUserLoader_ShouldRejectTheToken()
+            throws ServletException, IOException {
+        mockTokenRequest();
+        when(jwtVerifier.extractAuthenticatedUser(claims)).thenReturn(Optional.empty());
+
+        new JwtAuthenticationFilter(jwtVerifier).doFilter(request, response, filterChain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals("Invalid token", responseBody.toString());
+
+        verify(response, times(1)).setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        verify(filterChain, times(0)).doFilter(request, response);
+    }
+
+    @Test
+    void doFilterInternal_WithMalformedToken_ShouldNotAuthenticateUser() throws ServletException, IOException {
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + this.token);
+        when(jwtVerifier.verify(this.token)).thenThrow(new MalformedJwtException("Malformed token"));
 
-        assertThrows(NullPointerException.class,
-                () -> jwtAuthenticationFilter.doFilterInternal(request, response, filterChain));
+        jwtAuthenticationFilter.doFilter(request, response, filterChain);
 
-        verify(jwtService, times(1)).extractEmail(anyString());
-        verify(userDetailsService, times(1)).loadUserByUsername(anyString());
-        verify(jwtService, times(0)).isTokenValid(anyString(), any(User.class));
+        assertEquals("Invalid token", responseBody.toString());
+        verify(filterChain, times(0)).doFilter(request, response);
     }
 
     @Test
@@ -107,12 +208,11 @@ class JwtAuthenticationFilterTest {
             throws ServletException, IOException {
         when(request.getHeader("Authorization")).thenReturn(null);
 
-        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+        jwtAuthenticationFilter.doFilter(request, response, filterChain);
 
         verify(filterChain, times(1)).doFilter(request, response);
-        verify(jwtService, times(0)).extractEmail(anyString());
-        verify(userDetailsService, times(0)).loadUserByUsername(anyString());
-        verify(jwtService, times(0)).isTokenValid(anyString(), any(User.class));
+        verify(jwtVerifier, times(0)).verify(anyString());
+        verify(authenticatedUserService, times(0)).getAuthenticatedUser(anyString());
     }
 
     @Test
@@ -120,39 +220,28 @@ class JwtAuthenticationFilterTest {
             throws ServletException, IOException {
         when(request.getHeader("Authorization")).thenReturn("Random " + this.token);
 
-        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+        jwtAuthenticationFilter.doFilter(request, response, filterChain);
 
         verify(filterChain, times(1)).doFilter(request, response);
-        verify(jwtService, times(0)).extractEmail(anyString());
-        verify(userDetailsService, times(0)).loadUserByUsername(anyString());
-        verify(jwtService, times(0)).isTokenValid(anyString(), any(User.class));
+        verify(jwtVerifier, times(0)).verify(anyString());
+        verify(authenticatedUserService, times(0)).getAuthenticatedUser(anyString());
     }
 
     @Test
     void testDoFilterInternal_WithEmptyToken_ShouldNotAuthenticateUser() throws ServletException, IOException {
         when(request.getHeader("Authorization")).thenReturn("Bearer ");
 
-        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+        jwtAuthenticationFilter.doFilter(request, response, filterChain);
 
         verify(filterChain, times(1)).doFilter(request, response);
-        verify(jwtService, times(0)).extractEmail(anyString());
-        verify(userDetailsService, times(0)).loadUserByUsername(anyString());
-        verify(jwtService, times(0)).isTokenValid(anyString(), any(User.class));
+        verify(jwtVerifier, times(0)).verify(anyString());
+        verify(authenticatedUserService, times(0)).getAuthenticatedUser(anyString());
     }
 
     // -------------------------------------------------
 
-    private void mockTokenRequest(boolean isValid) {
+    private void mockTokenRequest() {
         when(request.getHeader("Authorization")).thenReturn("Bearer " + this.token);
-        when(jwtService.extractEmail(anyString())).thenReturn(this.userEmail);
-
-        if (isValid) {
-            User user = mock(User.class);
-            when(userDetailsService.loadUserByUsername(anyString())).thenReturn(user);
-            when(jwtService.isTokenValid(anyString(), any(User.class))).thenReturn(true);
-        } else {
-            when(userDetailsService.loadUserByUsername(anyString())).thenThrow(IgorAuthenticationException.class);
-            when(jwtService.isTokenValid(anyString(), any(User.class))).thenReturn(false);
-        }
+        when(jwtVerifier.verify(this.token)).thenReturn(claims);
     }
-}
\ No newline at end of file
+}
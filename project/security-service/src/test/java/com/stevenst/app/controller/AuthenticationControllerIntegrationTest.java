@@ -3,12 +3,15 @@ package com.stevenst.app.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.stevenst.app.exception.IgorAuthenticationException;
 import com.stevenst.app.payload.AuthRequest;
+import com.stevenst.app.payload.AuthResponse;
+import com.stevenst.app.payload.RefreshRequest;
 import com.stevenst.app.payload.RegisterRequest;
 import com.stevenst.lib.model.enums.Role;
 import com.stevenst.lib.model.User;
 import com.stevenst.app.repository.AuthRepository;
 import com.stevenst.app.util.TestUtil;
 
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import org.h2.tools.Server;
 import org.junit.jupiter.api.AfterAll;
@@ -23,12 +26,14 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.sql.SQLException;
+import java.time.LocalDateTime;
 import java.util.Objects;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -51,6 +56,9 @@ class AuthenticationControllerIntegrationTest {
 	@Autowired
 	private AuthRepository authRepository;
 
+	@Autowired
+	private EntityManager entityManager;
+
 	@BeforeAll
 	void init() throws Exception {
 		server = Server.createTcpServer("-tcp", "-tcpAllowOthers", "-tcpPort", "9092");
@@ -217,6 +225,101 @@ class AuthenticationControllerIntegrationTest {
 						result.getResponse().getContentAsString()));
 	}
 
+	@Test
+	@Transactional
+	void refreshEndpoint_rotatesTheRefreshToken() throws Exception {
+		AuthResponse loginResponse = login();
+
+		AuthResponse refreshResponse = refresh(loginResponse.getRefreshToken());
+
+		assertNotNull(refreshResponse.getToken());
+		assertNotEquals(loginResponse.getRefreshToken(), refreshResponse.getRefreshToken());
+		mockMvc.perform(get("/api/test/hello")
+				.header("Authorization", "Bearer " + refreshResponse.getToken()))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	@Transactional
+	void refreshEndpointWithAReusedRefreshToken_revokesTheWholeFamily() throws Exception {
+		AuthResponse loginResponse = login();
+		AuthResponse refreshResponse = refresh(loginResponse.getRefreshToken());
+		moveUsesOfRefreshTokensBeforeTheGracePeriod();
+
+		mockMvc.perform(post("/api/auth/refresh")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(new RefreshRequest(loginResponse.getRefreshToken()))))
+				.andExpect(status().isUnauthorized());
+
+		// the token rotated from the reused one is revoked as well
+		mockMvc.perform(post("/api/auth/refresh")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(new RefreshRequest(refreshResponse.getRefreshToken()))))
+				.andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	@Transactional
+	void refreshEndpointWithARefreshTokenReusedWithinTheGracePeriod_rotatesItAgain() throws Exception {
+		AuthResponse loginResponse = login();
+		// two tabs refreshing with the same token
+		AuthResponse firstRefreshResponse = refresh(loginResponse.getRefreshToken());
+		AuthResponse secondRefreshResponse = refresh(loginResponse.getRefreshToken());
+
+		assertNotEquals(firstRefreshResponse.getRefreshToken(), secondRefreshResponse.getRefreshToken());
+		assertNotNull(refresh(firstRefreshResponse.getRefreshToken()).getToken());
+		assertNotNull(refresh(secondRefreshResponse.getRefreshToken()).getToken());
+	}
+
+	@Test
+	@Transactional
+	void logoutEndpoint_revokesTheTokenAndTheRefreshToken() throws Exception {
+		AuthResponse loginResponse = login();
+
+		mockMvc.perform(post("/api/auth/logout")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(new RefreshRequest(loginResponse.getRefreshToken())))
+				.header("Authorization", "Bearer " + loginResponse.getToken()))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(get("/api/test/hello")
+				.header("Authorization", "Bearer " + loginResponse.getToken()))
+				.andExpect(status().isUnauthorized())
+				.andExpect(result -> assertEquals("Revoked token", result.getResponse().getContentAsString()));
+		mockMvc.perform(post("/api/auth/refresh")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(new RefreshRequest(loginResponse.getRefreshToken()))))
+				.andExpect(status().isUnauthorized());
+	}
+
 	// TODO: test an expired token
+
+	// ----------------------------------------
+
+	private AuthResponse login() throws Exception {
+		String response = mockMvc.perform(post("/api/auth/login")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(new AuthRequest(EMAIL, PASSWORD))))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		return objectMapper.readValue(response, AuthResponse.class);
+	}
+
+	private void moveUsesOfRefreshTokensBeforeTheGracePeriod() {
+		entityManager.createQuery("UPDATE RefreshToken r SET r.usedAt = :usedAt WHERE r.usedAt IS NOT NULL")
+				.setParameter("usedAt", LocalDateTime.now().minusHours(1))
+				.executeUpdate();
+	}
+
+	private AuthResponse refresh(String refreshToken) throws Exception {
+		String response = mockMvc.perform(post("/api/auth/refresh")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(new RefreshRequest(refreshToken))))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		return objectMapper.readValue(response, AuthResponse.class);
+	}
 }
 // TODO: add a unit test class for this class as well
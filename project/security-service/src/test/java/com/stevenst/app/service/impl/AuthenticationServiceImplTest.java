@@ -5,10 +5,12 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Date;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -16,27 +18,43 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
 
 import com.stevenst.app.exception.IgorAuthenticationException;
+import com.stevenst.app.model.RefreshToken;
 import com.stevenst.app.payload.AuthRequest;
+import com.stevenst.app.payload.AuthResponse;
+import com.stevenst.app.payload.RefreshRequest;
 import com.stevenst.app.payload.RegisterRequest;
+import com.stevenst.lib.exception.IgorServiceUnavailableException;
 import com.stevenst.lib.model.User;
 import com.stevenst.app.repository.AuthRepository;
+import com.stevenst.app.service.AuthenticatedUserService;
+import com.stevenst.app.service.PasswordHashingService;
+import com.stevenst.app.service.RefreshTokenService;
+import com.stevenst.app.service.TokenRevocationService;
 
 class AuthenticationServiceImplTest {
 	@Mock
 	private AuthRepository authRepository;
 
 	@Mock
-	private PasswordEncoder passwordEncoder;
+	private PasswordHashingService passwordHashingService;
 
 	@Mock
 	private JwtServiceImpl jwtService;
 
 	@Mock
-	private AuthenticationManager authenticationManager;
+	private RefreshTokenService refreshTokenService;
+
+	@Mock
+	private TokenRevocationService tokenRevocationService;
+
+	@Mock
+	private AuthenticatedUserService authenticatedUserService;
 
 	@InjectMocks
 	private AuthenticationServiceImpl authService;
@@ -57,14 +75,14 @@ class AuthenticationServiceImplTest {
 		RegisterRequest request = new RegisterRequest(user.getEmail(), user.getPassword(), user.getUsername());
 
 		when(authRepository.findByEmail(anyString())).thenReturn(Optional.empty());
-		when(passwordEncoder.encode(anyString())).thenReturn(user.getPassword());
+		when(passwordHashingService.encode(anyString())).thenReturn(user.getPassword());
 		when(jwtService.generateToken(anyString())).thenReturn("token");
 
 		assertDoesNotThrow(() -> authService.register(request));
 
 		verify(authRepository, times(1)).findByEmail(anyString());
 		verify(authRepository, times(1)).findByUsername(anyString());
-		verify(passwordEncoder, times(1)).encode(anyString());
+		verify(passwordHashingService, times(1)).encode(anyString());
 		verify(authRepository, times(1)).save(any(User.class));
 		verify(jwtService, times(1)).generateToken(any(User.class));
 	}
@@ -74,13 +92,143 @@ class AuthenticationServiceImplTest {
 		AuthRequest request = new AuthRequest(user.getEmail(), user.getPassword());
 
 		when(authRepository.findByEmail(anyString())).thenReturn(Optional.of(user));
+		when(passwordHashingService.matches(user.getPassword(), user.getPassword())).thenReturn(true);
 		when(jwtService.generateToken(user)).thenReturn("token");
 
 		assertDoesNotThrow(() -> authService.login(request));
 
-		verify(authenticationManager, times(1)).authenticate(any());
+		verify(passwordHashingService, times(1)).matches(anyString(), anyString());
 		verify(authRepository, times(1)).findByEmail(anyString());
 		verify(jwtService, times(1)).generateToken(user);
+		verify(passwordHashingService, never()).encode(anyString());
+	}
+
+	@Test
+	void login_withAWrongPassword() {
+		AuthRequest request = new AuthRequest(user.getEmail(), "wrong_password");
+
+		when(authRepository.findByEmail(anyString())).thenReturn(Optional.of(user));
+		when(passwordHashingService.matches("wrong_password", user.getPassword())).thenReturn(false);
+
+		var invalidCredentialsException = assertThrows(IgorAuthenticationException.class,
+				() -> authService.login(request));
+
+		assertEquals("Invalid credentials or inexistent account", invalidCredentialsException.getMessage());
+		verify(jwtService, never()).generateToken(any(User.class));
+	}
+
+	@Test
+	void login_withAPasswordHashedWithAnotherCost_rehashesIt() {
+		User oldUser = User.builder().email("old@email.com").password("old_hash").username("old").build();
+		AuthRequest request = new AuthRequest(oldUser.getEmail(), "old_password");
+
+		when(authRepository.findByEmail(anyString())).thenReturn(Optional.of(oldUser));
+		when(passwordHashingService.matches("old_password", "old_hash")).thenReturn(true);
+		when(passwordHashingService.needsRehash("old_hash")).thenReturn(true);
+		when(passwordHashingService.encode("old_password")).thenReturn("new_hash");
+
+		assertDoesNotThrow(() -> authService.login(request));
+
+		assertEquals("new_hash", oldUser.getPassword());
+		verify(authRepository, times(1)).save(oldUser);
+	}
+
+	@Test
+	void login_whenTheRehashIsRejected_stillLogsIn() {
+		User oldUser = User.builder().email("old@email.com").password("old_hash").username("old").build();
+		AuthRequest request = new AuthRequest(oldUser.getEmail(), "old_password");
+
+		when(authRepository.findByEmail(anyString())).thenReturn(Optional.of(oldUser));
+		when(passwordHashingService.matches("old_password", "old_hash")).thenReturn(true);
+		when(passwordHashingService.needsRehash("old_hash")).thenReturn(true);
+		when(passwordHashingService.encode("old_password")).thenThrow(new IgorServiceUnavailableException("Busy"));
+		when(jwtService.generateToken(oldUser)).thenReturn("token");
+
+		assertEquals("token", authService.login(request).getToken());
+
+		assertEquals("old_hash", oldUser.getPassword());
+		verify(authRepository, never()).save(any(User.class));
+	}
+
+	@Test
+	void login_whenThePasswordHashingPoolIsSaturated() {
+		AuthRequest request = new AuthRequest(user.getEmail(), user.getPassword());
+
+		when(authRepository.findByEmail(anyString())).thenReturn(Optional.of(user));
+		when(passwordHashingService.matches(anyString(), anyString()))
+				.thenThrow(new IgorServiceUnavailableException("Busy"));
+
+		assertThrows(IgorServiceUnavailableException.class, () -> authService.login(request));
+		verify(jwtService, never()).generateToken(any(User.class));
+	}
+
+	@Test
+	void login_returnsARefreshTokenOfANewFamily() {
+		AuthRequest request = new AuthRequest(user.getEmail(), user.getPassword());
+
+		when(authRepository.findByEmail(anyString())).thenReturn(Optional.of(user));
+		when(passwordHashingService.matches(user.getPassword(), user.getPassword())).thenReturn(true);
+		when(jwtService.generateToken(user)).thenReturn("token");
+		when(refreshTokenService.issue(user)).thenReturn("refresh_token");
+
+		AuthResponse response = authService.login(request);
+
+		assertEquals("token", response.getToken());
+		assertEquals("refresh_token", response.getRefreshToken());
+	}
+
+	@Test
+	void refresh_rotatesTheRefreshTokenWithoutCheckingThePassword() {
+		RefreshToken usedToken = RefreshToken.builder().familyId("family").user(user).build();
+
+		when(refreshTokenService.use("refresh_token")).thenReturn(usedToken);
+		when(jwtService.generateToken(user)).thenReturn("token");
+		when(refreshTokenService.issue(user, "family")).thenReturn("next_refresh_token");
+
+		AuthResponse response = authService.refresh(new RefreshRequest("refresh_token"));
+
+		assertEquals("token", response.getToken());
+		assertEquals("next_refresh_token", response.getRefreshToken());
+		verify(passwordHashingService, never()).matches(anyString(), anyString());
+		verify(authRepository, never()).findByEmail(anyString());
+	}
+
+	@Test
+	void refresh_withAnInvalidRefreshToken() {
+		when(refreshTokenService.use("refresh_token")).thenThrow(new IgorAuthenticationException("Invalid refresh token"));
+
+		var invalidTokenException = assertThrows(IgorAuthenticationException.class,
+				() -> authService.refresh(new RefreshRequest("refresh_token")));
+
+		assertEquals("Invalid refresh token", invalidTokenException.getMessage());
+		verify(jwtService, never()).generateToken(any(User.class));
+	}
+
+	@Test
+	void logout_revokesTheTokenAndTheRefreshTokens() {
+		// the claims keep whole seconds
+		Date expiration = new Date((System.currentTimeMillis() / 1000 + 60) * 1000);
+		Claims claims = Jwts.claims().id("token_id").subject(user.getEmail()).expiration(expiration).build();
+
+		when(jwtService.extractToken("Bearer token")).thenReturn("token");
+		when(jwtService.parseToken("token")).thenReturn(claims);
+
+		authService.logout("Bearer token", new RefreshRequest("refresh_token"));
+
+		verify(tokenRevocationService, times(1)).revoke("token_id", expiration);
+		verify(authenticatedUserService, times(1)).invalidate(user.getEmail());
+		verify(refreshTokenService, times(1)).revoke("refresh_token");
+	}
+
+	@Test
+	void logout_withAnExpiredToken_stillRevokesTheRefreshTokens() {
+		when(jwtService.extractToken("Bearer token")).thenReturn("token");
+		when(jwtService.parseToken("token")).thenThrow(new ExpiredJwtException(null, null, "Expired token"));
+
+		assertDoesNotThrow(() -> authService.logout("Bearer token", new RefreshRequest("refresh_token")));
+
+		verify(tokenRevocationService, never()).revoke(anyString(), any(Date.class));
+		verify(refreshTokenService, times(1)).revoke("refresh_token");
 	}
 
 	@Test
@@ -171,12 +319,13 @@ class AuthenticationServiceImplTest {
 	void login_userDoesntExist() {
 		AuthRequest request = new AuthRequest(user.getEmail(), user.getPassword());
 
-		when(authenticationManager.authenticate(any())).thenThrow(new IgorAuthenticationException("User not found"));
+		when(authRepository.findByEmail(anyString())).thenReturn(Optional.empty());
 
 		var userNotFoundException = assertThrows(IgorAuthenticationException.class,
 				() -> authService.login(request));
 
 		assertEquals("Invalid credentials or inexistent account", userNotFoundException.getMessage());
+		verify(passwordHashingService, never()).matches(anyString(), anyString());
 	}
 
 	@Test
@@ -0,0 +1,162 @@
+package com.stevenst.app.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.stevenst.lib.model.User;
+import com.stevenst.lib.model.enums.Role;
+import com.stevenst.lib.security.AuthenticatedUser;
+import com.stevenst.lib.security.JwtKeyRing;
+import com.stevenst.lib.security.JwtVerifier;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.InvalidKeyException;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+
+class JwtServiceImplTest {
+	private static final String SECRET_KEY = "dGVzdHNlY3JldGtleXRlc3RzZWNyZXRrZXl0ZXN0c2VjcmV0a2V5dGVzdHNlY3JldGtleQ==";
+	private static final String OTHER_SECRET_KEY = "b3RoZXJzZWNyZXRrZXlvdGhlcnNlY3JldGtleW90aGVyc2VjcmV0a2V5";
+	private static final Duration ACCESS_TOKEN_TTL = Duration.ofMinutes(15);
+
+	private JwtVerifier jwtVerifier;
+	private JwtServiceImpl jwtService;
+
+	User user = User.builder()
+			.id(7L)
+			.email("test@email.com")
+			.password("testpassword")
+			.username("testusername")
+			.build();
+
+	@BeforeEach
+	void setUp() {
+		JwtKeyRing jwtKeyRing = new JwtKeyRing("1", SECRET_KEY, Map.of());
+		jwtVerifier = newJwtVerifier(jwtKeyRing);
+		jwtService = new JwtServiceImpl(jwtKeyRing, jwtVerifier, ACCESS_TOKEN_TTL);
+	}
+
+	@Test
+	void generateToken_returnsATokenOfTheEmailOfTheUser() {
+		String token = jwtService.generateToken(user);
+
+		assertEquals(user.getEmail(), jwtService.extractEmail(token));
+		assertTrue(jwtService.isTokenValid(token, user));
+		assertFalse(jwtService.isTokenValid(token, "other@email.com"));
+		assertFalse(jwtService.isTokenExpired(token));
+	}
+
+	@Test
+	void generateToken_returnsAShortLivedTokenWithAnId() {
+		Claims claims = jwtService.parseToken(jwtService.generateToken(user));
+
+		assertNotNull(claims.getId());
+		assertTrue(claims.getExpiration().getTime() - System.currentTimeMillis() <= ACCESS_TOKEN_TTL.toMillis());
+		assertNotEquals(claims.getId(), jwtService.parseToken(jwtService.generateToken(user)).getId());
+	}
+
+	@Test
+	void generateToken_ofAUser_carriesTheClaimsOfTheUser() {
+		String token = jwtService.generateToken(user);
+
+		AuthenticatedUser authenticatedUser = jwtService.extractAuthenticatedUser(jwtService.parseToken(token))
+				.orElseThrow();
+
+		assertEquals(7L, authenticatedUser.getId());
+		assertEquals(user.getEmail(), authenticatedUser.getEmail());
+		assertEquals(user.getUsername(), authenticatedUser.getUsername());
+		assertEquals(Role.USER, authenticatedUser.getRole());
+	}
+
+	@Test
+	void extractAuthenticatedUser_ofATokenOfAnEmail_isEmpty() {
+		String token = jwtService.generateToken(user.getEmail());
+
+		assertTrue(jwtService.extractAuthenticatedUser(jwtService.parseToken(token)).isEmpty());
+	}
+
+	@Test
+	void parseToken_keepsTheVerifiedTokens() {
+		String token = jwtService.generateToken(user);
+
+		jwtService.extractEmail(token);
+		jwtService.isTokenValid(token, user);
+		jwtService.extractExpiration(token);
+
+		assertEquals(1, jwtVerifier.getCachedTokensCount());
+	}
+
+	@Test
+	void parseToken_ofATokenSignedWithAnotherKey_throwsSignatureException() {
+		JwtKeyRing otherKeyRing = new JwtKeyRing("1", OTHER_SECRET_KEY, Map.of());
+		String token = new JwtServiceImpl(otherKeyRing, newJwtVerifier(otherKeyRing), ACCESS_TOKEN_TTL).generateToken(user);
+
+		assertThrows(SignatureException.class, () -> jwtService.parseToken(token));
+		assertEquals(0, jwtVerifier.getCachedTokensCount());
+	}
+
+	@Test
+	void parseToken_afterTheKeyIsRotated_acceptsTheTokensOfThePreviousKey() {
+		String oldToken = jwtService.generateToken(user);
+		JwtKeyRing rotatedKeyRing = JwtKeyRing.of("2", OTHER_SECRET_KEY, List.of("1:" + SECRET_KEY));
+		JwtServiceImpl rotatedJwtService = new JwtServiceImpl(rotatedKeyRing, newJwtVerifier(rotatedKeyRing),
+				ACCESS_TOKEN_TTL);
+
+		String newToken = rotatedJwtService.generateToken(user);
+
+		assertEquals(user.getEmail(), rotatedJwtService.extractEmail(oldToken));
+		assertEquals(user.getEmail(), rotatedJwtService.extractEmail(newToken));
+		// the services that don't know the new key yet
+		assertThrows(InvalidKeyException.class, () -> jwtService.parseToken(newToken));
+	}
+
+	@Test
+	void parseToken_ofATokenWithoutAKeyId_isVerifiedWithTheActiveKey() {
+		String token = Jwts.builder()
+				.subject(user.getEmail())
+				.expiration(new Date(System.currentTimeMillis() + 10_000))
+				.signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY)))
+				.compact();
+
+		assertEquals(user.getEmail(), jwtService.extractEmail(token));
+	}
+
+	@Test
+	void parseToken_ofAnExpiredToken_throwsExpiredJwtException() {
+		String token = Jwts.builder()
+				.subject(user.getEmail())
+				.issuedAt(new Date(System.currentTimeMillis() - 20_000))
+				.expiration(new Date(System.currentTimeMillis() - 10_000))
+				.signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY)))
+				.compact();
+
+		assertThrows(ExpiredJwtException.class, () -> jwtService.parseToken(token));
+	}
+
+	@Test
+	void extractToken_withoutBearer_throwsIllegalArgumentException() {
+		assertEquals("token", jwtService.extractToken("Bearer token"));
+		assertThrows(IllegalArgumentException.class, () -> jwtService.extractToken("token"));
+	}
+
+	// ----------------------------------------
+
+	private static JwtVerifier newJwtVerifier(JwtKeyRing jwtKeyRing) {
+		return new JwtVerifier(jwtKeyRing, 100, Duration.ofMinutes(5));
+	}
+}
@@ -0,0 +1,117 @@
+package com.stevenst.app.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.stevenst.app.payload.PasswordHashingStatsPayload;
+import com.stevenst.lib.exception.IgorServiceUnavailableException;
+
+class PasswordHashingServiceImplTest {
+	private static final int BCRYPT_STRENGTH = 4;
+
+	private PasswordHashingServiceImpl passwordHashingService;
+
+	@AfterEach
+	void tearDown() {
+		passwordHashingService.shutdown();
+	}
+
+	@Test
+	void encode_andMatches_areMadeOnThePool() {
+		passwordHashingService = newService(new BCryptPasswordEncoder(BCRYPT_STRENGTH), 1, 1, Duration.ofSeconds(5));
+
+		String encodedPassword = passwordHashingService.encode("password");
+
+		assertTrue(passwordHashingService.matches("password", encodedPassword));
+		assertFalse(passwordHashingService.matches("wrong_password", encodedPassword));
+		PasswordHashingStatsPayload stats = passwordHashingService.getStats();
+		assertEquals(3, stats.getCompletedHashes());
+		assertEquals(0, stats.getRejectedHashes());
+		assertTrue(stats.getMaxHashMillis() > 0);
+	}
+
+	@Test
+	void needsRehash_ofAHashMadeWithAnotherCost() {
+		passwordHashingService = newService(new BCryptPasswordEncoder(BCRYPT_STRENGTH), 1, 1, Duration.ofSeconds(5));
+
+		assertFalse(passwordHashingService.needsRehash(new BCryptPasswordEncoder(BCRYPT_STRENGTH).encode("password")));
+		assertTrue(passwordHashingService.needsRehash(new BCryptPasswordEncoder(5).encode("password")));
+		// a lower cost than the configured one is remade as well
+		assertTrue(passwordHashingService.needsRehash("$2a$12$abcdefghijklmnopqrstuv"));
+		assertFalse(passwordHashingService.needsRehash("not_a_bcrypt_hash"));
+		assertFalse(passwordHashingService.needsRehash(null));
+	}
+
+	@Test
+	void encode_whenTheQueueIsFull_isRejectedRightAway() throws Exception {
+		CountDownLatch hashStarted = new CountDownLatch(1);
+		CountDownLatch releaseHash = new CountDownLatch(1);
+		passwordHashingService = newService(blockingEncoder(hashStarted, releaseHash), 1, 1, Duration.ofSeconds(5));
+
+		// one hash on the thread and one in the queue
+		CompletableFuture<String> runningHash = CompletableFuture.supplyAsync(() -> passwordHashingService.encode("1"));
+		assertTrue(hashStarted.await(5, TimeUnit.SECONDS));
+		CompletableFuture<String> queuedHash = CompletableFuture.supplyAsync(() -> passwordHashingService.encode("2"));
+		awaitQueuedHashes(1);
+
+		long startedAt = System.nanoTime();
+		assertThrows(IgorServiceUnavailableException.class, () -> passwordHashingService.encode("3"));
+		assertTrue(System.nanoTime() - startedAt < TimeUnit.SECONDS.toNanos(1));
+		assertEquals(1, passwordHashingService.getStats().getRejectedHashes());
+
+		releaseHash.countDown();
+		assertEquals("encoded_1", runningHash.get(5, TimeUnit.SECONDS));
+		assertEquals("encoded_2", queuedHash.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void encode_thatWaitsLongerThanTheTimeout_isRejected() {
+		CountDownLatch releaseHash = new CountDownLatch(1);
+		passwordHashingService = newService(blockingEncoder(new CountDownLatch(1), releaseHash), 1, 1,
+				Duration.ofMillis(100));
+
+		assertThrows(IgorServiceUnavailableException.class, () -> passwordHashingService.encode("1"));
+		releaseHash.countDown();
+	}
+
+	// ----------------------------------------
+
+	private static PasswordHashingServiceImpl newService(BCryptPasswordEncoder passwordEncoder, int threads,
+			int queueCapacity, Duration timeout) {
+		return new PasswordHashingServiceImpl(passwordEncoder, BCRYPT_STRENGTH, threads, queueCapacity, timeout);
+	}
+
+	// an encoder whose hashes wait until they are released
+	private static BCryptPasswordEncoder blockingEncoder(CountDownLatch hashStarted, CountDownLatch releaseHash) {
+		return new BCryptPasswordEncoder(BCRYPT_STRENGTH) {
+			@Override
+			public String encode(CharSequence rawPassword) {
+				hashStarted.countDown();
+				try {
+					releaseHash.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return "encoded_" + rawPassword;
+			}
+		};
+	}
+
+	private void awaitQueuedHashes(int queuedHashes) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (passwordHashingService.getStats().getQueuedHashes() < queuedHashes && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+	}
+}
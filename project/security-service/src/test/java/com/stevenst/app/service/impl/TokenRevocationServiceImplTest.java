@@ -0,0 +1,68 @@
+package com.stevenst.app.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.stevenst.lib.model.RevokedToken;
+import com.stevenst.app.repository.RevokedTokenRepository;
+
+class TokenRevocationServiceImplTest {
+	@Mock
+	private RevokedTokenRepository revokedTokenRepository;
+
+	private TokenRevocationServiceImpl tokenRevocationService;
+
+	@BeforeEach
+	void setUp() {
+		MockitoAnnotations.openMocks(this);
+		when(revokedTokenRepository.findAllUnexpiredTokenIds(any())).thenReturn(List.of("revoked_before_startup"));
+
+		tokenRevocationService = new TokenRevocationServiceImpl(revokedTokenRepository, 1000, 0.01);
+	}
+
+	@Test
+	void isRevoked_ofATokenThatIsNotRevoked_doesntQueryTheTable() {
+		for (int i = 0; i < 100; i++) {
+			assertFalse(tokenRevocationService.isRevoked("token_id" + i));
+		}
+
+		// at most the rare false positive of the bloom filter
+		verify(revokedTokenRepository, times(0)).existsById("token_id0");
+	}
+
+	@Test
+	void isRevoked_ofARevokedToken_isConfirmedByTheTable() {
+		when(revokedTokenRepository.existsById(anyString())).thenReturn(true);
+
+		tokenRevocationService.revoke("token_id", new Date(System.currentTimeMillis() + 60_000));
+
+		assertTrue(tokenRevocationService.isRevoked("token_id"));
+		assertTrue(tokenRevocationService.isRevoked("revoked_before_startup"));
+		verify(revokedTokenRepository, times(1)).save(any(RevokedToken.class));
+	}
+
+	@Test
+	void reloadRevokedTokens_dropsTheExpiredTokens() {
+		when(revokedTokenRepository.findAllUnexpiredTokenIds(any())).thenReturn(List.of());
+
+		tokenRevocationService.reloadRevokedTokens();
+
+		assertFalse(tokenRevocationService.isRevoked("revoked_before_startup"));
+		verify(revokedTokenRepository, times(2)).deleteAllExpired(any());
+		verify(revokedTokenRepository, never()).existsById("revoked_before_startup");
+	}
+}
@@ -0,0 +1,44 @@
+package com.stevenst.app.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stevenst.lib.client.AppServiceClient;
+import com.stevenst.lib.client.ServiceClientSettings;
+import com.stevenst.lib.security.ServiceTokenIssuer;
+
+@Configuration
+public class AppServiceClientConfig {
+	// the calls carry a service token while the services authenticate their requests
+	@Bean
+	AppServiceClient appServiceClient(ObjectMapper objectMapper,
+			ObjectProvider<ServiceTokenIssuer> serviceTokenIssuer,
+			@Value("${app.app-service.base-url:http://localhost:8083}") String baseUrl,
+			@Value("${app.app-service.connect-timeout:2s}") Duration connectTimeout,
+			@Value("${app.app-service.request-timeout:5s}") Duration requestTimeout,
+			@Value("${app.app-service.max-retries:2}") int maxRetries,
+			@Value("${app.app-service.retry-backoff:100ms}") Duration retryBackoff,
+			@Value("${app.app-service.max-concurrent-calls:50}") int maxConcurrentCalls,
+			@Value("${app.app-service.bulkhead-wait-timeout:500ms}") Duration bulkheadWaitTimeout,
+			@Value("${app.app-service.circuit-breaker.failure-threshold:5}") int circuitBreakerFailureThreshold,
+			@Value("${app.app-service.circuit-breaker.open-duration:30s}") Duration circuitBreakerOpenDuration) {
+		ServiceTokenIssuer tokenIssuer = serviceTokenIssuer.getIfAvailable();
+
+		return new AppServiceClient(ServiceClientSettings.builder()
+				.baseUrl(baseUrl)
+				.connectTimeout(connectTimeout)
+				.requestTimeout(requestTimeout)
+				.maxRetries(maxRetries)
+				.retryBackoff(retryBackoff)
+				.maxConcurrentCalls(maxConcurrentCalls)
+				.bulkheadWaitTimeout(bulkheadWaitTimeout)
+				.circuitBreakerFailureThreshold(circuitBreakerFailureThreshold)
+				.circuitBreakerOpenDuration(circuitBreakerOpenDuration)
+				.bearerTokenSupplier(tokenIssuer != null ? tokenIssuer::getToken : null).build(), objectMapper);
+	}
+}
@@ -0,0 +1,76 @@
+package com.stevenst.app.config;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.web.SecurityFilterChain;
+
+import com.stevenst.app.repository.RevokedTokenRepository;
+import com.stevenst.lib.security.JwtKeyRing;
+import com.stevenst.lib.security.JwtSecurity;
+import com.stevenst.lib.security.JwtVerifier;
+import com.stevenst.lib.security.RevokedTokenFilter;
+import com.stevenst.lib.security.ServiceTokenIssuer;
+
+// authenticates the requests with the tokens of the security service, verified here with the same keys
+// off until the clients send their tokens to this service
+// the calls of this service to the other ones carry a service token, signed with the same keys
+// the tokens revoked by the security service (on logout) are read from the revoked_token table they share
+@Configuration
+@EnableWebSecurity
+@ConditionalOnProperty(name = "jwt.authentication.enabled", havingValue = "true")
+public class JwtAuthenticationConfig {
+	@Bean
+	JwtKeyRing jwtKeyRing(@Value("${jwt.key-id}") String keyId, @Value("${jwt.secret-key}") String secretKey,
+			@Value("${jwt.previous-keys}") List<String> previousKeys) {
+		return JwtKeyRing.of(keyId, secretKey, previousKeys);
+	}
+
+	@Bean
+	JwtVerifier jwtVerifier(JwtKeyRing jwtKeyRing,
+			@Value("${jwt.verified-token-cache.max-size}") long verifiedTokenCacheMaxSize,
+			@Value("${jwt.verified-token-cache.ttl}") Duration verifiedTokenCacheTtl) {
+		return new JwtVerifier(jwtKeyRing, verifiedTokenCacheMaxSize, verifiedTokenCacheTtl);
+	}
+
+	@Bean
+	ServiceTokenIssuer serviceTokenIssuer(JwtKeyRing jwtKeyRing,
+			@Value("${jwt.service-token.name:user-service}") String serviceName,
+			@Value("${jwt.service-token.ttl:10m}") Duration serviceTokenTtl) {
+		return new ServiceTokenIssuer(jwtKeyRing, serviceName, serviceTokenTtl);
+	}
+
+	// rebuilt every reload-interval to see the tokens revoked since
+	@Bean
+	RevokedTokenFilter revokedTokenFilter(RevokedTokenRepository revokedTokenRepository, TaskScheduler taskScheduler,
+			@Value("${jwt.revocation.expected-revocations:100000}") long expectedRevocations,
+			@Value("${jwt.revocation.false-positive-probability:0.01}") double falsePositiveProbability,
+			@Value("${jwt.revocation.reload-interval:PT30S}") Duration reloadInterval) {
+		RevokedTokenFilter revokedTokenFilter = new RevokedTokenFilter(
+				() -> revokedTokenRepository.findAllUnexpiredTokenIds(LocalDateTime.now()),
+				revokedTokenRepository::existsById, expectedRevocations, falsePositiveProbability);
+		taskScheduler.scheduleWithFixedDelay(revokedTokenFilter::reload, Instant.now().plus(reloadInterval),
+				reloadInterval);
+
+		return revokedTokenFilter;
+	}
+
+	@Bean
+	SecurityFilterChain securityFilterChain(HttpSecurity http, JwtVerifier jwtVerifier,
+			RevokedTokenFilter revokedTokenFilter,
+			@Value("${jwt.authentication.whitelist}") List<String> whitelist,
+			@Value("${jwt.authentication.service-paths:}") List<String> servicePaths,
+			@Value("${jwt.authentication.own-user-paths:}") List<String> ownUserPaths) throws Exception {
+		return JwtSecurity.statelessFilterChain(http, jwtVerifier, revokedTokenFilter::isRevoked, whitelist,
+				servicePaths, ownUserPaths);
+	}
+}
@@ -1,18 +1,24 @@
 package com.stevenst.app.controller;
 
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.stevenst.app.controller.api.FriendsApi;
+import com.stevenst.app.payload.FriendSuggestionPayload;
+import com.stevenst.app.payload.MutualFriendsPayload;
+import com.stevenst.lib.model.enums.RelationshipStatus;
 import com.stevenst.lib.payload.ResponsePayload;
+import com.stevenst.app.service.FriendSuggestionService;
 import com.stevenst.app.service.FriendsService;
 
 import lombok.RequiredArgsConstructor;
@@ -22,6 +28,7 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class FriendsController implements FriendsApi {
 	private final FriendsService friendsService;
+	private final FriendSuggestionService friendSuggestionService;
 
 	@PostMapping("/sendRequest")
 	public ResponseEntity<ResponsePayload> sendFriendRequest(@RequestParam String sender,
@@ -45,6 +52,25 @@ public class FriendsController implements FriendsApi {
 		return friendsService.getAllFriendsUsernames(username);
 	}
 
+	// a post so the usernames (up to app.friends.max-relationship-statuses) fit in the body
+	@PostMapping("/getRelationshipStatuses")
+	public ResponseEntity<Map<String, RelationshipStatus>> getRelationshipStatuses(@RequestParam String viewer,
+			@RequestBody List<String> usernames) {
+		return friendsService.getRelationshipStatuses(viewer, usernames);
+	}
+
+	@GetMapping("/getMutualFriends")
+	public ResponseEntity<MutualFriendsPayload> getMutualFriends(@RequestParam String user1,
+			@RequestParam String user2) {
+		return friendSuggestionService.getMutualFriends(user1, user2);
+	}
+
+	@GetMapping("/getSuggestions")
+	public ResponseEntity<List<FriendSuggestionPayload>> getFriendSuggestions(@RequestParam String username,
+			@RequestParam(defaultValue = "10") int limit) {
+		return friendSuggestionService.getFriendSuggestions(username, limit);
+	}
+
 	@PutMapping("/acceptRequest")
 	public ResponseEntity<ResponsePayload> acceptFriendRequest(@RequestParam String sender,
 			@RequestParam String receiver) {
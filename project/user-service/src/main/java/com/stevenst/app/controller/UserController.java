@@ -1,18 +1,21 @@
 package com.stevenst.app.controller;
 
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.stevenst.app.controller.api.UserApi;
+import com.stevenst.lib.model.enums.ImageVariant;
 import com.stevenst.lib.payload.CountryOrRegionPayload;
 import com.stevenst.app.payload.DetailedRegionPayload;
 import com.stevenst.app.payload.UserPrivatePayload;
@@ -20,6 +23,7 @@ import com.stevenst.app.payload.UserPublicPayload;
 import com.stevenst.app.service.CountryAndRegionService;
 import com.stevenst.app.service.UserService;
 import com.stevenst.lib.payload.ResponsePayload;
+import com.stevenst.lib.payload.UserIdentityCacheStatsPayload;
 
 import lombok.RequiredArgsConstructor;
 
@@ -54,8 +58,16 @@ public class UserController implements UserApi {
 	}
 
 	@GetMapping("getProfilePictureLink")
-	public ResponseEntity<String> getProfilePictureLink(@RequestParam String username) {
-		return ResponseEntity.ok(userService.getPfpPreSignedLinkFromS3(username));
+	public ResponseEntity<String> getProfilePictureLink(@RequestParam String username,
+			@RequestParam(defaultValue = "ORIGINAL") ImageVariant variant) {
+		return ResponseEntity.ok(userService.getPfpPreSignedLinkFromS3(username, variant));
+	}
+
+	// a post so the usernames (up to app.user.max-profile-picture-links) fit in the body
+	@PostMapping("/getProfilePictureLinks")
+	public ResponseEntity<Map<String, String>> getProfilePictureLinks(@RequestBody List<String> usernames,
+			@RequestParam(defaultValue = "ORIGINAL") ImageVariant variant) {
+		return ResponseEntity.ok(userService.getPfpPreSignedLinksFromS3(usernames, variant));
 	}
 
 	@DeleteMapping("removeProfilePicture")
@@ -70,8 +82,9 @@ public class UserController implements UserApi {
 	}
 
 	@GetMapping("/getCoverImageLink")
-	public ResponseEntity<String> getCoverImageLink(@RequestParam String username) {
-		return ResponseEntity.ok(userService.getCoverImgPresignedLinkFromS3(username));
+	public ResponseEntity<String> getCoverImageLink(@RequestParam String username,
+			@RequestParam(defaultValue = "ORIGINAL") ImageVariant variant) {
+		return ResponseEntity.ok(userService.getCoverImgPresignedLinkFromS3(username, variant));
 	}
 
 	@DeleteMapping("/removeCoverImage")
@@ -139,4 +152,11 @@ public class UserController implements UserApi {
 			@RequestParam Long regionId) {
 		return ResponseEntity.ok(countryAndRegionService.removeSecondaryRegionForUser(username, regionId));
 	}
+
+	// ---------------------- cache
+
+	@GetMapping("/getUserIdentityCacheStats")
+	public ResponseEntity<UserIdentityCacheStatsPayload> getUserIdentityCacheStats() {
+		return ResponseEntity.ok(userService.getUserIdentityCacheStats());
+	}
 }
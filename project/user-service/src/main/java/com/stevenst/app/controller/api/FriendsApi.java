@@ -1,10 +1,14 @@
 package com.stevenst.app.controller.api;
 
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
+import com.stevenst.app.payload.FriendSuggestionPayload;
+import com.stevenst.app.payload.MutualFriendsPayload;
+import com.stevenst.lib.model.enums.RelationshipStatus;
 import com.stevenst.lib.payload.ResponsePayload;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -46,6 +50,32 @@ public interface FriendsApi {
 
 	public ResponseEntity<List<String>> getAllFriendsUsernames(String username);
 
+	@Operation(summary = "Get Relationship Statuses", description = "Get whether an user is a friend of each of the given users or has a pending friend request with them", tags = "User")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Successful", content = {
+					@Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(type = "object")) }),
+			@ApiResponse(responseCode = "403", description = "Too many users", content = @Content),
+			@ApiResponse(responseCode = "404", description = "User not found", content = @Content) })
+
+	public ResponseEntity<Map<String, RelationshipStatus>> getRelationshipStatuses(String viewer,
+			List<String> usernames);
+
+	@Operation(summary = "Get Mutual Friends", description = "Get the friends two users have in common", tags = "User")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Successful", content = {
+					@Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = MutualFriendsPayload.class)) }),
+			@ApiResponse(responseCode = "404", description = "User not found", content = @Content) })
+
+	public ResponseEntity<MutualFriendsPayload> getMutualFriends(String user1, String user2);
+
+	@Operation(summary = "Get Friend Suggestions", description = "Get the friends of the friends of an user, ranked by the mutual friends and the shared regions", tags = "User")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Successful", content = {
+					@Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(type = "array", implementation = FriendSuggestionPayload.class)) }),
+			@ApiResponse(responseCode = "404", description = "User not found", content = @Content) })
+
+	public ResponseEntity<List<FriendSuggestionPayload>> getFriendSuggestions(String username, int limit);
+
 	@Operation(summary = "Accept Friend Request", description = "Accept an user's friend request", tags = "User")
 	@ApiResponses(value = {
 			@ApiResponse(responseCode = "200", description = "Successful", content = {
@@ -1,11 +1,15 @@
 package com.stevenst.app.controller.api;
 
+import java.util.List;
+import java.util.Map;
+
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.stevenst.app.payload.UserPrivatePayload;
 import com.stevenst.app.payload.UserPublicPayload;
+import com.stevenst.lib.model.enums.ImageVariant;
 import com.stevenst.lib.payload.ResponsePayload;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -51,7 +55,14 @@ public interface UserApi {
 			@ApiResponse(responseCode = "200", description = "Successful", content = {
 					@Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = String.class)) }),
 			@ApiResponse(responseCode = "404", description = "User not found", content = @Content) })
-	public ResponseEntity<String> getProfilePictureLink(String username);
+	public ResponseEntity<String> getProfilePictureLink(String username, ImageVariant variant);
+
+	@Operation(summary = "Get Profile Picture Links", description = "Get the profile picture links of many users at once, the unknown users are left out", tags = "User")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Successful", content = {
+					@Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(type = "object")) }),
+			@ApiResponse(responseCode = "403", description = "Too many users", content = @Content) })
+	public ResponseEntity<Map<String, String>> getProfilePictureLinks(List<String> usernames, ImageVariant variant);
 
 	@Operation(summary = "Delete Profile Picture", description = "Delete an user's profile picture", tags = "User")
 	@ApiResponses(value = {
@@ -12,14 +12,19 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 
 import java.time.LocalDateTime;
 
+// the pair is stored once, with the smaller id first (use between), so a friendship is found with one index seek
+// the unique index on (user1, user2) is created by FriendshipsNormalizationServiceImpl once the rows are normalized,
+// ddl-auto would create it before (and fail on the duplicates)
 @Entity
-@Table(name = "\"friendships\"")
+@Table(name = "\"friendships\"", indexes = {
+		@Index(name = "idx_friendships_user2", columnList = "\"user2_id\"") })
 @Data
 @Builder
 @NoArgsConstructor
@@ -39,4 +44,12 @@ public class Friendships {
 
 	@Column(nullable = false)
 	private final LocalDateTime createdAt = LocalDateTime.now();
+
+	public static Friendships between(User user1, User user2) {
+		boolean isInOrder = user1.getId() < user2.getId();
+		return Friendships.builder()
+				.user1(isInOrder ? user1 : user2)
+				.user2(isInOrder ? user2 : user1)
+				.build();
+	}
 }
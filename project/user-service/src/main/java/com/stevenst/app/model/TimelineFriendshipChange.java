@@ -0,0 +1,43 @@
+package com.stevenst.app.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+// a friendship added or removed that the app service wasn't told about yet (it keeps the timelines of the posts),
+// the changes are sent in the order of their ids and deleted once the app service applied them
+@Entity
+@Table(name = "\"timeline_friendship_change\"")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimelineFriendshipChange {
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(nullable = false)
+	private String user1Username;
+
+	@Column(nullable = false)
+	private String user2Username;
+
+	// false when the friendship was removed
+	@Column(nullable = false)
+	private boolean added;
+
+	@Column(nullable = false)
+	@Builder.Default
+	private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -0,0 +1,17 @@
+package com.stevenst.app.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+public class FriendSuggestionPayload {
+	private String username;
+	private int mutualFriendsCount;
+	private int sharedRegionsCount;
+	private double score;
+}
@@ -0,0 +1,17 @@
+package com.stevenst.app.payload;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+public class MutualFriendsPayload {
+	private int mutualFriendsCount;
+	private List<String> mutualFriendsUsernames;
+}
@@ -1,7 +1,11 @@
 package com.stevenst.app.repository;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.stevenst.app.model.FriendRequests;
@@ -16,4 +20,16 @@ public interface FriendRequestsRepository extends JpaRepository<FriendRequests,
 	@Modifying
 	@Transactional
 	void deleteBySenderAndReceiver(User sender, User receiver);
+
+	@Query("SELECT r.receiver.id FROM FriendRequests r WHERE r.sender.id = :senderId")
+	List<Long> findReceiversIdsOfSender(Long senderId);
+
+	@Query("SELECT r.sender.id FROM FriendRequests r WHERE r.receiver.id = :receiverId")
+	List<Long> findSendersIdsOfReceiver(Long receiverId);
+
+	@Query("SELECT r.receiver.id FROM FriendRequests r WHERE r.sender.id = :senderId AND r.receiver.id IN :receiversIds")
+	List<Long> findReceiversIdsOfSenderAmong(Long senderId, Collection<Long> receiversIds);
+
+	@Query("SELECT r.sender.id FROM FriendRequests r WHERE r.receiver.id = :receiverId AND r.sender.id IN :sendersIds")
+	List<Long> findSendersIdsOfReceiverAmong(Long receiverId, Collection<Long> sendersIds);
 }
@@ -1,11 +1,12 @@
 package com.stevenst.app.repository;
 
+import java.util.ArrayList;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.stevenst.app.model.Friendships;
@@ -13,21 +14,64 @@ import com.stevenst.lib.model.User;
 
 import jakarta.transaction.Transactional;
 
+// the friendships are stored with the smaller id as user1 (see Friendships.between), so the pairs are looked up
+// in that order on the unique (user1, user2) index
 @Repository
 public interface FriendshipsRepository extends JpaRepository<Friendships, Long> {
-        @Query("SELECT COUNT(f) > 0 FROM Friendships f WHERE " +
-                        "(f.user1 = :user1 AND f.user2 = :user2) OR " +
-                        "(f.user1 = :user2 AND f.user2 = :user1)")
-        boolean existsByUsers(@Param("user1") User user1, @Param("user2") User user2);
+        default boolean existsByUsers(User user1, User user2) {
+                return user1.getId() < user2.getId() ? existsByOrderedUsersIds(user1.getId(), user2.getId())
+                                : existsByOrderedUsersIds(user2.getId(), user1.getId());
+        }
+
+        default void deleteByUsers(User user1, User user2) {
+                if (user1.getId() < user2.getId()) {
+                        deleteByOrderedUsersIds(user1.getId(), user2.getId());
+                } else {
+                        deleteByOrderedUsersIds(user2.getId(), user1.getId());
+                }
+        }
+
+        // one seek on each index instead of an OR over both columns
+        default List<Friendships> findAllByUser(User user) {
+                List<Friendships> friendships = new ArrayList<>(findAllByUser1(user));
+                friendships.addAll(findAllByUser2(user));
+                return friendships;
+        }
+
+        @Query("SELECT COUNT(f) > 0 FROM Friendships f WHERE f.user1.id = :user1Id AND f.user2.id = :user2Id")
+        boolean existsByOrderedUsersIds(Long user1Id, Long user2Id);
 
         @Modifying
         @Transactional
-        @Query("DELETE FROM Friendships f WHERE " +
-                        "(f.user1 = :user1 AND f.user2 = :user2) OR " +
-                        "(f.user1 = :user2 AND f.user2 = :user1)")
-        void deleteByUsers(User user1, User user2);
-
-        @Query("SELECT f FROM Friendships f WHERE " +
-                        "f.user1 = :user OR f.user2 = :user")
-        List<Friendships> findAllByUser(@Param("user") User user);
+        @Query("DELETE FROM Friendships f WHERE f.user1.id = :user1Id AND f.user2.id = :user2Id")
+        void deleteByOrderedUsersIds(Long user1Id, Long user2Id);
+
+        List<Friendships> findAllByUser1(User user1);
+
+        List<Friendships> findAllByUser2(User user2);
+
+        // only the ids and the usernames of both sides, to build the friend graph without loading the users
+        @Query("SELECT f.user1.id AS user1Id, f.user1.username AS user1Username, " +
+                        "f.user2.id AS user2Id, f.user2.username AS user2Username FROM Friendships f")
+        List<FriendshipOfUsers> findAllFriendshipsOfUsers();
+
+        // the rows stored before the pairs were ordered, for the normalization
+        @Query("SELECT f FROM Friendships f WHERE f.user1.id > f.user2.id ORDER BY f.id")
+        List<Friendships> findFriendshipsInReverseOrder(Pageable pageable);
+
+        // the copies of a pair (in either order) other than the oldest row
+        @Query("SELECT f.id FROM Friendships f WHERE EXISTS (SELECT 1 FROM Friendships older " +
+                        "WHERE older.id < f.id AND ((older.user1 = f.user1 AND older.user2 = f.user2) " +
+                        "OR (older.user1 = f.user2 AND older.user2 = f.user1)))")
+        List<Long> findIdsOfDuplicateFriendships();
+
+        interface FriendshipOfUsers {
+                Long getUser1Id();
+
+                String getUser1Username();
+
+                Long getUser2Id();
+
+                String getUser2Username();
+        }
 }
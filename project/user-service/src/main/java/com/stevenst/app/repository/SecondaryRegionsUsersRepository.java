@@ -1,11 +1,14 @@
 package com.stevenst.app.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import com.stevenst.app.repository.UserRepository.RegionOfUser;
 import com.stevenst.lib.model.SecondaryRegionsUsers;
 
 import jakarta.transaction.Transactional;
@@ -17,6 +20,10 @@ public interface SecondaryRegionsUsersRepository extends JpaRepository<Secondary
 	SecondaryRegionsUsers findByUserIdAndSecondaryRegionId(Long userId, Long secondaryRegionId);
 
 	Long countByUserId(Long userId);
+
+	@Query("SELECT s.user.id AS userId, s.secondaryRegion.id AS regionId FROM SecondaryRegionsUsers s " +
+			"WHERE s.user.id IN :usersIds")
+	List<RegionOfUser> findSecondaryRegionsOfUsers(Collection<Long> usersIds);
 	
 	@Modifying
 	@Transactional
@@ -0,0 +1,14 @@
+package com.stevenst.app.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.stevenst.app.model.TimelineFriendshipChange;
+
+@Repository
+public interface TimelineFriendshipChangeRepository extends JpaRepository<TimelineFriendshipChange, Long> {
+	List<TimelineFriendshipChange> findAllByOrderByIdAsc(Pageable pageable);
+}
@@ -1,8 +1,11 @@
 package com.stevenst.app.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.stevenst.lib.model.User;
@@ -12,4 +15,25 @@ public interface UserRepository extends JpaRepository<User, Long> {
 	public Optional<User> findByUsername(String username);
 
 	public Optional<User> findByEmail(String email);
+
+	List<User> findAllByUsernameIn(Collection<String> usernames);
+
+	@Query("SELECT u.id AS userId, u.primaryRegionId AS regionId FROM User u " +
+			"WHERE u.id IN :usersIds AND u.primaryRegionId IS NOT NULL")
+	List<RegionOfUser> findPrimaryRegionsOfUsers(Collection<Long> usersIds);
+
+	@Query("SELECT u.id AS id, u.username AS username FROM User u WHERE u.username IN :usernames")
+	List<IdOfUser> findIdsOfUsernames(Collection<String> usernames);
+
+	interface IdOfUser {
+		Long getId();
+
+		String getUsername();
+	}
+
+	interface RegionOfUser {
+		Long getUserId();
+
+		Long getRegionId();
+	}
 }
@@ -0,0 +1,25 @@
+package com.stevenst.app.service;
+
+import java.util.List;
+
+import com.stevenst.lib.cache.UserIdentity;
+
+public interface FriendGraphService {
+	void rebuild();
+
+	void addFriendship(UserIdentity user1, UserIdentity user2);
+
+	void removeFriendship(UserIdentity user1, UserIdentity user2);
+
+	boolean areFriends(Long user1Id, Long user2Id);
+
+	long[] getFriendsIds(Long userId);
+
+	List<String> getFriendsUsernames(Long userId);
+
+	int countMutualFriends(Long user1Id, Long user2Id);
+
+	List<String> getMutualFriendsUsernames(Long user1Id, Long user2Id);
+
+	String getUsername(Long userId);
+}
@@ -0,0 +1,14 @@
+package com.stevenst.app.service;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+
+import com.stevenst.app.payload.FriendSuggestionPayload;
+import com.stevenst.app.payload.MutualFriendsPayload;
+
+public interface FriendSuggestionService {
+	ResponseEntity<MutualFriendsPayload> getMutualFriends(String user1Username, String user2Username);
+
+	ResponseEntity<List<FriendSuggestionPayload>> getFriendSuggestions(String username, int limit);
+}
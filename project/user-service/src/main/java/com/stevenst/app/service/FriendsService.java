@@ -1,9 +1,11 @@
 package com.stevenst.app.service;
 
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.http.ResponseEntity;
 
+import com.stevenst.lib.model.enums.RelationshipStatus;
 import com.stevenst.lib.payload.ResponsePayload;
 
 public interface FriendsService {
@@ -15,6 +17,9 @@ public interface FriendsService {
 
 	ResponseEntity<List<String>> getAllFriendsUsernames(String username);
 
+	ResponseEntity<Map<String, RelationshipStatus>> getRelationshipStatuses(String viewerUsername,
+			List<String> usernames);
+
 	ResponseEntity<ResponsePayload> acceptFriendRequest(String senderUsername, String receiverUsername);
 
 	ResponseEntity<ResponsePayload> cancelFriendRequest(String senderUsername, String receiverUsername);
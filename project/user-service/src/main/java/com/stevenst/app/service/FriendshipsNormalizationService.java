@@ -0,0 +1,7 @@
+package com.stevenst.app.service;
+
+public interface FriendshipsNormalizationService {
+	int normalizeAllFriendships();
+
+	boolean createUniqueIndexIfMissing();
+}
@@ -0,0 +1,9 @@
+package com.stevenst.app.service;
+
+public interface TimelineFriendshipChangeService {
+	void recordFriendshipAdded(String user1Username, String user2Username);
+
+	void recordFriendshipRemoved(String user1Username, String user2Username);
+
+	int sendPendingChanges();
+}
@@ -1,10 +1,15 @@
 package com.stevenst.app.service;
 
+import java.util.List;
+import java.util.Map;
+
 import org.springframework.web.multipart.MultipartFile;
 
 import com.stevenst.app.payload.UserPrivatePayload;
 import com.stevenst.app.payload.UserPublicPayload;
+import com.stevenst.lib.model.enums.ImageVariant;
 import com.stevenst.lib.payload.ResponsePayload;
+import com.stevenst.lib.payload.UserIdentityCacheStatsPayload;
 
 public interface UserService {
 	UserPublicPayload getUserPublicByUsername(String username);
@@ -13,15 +18,19 @@ public interface UserService {
 
 	UserPrivatePayload getUserByEmail(String email);
 
-	String getPfpPreSignedLinkFromS3(String username);
+	String getPfpPreSignedLinkFromS3(String username, ImageVariant variant);
+
+	Map<String, String> getPfpPreSignedLinksFromS3(List<String> usernames, ImageVariant variant);
 
 	ResponsePayload savePfp(String username, MultipartFile file);
 
 	ResponsePayload removePfpFromDbAndCloud(String username);
 
-	String getCoverImgPresignedLinkFromS3(String username);
+	String getCoverImgPresignedLinkFromS3(String username, ImageVariant variant);
 
 	ResponsePayload saveCoverImg(String username, MultipartFile file);
 
 	ResponsePayload removeCoverImgFromDbAndCloud(String username);
+
+	UserIdentityCacheStatsPayload getUserIdentityCacheStats();
 }
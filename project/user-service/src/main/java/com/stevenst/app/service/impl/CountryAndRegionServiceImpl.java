@@ -330,7 +330,7 @@ public class CountryAndRegionServiceImpl implements CountryAndRegionService {
 
 		// if not add the user as chatroom participant for it
 		chatroomParticipantRepository
-				.save(ChatroomParticipant.builder().chatroom(chatroom).user(user).hasLeft(false).build());
+				.save(ChatroomParticipant.joining(chatroom, user));
 	}
 
 	private void removeUserAsParticipantForTheChatroomOfTheRegionId(User user, Long regionId) {
@@ -0,0 +1,206 @@
+package com.stevenst.app.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Service;
+
+import com.stevenst.app.repository.FriendshipsRepository;
+import com.stevenst.app.repository.FriendshipsRepository.FriendshipOfUsers;
+import com.stevenst.app.service.FriendGraphService;
+import com.stevenst.lib.cache.UserIdentity;
+
+import jakarta.annotation.PostConstruct;
+
+// keeps the friendships in memory as the sorted ids of the friends of each user, so checking a friendship
+// is a binary search and the mutual friends are the intersection of two sorted arrays
+// the graph is built from the db at startup, then kept in sync by the friends service of this node
+@Service
+public class FriendGraphServiceImpl implements FriendGraphService {
+	private static final long[] NO_FRIENDS = new long[0];
+
+	private final FriendshipsRepository friendshipsRepository;
+	// the arrays are never modified once published, the writers replace them (so the readers don't lock)
+	private volatile Map<Long, long[]> friendsIds = new ConcurrentHashMap<>();
+	private volatile Map<Long, String> usernames = new ConcurrentHashMap<>();
+
+	public FriendGraphServiceImpl(FriendshipsRepository friendshipsRepository) {
+		this.friendshipsRepository = friendshipsRepository;
+	}
+
+	// the writers wait for the rebuild, so a friendship saved while the db is read is still applied after it
+	@Override
+	@PostConstruct
+	public synchronized void rebuild() {
+		List<FriendshipOfUsers> friendships = friendshipsRepository.findAllFriendshipsOfUsers();
+
+		Map<Long, Integer> degrees = new HashMap<>();
+		Map<Long, String> newUsernames = new ConcurrentHashMap<>();
+		for (FriendshipOfUsers friendship : friendships) {
+			degrees.merge(friendship.getUser1Id(), 1, Integer::sum);
+			degrees.merge(friendship.getUser2Id(), 1, Integer::sum);
+			newUsernames.put(friendship.getUser1Id(), friendship.getUser1Username());
+			newUsernames.put(friendship.getUser2Id(), friendship.getUser2Username());
+		}
+
+		Map<Long, long[]> newFriendsIds = new ConcurrentHashMap<>(degrees.size());
+		degrees.forEach((userId, degree) -> newFriendsIds.put(userId, new long[degree]));
+		Map<Long, Integer> filled = new HashMap<>(degrees.size());
+		for (FriendshipOfUsers friendship : friendships) {
+			addToArray(newFriendsIds, filled, friendship.getUser1Id(), friendship.getUser2Id());
+			addToArray(newFriendsIds, filled, friendship.getUser2Id(), friendship.getUser1Id());
+		}
+		// the same pair can be stored twice (in both orders)
+		newFriendsIds.replaceAll((userId, ids) -> sortedWithoutDuplicates(ids));
+
+		friendsIds = newFriendsIds;
+		usernames = newUsernames;
+	}
+
+	@Override
+	public synchronized void addFriendship(UserIdentity user1, UserIdentity user2) {
+		usernames.put(user1.getId(), user1.getUsername());
+		usernames.put(user2.getId(), user2.getUsername());
+		friendsIds.put(user1.getId(), withId(getFriendsIds(user1.getId()), user2.getId()));
+		friendsIds.put(user2.getId(), withId(getFriendsIds(user2.getId()), user1.getId()));
+	}
+
+	@Override
+	public synchronized void removeFriendship(UserIdentity user1, UserIdentity user2) {
+		removeFromFriends(user1.getId(), user2.getId());
+		removeFromFriends(user2.getId(), user1.getId());
+	}
+
+	@Override
+	public boolean areFriends(Long user1Id, Long user2Id) {
+		return Arrays.binarySearch(getFriendsIds(user1Id), user2Id) >= 0;
+	}
+
+	@Override
+	public long[] getFriendsIds(Long userId) {
+		return friendsIds.getOrDefault(userId, NO_FRIENDS);
+	}
+
+	@Override
+	public List<String> getFriendsUsernames(Long userId) {
+		return toUsernames(getFriendsIds(userId));
+	}
+
+	@Override
+	public int countMutualFriends(Long user1Id, Long user2Id) {
+		return intersection(getFriendsIds(user1Id), getFriendsIds(user2Id)).length;
+	}
+
+	@Override
+	public List<String> getMutualFriendsUsernames(Long user1Id, Long user2Id) {
+		return toUsernames(intersection(getFriendsIds(user1Id), getFriendsIds(user2Id)));
+	}
+
+	@Override
+	public String getUsername(Long userId) {
+		return usernames.get(userId);
+	}
+
+	// ----------------------------------------------------------------------
+
+	// merges the two arrays, or looks up the small one in the big one when their sizes are far apart
+	static long[] intersection(long[] ids1, long[] ids2) {
+		long[] small = ids1.length <= ids2.length ? ids1 : ids2;
+		long[] big = small == ids1 ? ids2 : ids1;
+		long[] common = new long[small.length];
+		int count = 0;
+
+		if ((long) small.length * 32 < big.length) {
+			int from = 0;
+			for (long id : small) {
+				int index = Arrays.binarySearch(big, from, big.length, id);
+				if (index >= 0) {
+					common[count++] = id;
+					from = index + 1;
+				} else {
+					from = -index - 1;
+				}
+			}
+		} else {
+			int i = 0;
+			int j = 0;
+			while (i < small.length && j < big.length) {
+				if (small[i] < big[j]) {
+					i++;
+				} else if (small[i] > big[j]) {
+					j++;
+				} else {
+					common[count++] = small[i];
+					i++;
+					j++;
+				}
+			}
+		}
+
+		return Arrays.copyOf(common, count);
+	}
+
+	private List<String> toUsernames(long[] ids) {
+		List<String> friendsUsernames = new ArrayList<>(ids.length);
+		for (long id : ids) {
+			friendsUsernames.add(usernames.get(id));
+		}
+
+		return friendsUsernames;
+	}
+
+	private void removeFromFriends(Long userId, Long friendId) {
+		long[] ids = getFriendsIds(userId);
+		int index = Arrays.binarySearch(ids, friendId);
+		if (index < 0) {
+			return;
+		}
+
+		if (ids.length == 1) {
+			friendsIds.remove(userId);
+			// the username is kept, it is only needed while the user has friends and doesn't change
+			return;
+		}
+
+		long[] newIds = new long[ids.length - 1];
+		System.arraycopy(ids, 0, newIds, 0, index);
+		System.arraycopy(ids, index + 1, newIds, index, ids.length - index - 1);
+		friendsIds.put(userId, newIds);
+	}
+
+	private static long[] withId(long[] ids, long id) {
+		int index = Arrays.binarySearch(ids, id);
+		if (index >= 0) {
+			return ids;
+		}
+
+		int insertionPoint = -index - 1;
+		long[] newIds = new long[ids.length + 1];
+		System.arraycopy(ids, 0, newIds, 0, insertionPoint);
+		newIds[insertionPoint] = id;
+		System.arraycopy(ids, insertionPoint, newIds, insertionPoint + 1, ids.length - insertionPoint);
+		return newIds;
+	}
+
+	private static void addToArray(Map<Long, long[]> friendsIds, Map<Long, Integer> filled, Long userId,
+			Long friendId) {
+		int position = filled.merge(userId, 1, Integer::sum) - 1;
+		friendsIds.get(userId)[position] = friendId;
+	}
+
+	private static long[] sortedWithoutDuplicates(long[] ids) {
+		Arrays.sort(ids);
+		int count = 0;
+		for (int i = 0; i < ids.length; i++) {
+			if (i == 0 || ids[i] != ids[i - 1]) {
+				ids[count++] = ids[i];
+			}
+		}
+
+		return count == ids.length ? ids : Arrays.copyOf(ids, count);
+	}
+}
@@ -0,0 +1,283 @@
+package com.stevenst.app.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import com.stevenst.app.payload.FriendSuggestionPayload;
+import com.stevenst.app.payload.MutualFriendsPayload;
+import com.stevenst.app.repository.FriendRequestsRepository;
+import com.stevenst.app.repository.SecondaryRegionsUsersRepository;
+import com.stevenst.app.repository.UserRepository;
+import com.stevenst.app.repository.UserRepository.RegionOfUser;
+import com.stevenst.app.service.FriendGraphService;
+import com.stevenst.app.service.FriendSuggestionService;
+import com.stevenst.lib.cache.UserIdentity;
+import com.stevenst.lib.cache.UserIdentityCache;
+import com.stevenst.lib.exception.IgorUserNotFoundException;
+
+// "people you may know": the friends of the friends of a user, ranked by the number of mutual friends
+// and boosted by the regions (primary or secondary) they share with the user
+@Service
+public class FriendSuggestionServiceImpl implements FriendSuggestionService {
+	// how many candidates (with the most mutual friends) are ranked with their regions for each suggestion
+	private static final int CANDIDATES_PER_SUGGESTION = 5;
+
+	private final UserRepository userRepository;
+	private final UserIdentityCache userIdentityCache;
+	private final FriendRequestsRepository friendRequestsRepository;
+	private final SecondaryRegionsUsersRepository secondaryRegionsUsersRepository;
+	private final FriendGraphService friendGraphService;
+	private final int maxSuggestions;
+	private final long maxScannedFriendships;
+	private final double sharedRegionBoost;
+
+	public FriendSuggestionServiceImpl(UserRepository userRepository, UserIdentityCache userIdentityCache,
+			FriendRequestsRepository friendRequestsRepository,
+			SecondaryRegionsUsersRepository secondaryRegionsUsersRepository,
+			FriendGraphService friendGraphService,
+			@Value("${app.friend-suggestions.max-suggestions:50}") int maxSuggestions,
+			@Value("${app.friend-suggestions.max-scanned-friendships:500000}") long maxScannedFriendships,
+			@Value("${app.friend-suggestions.shared-region-boost:2.0}") double sharedRegionBoost) {
+		this.userRepository = userRepository;
+		this.userIdentityCache = userIdentityCache;
+		this.friendRequestsRepository = friendRequestsRepository;
+		this.secondaryRegionsUsersRepository = secondaryRegionsUsersRepository;
+		this.friendGraphService = friendGraphService;
+		this.maxSuggestions = maxSuggestions;
+		this.maxScannedFriendships = maxScannedFriendships;
+		this.sharedRegionBoost = sharedRegionBoost;
+	}
+
+	@Override
+	public ResponseEntity<MutualFriendsPayload> getMutualFriends(String user1Username, String user2Username) {
+		UserIdentity user1 = getUserByUsername(user1Username);
+		UserIdentity user2 = getUserByUsername(user2Username);
+
+		List<String> mutualFriendsUsernames = friendGraphService.getMutualFriendsUsernames(user1.getId(),
+				user2.getId());
+
+		return ResponseEntity.ok(MutualFriendsPayload.builder()
+				.mutualFriendsCount(mutualFriendsUsernames.size())
+				.mutualFriendsUsernames(mutualFriendsUsernames).build());
+	}
+
+	@Override
+	public ResponseEntity<List<FriendSuggestionPayload>> getFriendSuggestions(String username, int limit) {
+		UserIdentity user = getUserByUsername(username);
+		int suggestionsCount = Math.max(1, Math.min(limit, maxSuggestions));
+
+		CandidatesCounter counter = countFriendsOfFriends(user.getId());
+		List<Candidate> candidates = selectCandidatesWithMostMutualFriends(user.getId(), counter,
+				suggestionsCount * CANDIDATES_PER_SUGGESTION);
+		if (candidates.isEmpty()) {
+			return ResponseEntity.ok(List.of());
+		}
+
+		Set<Long> usersIds = new HashSet<>();
+		usersIds.add(user.getId());
+		candidates.forEach(candidate -> usersIds.add(candidate.id()));
+		Map<Long, Set<Long>> regionsOfUsers = getRegionsOfUsers(usersIds);
+		Set<Long> regionsOfUser = regionsOfUsers.getOrDefault(user.getId(), Set.of());
+
+		List<FriendSuggestionPayload> suggestions = new ArrayList<>(candidates.size());
+		for (Candidate candidate : candidates) {
+			int sharedRegionsCount = 0;
+			for (Long regionId : regionsOfUsers.getOrDefault(candidate.id(), Set.of())) {
+				if (regionsOfUser.contains(regionId)) {
+					sharedRegionsCount++;
+				}
+			}
+
+			suggestions.add(FriendSuggestionPayload.builder()
+					.username(friendGraphService.getUsername(candidate.id()))
+					.mutualFriendsCount(candidate.mutualFriendsCount())
+					.sharedRegionsCount(sharedRegionsCount)
+					.score(candidate.mutualFriendsCount() + sharedRegionBoost * sharedRegionsCount).build());
+		}
+
+		suggestions.sort(Comparator.comparingDouble(FriendSuggestionPayload::getScore).reversed()
+				.thenComparing(Comparator.comparingInt(FriendSuggestionPayload::getMutualFriendsCount).reversed())
+				.thenComparing(FriendSuggestionPayload::getUsername));
+
+		return ResponseEntity.ok(suggestions.subList(0, Math.min(suggestionsCount, suggestions.size())));
+	}
+
+	// ----------------------------------------------------------------------
+
+	// the friends with the fewest friends are scanned first (they say the most about the user) until the budget
+	// of scanned friendships runs out, so a user with thousands of popular friends doesn't scan millions of them
+	private CandidatesCounter countFriendsOfFriends(Long userId) {
+		long[] friendsIds = friendGraphService.getFriendsIds(userId);
+		long[][] friendsOfFriends = new long[friendsIds.length][];
+		long friendshipsOfFriends = 0;
+		for (int i = 0; i < friendsIds.length; i++) {
+			friendsOfFriends[i] = friendGraphService.getFriendsIds(friendsIds[i]);
+			friendshipsOfFriends += friendsOfFriends[i].length;
+		}
+		Arrays.sort(friendsOfFriends, Comparator.comparingInt(ids -> ids.length));
+
+		// sized for the scanned friendships so it doesn't grow while counting
+		CandidatesCounter counter = new CandidatesCounter(
+				(int) Math.min(friendshipsOfFriends, maxScannedFriendships));
+		long scannedFriendships = 0;
+		for (long[] ids : friendsOfFriends) {
+			if (scannedFriendships > 0 && scannedFriendships + ids.length > maxScannedFriendships) {
+				break;
+			}
+
+			for (long id : ids) {
+				counter.increment(id);
+			}
+			scannedFriendships += ids.length;
+		}
+
+		return counter;
+	}
+
+	// the user, the friends and the users with a pending friend request (in either direction) are left out
+	private List<Candidate> selectCandidatesWithMostMutualFriends(Long userId, CandidatesCounter counter,
+			int candidatesCount) {
+		long[] friendsIds = friendGraphService.getFriendsIds(userId);
+		Set<Long> pendingIds = new HashSet<>(friendRequestsRepository.findReceiversIdsOfSender(userId));
+		pendingIds.addAll(friendRequestsRepository.findSendersIdsOfReceiver(userId));
+
+		Comparator<Candidate> fewestMutualFriendsFirst = Comparator.comparingInt(Candidate::mutualFriendsCount)
+				.thenComparing(Comparator.comparingLong(Candidate::id).reversed());
+		PriorityQueue<Candidate> best = new PriorityQueue<>(candidatesCount + 1, fewestMutualFriendsFirst);
+
+		// most of the ids have too few mutual friends to be kept, so they are compared before being looked up
+		counter.forEach((id, count) -> {
+			Candidate candidate = new Candidate(id, count);
+			boolean isFull = best.size() >= candidatesCount;
+			if (isFull && fewestMutualFriendsFirst.compare(candidate, best.peek()) <= 0) {
+				return;
+			}
+			if (id == userId || Arrays.binarySearch(friendsIds, id) >= 0 || pendingIds.contains(id)) {
+				return;
+			}
+
+			if (isFull) {
+				best.poll();
+			}
+			best.add(candidate);
+		});
+
+		return new ArrayList<>(best);
+	}
+
+	private Map<Long, Set<Long>> getRegionsOfUsers(Set<Long> usersIds) {
+		Map<Long, Set<Long>> regionsOfUsers = new HashMap<>();
+		List<RegionOfUser> regions = new ArrayList<>(userRepository.findPrimaryRegionsOfUsers(usersIds));
+		regions.addAll(secondaryRegionsUsersRepository.findSecondaryRegionsOfUsers(usersIds));
+
+		for (RegionOfUser region : regions) {
+			regionsOfUsers.computeIfAbsent(region.getUserId(), userId -> new HashSet<>()).add(region.getRegionId());
+		}
+
+		return regionsOfUsers;
+	}
+
+	private UserIdentity getUserByUsername(String username) {
+		return userIdentityCache.get(username)
+				.orElseThrow(() -> new IgorUserNotFoundException("User with username " + username + " not found"));
+	}
+
+	private record Candidate(long id, int mutualFriendsCount) {
+	}
+
+	// counts the occurrences of the ids in open addressing arrays, without boxing them
+	static class CandidatesCounter {
+		private long[] ids;
+		private int[] counts;
+		private int size;
+
+		CandidatesCounter(int expectedSize) {
+			int capacity = Integer.highestOneBit(Math.max(16, expectedSize) * 4 - 1);
+			ids = new long[capacity];
+			counts = new int[capacity];
+		}
+
+		void increment(long id) {
+			int mask = ids.length - 1;
+			int slot = hash(id) & mask;
+			while (counts[slot] != 0 && ids[slot] != id) {
+				slot = (slot + 1) & mask;
+			}
+
+			if (counts[slot] == 0) {
+				ids[slot] = id;
+				if (++size * 2 > ids.length) {
+					counts[slot] = 1;
+					grow();
+					return;
+				}
+			}
+			counts[slot]++;
+		}
+
+		int get(long id) {
+			int mask = ids.length - 1;
+			int slot = hash(id) & mask;
+			while (counts[slot] != 0) {
+				if (ids[slot] == id) {
+					return counts[slot];
+				}
+				slot = (slot + 1) & mask;
+			}
+
+			return 0;
+		}
+
+		int size() {
+			return size;
+		}
+
+		void forEach(CountConsumer consumer) {
+			for (int slot = 0; slot < ids.length; slot++) {
+				if (counts[slot] != 0) {
+					consumer.accept(ids[slot], counts[slot]);
+				}
+			}
+		}
+
+		private void grow() {
+			long[] oldIds = ids;
+			int[] oldCounts = counts;
+			ids = new long[oldIds.length * 2];
+			counts = new int[oldCounts.length * 2];
+
+			int mask = ids.length - 1;
+			for (int oldSlot = 0; oldSlot < oldIds.length; oldSlot++) {
+				if (oldCounts[oldSlot] != 0) {
+					int slot = hash(oldIds[oldSlot]) & mask;
+					while (counts[slot] != 0) {
+						slot = (slot + 1) & mask;
+					}
+					ids[slot] = oldIds[oldSlot];
+					counts[slot] = oldCounts[oldSlot];
+				}
+			}
+		}
+
+		// the ids are dense (auto incremented), so they are spread over the slots as they are and the sorted
+		// friends of a friend are counted going forward through the arrays instead of jumping around them
+		private static int hash(long id) {
+			return Long.hashCode(id);
+		}
+
+		interface CountConsumer {
+			void accept(long id, int count);
+		}
+	}
+}
@@ -1,13 +1,21 @@
 package com.stevenst.app.service.impl;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.Set;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
 import com.stevenst.app.exception.IgorFriendRequestException;
+import com.stevenst.lib.cache.UserIdentity;
+import com.stevenst.lib.cache.UserIdentityCache;
+import com.stevenst.lib.exception.IgorMaxCapExceededException;
 import com.stevenst.lib.exception.IgorUserNotFoundException;
 import com.stevenst.app.model.FriendRequests;
 import com.stevenst.app.model.Friendships;
@@ -16,10 +24,14 @@ import com.stevenst.app.repository.FriendRequestsRepository;
 import com.stevenst.app.repository.FriendshipsRepository;
 import com.stevenst.app.repository.NotificationRepository;
 import com.stevenst.app.repository.UserRepository;
+import com.stevenst.app.repository.UserRepository.IdOfUser;
+import com.stevenst.app.service.FriendGraphService;
 import com.stevenst.app.service.FriendsService;
+import com.stevenst.app.service.TimelineFriendshipChangeService;
 import com.stevenst.lib.model.Notification;
 import com.stevenst.lib.model.User;
 import com.stevenst.lib.model.enums.NotificationType;
+import com.stevenst.lib.model.enums.RelationshipStatus;
 
 import lombok.RequiredArgsConstructor;
 
@@ -27,25 +39,26 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class FriendsServiceImpl implements FriendsService {
 	private final UserRepository userRepository;
+	private final UserIdentityCache userIdentityCache;
 	private final FriendRequestsRepository friendRequestsRepository;
 	private final FriendshipsRepository friendshipsRepository;
 	private final NotificationRepository notificationRepository;
+	private final FriendGraphService friendGraphService;
+	private final TimelineFriendshipChangeService timelineFriendshipChangeService;
+	@Value("${app.friends.max-relationship-statuses:100}")
+	private int maxRelationshipStatuses;
 
 	@Override
 	public ResponseEntity<ResponsePayload> sendFriendRequest(String senderUsername, String receiverUsername) {
-		User sender = userRepository.findByUsername(senderUsername)
-				.orElseThrow(
-						() -> new IgorUserNotFoundException("User with username " + senderUsername + " not found"));
-		User receiver = userRepository.findByUsername(receiverUsername)
-				.orElseThrow(
-						() -> new IgorUserNotFoundException("User with username " + receiverUsername + " not found"));
-
-		if (sender.equals(receiver)) {
+		User sender = getUserReference(senderUsername);
+		User receiver = getUserReference(receiverUsername);
+
+		if (sender.getId().equals(receiver.getId())) {
 			throw new IgorFriendRequestException(
 					"Cannot send a friend request to oneself (" + senderUsername + ")");
 		}
 
-		if (friendshipsRepository.existsByUsers(sender, receiver)) {
+		if (friendGraphService.areFriends(sender.getId(), receiver.getId())) {
 			throw new IgorFriendRequestException(
 					"Cannot send a friend request when already friends (from " + senderUsername + " to "
 							+ receiverUsername
@@ -86,12 +99,8 @@ public class FriendsServiceImpl implements FriendsService {
 
 	@Override
 	public ResponseEntity<ResponsePayload> checkFriendRequest(String senderUsername, String receiverUsername) {
-		User sender = userRepository.findByUsername(senderUsername)
-				.orElseThrow(
-						() -> new IgorUserNotFoundException("User with username " + senderUsername + " not found"));
-		User receiver = userRepository.findByUsername(receiverUsername)
-				.orElseThrow(
-						() -> new IgorUserNotFoundException("User with username " + receiverUsername + " not found"));
+		User sender = getUserReference(senderUsername);
+		User receiver = getUserReference(receiverUsername);
 
 		if (friendRequestsRepository.existsBySenderAndReceiver(sender, receiver)) {
 			return ResponseEntity.ok(ResponsePayload.builder().status(200)
@@ -106,12 +115,10 @@ public class FriendsServiceImpl implements FriendsService {
 
 	@Override
 	public ResponseEntity<ResponsePayload> checkFriendship(String user1Username, String user2Username) {
-		User user1 = userRepository.findByUsername(user1Username)
-				.orElseThrow(() -> new IgorUserNotFoundException("User with username " + user1Username + " not found"));
-		User user2 = userRepository.findByUsername(user2Username)
-				.orElseThrow(() -> new IgorUserNotFoundException("User with username " + user2Username + " not found"));
+		UserIdentity user1 = findUserIdentity(user1Username);
+		UserIdentity user2 = findUserIdentity(user2Username);
 
-		if (friendshipsRepository.existsByUsers(user1, user2)) {
+		if (friendGraphService.areFriends(user1.getId(), user2.getId())) {
 			return ResponseEntity.ok(ResponsePayload.builder().status(200)
 					.message("Friendship found (between " + user1Username + " and " + user2Username + ")").build());
 		} else {
@@ -122,27 +129,56 @@ public class FriendsServiceImpl implements FriendsService {
 
 	@Override
 	public ResponseEntity<List<String>> getAllFriendsUsernames(String username) {
-		User user = userRepository.findByUsername(username)
-				.orElseThrow(() -> new IgorUserNotFoundException("User with username " + username + " not found"));
+		UserIdentity user = findUserIdentity(username);
+
+		return ResponseEntity.ok(friendGraphService.getFriendsUsernames(user.getId()));
+	}
+
+	// the same 4 queries for any number of users (the viewer, the ids of the users and the friend requests
+	// both ways), the friendships come from the friend graph
+	// the unknown usernames are left out of the statuses
+	@Override
+	public ResponseEntity<Map<String, RelationshipStatus>> getRelationshipStatuses(String viewerUsername,
+			List<String> usernames) {
+		if (usernames.size() > maxRelationshipStatuses) {
+			throw new IgorMaxCapExceededException(
+					"Cannot get the relationship statuses of more than " + maxRelationshipStatuses + " users at once");
+		}
 
-		List<Friendships> friendships = friendshipsRepository.findAllByUser(user);
+		UserIdentity viewer = findUserIdentity(viewerUsername);
+		if (usernames.isEmpty()) {
+			return ResponseEntity.ok(Map.of());
+		}
 
-		List<String> friendUsernames = friendships.stream().map(friendship -> {
-			User friend = user.equals(friendship.getUser1()) ? friendship.getUser2() : friendship.getUser1();
-			return friend.getUsername();
-		}).collect(Collectors.toList());
+		Map<String, Long> idsByUsername = new HashMap<>();
+		for (IdOfUser user : userRepository.findIdsOfUsernames(new HashSet<>(usernames))) {
+			idsByUsername.put(user.getUsername(), user.getId());
+		}
+		Set<Long> sentIds = new HashSet<>();
+		Set<Long> receivedIds = new HashSet<>();
+		if (!idsByUsername.isEmpty()) {
+			sentIds.addAll(friendRequestsRepository.findReceiversIdsOfSenderAmong(viewer.getId(), idsByUsername.values()));
+			receivedIds.addAll(friendRequestsRepository.findSendersIdsOfReceiverAmong(viewer.getId(),
+					idsByUsername.values()));
+		}
 
-		return ResponseEntity.ok(friendUsernames);
+		Map<String, RelationshipStatus> statuses = new LinkedHashMap<>();
+		for (String username : usernames) {
+			Long id = idsByUsername.get(username);
+			if (id != null) {
+				statuses.put(username, getRelationshipStatus(viewer.getId(), id, sentIds, receivedIds));
+			}
+		}
+
+		return ResponseEntity.ok(statuses);
 	}
 
 	@Override
 	public ResponseEntity<ResponsePayload> acceptFriendRequest(String senderUsername, String receiverUsername) {
-		User sender = userRepository.findByUsername(senderUsername)
-				.orElseThrow(
-						() -> new IgorUserNotFoundException("User with username " + senderUsername + " not found"));
-		User receiver = userRepository.findByUsername(receiverUsername)
-				.orElseThrow(
-						() -> new IgorUserNotFoundException("User with username " + receiverUsername + " not found"));
+		UserIdentity senderIdentity = findUserIdentity(senderUsername);
+		UserIdentity receiverIdentity = findUserIdentity(receiverUsername);
+		User sender = getUserReference(senderIdentity);
+		User receiver = getUserReference(receiverIdentity);
 
 		if (friendRequestsRepository.existsBySenderAndReceiver(receiver, sender)) {
 			throw new IgorFriendRequestException(
@@ -155,11 +191,9 @@ public class FriendsServiceImpl implements FriendsService {
 		}
 
 		friendRequestsRepository.deleteBySenderAndReceiver(sender, receiver);
-		friendshipsRepository.save(Objects.requireNonNull(
-				Friendships.builder()
-						.user1(sender)
-						.user2(receiver)
-						.build()));
+		friendshipsRepository.save(Friendships.between(sender, receiver));
+		friendGraphService.addFriendship(senderIdentity, receiverIdentity);
+		timelineFriendshipChangeService.recordFriendshipAdded(senderUsername, receiverUsername);
 
 		removeNotificationsOfFriends(sender, receiver);
 		notificationRepository.save(Objects.requireNonNull(
@@ -178,12 +212,8 @@ public class FriendsServiceImpl implements FriendsService {
 
 	@Override
 	public ResponseEntity<ResponsePayload> cancelFriendRequest(String senderUsername, String receiverUsername) {
-		User sender = userRepository.findByUsername(senderUsername)
-				.orElseThrow(
-						() -> new IgorUserNotFoundException("User with username " + senderUsername + " not found"));
-		User receiver = userRepository.findByUsername(receiverUsername)
-				.orElseThrow(
-						() -> new IgorUserNotFoundException("User with username " + receiverUsername + " not found"));
+		User sender = getUserReference(senderUsername);
+		User receiver = getUserReference(receiverUsername);
 
 		if (friendRequestsRepository.existsBySenderAndReceiver(receiver, sender)) {
 			throw new IgorFriendRequestException("Cannot cancel someone else's friend request (from " + receiverUsername
@@ -206,12 +236,8 @@ public class FriendsServiceImpl implements FriendsService {
 
 	@Override
 	public ResponseEntity<ResponsePayload> declineFriendRequest(String senderUsername, String receiverUsername) {
-		User sender = userRepository.findByUsername(senderUsername)
-				.orElseThrow(
-						() -> new IgorUserNotFoundException("User with username " + senderUsername + " not found"));
-		User receiver = userRepository.findByUsername(receiverUsername)
-				.orElseThrow(
-						() -> new IgorUserNotFoundException("User with username " + receiverUsername + " not found"));
+		User sender = getUserReference(senderUsername);
+		User receiver = getUserReference(receiverUsername);
 
 		if (friendRequestsRepository.existsBySenderAndReceiver(receiver, sender)) {
 			throw new IgorFriendRequestException("Cannot decline one's own friend request (from " + receiverUsername
@@ -242,20 +268,20 @@ public class FriendsServiceImpl implements FriendsService {
 
 	@Override
 	public ResponseEntity<ResponsePayload> unfriend(String unfrienderUsername, String unfriendedUsername) {
-		User unfriender = userRepository.findByUsername(unfrienderUsername)
-				.orElseThrow(
-						() -> new IgorUserNotFoundException("User with username " + unfrienderUsername + " not found"));
-		User unfriended = userRepository.findByUsername(unfriendedUsername)
-				.orElseThrow(
-						() -> new IgorUserNotFoundException("User with username " + unfriendedUsername + " not found"));
-
-		if (!friendshipsRepository.existsByUsers(unfriender, unfriended)) {
+		UserIdentity unfrienderIdentity = findUserIdentity(unfrienderUsername);
+		UserIdentity unfriendedIdentity = findUserIdentity(unfriendedUsername);
+		User unfriender = getUserReference(unfrienderIdentity);
+		User unfriended = getUserReference(unfriendedIdentity);
+
+		if (!friendGraphService.areFriends(unfriender.getId(), unfriended.getId())) {
 			throw new IgorFriendRequestException(
 					"Cannot unfriend when no friendship found (between " + unfrienderUsername
 							+ " and " + unfriendedUsername + ")");
 		}
 
 		friendshipsRepository.deleteByUsers(unfriender, unfriended);
+		friendGraphService.removeFriendship(unfrienderIdentity, unfriendedIdentity);
+		timelineFriendshipChangeService.recordFriendshipRemoved(unfrienderUsername, unfriendedUsername);
 
 		removeNotificationsOfFriends(unfriender, unfriended);
 		notificationRepository.save(Objects.requireNonNull(
@@ -274,6 +300,40 @@ public class FriendsServiceImpl implements FriendsService {
 
 	// ----------------------------------------------------------------------
 
+	// the id and the username of the user, from the cache
+	private UserIdentity findUserIdentity(String username) {
+		return userIdentityCache.get(username)
+				.orElseThrow(() -> new IgorUserNotFoundException("User with username " + username + " not found"));
+	}
+
+	// a proxy of the user (never loaded) for the associations of the saved entities and the entity parameters of
+	// the queries, only its id is read
+	private User getUserReference(String username) {
+		return getUserReference(findUserIdentity(username));
+	}
+
+	private User getUserReference(UserIdentity user) {
+		return userRepository.getReferenceById(user.getId());
+	}
+
+	private RelationshipStatus getRelationshipStatus(Long viewerId, Long userId, Set<Long> sentIds,
+			Set<Long> receivedIds) {
+		if (viewerId.equals(userId)) {
+			return RelationshipStatus.SELF;
+		}
+		if (friendGraphService.areFriends(viewerId, userId)) {
+			return RelationshipStatus.FRIEND;
+		}
+		if (receivedIds.contains(userId)) {
+			return RelationshipStatus.FRIEND_REQUEST_RECEIVED;
+		}
+		if (sentIds.contains(userId)) {
+			return RelationshipStatus.FRIEND_REQUEST_SENT;
+		}
+
+		return RelationshipStatus.NONE;
+	}
+
 	private void removeNotificationsOfFriends(User sender, User receiver) {
 		notificationRepository.deleteByReceiverAndEmitterFriendship(receiver, sender,
 				List.of(NotificationType.FRIEND_REQUEST, NotificationType.FRIEND_REQUEST_ACCEPTED,
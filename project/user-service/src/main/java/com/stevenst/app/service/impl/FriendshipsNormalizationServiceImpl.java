@@ -0,0 +1,119 @@
+package com.stevenst.app.service.impl;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.stevenst.app.model.Friendships;
+import com.stevenst.app.repository.FriendshipsRepository;
+import com.stevenst.app.service.FriendshipsNormalizationService;
+import com.stevenst.lib.model.User;
+
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+public class FriendshipsNormalizationServiceImpl implements FriendshipsNormalizationService {
+	private static final String TABLE_NAME = "friendships";
+	private static final String UNIQUE_INDEX_NAME = "idx_friendships_user1_user2";
+
+	private final FriendshipsRepository friendshipsRepository;
+	private final DataSource dataSource;
+	@Value("${app.friendships.normalize-on-startup:false}")
+	private boolean normalizeOnStartup;
+	@Value("${app.friendships.normalization-batch-size:1000}")
+	private int batchSize;
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void normalizeOnStartup() {
+		if (normalizeOnStartup) {
+			normalizeAllFriendships();
+		} else {
+			createUniqueIndexIfMissing();
+		}
+	}
+
+	// migrates the rows stored before the pairs were ordered: the copies of a pair are deleted (the oldest row
+	// is kept), then the reversed pairs are swapped so user1 has the smaller id
+	// the unique index on (user1, user2) is created once this has run
+	@Override
+	public int normalizeAllFriendships() {
+		List<Long> duplicatesIds = friendshipsRepository.findIdsOfDuplicateFriendships();
+		for (int from = 0; from < duplicatesIds.size(); from += batchSize) {
+			friendshipsRepository.deleteAllByIdInBatch(
+					duplicatesIds.subList(from, Math.min(from + batchSize, duplicatesIds.size())));
+		}
+
+		int nbOfFriendshipsSwapped = 0;
+		List<Friendships> reversedFriendships;
+		while (!(reversedFriendships = friendshipsRepository
+				.findFriendshipsInReverseOrder(PageRequest.of(0, batchSize))).isEmpty()) {
+			for (Friendships friendship : reversedFriendships) {
+				User user1 = friendship.getUser1();
+				friendship.setUser1(friendship.getUser2());
+				friendship.setUser2(user1);
+			}
+			friendshipsRepository.saveAll(reversedFriendships);
+			nbOfFriendshipsSwapped += reversedFriendships.size();
+		}
+
+		System.out.println("Normalized the friendships: deleted " + duplicatesIds.size() + " duplicates and swapped "
+				+ nbOfFriendshipsSwapped + " reversed pairs.");
+		createUniqueIndexIfMissing();
+		return duplicatesIds.size() + nbOfFriendshipsSwapped;
+	}
+
+	// the index is left out while rows are still to be normalized (it would fail on the duplicates, or let a
+	// reversed pair be stored again the new way), until the service is started with normalize-on-startup
+	@Override
+	public boolean createUniqueIndexIfMissing() {
+		try (Connection connection = dataSource.getConnection()) {
+			DatabaseMetaData metaData = connection.getMetaData();
+			if (hasUniqueIndex(metaData, connection.getCatalog())) {
+				return false;
+			}
+
+			if (!friendshipsRepository.findIdsOfDuplicateFriendships().isEmpty()
+					|| !friendshipsRepository.findFriendshipsInReverseOrder(PageRequest.of(0, 1)).isEmpty()) {
+				System.err.println("The unique index " + UNIQUE_INDEX_NAME + " is not created until the friendships "
+						+ "are normalized (with app.friendships.normalize-on-startup).");
+				return false;
+			}
+
+			String quote = metaData.getIdentifierQuoteString().trim();
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("CREATE UNIQUE INDEX " + quote + UNIQUE_INDEX_NAME + quote + " ON " + quote
+						+ TABLE_NAME + quote + " (" + quote + "user1_id" + quote + ", " + quote + "user2_id" + quote
+						+ ")");
+			}
+			System.out.println("Created the unique index " + UNIQUE_INDEX_NAME + " of the friendships.");
+			return true;
+		} catch (SQLException e) {
+			System.err.println("Unable to create the unique index " + UNIQUE_INDEX_NAME + ": " + e.getMessage());
+			return false;
+		}
+	}
+
+	private boolean hasUniqueIndex(DatabaseMetaData metaData, String catalog) throws SQLException {
+		try (ResultSet indexes = metaData.getIndexInfo(catalog, null, TABLE_NAME, true, false)) {
+			while (indexes.next()) {
+				if (UNIQUE_INDEX_NAME.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+}
@@ -13,6 +13,8 @@ import com.stevenst.app.payload.NotificationFPayload;
 import com.stevenst.app.repository.NotificationRepository;
 import com.stevenst.app.repository.UserRepository;
 import com.stevenst.app.service.NotificationFService;
+import com.stevenst.lib.cache.UserIdentity;
+import com.stevenst.lib.cache.UserIdentityCache;
 import com.stevenst.lib.exception.IgorEntityNotFoundException;
 import com.stevenst.lib.exception.IgorNullValueException;
 import com.stevenst.lib.exception.IgorUserNotFoundException;
@@ -27,12 +29,12 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class NotificationFServiceImpl implements NotificationFService {
 	private final NotificationRepository notificationRepository;
+	private final UserIdentityCache userIdentityCache;
 	private final UserRepository userRepository;
 	// private final UserService userService;		// (s3 comm)
 
 	public List<NotificationFPayload> getLast50NotificationsF(String username) {
-		User user = userRepository.findByUsername(username).orElseThrow(
-				() -> new IgorUserNotFoundException("User not found (with username: " + username + ")"));
+		User user = getUserReference(username);
 
 		Pageable pageable = PageRequest.of(0, 50, Sort.by("id").descending());
 
@@ -45,9 +47,6 @@ public class NotificationFServiceImpl implements NotificationFService {
 							.id(notification.getId())
 							.receiverUsername(notification.getReceiver().getUsername())
 							.emitterUsername(notification.getEmitter().getUsername())
-							// .emitterPfpLink(			// (s3 comm)
-							// 		JsonUtil.getStringFromJson(userService
-							// 				.getPfpPreSignedLinkFromS3(notification.getEmitter().getUsername())))
 							.type(notification.getType())
 							.description(notification.getDescription())
 							.createdAt(notification.getCreatedAt())
@@ -55,6 +54,13 @@ public class NotificationFServiceImpl implements NotificationFService {
 					notifications.add(payload);
 				});
 
+		// the avatars of all the emitters are got together		(s3 comm)
+		// Map<String, String> emitterPfpLinks = userService.getPfpPreSignedLinksFromS3(
+		// 		notifications.stream().map(NotificationFPayload::getEmitterUsername).toList(),
+		// 		ImageVariant.THUMBNAIL);
+		// notifications.forEach(notification -> notification
+		// 		.setEmitterPfpLink(emitterPfpLinks.get(notification.getEmitterUsername())));
+
 		return notifications;
 	}
 
@@ -70,8 +76,7 @@ public class NotificationFServiceImpl implements NotificationFService {
 	}
 
 	public Integer countLast51NotificationsF(String username) {
-		User user = userRepository.findByUsername(username).orElseThrow(
-				() -> new IgorUserNotFoundException("User not found (with username: " + username + ")"));
+		User user = getUserReference(username);
 
 		Integer countOfNotificationsF = notificationRepository.countLast51NotificationsF(user,
 				List.of(NotificationType.FRIEND_REQUEST, NotificationType.FRIEND_REQUEST_ACCEPTED,
@@ -82,5 +87,13 @@ public class NotificationFServiceImpl implements NotificationFService {
 
 		return countOfNotificationsF;
 	}
+
+	// a proxy of the user (never loaded) for the entity parameters of the queries
+	private User getUserReference(String username) {
+		UserIdentity user = userIdentityCache.get(username).orElseThrow(
+				() -> new IgorUserNotFoundException("User not found (with username: " + username + ")"));
+
+		return userRepository.getReferenceById(user.getId());
+	}
 }
 // (s3 comm) -> only uncomment when you want to access the cloud storage
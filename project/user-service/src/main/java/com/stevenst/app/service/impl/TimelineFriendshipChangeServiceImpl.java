@@ -0,0 +1,123 @@
+package com.stevenst.app.service.impl;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.stevenst.app.model.TimelineFriendshipChange;
+import com.stevenst.app.repository.TimelineFriendshipChangeRepository;
+import com.stevenst.app.service.TimelineFriendshipChangeService;
+import com.stevenst.lib.client.AppServiceClient;
+import com.stevenst.lib.payload.ResponsePayload;
+
+import jakarta.annotation.PreDestroy;
+
+// the app service is told about the friendships added and removed (for the timelines of the posts) through the
+// timeline_friendship_change table: a change is stored with the friendship, sent right after in the background and
+// sent again every retry-delay until the app service applied it, so a failed call never leaves the timelines stale
+// the changes are sent one at a time in the order of their ids (an unfriend right after a new friendship must not
+// be applied first), a failure stops the sending until the next retry
+@Service
+public class TimelineFriendshipChangeServiceImpl implements TimelineFriendshipChangeService {
+	private final TimelineFriendshipChangeRepository timelineFriendshipChangeRepository;
+	private final AppServiceClient appServiceClient;
+	private final int batchSize;
+	// a single thread, so the changes are sent by one sender at a time
+	private final ExecutorService sendExecutor = Executors.newSingleThreadExecutor();
+	// the changes recorded while a send waits for the thread are sent by it, no need to queue another one
+	private final AtomicBoolean isSendQueued = new AtomicBoolean();
+
+	public TimelineFriendshipChangeServiceImpl(TimelineFriendshipChangeRepository timelineFriendshipChangeRepository,
+			AppServiceClient appServiceClient,
+			@Value("${app.timeline-friendship-changes.batch-size:100}") int batchSize) {
+		this.timelineFriendshipChangeRepository = timelineFriendshipChangeRepository;
+		this.appServiceClient = appServiceClient;
+		this.batchSize = batchSize;
+	}
+
+	@PreDestroy
+	void shutdown() {
+		sendExecutor.shutdown();
+	}
+
+	@Override
+	public void recordFriendshipAdded(String user1Username, String user2Username) {
+		record(user1Username, user2Username, true);
+	}
+
+	@Override
+	public void recordFriendshipRemoved(String user1Username, String user2Username) {
+		record(user1Username, user2Username, false);
+	}
+
+	@Scheduled(fixedDelayString = "${app.timeline-friendship-changes.retry-delay:PT30S}",
+			initialDelayString = "${app.timeline-friendship-changes.retry-delay:PT30S}")
+	public void retryPendingChanges() {
+		sendInTheBackground();
+	}
+
+	// returns the number of changes sent, the ones left are sent by the next run
+	@Override
+	public synchronized int sendPendingChanges() {
+		int nbOfChangesSent = 0;
+		List<TimelineFriendshipChange> changes;
+		while (!(changes = timelineFriendshipChangeRepository.findAllByOrderByIdAsc(PageRequest.of(0, batchSize)))
+				.isEmpty()) {
+			for (TimelineFriendshipChange change : changes) {
+				try {
+					send(change).join();
+				} catch (RuntimeException e) {
+					System.err.println("Unable to update the timelines of the posts, " + change.getUser1Username()
+							+ " and " + change.getUser2Username() + " are sent again later: " + e.getMessage());
+					return nbOfChangesSent;
+				}
+
+				timelineFriendshipChangeRepository.delete(change);
+				nbOfChangesSent++;
+			}
+		}
+
+		return nbOfChangesSent;
+	}
+
+	// ----------------------------------------------------------------------
+
+	private void record(String user1Username, String user2Username, boolean added) {
+		timelineFriendshipChangeRepository.save(TimelineFriendshipChange.builder()
+				.user1Username(user1Username)
+				.user2Username(user2Username)
+				.added(added).build());
+		sendInTheBackground();
+	}
+
+	private void sendInTheBackground() {
+		if (!isSendQueued.compareAndSet(false, true)) {
+			return;
+		}
+
+		try {
+			sendExecutor.execute(() -> {
+				isSendQueued.set(false);
+				sendPendingChanges();
+			});
+		} catch (RejectedExecutionException e) {
+			// shutting down, the changes are sent after the restart
+			isSendQueued.set(false);
+		}
+	}
+
+	private CompletableFuture<ResponsePayload> send(TimelineFriendshipChange change) {
+		return change.isAdded()
+				? appServiceClient.addFriendshipToTimelinesAsync(change.getUser1Username(), change.getUser2Username())
+				: appServiceClient.removeFriendshipFromTimelinesAsync(change.getUser1Username(),
+						change.getUser2Username());
+	}
+}
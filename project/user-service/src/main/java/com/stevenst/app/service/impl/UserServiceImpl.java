@@ -1,20 +1,30 @@
 package com.stevenst.app.service.impl;
 
+import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
-import java.time.Duration;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import com.stevenst.lib.exception.IgorImageNotFoundException;
+import com.stevenst.lib.cache.UserIdentity;
+import com.stevenst.lib.cache.UserIdentityCache;
 import com.stevenst.lib.exception.IgorIoException;
+import com.stevenst.lib.exception.IgorMaxCapExceededException;
 import com.stevenst.lib.exception.IgorNullValueException;
 import com.stevenst.lib.exception.IgorUserNotFoundException;
 import com.stevenst.lib.model.User;
+import com.stevenst.lib.model.enums.ImageVariant;
 import com.stevenst.lib.payload.ResponsePayload;
+import com.stevenst.lib.payload.UserIdentityCacheStatsPayload;
+import com.stevenst.lib.service.PresignedUrlService;
+import com.stevenst.lib.util.ImageResizer;
 import com.stevenst.app.payload.UserPrivatePayload;
 import com.stevenst.app.payload.UserPublicPayload;
 import com.stevenst.app.repository.UserRepository;
@@ -25,14 +35,7 @@ import lombok.RequiredArgsConstructor;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
-import software.amazon.awssdk.services.s3.model.GetObjectRequest;
-import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
-import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
-import software.amazon.awssdk.services.s3.model.S3Exception;
-import software.amazon.awssdk.services.s3.presigner.S3Presigner;
-import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
-import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
 
 @Service
 @RequiredArgsConstructor
@@ -43,9 +46,15 @@ public class UserServiceImpl implements UserService {
 	private static final String DEFAULT_PFP_NAME = "default-profile-picture.jpg";
 	private static final String DEFAULT_COVER_IMG_NAME = "default-cover-photo.jpg";
 	private final UserRepository userRepository;
+	private final UserIdentityCache userIdentityCache;
 	private final S3Client s3Client;
+	private final PresignedUrlService presignedUrlService;
 	@Value("${aws.bucketName}")
 	private String bucketName;
+	@Value("${app.user.max-profile-picture-links:100}")
+	private int maxProfilePictureLinks;
+	@Value("${app.user.max-image-pixels:50000000}")
+	private long maxImagePixels;
 
 	@Override
 	public UserPublicPayload getUserPublicByUsername(String username) {
@@ -85,31 +94,40 @@ public class UserServiceImpl implements UserService {
 	}
 
 	@Override
-	public String getPfpPreSignedLinkFromS3(String username) {
-		User user = getUserFromDbByUsername(username);
+	public String getPfpPreSignedLinkFromS3(String username, ImageVariant variant) {
+		// asked for every avatar shown, so the name of the picture is read from the cache
+		UserIdentity user = getUserIdentityByUsername(username);
 
-		String pfpNameFromDb = user.getProfilePictureName();
-		String key = USERS_PATH + username + "/" + pfpNameFromDb;
-		String MSG_FOR_EXCEPTION = "No profile picture was found stored in cloud for user: ";
+		return JsonUtil.convertStringToJson(presignedUrlService.getPresignedUrl(getPfpKey(user, variant)));
+	}
 
-		if (pfpNameFromDb == null || pfpNameFromDb.equals("")) {
-			key = DEFAULTS_PATH + DEFAULT_PFP_NAME;
-			MSG_FOR_EXCEPTION = MSG_FOR_EXCEPTION.replace("No profile", "No default profile");
+	// the users are read from the cache (the missing ones in one query) and the links are signed locally, so the
+	// links of a whole page of users cost a single call, the unknown usernames are left out
+	@Override
+	public Map<String, String> getPfpPreSignedLinksFromS3(List<String> usernames, ImageVariant variant) {
+		if (usernames == null) {
+			throw new IgorNullValueException("Usernames cannot be null.");
 		}
-
-		try {
-			checkIfObjectExistsInS3(key);
-		} catch (IgorImageNotFoundException e) {
-			throw new IgorImageNotFoundException(MSG_FOR_EXCEPTION + username + ".");
+		Set<String> distinctUsernames = new LinkedHashSet<>(usernames);
+		distinctUsernames.remove(null);
+		if (distinctUsernames.size() > maxProfilePictureLinks) {
+			throw new IgorMaxCapExceededException(
+					"Cannot get the profile picture links of more than " + maxProfilePictureLinks + " users at once.");
 		}
 
-		return JsonUtil.convertStringToJson(generatePresignedUrl(key));
+		Map<String, String> links = new HashMap<>();
+		userIdentityCache.getAll(distinctUsernames).forEach((username, user) -> links.put(username,
+				presignedUrlService.getPresignedUrl(getPfpKey(user, variant))));
+
+		return links;
 	}
 
 	@Override
 	public ResponsePayload savePfp(String username, MultipartFile file) {
 		User user = getUserFromDbByUsername(username);
 		String fileName = file.getOriginalFilename();
+		// decoded before the current one is removed so an image over the max pixels leaves it in place
+		BufferedImage decodedImage = readImage(fileName, file);
 
 		removePfpFromDbAndCloud(username);
 
@@ -121,7 +139,11 @@ public class UserServiceImpl implements UserService {
 		metadata.put("username", username);
 		metadata.put("pfp_name", file.getOriginalFilename());
 		String key = USERS_PATH + username + "/" + fileName;
-		return uploadPfpToS3(key, metadata, file);
+		ResponsePayload response = uploadPfpToS3(key, metadata, file);
+		uploadDerivedVariantsToS3(key, file, decodedImage);
+		setPfpVariantsStoredInDb(user);
+
+		return response;
 	}
 
 	@Override
@@ -144,25 +166,20 @@ public class UserServiceImpl implements UserService {
 	}
 
 	@Override
-	public String getCoverImgPresignedLinkFromS3(String username) {
+	public String getCoverImgPresignedLinkFromS3(String username, ImageVariant variant) {
 		User user = getUserFromDbByUsername(username);
 
+		// the name of the image in db tells if the user has one, otherwise the default one is used
 		String coverNameFromDb = user.getCoverImageName();
 		String key = USERS_PATH + username + "/cover/" + coverNameFromDb;
-		String MSG_FOR_EXCEPTION = "No cover image was found stored in cloud for user: ";
 
 		if (coverNameFromDb == null || coverNameFromDb.equals("")) {
 			key = DEFAULTS_PATH + DEFAULT_COVER_IMG_NAME;
-			MSG_FOR_EXCEPTION = MSG_FOR_EXCEPTION.replace("No cover", "No default cover");
+		} else if (user.isCoverImageVariantsStored() && ImageResizer.isResizable(coverNameFromDb)) {
+			key = variant.keyOf(key);
 		}
 
-		try {
-			checkIfObjectExistsInS3(key);
-		} catch (IgorImageNotFoundException e) {
-			throw new IgorImageNotFoundException(MSG_FOR_EXCEPTION + username + ".");
-		}
-
-		return JsonUtil.convertStringToJson(generatePresignedUrl(key));
+		return JsonUtil.convertStringToJson(presignedUrlService.getPresignedUrl(key));
 	}
 
 	@Override
@@ -188,6 +205,8 @@ public class UserServiceImpl implements UserService {
 	public ResponsePayload saveCoverImg(String username, MultipartFile file) {
 		User user = getUserFromDbByUsername(username);
 		String fileName = file.getOriginalFilename();
+		// decoded before the current one is removed so an image over the max pixels leaves it in place
+		BufferedImage decodedImage = readImage(fileName, file);
 
 		removeCoverImgFromDbAndCloud(username);
 
@@ -199,11 +218,44 @@ public class UserServiceImpl implements UserService {
 		metadata.put("username", username);
 		metadata.put("cover_img_name", file.getOriginalFilename());
 		String key = USERS_PATH + username + "/cover/" + fileName;
-		return uploadCoverImgToS3(key, metadata, file);
+		ResponsePayload response = uploadCoverImgToS3(key, metadata, file);
+		uploadDerivedVariantsToS3(key, file, decodedImage);
+		setCoverImgVariantsStoredInDb(user);
+
+		return response;
+	}
+
+	@Override
+	public UserIdentityCacheStatsPayload getUserIdentityCacheStats() {
+		return userIdentityCache.getStats();
 	}
 
 	// ----------------------------------------------------------------------------------------------------------
 
+	// the name of the picture in db tells if the user has one, otherwise the default one is used
+	// a picture stored before its variants were is linked to the original whatever the variant asked for
+	private String getPfpKey(UserIdentity user, ImageVariant variant) {
+		String pfpNameFromDb = user.getProfilePictureName();
+		if (pfpNameFromDb == null || pfpNameFromDb.equals("")) {
+			return DEFAULTS_PATH + DEFAULT_PFP_NAME;
+		}
+
+		String key = USERS_PATH + user.getUsername() + "/" + pfpNameFromDb;
+		return user.isProfilePictureVariantsStored() && ImageResizer.isResizable(pfpNameFromDb)
+				? variant.keyOf(key)
+				: key;
+	}
+
+	private UserIdentity getUserIdentityByUsername(String username) {
+		if (username == null || username.equals("")) {
+			throw new IgorNullValueException("Username cannot be null or empty.");
+		}
+
+		return userIdentityCache.get(username)
+				.orElseThrow(
+						() -> new IgorUserNotFoundException(USER_NOT_FOUND + " (with username: " + username + ")."));
+	}
+
 	private User getUserFromDbByUsername(String username) {
 		if (username == null || username.equals("")) {
 			throw new IgorNullValueException("Username cannot be null or empty.");
@@ -225,8 +277,7 @@ public class UserServiceImpl implements UserService {
 	}
 
 	private ResponsePayload removePfpFromCloud(String key, String username) {
-		DeleteObjectRequest deleteObjectRequest = createDeleteObjectRequest(key);
-		s3Client.deleteObject(deleteObjectRequest);
+		removeObjectAndVariantsFromCloud(key);
 
 		System.out.println("Removed profile picture for user: " + username);
 		return ResponsePayload.builder()
@@ -236,8 +287,7 @@ public class UserServiceImpl implements UserService {
 	}
 
 	private ResponsePayload removeCoverImgFromCloud(String key, String username) {
-		DeleteObjectRequest deleteObjectRequest = createDeleteObjectRequest(key);
-		s3Client.deleteObject(deleteObjectRequest);
+		removeObjectAndVariantsFromCloud(key);
 
 		System.out.println("Removed cover image for user: " + username);
 		return ResponsePayload.builder()
@@ -246,6 +296,63 @@ public class UserServiceImpl implements UserService {
 				.build();
 	}
 
+	// the avatars and the previews are small jpegs of the image stored next to it
+	// an image that can't be decoded is stored as it is under the derived keys so their links still work
+	private void uploadDerivedVariantsToS3(String key, MultipartFile file, BufferedImage decodedImage) {
+		if (!ImageResizer.isResizable(key)) {
+			return;
+		}
+
+		try {
+			byte[] image = file.getBytes();
+
+			for (ImageVariant variant : ImageVariant.values()) {
+				if (!variant.isDerived()) {
+					continue;
+				}
+
+				Map<String, String> metadata = new HashMap<>();
+				byte[] variantImage = image;
+				metadata.put("Content-Type", file.getContentType());
+				if (decodedImage != null) {
+					variantImage = ImageResizer.resizeToJpeg(decodedImage, variant);
+					metadata.put("Content-Type", ImageResizer.DERIVED_CONTENT_TYPE);
+				}
+
+				s3Client.putObject(createPutObjectRequest(variant.keyOf(key), metadata),
+						RequestBody.fromBytes(variantImage));
+			}
+		} catch (IOException e) {
+			System.err.println("Unable to create the variants of the image: " + e.getMessage());
+			throw new IgorIoException(e.getMessage());
+		}
+	}
+
+	// returns null when the file isn't an image that can be decoded
+	private BufferedImage readImage(String fileName, MultipartFile file) {
+		if (!ImageResizer.isResizable(fileName)) {
+			return null;
+		}
+
+		try {
+			return ImageResizer.read(file.getBytes(), maxImagePixels);
+		} catch (IOException e) {
+			System.err.println("Unable to read the image: " + e.getMessage());
+			throw new IgorIoException(e.getMessage());
+		}
+	}
+
+	private void removeObjectAndVariantsFromCloud(String key) {
+		List<String> keysToRemove = ImageResizer.isResizable(key)
+				? Arrays.stream(ImageVariant.values()).map(variant -> variant.keyOf(key)).toList()
+				: List.of(key);
+
+		for (String keyToRemove : keysToRemove) {
+			s3Client.deleteObject(createDeleteObjectRequest(keyToRemove));
+			presignedUrlService.evictPresignedUrl(keyToRemove);
+		}
+	}
+
 	private ResponsePayload uploadPfpToS3(String key, Map<String, String> metadata, MultipartFile file) {
 		PutObjectRequest putObjectRequest = createPutObjectRequest(key, metadata);
 		try (InputStream inputStream = file.getInputStream()) {
@@ -276,49 +383,29 @@ public class UserServiceImpl implements UserService {
 		}
 	}
 
-	private String generatePresignedUrl(String key) {
-		GetObjectRequest getObjectRequest = createGetObjectRequest(key);
-		Duration expiration = Duration.ofHours(1);
-
-		try (S3Presigner presigner = S3Presigner.builder().region(software.amazon.awssdk.regions.Region.EU_CENTRAL_1)
-				.build()) {
-			GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
-					.getObjectRequest(getObjectRequest)
-					.signatureDuration(expiration)
-					.build();
-
-			PresignedGetObjectRequest presignedRequest = presigner.presignGetObject(presignRequest);
-
-			return presignedRequest.url().toString();
-		} catch (S3Exception e) {
-			System.err.println("Unable to generate a presigned url:" + e.getMessage());
-			throw new IgorIoException(e.getMessage());
-		}
-	}
-
+	// the variants are only linked once they are all uploaded
 	private void setPfpNameInDb(User user, String fileName) {
 		user.setProfilePictureName(fileName);
+		user.setProfilePictureVariantsStored(false);
+		userRepository.save(user);
+		userIdentityCache.put(user);
+	}
+
+	private void setPfpVariantsStoredInDb(User user) {
+		user.setProfilePictureVariantsStored(true);
 		userRepository.save(user);
+		userIdentityCache.put(user);
 	}
 
 	private void setCoverImgInDb(User user, String fileName) {
 		user.setCoverImageName(fileName);
+		user.setCoverImageVariantsStored(false);
 		userRepository.save(user);
 	}
 
-	private void checkIfObjectExistsInS3(String key) {
-		HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
-				.bucket(bucketName)
-				.key(key)
-				.build();
-
-		try {
-			s3Client.headObject(headObjectRequest);
-		} catch (NoSuchKeyException e) {
-			throw new IgorImageNotFoundException(e.getMessage());
-		} catch (S3Exception e) {
-			throw new IgorIoException(e.getMessage());
-		}
+	private void setCoverImgVariantsStoredInDb(User user) {
+		user.setCoverImageVariantsStored(true);
+		userRepository.save(user);
 	}
 
 	private PutObjectRequest createPutObjectRequest(String key, Map<String, String> metadata) {
@@ -329,13 +416,6 @@ public class UserServiceImpl implements UserService {
 				.build();
 	}
 
-	private GetObjectRequest createGetObjectRequest(String key) {
-		return GetObjectRequest.builder()
-				.bucket(bucketName)
-				.key(key)
-				.build();
-	}
-
 	private DeleteObjectRequest createDeleteObjectRequest(String key) {
 		return DeleteObjectRequest.builder()
 				.bucket(bucketName)
@@ -0,0 +1,193 @@
+package com.stevenst.app.config;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.Objects;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.stevenst.app.repository.RevokedTokenRepository;
+import com.stevenst.app.repository.UserRepository;
+import com.stevenst.lib.cache.UserIdentityCache;
+import com.stevenst.lib.model.RevokedToken;
+import com.stevenst.lib.model.User;
+import com.stevenst.lib.security.JwtVerifier;
+import com.stevenst.lib.security.RevokedTokenFilter;
+import com.stevenst.lib.security.ServiceTokenIssuer;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import software.amazon.awssdk.services.s3.S3Client;
+
+// the requests authenticated with the tokens of the security service, verified locally
+@SpringBootTest(properties = {
+		"jwt.authentication.enabled=true",
+		"jwt.key-id=2",
+		"jwt.secret-key=" + JwtAuthenticationConfigIntegrationTest.SECRET_KEY,
+		"jwt.previous-keys=1:" + JwtAuthenticationConfigIntegrationTest.PREVIOUS_SECRET_KEY })
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class JwtAuthenticationConfigIntegrationTest {
+	static final String SECRET_KEY = "dGVzdHNlY3JldGtleXRlc3RzZWNyZXRrZXl0ZXN0c2VjcmV0a2V5dGVzdHNlY3JldGtleQ==";
+	static final String PREVIOUS_SECRET_KEY = "b3RoZXJzZWNyZXRrZXlvdGhlcnNlY3JldGtleW90aGVyc2VjcmV0a2V5";
+	private static final String UNKNOWN_SECRET_KEY = "dW5rbm93bnNlY3JldGtleXVua25vd25zZWNyZXRrZXl1bmtub3duc2VjcmV0";
+	private static final User testUser = User.builder()
+			.email("testemail123")
+			.password("testpassword123")
+			.username("testusername123").build();
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private UserIdentityCache userIdentityCache;
+	@Autowired
+	private ServiceTokenIssuer serviceTokenIssuer;
+	@Autowired
+	private RevokedTokenRepository revokedTokenRepository;
+	@Autowired
+	private RevokedTokenFilter revokedTokenFilter;
+
+	@MockBean
+	private S3Client s3Client;
+
+	@BeforeAll
+	void init() {
+		userRepository.save(Objects.requireNonNull(testUser));
+	}
+
+	@AfterAll
+	void tearDown() {
+		revokedTokenRepository.deleteAll();
+		userRepository.deleteAll();
+		userIdentityCache.invalidateAll();
+	}
+
+	@Test
+	void request_withoutToken_isForbidden() throws Exception {
+		mockMvc.perform(get("/api/user/getPublicByUsername?username=" + testUser.getUsername()))
+				.andExpect(status().isForbidden());
+	}
+
+	@Test
+	void request_withTokenOfTheActiveKey_isAuthenticated() throws Exception {
+		mockMvc.perform(get("/api/user/getPublicByUsername?username=" + testUser.getUsername())
+				.header("Authorization", "Bearer " + newToken("2", SECRET_KEY)))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void request_withTokenOfThePreviousKey_isAuthenticated() throws Exception {
+		mockMvc.perform(get("/api/user/getPublicByUsername?username=" + testUser.getUsername())
+				.header("Authorization", "Bearer " + newToken("1", PREVIOUS_SECRET_KEY)))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void request_withTokenOfAnUnknownKey_isUnauthorized() throws Exception {
+		mockMvc.perform(get("/api/user/getPublicByUsername?username=" + testUser.getUsername())
+				.header("Authorization", "Bearer " + newToken("2", UNKNOWN_SECRET_KEY)))
+				.andExpect(status().isUnauthorized())
+				.andExpect(content().string("Invalid token signature"));
+	}
+
+	@Test
+	void request_ofAnOwnUserPath_forTheUserOfTheToken_isAuthenticated() throws Exception {
+		mockMvc.perform(get("/api/friend/getAllFriendsUsernames?username=" + testUser.getUsername())
+				.header("Authorization", "Bearer " + newToken("2", SECRET_KEY)))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void request_ofAnOwnUserPath_forAnotherUser_isForbidden() throws Exception {
+		mockMvc.perform(get("/api/friend/getAllFriendsUsernames?username=otherusername123")
+				.header("Authorization", "Bearer " + newToken("2", SECRET_KEY)))
+				.andExpect(status().isForbidden());
+	}
+
+	@Test
+	void request_ofAnOwnUserPath_withoutToken_isForbidden() throws Exception {
+		mockMvc.perform(get("/api/friend/getAllFriendsUsernames?username=" + testUser.getUsername()))
+				.andExpect(status().isForbidden());
+	}
+
+	@Test
+	void request_ofAServicePath_withTheTokenOfAUser_isForbidden() throws Exception {
+		mockMvc.perform(post("/api/friend/getRelationshipStatuses?viewer=" + testUser.getUsername())
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("[]")
+				.header("Authorization", "Bearer " + newToken("2", SECRET_KEY)))
+				.andExpect(status().isForbidden());
+	}
+
+	@Test
+	void request_ofTheServicePaths_withAServiceToken_isAuthenticated() throws Exception {
+		String serviceToken = serviceTokenIssuer.getToken();
+
+		mockMvc.perform(post("/api/friend/getRelationshipStatuses?viewer=" + testUser.getUsername())
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("[]")
+				.header("Authorization", "Bearer " + serviceToken))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/api/friend/getAllFriendsUsernames?username=" + testUser.getUsername())
+				.header("Authorization", "Bearer " + serviceToken))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void request_withATokenRevokedByTheSecurityService_isUnauthorized() throws Exception {
+		String tokenId = UUID.randomUUID().toString();
+		// the security service revokes the access token on logout
+		revokedTokenRepository.save(RevokedToken.builder()
+				.tokenId(tokenId)
+				.expiresAt(LocalDateTime.now().plusMinutes(1)).build());
+		revokedTokenFilter.reload();
+
+		mockMvc.perform(get("/api/user/getPublicByUsername?username=" + testUser.getUsername())
+				.header("Authorization", "Bearer " + newToken("2", SECRET_KEY, tokenId)))
+				.andExpect(status().isUnauthorized())
+				.andExpect(content().string("Revoked token"));
+		mockMvc.perform(get("/api/user/getPublicByUsername?username=" + testUser.getUsername())
+				.header("Authorization", "Bearer " + newToken("2", SECRET_KEY, UUID.randomUUID().toString())))
+				.andExpect(status().isOk());
+	}
+
+	// ----------------------------------------
+
+	private static String newToken(String keyId, String secretKey) {
+		return newToken(keyId, secretKey, null);
+	}
+
+	private static String newToken(String keyId, String secretKey, String tokenId) {
+		return Jwts.builder()
+				.header().keyId(keyId).and()
+				.id(tokenId)
+				.claim(JwtVerifier.USER_ID_CLAIM, 1L)
+				.claim(JwtVerifier.USERNAME_CLAIM, testUser.getUsername())
+				.claim(JwtVerifier.ROLE_CLAIM, "USER")
+				.subject(testUser.getEmail())
+				.expiration(new Date(System.currentTimeMillis() + 60_000))
+				.signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey)))
+				.compact();
+	}
+}
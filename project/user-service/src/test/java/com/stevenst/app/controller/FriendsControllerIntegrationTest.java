@@ -17,6 +17,7 @@ import org.junit.jupiter.params.provider.CsvSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
@@ -25,6 +26,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -38,6 +40,8 @@ import com.stevenst.app.repository.FriendRequestsRepository;
 import com.stevenst.app.repository.FriendshipsRepository;
 import com.stevenst.app.repository.NotificationRepository;
 import com.stevenst.app.repository.UserRepository;
+import com.stevenst.app.service.FriendGraphService;
+import com.stevenst.lib.cache.UserIdentityCache;
 import com.stevenst.lib.model.User;
 
 @SpringBootTest
@@ -54,6 +58,14 @@ class FriendsControllerIntegrationTest {
 			.email("bobby_email123")
 			.password("bobby_password123")
 			.username("bobby_username123").build();
+	private static final User userCarol = User.builder()
+			.email("carol_email123")
+			.password("carol_password123")
+			.username("carol_username123").build();
+	private static final User userDavid = User.builder()
+			.email("david_email123")
+			.password("david_password123")
+			.username("david_username123").build();
 
 	@Autowired
 	private MockMvc mockMvc;
@@ -65,6 +77,10 @@ class FriendsControllerIntegrationTest {
 	private NotificationRepository notificationRepository;
 	@Autowired
 	private UserRepository userRepository;
+	@Autowired
+	private UserIdentityCache userIdentityCache;
+	@Autowired
+	private FriendGraphService friendGraphService;
 
 	@BeforeAll
 	void init() throws Exception {
@@ -512,6 +528,38 @@ class FriendsControllerIntegrationTest {
 				+ userBobby.getUsername() + ")", response.getMessage());
 	}
 
+	@Test
+	void getRelationshipStatuses() throws Exception {
+		insertUserIntoDB(userCarol);
+		insertUserIntoDB(userDavid);
+		addFriendship(userAndrew, userBobby);
+		addFriendRequest(userCarol, userAndrew);
+		addFriendRequest(userAndrew, userDavid);
+
+		mockMvc.perform(
+				post("/api/friend/getRelationshipStatuses?viewer=" + userAndrew.getUsername())
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("[\"" + userBobby.getUsername() + "\", \"" + userCarol.getUsername() + "\", \""
+								+ userDavid.getUsername() + "\", \"" + userAndrew.getUsername()
+								+ "\", \"unknown_username\"]"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(4))
+				.andExpect(jsonPath("$." + userBobby.getUsername()).value("FRIEND"))
+				.andExpect(jsonPath("$." + userCarol.getUsername()).value("FRIEND_REQUEST_RECEIVED"))
+				.andExpect(jsonPath("$." + userDavid.getUsername()).value("FRIEND_REQUEST_SENT"))
+				.andExpect(jsonPath("$." + userAndrew.getUsername()).value("SELF"));
+	}
+
+	@Test
+	void getRelationshipStatuses_noRelationship() throws Exception {
+		mockMvc.perform(
+				post("/api/friend/getRelationshipStatuses?viewer=" + userAndrew.getUsername())
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("[\"" + userBobby.getUsername() + "\"]"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$." + userBobby.getUsername()).value("NONE"));
+	}
+
 	// ---------------------------------------------------------------
 
 	private void insertUserIntoDB(User user) {
@@ -529,11 +577,9 @@ class FriendsControllerIntegrationTest {
 	}
 
 	private void addFriendship(User user1, User user2) {
-		friendshipsRepository.save(Objects.requireNonNull(
-				Friendships.builder()
-						.user1(user1)
-						.user2(user2)
-						.build()));
+		friendshipsRepository.save(Friendships.between(user1, user2));
+		// saved behind the back of the friends service
+		friendGraphService.rebuild();
 	}
 
 	private void cleanDB() {
@@ -541,6 +587,9 @@ class FriendsControllerIntegrationTest {
 		friendshipsRepository.deleteAll();
 		notificationRepository.deleteAll();
 		userRepository.deleteAll();
+		// the deleted users would still be found by their usernames
+		userIdentityCache.invalidateAll();
+		friendGraphService.rebuild();
 	}
 
 	ResponsePayload getResponsePayloadFromMvcResult(MvcResult result) throws UnsupportedEncodingException {
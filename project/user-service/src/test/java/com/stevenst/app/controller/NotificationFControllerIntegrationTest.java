@@ -33,6 +33,7 @@ import com.jayway.jsonpath.JsonPath;
 import com.stevenst.app.payload.NotificationFPayload;
 import com.stevenst.app.repository.NotificationRepository;
 import com.stevenst.app.repository.UserRepository;
+import com.stevenst.lib.cache.UserIdentityCache;
 import com.stevenst.lib.model.Notification;
 import com.stevenst.lib.model.User;
 import com.stevenst.lib.model.enums.NotificationType;
@@ -62,6 +63,8 @@ class NotificationFControllerIntegrationTest {
 	private NotificationRepository notificationRepository;
 	@Autowired
 	private UserRepository userRepository;
+	@Autowired
+	private UserIdentityCache userIdentityCache;
 
 	@BeforeAll
 	void init() throws Exception {
@@ -173,5 +176,6 @@ class NotificationFControllerIntegrationTest {
 	private void cleanDB() {
 		notificationRepository.deleteAll();
 		userRepository.deleteAll();
+		userIdentityCache.invalidateAll();
 	}
 }
\ No newline at end of file
@@ -4,9 +4,11 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.io.UnsupportedEncodingException;
@@ -15,6 +17,9 @@ import java.sql.SQLException;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import org.h2.tools.Server;
@@ -29,13 +34,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
+import com.stevenst.lib.cache.UserIdentityCache;
+import com.stevenst.lib.exception.IgorMaxCapExceededException;
 import com.stevenst.lib.exception.IgorUserNotFoundException;
 import com.stevenst.app.payload.UserPrivatePayload;
 import com.stevenst.app.payload.UserPublicPayload;
@@ -43,6 +53,7 @@ import com.stevenst.app.repository.UserRepository;
 import com.stevenst.lib.model.enums.Role;
 import com.stevenst.lib.model.User;
 import com.stevenst.lib.payload.ResponsePayload;
+import com.stevenst.lib.service.PresignedUrlService;
 
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
@@ -65,9 +76,13 @@ class UserControllerIntegrationTest {
 
 	@Autowired
 	private UserRepository userRepository;
+	@Autowired
+	private UserIdentityCache userIdentityCache;
 
 	@MockBean
 	private S3Client s3Client;
+	@MockBean
+	private PresignedUrlService presignedUrlService;
 
 	@BeforeAll
 	void init() throws Exception {
@@ -186,6 +201,40 @@ class UserControllerIntegrationTest {
 		assertTrue(true);					// forgot about this and since i still didnt figure it out ill leave a TODO behind instead.
 	}
 
+	@Test
+	void getProfilePictureLinks_leavesOutTheUnknownUsers() throws Exception {
+		when(presignedUrlService.getPresignedUrl(anyString()))
+				.thenAnswer(invocation -> "https://signed/" + invocation.getArgument(0));
+
+		MvcResult result = mockMvc.perform(post("/api/user/getProfilePictureLinks")
+				.param("variant", "THUMBNAIL")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(new ObjectMapper().writeValueAsString(
+						List.of(testUser.getUsername(), "nonexistenttestusername", testUser.getUsername()))))
+				.andExpect(status().isOk()).andReturn();
+
+		Map<String, String> links = new ObjectMapper().readValue(result.getResponse().getContentAsString(),
+				new TypeReference<Map<String, String>>() {
+				});
+		assertEquals(1, links.size());
+		assertTrue(links.get(testUser.getUsername()).startsWith("https://signed/"));
+	}
+
+	@Test
+	void getProfilePictureLinks_ofTooManyUsers_isForbidden() throws Exception {
+		List<String> usernames = new ArrayList<>();
+		for (int i = 0; i <= 100; i++) {
+			usernames.add("testusername" + i);
+		}
+
+		MvcResult result = mockMvc.perform(post("/api/user/getProfilePictureLinks")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(new ObjectMapper().writeValueAsString(usernames)))
+				.andExpect(status().isForbidden()).andReturn();
+
+		assertTrue(result.getResolvedException() instanceof IgorMaxCapExceededException);
+	}
+
 	@Test
 	void removeProfilePicture() throws Exception {
 		// Mockito.doNothing().when(s3Client).deleteObject(any(DeleteObjectRequest.class));
@@ -230,6 +279,7 @@ class UserControllerIntegrationTest {
 
 	private void cleanDB() {
 		userRepository.deleteAll();
+		userIdentityCache.invalidateAll();
 	}
 
 	private ResponsePayload getResponsePayloadFromMvcResult(MvcResult result) throws UnsupportedEncodingException {
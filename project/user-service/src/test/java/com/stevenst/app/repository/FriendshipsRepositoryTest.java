@@ -0,0 +1,118 @@
+package com.stevenst.app.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.stevenst.app.model.Friendships;
+import com.stevenst.app.service.impl.FriendshipsNormalizationServiceImpl;
+import com.stevenst.lib.model.User;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(FriendshipsNormalizationServiceImpl.class)
+class FriendshipsRepositoryTest {
+	@Autowired
+	private FriendshipsRepository friendshipsRepository;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private FriendshipsNormalizationServiceImpl friendshipsNormalizationService;
+
+	private User userAndrew;
+	private User userBobby;
+	private User userCarol;
+
+	@BeforeEach
+	void setUp() {
+		userAndrew = saveUser("andrew");
+		userBobby = saveUser("bobby");
+		userCarol = saveUser("carol");
+	}
+
+	@Test
+	void between_storesTheUserWithTheSmallerIdFirst() {
+		Friendships friendship = friendshipsRepository.save(Friendships.between(userBobby, userAndrew));
+
+		assertEquals(userAndrew, friendship.getUser1());
+		assertEquals(userBobby, friendship.getUser2());
+	}
+
+	@Test
+	void existsByUsers_andDeleteByUsers_findThePairInBothOrders() {
+		friendshipsRepository.save(Friendships.between(userAndrew, userBobby));
+
+		assertTrue(friendshipsRepository.existsByUsers(userAndrew, userBobby));
+		assertTrue(friendshipsRepository.existsByUsers(userBobby, userAndrew));
+		assertFalse(friendshipsRepository.existsByUsers(userAndrew, userCarol));
+
+		friendshipsRepository.deleteByUsers(userBobby, userAndrew);
+
+		assertFalse(friendshipsRepository.existsByUsers(userAndrew, userBobby));
+	}
+
+	@Test
+	void findAllByUser_returnsTheFriendshipsOnBothSides() {
+		friendshipsRepository.save(Friendships.between(userAndrew, userBobby));
+		friendshipsRepository.save(Friendships.between(userBobby, userCarol));
+
+		assertEquals(2, friendshipsRepository.findAllByUser(userBobby).size());
+		assertEquals(1, friendshipsRepository.findAllByUser(userCarol).size());
+	}
+
+	@Test
+	void save_ofTheSamePairTwice_isRejected() {
+		friendshipsRepository.save(Friendships.between(userAndrew, userBobby));
+
+		assertThrows(DataIntegrityViolationException.class,
+				() -> friendshipsRepository.saveAndFlush(Friendships.between(userBobby, userAndrew)));
+	}
+
+	@Test
+	void normalizeAllFriendships_deletesTheDuplicatesAndOrdersThePairs() {
+		// stored the old way, in the order of the request
+		saveUnordered(userAndrew, userBobby);
+		saveUnordered(userBobby, userAndrew);
+		saveUnordered(userCarol, userAndrew);
+
+		assertEquals(2, friendshipsNormalizationService.normalizeAllFriendships());
+
+		List<Friendships> friendships = friendshipsRepository.findAll();
+		assertEquals(2, friendships.size());
+		for (Friendships friendship : friendships) {
+			assertTrue(friendship.getUser1().getId() < friendship.getUser2().getId());
+		}
+		assertTrue(friendshipsRepository.existsByUsers(userAndrew, userCarol));
+	}
+
+	@Test
+	void createUniqueIndexIfMissing_afterTheIndexWasCreatedOnStartup_createsNothing() {
+		assertFalse(friendshipsNormalizationService.createUniqueIndexIfMissing());
+	}
+
+	// ----------------------------------------
+
+	private User saveUser(String name) {
+		return userRepository.save(User.builder()
+				.email(name + "_email")
+				.password(name + "_password")
+				.username(name + "_username").build());
+	}
+
+	private void saveUnordered(User user1, User user2) {
+		friendshipsRepository.saveAndFlush(Friendships.builder().user1(user1).user2(user2).build());
+	}
+}
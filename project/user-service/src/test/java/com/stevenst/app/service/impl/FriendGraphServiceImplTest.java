@@ -0,0 +1,116 @@
+package com.stevenst.app.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.stevenst.app.repository.FriendshipsRepository;
+import com.stevenst.app.repository.FriendshipsRepository.FriendshipOfUsers;
+import com.stevenst.lib.cache.UserIdentity;
+
+class FriendGraphServiceImplTest {
+	@Mock
+	private FriendshipsRepository friendshipsRepository;
+
+	private FriendGraphServiceImpl friendGraphService;
+
+	@BeforeEach
+	void setUp() {
+		MockitoAnnotations.openMocks(this);
+
+		// 1 - 2, 1 - 3, 2 - 3, 3 - 4 (stored twice, in both orders)
+		when(friendshipsRepository.findAllFriendshipsOfUsers()).thenReturn(List.of(
+				friendship(1L, 2L),
+				friendship(3L, 1L),
+				friendship(2L, 3L),
+				friendship(3L, 4L),
+				friendship(4L, 3L)));
+
+		friendGraphService = new FriendGraphServiceImpl(friendshipsRepository);
+		friendGraphService.rebuild();
+	}
+
+	@Test
+	void rebuild_loadsTheFriendshipsInBothDirections() {
+		assertTrue(friendGraphService.areFriends(1L, 3L));
+		assertTrue(friendGraphService.areFriends(3L, 1L));
+		assertFalse(friendGraphService.areFriends(1L, 4L));
+		assertArrayEquals(new long[] { 1L, 2L, 4L }, friendGraphService.getFriendsIds(3L));
+		assertEquals(List.of("username1", "username2", "username4"), friendGraphService.getFriendsUsernames(3L));
+	}
+
+	@Test
+	void addFriendship_andRemoveFriendship_keepTheGraphInSync() {
+		friendGraphService.addFriendship(user(1L), user(5L));
+		// already friends
+		friendGraphService.addFriendship(user(2L), user(1L));
+
+		assertArrayEquals(new long[] { 2L, 3L, 5L }, friendGraphService.getFriendsIds(1L));
+		assertEquals(List.of("username1"), friendGraphService.getFriendsUsernames(5L));
+
+		friendGraphService.removeFriendship(user(3L), user(1L));
+		friendGraphService.removeFriendship(user(5L), user(1L));
+
+		assertArrayEquals(new long[] { 2L }, friendGraphService.getFriendsIds(1L));
+		assertArrayEquals(new long[] { 2L, 4L }, friendGraphService.getFriendsIds(3L));
+		assertArrayEquals(new long[0], friendGraphService.getFriendsIds(5L));
+	}
+
+	@Test
+	void countMutualFriends_returnsTheCommonFriendsOfTheUsers() {
+		assertEquals(1, friendGraphService.countMutualFriends(1L, 2L));
+		assertEquals(List.of("username3"), friendGraphService.getMutualFriendsUsernames(1L, 2L));
+		assertEquals(0, friendGraphService.countMutualFriends(1L, 99L));
+	}
+
+	@Test
+	void intersection_ofArraysOfVeryDifferentSizes_findsTheSameIdsAsTheMerge() {
+		long[] small = { 3L, 500L, 9_998L, 20_000L };
+		long[] big = LongStream.range(0, 10_000).map(i -> i * 2).toArray();
+
+		assertArrayEquals(new long[] { 500L, 9_998L }, FriendGraphServiceImpl.intersection(small, big));
+		assertArrayEquals(new long[] { 500L, 9_998L }, FriendGraphServiceImpl.intersection(big, small));
+		assertArrayEquals(LongStream.range(0, 5_000).map(i -> i * 4).toArray(), FriendGraphServiceImpl
+				.intersection(big, LongStream.range(0, 10_000).map(i -> i * 4).toArray()));
+	}
+
+	// ----------------------------------------
+
+	private UserIdentity user(Long id) {
+		return UserIdentity.builder().id(id).username("username" + id).build();
+	}
+
+	private FriendshipOfUsers friendship(Long user1Id, Long user2Id) {
+		return new FriendshipOfUsers() {
+			@Override
+			public Long getUser1Id() {
+				return user1Id;
+			}
+
+			@Override
+			public String getUser1Username() {
+				return "username" + user1Id;
+			}
+
+			@Override
+			public Long getUser2Id() {
+				return user2Id;
+			}
+
+			@Override
+			public String getUser2Username() {
+				return "username" + user2Id;
+			}
+		};
+	}
+}
@@ -0,0 +1,167 @@
+package com.stevenst.app.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.stevenst.app.payload.FriendSuggestionPayload;
+import com.stevenst.app.payload.MutualFriendsPayload;
+import com.stevenst.app.repository.FriendRequestsRepository;
+import com.stevenst.app.repository.FriendshipsRepository;
+import com.stevenst.app.repository.SecondaryRegionsUsersRepository;
+import com.stevenst.app.repository.UserRepository;
+import com.stevenst.app.repository.UserRepository.RegionOfUser;
+import com.stevenst.app.service.impl.FriendSuggestionServiceImpl.CandidatesCounter;
+import com.stevenst.lib.cache.UserIdentity;
+import com.stevenst.lib.cache.UserIdentityCache;
+import com.stevenst.lib.model.User;
+
+class FriendSuggestionServiceImplTest {
+	private static final Long USER_ID = 1L;
+
+	@Mock
+	private UserRepository userRepository;
+	@Mock
+	private FriendRequestsRepository friendRequestsRepository;
+	@Mock
+	private SecondaryRegionsUsersRepository secondaryRegionsUsersRepository;
+	@Mock
+	private FriendshipsRepository friendshipsRepository;
+
+	private UserIdentityCache userIdentityCache;
+	private FriendGraphServiceImpl friendGraphService;
+	private FriendSuggestionServiceImpl friendSuggestionService;
+
+	@BeforeEach
+	void setUp() {
+		MockitoAnnotations.openMocks(this);
+
+		for (long id = 1; id <= 9; id++) {
+			when(userRepository.findByUsername("username" + id))
+					.thenReturn(Optional.of(User.builder().id(id).username("username" + id).build()));
+		}
+		userIdentityCache = new UserIdentityCache(userRepository::findByUsername, 100, Duration.ofMinutes(1));
+		when(friendRequestsRepository.findReceiversIdsOfSender(USER_ID)).thenReturn(List.of());
+		when(friendRequestsRepository.findSendersIdsOfReceiver(USER_ID)).thenReturn(List.of());
+		when(userRepository.findPrimaryRegionsOfUsers(anyCollection())).thenReturn(List.of());
+		when(secondaryRegionsUsersRepository.findSecondaryRegionsOfUsers(anyCollection())).thenReturn(List.of());
+
+		// the user 1 has the friends 2, 3 and 4
+		// 5 is a friend of 2, 3 and 4, 6 of 2 and 3, 7 of 2 and 8 of 3
+		friendGraphService = new FriendGraphServiceImpl(friendshipsRepository);
+		addFriendships(new long[][] { { 1, 2 }, { 1, 3 }, { 1, 4 }, { 5, 2 }, { 5, 3 }, { 5, 4 }, { 6, 2 }, { 6, 3 },
+				{ 7, 2 }, { 8, 3 }, { 2, 3 } });
+
+		friendSuggestionService = new FriendSuggestionServiceImpl(userRepository, userIdentityCache,
+				friendRequestsRepository, secondaryRegionsUsersRepository, friendGraphService, 50, 500_000, 2.0);
+	}
+
+	@Test
+	void getMutualFriends_returnsTheFriendsTheUsersHaveInCommon() {
+		MutualFriendsPayload mutualFriends = friendSuggestionService.getMutualFriends("username1", "username6")
+				.getBody();
+
+		assertEquals(2, mutualFriends.getMutualFriendsCount());
+		assertEquals(List.of("username2", "username3"), mutualFriends.getMutualFriendsUsernames());
+	}
+
+	@Test
+	void getFriendSuggestions_ranksTheFriendsOfFriendsByTheirMutualFriends() {
+		List<FriendSuggestionPayload> suggestions = friendSuggestionService.getFriendSuggestions("username1", 10)
+				.getBody();
+
+		// the friends (2, 3 and 4) and the user aren't suggested
+		assertEquals(List.of("username5", "username6", "username7", "username8"), getUsernames(suggestions));
+		assertEquals(3, suggestions.get(0).getMutualFriendsCount());
+	}
+
+	@Test
+	void getFriendSuggestions_leavesOutTheUsersWithAPendingFriendRequest() {
+		when(friendRequestsRepository.findReceiversIdsOfSender(USER_ID)).thenReturn(List.of(5L));
+		when(friendRequestsRepository.findSendersIdsOfReceiver(USER_ID)).thenReturn(List.of(7L));
+
+		assertEquals(List.of("username6", "username8"),
+				getUsernames(friendSuggestionService.getFriendSuggestions("username1", 10).getBody()));
+	}
+
+	@Test
+	void getFriendSuggestions_boostsTheUsersSharingRegionsWithTheUser() {
+		when(userRepository.findPrimaryRegionsOfUsers(anyCollection()))
+				.thenReturn(List.of(region(USER_ID, 10L), region(8L, 10L)));
+		when(secondaryRegionsUsersRepository.findSecondaryRegionsOfUsers(anyCollection()))
+				.thenReturn(List.of(region(USER_ID, 11L), region(8L, 11L), region(7L, 12L)));
+
+		List<FriendSuggestionPayload> suggestions = friendSuggestionService.getFriendSuggestions("username1", 2)
+				.getBody();
+
+		// 1 mutual friend + 2 shared regions
+		assertEquals(List.of("username8", "username5"), getUsernames(suggestions));
+		assertEquals(2, suggestions.get(0).getSharedRegionsCount());
+		assertEquals(5.0, suggestions.get(0).getScore());
+	}
+
+	@Test
+	void getFriendSuggestions_withABudgetOfScannedFriendships_scansTheLeastPopularFriendsFirst() {
+		// 4 has 2 friends, 2 and 3 have 5
+		friendSuggestionService = new FriendSuggestionServiceImpl(userRepository, userIdentityCache,
+				friendRequestsRepository, secondaryRegionsUsersRepository, friendGraphService, 50, 4, 2.0);
+
+		assertEquals(List.of("username5"),
+				getUsernames(friendSuggestionService.getFriendSuggestions("username1", 10).getBody()));
+	}
+
+	@Test
+	void candidatesCounter_countsTheIdsWhileGrowing() {
+		CandidatesCounter counter = new CandidatesCounter(4);
+		for (long id = 0; id < 1000; id++) {
+			counter.increment(id);
+			counter.increment(id * 3);
+		}
+
+		assertEquals(1000 + 666, counter.size());
+		assertEquals(2, counter.get(0));
+		assertEquals(2, counter.get(999));
+		assertEquals(1, counter.get(2997));
+		assertEquals(0, counter.get(1000));
+	}
+
+	// ----------------------------------------
+
+	private void addFriendships(long[][] friendships) {
+		for (long[] friendship : friendships) {
+			friendGraphService.addFriendship(
+					UserIdentity.builder().id(friendship[0]).username("username" + friendship[0]).build(),
+					UserIdentity.builder().id(friendship[1]).username("username" + friendship[1]).build());
+		}
+	}
+
+	private List<String> getUsernames(List<FriendSuggestionPayload> suggestions) {
+		List<String> usernames = new ArrayList<>();
+		suggestions.forEach(suggestion -> usernames.add(suggestion.getUsername()));
+		return usernames;
+	}
+
+	private RegionOfUser region(Long userId, Long regionId) {
+		return new RegionOfUser() {
+			@Override
+			public Long getUserId() {
+				return userId;
+			}
+
+			@Override
+			public Long getRegionId() {
+				return regionId;
+			}
+		};
+	}
+}
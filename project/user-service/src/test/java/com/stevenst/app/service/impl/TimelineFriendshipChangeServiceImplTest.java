@@ -0,0 +1,81 @@
+package com.stevenst.app.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+
+import com.stevenst.app.model.TimelineFriendshipChange;
+import com.stevenst.app.repository.TimelineFriendshipChangeRepository;
+import com.stevenst.lib.client.AppServiceClient;
+import com.stevenst.lib.exception.IgorServiceUnavailableException;
+import com.stevenst.lib.payload.ResponsePayload;
+
+class TimelineFriendshipChangeServiceImplTest {
+	private static final TimelineFriendshipChange ADDED = TimelineFriendshipChange.builder()
+			.id(1L).user1Username("user1").user2Username("user2").added(true).build();
+	private static final TimelineFriendshipChange REMOVED = TimelineFriendshipChange.builder()
+			.id(2L).user1Username("user1").user2Username("user2").added(false).build();
+
+	@Mock
+	private TimelineFriendshipChangeRepository timelineFriendshipChangeRepository;
+	@Mock
+	private AppServiceClient appServiceClient;
+
+	private TimelineFriendshipChangeServiceImpl timelineFriendshipChangeService;
+
+	@BeforeEach
+	void setUp() {
+		MockitoAnnotations.openMocks(this);
+		when(timelineFriendshipChangeRepository.findAllByOrderByIdAsc(any(Pageable.class)))
+				.thenReturn(List.of(ADDED, REMOVED))
+				.thenReturn(List.of());
+		timelineFriendshipChangeService = new TimelineFriendshipChangeServiceImpl(timelineFriendshipChangeRepository,
+				appServiceClient, 100);
+	}
+
+	@AfterEach
+	void tearDown() {
+		timelineFriendshipChangeService.shutdown();
+	}
+
+	@Test
+	void sendPendingChanges_sendsTheChangesInOrderAndDeletesThem() {
+		when(appServiceClient.addFriendshipToTimelinesAsync("user1", "user2"))
+				.thenReturn(CompletableFuture.completedFuture(ResponsePayload.builder().status(200).build()));
+		when(appServiceClient.removeFriendshipFromTimelinesAsync("user1", "user2"))
+				.thenReturn(CompletableFuture.completedFuture(ResponsePayload.builder().status(200).build()));
+
+		assertEquals(2, timelineFriendshipChangeService.sendPendingChanges());
+
+		InOrder inOrder = inOrder(appServiceClient, timelineFriendshipChangeRepository);
+		inOrder.verify(appServiceClient).addFriendshipToTimelinesAsync("user1", "user2");
+		inOrder.verify(timelineFriendshipChangeRepository).delete(ADDED);
+		inOrder.verify(appServiceClient).removeFriendshipFromTimelinesAsync("user1", "user2");
+		inOrder.verify(timelineFriendshipChangeRepository).delete(REMOVED);
+	}
+
+	@Test
+	void sendPendingChanges_keepsTheChangesFromTheFirstOneTheAppServiceDidNotApply() {
+		when(appServiceClient.addFriendshipToTimelinesAsync("user1", "user2"))
+				.thenReturn(CompletableFuture.failedFuture(new IgorServiceUnavailableException("app service down")));
+
+		assertEquals(0, timelineFriendshipChangeService.sendPendingChanges());
+
+		verify(appServiceClient, never()).removeFriendshipFromTimelinesAsync("user1", "user2");
+		verify(timelineFriendshipChangeRepository, never()).delete(any(TimelineFriendshipChange.class));
+	}
+}